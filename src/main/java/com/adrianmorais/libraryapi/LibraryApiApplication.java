@@ -1,11 +1,15 @@
 package com.adrianmorais.libraryapi;
 
 import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+
 @SpringBootApplication
 @EnableScheduling
 public class LibraryApiApplication {
@@ -17,7 +21,16 @@ public class LibraryApiApplication {
 
 	@Bean
 	public ModelMapper modelMapper() {
-		return new ModelMapper();
+		ModelMapper modelMapper = new ModelMapper();
+		// o cliente do emprestimo vem da entidade Customer (ou das colunas antigas, se nao migrado)
+		modelMapper.addMappings(new PropertyMap<Loan, LoanDTO>() {
+			@Override
+			protected void configure() {
+				map().setCustomer(source.getCustomerName());
+				map().setEmail(source.getCustomerEmail());
+			}
+		});
+		return modelMapper;
 	}
 
 }
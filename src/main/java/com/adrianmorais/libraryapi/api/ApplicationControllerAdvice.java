@@ -25,13 +25,13 @@ public class ApplicationControllerAdvice {
 	@ExceptionHandler(BussinessException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErrors handleValidationException(BussinessException ex) {
-		return new ApiErrors(ex);
+		return ApiErrors.of(ex.getMessage());
 	}
 
 	@ExceptionHandler(ResponseStatusException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ResponseEntity<ApiErrors> handleResponseStatusException(ResponseStatusException ex) {
-		return new ResponseEntity<ApiErrors>(new ApiErrors(ex), ex.getStatus());
+		return new ResponseEntity<ApiErrors>(ApiErrors.of(ex.getReason()), ex.getStatus());
 	}
 
 }
@@ -0,0 +1,241 @@
+package com.adrianmorais.libraryapi.api.batch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.adrianmorais.libraryapi.api.dto.BatchOperationDTO;
+import com.adrianmorais.libraryapi.api.dto.BatchRequestDTO;
+import com.adrianmorais.libraryapi.api.dto.BatchResponseDTO;
+import com.adrianmorais.libraryapi.api.dto.BatchResultDTO;
+import com.adrianmorais.libraryapi.api.exception.ApiErrors;
+import com.adrianmorais.libraryapi.config.ratelimit.RateLimitFilter;
+import com.adrianmorais.libraryapi.config.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executa as operacoes de POST /api/batch em ordem, numa unica transacao, passando cada uma pelo mesmo
+ * mapeamento, conversores e ControllerAdvice de uma requisicao comum aos controllers de livros e emprestimos.
+ *
+ * Com stopOnError a primeira resposta 4xx/5xx interrompe o lote e desfaz tudo; as operacoes seguintes voltam
+ * com 424. Sem stopOnError o lote segue e confirma o que deu certo, exceto quando a falha deixou a transacao
+ * marcada para rollback ou escapou dos handlers de erro: ai o lote para e nada e confirmado.
+ *
+ * As operacoes nao passam pelos filtros: antes da transacao cada uma e cobrada do limite por cliente pelo
+ * balde do seu tipo, e o lote inteiro e recusado com 429 se faltarem fichas.
+ */
+@Component
+@Slf4j
+public class BatchExecutor {
+
+	static final String[] PREFIXES = { "/api/books", "/api/loans" };
+	static final List<String> METHODS = Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE");
+
+	private static final BatchResultDTO SKIPPED = BatchResultDTO.builder().status(HttpStatus.FAILED_DEPENDENCY.value()).build();
+	private static final byte[] NO_BODY = new byte[0];
+
+	private final RequestMappingHandlerMapping handlerMapping;
+	private final RequestMappingHandlerAdapter handlerAdapter;
+	private final HandlerExceptionResolver exceptionResolver;
+	private final TransactionTemplate transaction;
+	private final ObjectMapper objectMapper;
+	private final RateLimitFilter rateLimitFilter;
+	private final int maxOperations;
+
+	public BatchExecutor(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+			RequestMappingHandlerAdapter handlerAdapter,
+			@Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+			PlatformTransactionManager transactionManager, ObjectMapper objectMapper, RateLimitFilter rateLimitFilter,
+			@Value("${application.batch.max-operations:50}") int maxOperations) {
+		this.handlerMapping = handlerMapping;
+		this.handlerAdapter = handlerAdapter;
+		this.exceptionResolver = exceptionResolver;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.objectMapper = objectMapper;
+		this.rateLimitFilter = rateLimitFilter;
+		this.maxOperations = maxOperations;
+	}
+
+	public BatchResponseDTO execute(BatchRequestDTO batch, HttpServletRequest request, HttpServletResponse response) {
+		List<BatchOperationDTO> operations = validate(batch);
+		charge(operations, request, response);
+		List<BatchResultDTO> results = new ArrayList<>(operations.size());
+
+		boolean committed;
+		try {
+			committed = transaction.execute(status -> {
+				boolean stopped = false;
+				for (BatchOperationDTO operation : operations) {
+					if (stopped) {
+						results.add(SKIPPED);
+						continue;
+					}
+					BatchResultDTO result = dispatch(operation, request, response);
+					boolean unhandled = result == null;
+					results.add(unhandled ? error(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error") : result);
+					stopped = unhandled || status.isRollbackOnly()
+							|| (batch.isStopOnError() && result.getStatus() >= 400);
+				}
+				if (stopped)
+					status.setRollbackOnly();
+				return !stopped;
+			});
+		} catch (TransactionException | DataAccessException e) {
+			log.warn("Batch of {} operations could not be committed", operations.size(), e);
+			committed = false;
+		}
+		return BatchResponseDTO.builder().committed(committed).results(results).build();
+	}
+
+	private List<BatchOperationDTO> validate(BatchRequestDTO batch) {
+		List<BatchOperationDTO> operations = batch.getOperations() == null ? Collections.emptyList() : batch.getOperations();
+		if (operations.isEmpty() || operations.size() > maxOperations)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"A batch must have between 1 and " + maxOperations + " operations");
+		for (BatchOperationDTO operation : operations) {
+			if (operation == null || operation.getMethod() == null
+					|| !METHODS.contains(operation.getMethod().toUpperCase(Locale.ROOT)))
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch operations must use one of " + METHODS);
+			if (!allowed(operation.getPath()))
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+						"Batch operations must target " + String.join(" or ", PREFIXES));
+		}
+		return operations;
+	}
+
+	private void charge(List<BatchOperationDTO> operations, HttpServletRequest request, HttpServletResponse response) {
+		int search = 0;
+		for (BatchOperationDTO operation : operations) {
+			String path = operation.getPath();
+			int query = path.indexOf('?');
+			if (RateLimitFilter.tier(operation.getMethod().toUpperCase(Locale.ROOT),
+					query < 0 ? path : path.substring(0, query)) == RateLimiter.Tier.SEARCH)
+				search++;
+		}
+		if (!rateLimitFilter.tryAcquire(request, response, operations.size() - search, search))
+			throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+	}
+
+	static boolean allowed(String path) {
+		if (path == null || path.contains(".."))
+			return false;
+		for (String prefix : PREFIXES) {
+			if (path.startsWith(prefix)) {
+				if (path.length() == prefix.length())
+					return true;
+				char next = path.charAt(prefix.length());
+				return next == '/' || next == '?';
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Mesmo caminho do DispatcherServlet para um handler anotado: mapeamento, interceptors, adapter e, nas
+	 * excecoes, os HandlerExceptionResolver. Nulo quando a excecao nao foi tratada por nenhum deles.
+	 */
+	private BatchResultDTO dispatch(BatchOperationDTO operation, HttpServletRequest request, HttpServletResponse response) {
+		String path = operation.getPath();
+		int query = path.indexOf('?');
+		BatchRequest subRequest = new BatchRequest(request, operation.getMethod().toUpperCase(Locale.ROOT),
+				query < 0 ? path : path.substring(0, query), query < 0 ? null : path.substring(query + 1), body(operation));
+		BatchResponse subResponse = new BatchResponse(response);
+
+		Object handler = null;
+		HandlerInterceptor[] interceptors = null;
+		int applied = 0;
+		Exception failure = null;
+		try {
+			HandlerExecutionChain chain = handlerMapping.getHandler(subRequest);
+			if (chain == null)
+				return error(HttpStatus.NOT_FOUND, null);
+			handler = chain.getHandler();
+			interceptors = chain.getInterceptors();
+			for (; interceptors != null && applied < interceptors.length; applied++)
+				if (!interceptors[applied].preHandle(subRequest, subResponse, handler))
+					return result(subResponse);
+			handlerAdapter.handle(subRequest, subResponse, handler);
+		} catch (Exception e) {
+			failure = e;
+			try {
+				if (exceptionResolver.resolveException(subRequest, subResponse, handler, e) == null) {
+					log.error("Batch operation {} {} failed", operation.getMethod(), path, e);
+					return null;
+				}
+			} catch (RuntimeException resolverFailure) {
+				log.error("Batch operation {} {} failed", operation.getMethod(), path, resolverFailure);
+				return null;
+			}
+		} finally {
+			for (int i = applied - 1; i >= 0; i--)
+				afterCompletion(interceptors[i], subRequest, subResponse, handler, failure);
+		}
+		return result(subResponse);
+	}
+
+	private static void afterCompletion(HandlerInterceptor interceptor, BatchRequest request, BatchResponse response,
+			Object handler, Exception failure) {
+		try {
+			interceptor.afterCompletion(request, response, handler, failure);
+		} catch (Exception e) {
+			log.warn("HandlerInterceptor.afterCompletion threw exception", e);
+		}
+	}
+
+	private byte[] body(BatchOperationDTO operation) {
+		if (operation.getBody() == null || operation.getBody().isNull())
+			return NO_BODY;
+		try {
+			return objectMapper.writeValueAsBytes(operation.getBody());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private BatchResultDTO result(BatchResponse response) {
+		byte[] body = response.getBody();
+		JsonNode node = null;
+		if (body.length > 0) {
+			try {
+				node = objectMapper.readTree(body);
+			} catch (IOException e) {
+				// corpo que nao e JSON (ex.: texto de erro) volta como string
+				node = new TextNode(new String(body, StandardCharsets.UTF_8));
+			}
+		}
+		return BatchResultDTO.builder().status(response.getStatus()).body(node).build();
+	}
+
+	private BatchResultDTO error(HttpStatus status, String message) {
+		return BatchResultDTO.builder().status(status.value())
+				.body(message == null ? null : objectMapper.valueToTree(ApiErrors.of(message))).build();
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.adrianmorais.libraryapi.api.batch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import com.adrianmorais.libraryapi.config.CachedBodyRequest;
+
+/**
+ * Uma operacao do lote vista como requisicao propria: metodo, caminho, parametros e corpo da operacao, sempre
+ * em JSON. Atributos ficam num mapa separado para o mapeamento de uma operacao nao vazar para a proxima; o
+ * resto (sessao, cookies, usuario) vem da requisicao do lote.
+ */
+class BatchRequest extends CachedBodyRequest {
+
+	private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+	private final String method;
+	private final String path;
+	private final String queryString;
+	private final Map<String, String[]> parameters = new LinkedHashMap<>();
+	private final Map<String, Object> attributes = new HashMap<>();
+
+	BatchRequest(HttpServletRequest request, String method, String path, String queryString, byte[] body) {
+		super(request, body);
+		this.method = method;
+		this.path = path;
+		this.queryString = queryString;
+		if (queryString != null) {
+			MultiValueMap<String, String> query = UriComponentsBuilder.newInstance().query(queryString).build()
+					.getQueryParams();
+			query.forEach((name, values) -> parameters.put(decode(name), values.stream()
+					.map(value -> value == null ? "" : decode(value)).toArray(String[]::new)));
+		}
+	}
+
+	private static String decode(String value) {
+		return UriUtils.decode(value.replace('+', ' '), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public String getRequestURI() {
+		return getContextPath() + path;
+	}
+
+	@Override
+	public StringBuffer getRequestURL() {
+		StringBuffer url = new StringBuffer(getScheme()).append("://").append(getServerName());
+		if (getServerPort() > 0)
+			url.append(':').append(getServerPort());
+		return url.append(getRequestURI());
+	}
+
+	@Override
+	public String getServletPath() {
+		return path;
+	}
+
+	@Override
+	public String getPathInfo() {
+		return null;
+	}
+
+	@Override
+	public String getQueryString() {
+		return queryString;
+	}
+
+	@Override
+	public String getParameter(String name) {
+		String[] values = parameters.get(name);
+		return values == null || values.length == 0 ? null : values[0];
+	}
+
+	@Override
+	public Map<String, String[]> getParameterMap() {
+		return Collections.unmodifiableMap(parameters);
+	}
+
+	@Override
+	public Enumeration<String> getParameterNames() {
+		return Collections.enumeration(parameters.keySet());
+	}
+
+	@Override
+	public String[] getParameterValues(String name) {
+		return parameters.get(name);
+	}
+
+	@Override
+	public String getHeader(String name) {
+		if (HttpHeaders.ACCEPT.equalsIgnoreCase(name) || HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name))
+			return JSON;
+		if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+			return String.valueOf(getBody().length);
+		if (isBodyHeader(name))
+			return null;
+		return super.getHeader(name);
+	}
+
+	@Override
+	public Enumeration<String> getHeaders(String name) {
+		if (!isBodyHeader(name))
+			return super.getHeaders(name);
+		String value = getHeader(name);
+		return Collections.enumeration(value == null ? Collections.emptyList() : Collections.singletonList(value));
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		List<String> names = Collections.list(super.getHeaderNames());
+		names.removeIf(BatchRequest::isBodyHeader);
+		names.add(HttpHeaders.ACCEPT);
+		names.add(HttpHeaders.CONTENT_TYPE);
+		names.add(HttpHeaders.CONTENT_LENGTH);
+		return Collections.enumeration(names);
+	}
+
+	// cabecalhos que descrevem o corpo do lote, nao o da operacao
+	private static boolean isBodyHeader(String name) {
+		return HttpHeaders.ACCEPT.equalsIgnoreCase(name) || HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+				|| HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) || HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+				|| HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name) || HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name);
+	}
+
+	@Override
+	public String getContentType() {
+		return JSON;
+	}
+
+	@Override
+	public int getContentLength() {
+		return getBody().length;
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return getBody().length;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return StandardCharsets.UTF_8.name();
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public Enumeration<String> getAttributeNames() {
+		return Collections.enumeration(attributes.keySet());
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		if (value == null)
+			attributes.remove(name);
+		else
+			attributes.put(name, value);
+	}
+
+	@Override
+	public void removeAttribute(String name) {
+		attributes.remove(name);
+	}
+
+	@Override
+	public DispatcherType getDispatcherType() {
+		return DispatcherType.REQUEST;
+	}
+
+	@Override
+	public boolean isAsyncStarted() {
+		return false;
+	}
+
+	@Override
+	public boolean isAsyncSupported() {
+		return false;
+	}
+
+	@Override
+	public AsyncContext startAsync() {
+		throw new IllegalStateException("Async processing is not supported inside a batch");
+	}
+
+	@Override
+	public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+		throw new IllegalStateException("Async processing is not supported inside a batch");
+	}
+
+}
@@ -0,0 +1,234 @@
+package com.adrianmorais.libraryapi.api.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Resposta de uma operacao do lote, guardada em memoria: status, cabecalhos e corpo nunca chegam a resposta
+ * do lote. So os cookies passam, para o read-your-writes continuar valendo depois de uma escrita no lote.
+ */
+class BatchResponse extends HttpServletResponseWrapper {
+
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+	private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+	private int status = SC_OK;
+	private String contentType;
+	private PrintWriter writer;
+
+	BatchResponse(HttpServletResponse response) {
+		super(response);
+	}
+
+	byte[] getBody() {
+		if (writer != null)
+			writer.flush();
+		return body.toByteArray();
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void setStatus(int status, String message) {
+		this.status = status;
+	}
+
+	@Override
+	public void sendError(int status) {
+		this.status = status;
+	}
+
+	@Override
+	public void sendError(int status, String message) {
+		this.status = status;
+	}
+
+	@Override
+	public void sendRedirect(String location) {
+		this.status = SC_FOUND;
+		setHeader("Location", location);
+	}
+
+	@Override
+	public boolean containsHeader(String name) {
+		return headers.containsKey(name);
+	}
+
+	@Override
+	public String getHeader(String name) {
+		List<String> values = headers.get(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+
+	@Override
+	public Collection<String> getHeaders(String name) {
+		List<String> values = headers.get(name);
+		return values == null ? Collections.emptyList() : values;
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return headers.keySet();
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		List<String> values = new ArrayList<>(1);
+		values.add(value);
+		headers.put(name, values);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		headers.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		setHeader(name, String.valueOf(value));
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		addHeader(name, String.valueOf(value));
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+		setHeader(name, String.valueOf(date));
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+		addHeader(name, String.valueOf(date));
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return StandardCharsets.UTF_8.name();
+	}
+
+	@Override
+	public void setCharacterEncoding(String charset) {
+	}
+
+	@Override
+	public void setContentLength(int length) {
+	}
+
+	@Override
+	public void setContentLengthLong(long length) {
+	}
+
+	@Override
+	public void setLocale(Locale locale) {
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		return new ServletOutputStream() {
+
+			@Override
+			public void write(int b) {
+				body.write(b);
+			}
+
+			@Override
+			public void write(byte[] buffer, int offset, int length) {
+				body.write(buffer, offset, length);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+				// o corpo fica em memoria: sempre pronto para escrever
+				try {
+					listener.onWritePossible();
+				} catch (IOException e) {
+					listener.onError(e);
+				}
+			}
+		};
+	}
+
+	@Override
+	public PrintWriter getWriter() {
+		if (writer == null)
+			writer = new PrintWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+		return writer;
+	}
+
+	@Override
+	public void flushBuffer() {
+		if (writer != null)
+			writer.flush();
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return false;
+	}
+
+	@Override
+	public void reset() {
+		resetBuffer();
+		headers.clear();
+		status = SC_OK;
+		contentType = null;
+	}
+
+	@Override
+	public void resetBuffer() {
+		if (writer != null)
+			writer.flush();
+		body.reset();
+	}
+
+	@Override
+	public void setBufferSize(int size) {
+	}
+
+	@Override
+	public int getBufferSize() {
+		return body.size();
+	}
+
+}
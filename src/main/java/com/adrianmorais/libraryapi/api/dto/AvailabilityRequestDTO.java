@@ -0,0 +1,20 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRequestDTO {
+
+	private List<String> isbns;
+
+	private List<Long> ids;
+
+}
@@ -0,0 +1,23 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperationDTO {
+
+	private String method;
+
+	// caminho com a query string, ex.: /api/loans?isbn=123
+	private String path;
+
+	private JsonNode body;
+
+}
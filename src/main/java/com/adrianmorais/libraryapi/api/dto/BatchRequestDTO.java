@@ -0,0 +1,22 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequestDTO {
+
+	private List<BatchOperationDTO> operations;
+
+	// padrao: a primeira operacao com erro desfaz o lote inteiro
+	@Builder.Default
+	private boolean stopOnError = true;
+
+}
@@ -0,0 +1,20 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+
+	private int status;
+
+	private JsonNode body;
+
+}
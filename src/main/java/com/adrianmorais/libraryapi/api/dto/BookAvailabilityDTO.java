@@ -0,0 +1,35 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAvailabilityDTO {
+
+	private Long id;
+
+	private String isbn;
+
+	// false quando o isbn ou id pedido nao existe
+	private boolean found;
+
+	private boolean available;
+
+	// emprestimo em aberto; nulos quando disponivel
+	private Long loanId;
+
+	private LocalDate loanDate;
+
+	// dia a partir do qual o emprestimo fica atrasado
+	private LocalDate dueDate;
+
+	private boolean late;
+
+}
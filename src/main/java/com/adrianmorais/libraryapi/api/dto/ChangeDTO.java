@@ -0,0 +1,33 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+
+	private Long cursor;
+
+	// book ou loan
+	private String entity;
+
+	private Long id;
+
+	// CREATED, UPDATED ou DELETED
+	private String type;
+
+	private LocalDateTime at;
+
+	// BookDTO ou LoanDTO apos a alteracao; nulo em DELETED
+	private JsonNode data;
+
+}
@@ -0,0 +1,24 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedResponse {
+
+	private List<ChangeDTO> items;
+
+	// valor de since para a proxima chamada
+	private long cursor;
+
+	// limite atingido: ha mais alteracoes para buscar sem esperar
+	private boolean more;
+
+}
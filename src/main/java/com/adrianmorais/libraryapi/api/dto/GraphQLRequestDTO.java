@@ -0,0 +1,22 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GraphQLRequestDTO {
+
+	private String query;
+
+	private String operationName;
+
+	private Map<String, Object> variables;
+
+}
@@ -0,0 +1,87 @@
+package com.adrianmorais.libraryapi.api.dto;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Envelope enxuto para listas paginadas: {@code items}, {@code page}, {@code size} e,
+ * quando conhecido, {@code total}. Os itens sao convertidos para DTO apenas durante a
+ * serializacao (ver PageResponseSerializer), sem montar uma lista intermediaria. Com
+ * {@link #withFields(Set)}, apenas as propriedades indicadas de cada item sao escritas.
+ */
+public class PageResponse<T> {
+
+	private final List<?> source;
+	private final Function<Object, ? extends T> mapper;
+	private final int page;
+	private final int size;
+	private final Long total;
+	private final Set<String> fields;
+
+	@SuppressWarnings("unchecked")
+	private <E> PageResponse(Slice<E> slice, Function<? super E, ? extends T> mapper, Long total) {
+		this.source = slice.getContent();
+		this.mapper = (Function<Object, ? extends T>) mapper;
+		this.page = slice.getNumber();
+		this.size = slice.getSize();
+		this.total = total;
+		this.fields = null;
+	}
+
+	private PageResponse(PageResponse<T> other, Set<String> fields) {
+		this.source = other.source;
+		this.mapper = other.mapper;
+		this.page = other.page;
+		this.size = other.size;
+		this.total = other.total;
+		this.fields = fields;
+	}
+
+	public static <E, T> PageResponse<T> of(Page<E> page, Function<? super E, ? extends T> mapper) {
+		return new PageResponse<>(page, mapper, page.getTotalElements());
+	}
+
+	public static <E, T> PageResponse<T> of(Slice<E> slice, Function<? super E, ? extends T> mapper) {
+		if (slice instanceof Page)
+			return of((Page<E>) slice, mapper);
+		return new PageResponse<>(slice, mapper, null);
+	}
+
+	public PageResponse<T> withFields(Set<String> fields) {
+		return fields == null ? this : new PageResponse<>(this, fields);
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public Long getTotal() {
+		return total;
+	}
+
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	public int getItemCount() {
+		return source.size();
+	}
+
+	public T getItem(int index) {
+		return mapper.apply(source.get(index));
+	}
+
+	public List<T> getItems() {
+		return source.stream().map(mapper).collect(Collectors.toList());
+	}
+
+}
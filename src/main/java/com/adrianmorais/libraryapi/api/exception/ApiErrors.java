@@ -1,8 +1,10 @@
 package com.adrianmorais.libraryapi.api.exception;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
@@ -10,6 +12,13 @@ import org.springframework.web.server.ResponseStatusException;
 import com.adrianmorais.libraryapi.exception.BussinessException;
 
 public class ApiErrors {
+
+	// corpos de erro de uma mensagem so sao imutaveis e reaproveitados; o limite evita
+	// que mensagens dinamicas ("Unknown field: x") facam o cache crescer sem fim
+	static final int MAX_CACHED = 256;
+	private static final Map<String, ApiErrors> CACHE = new ConcurrentHashMap<>();
+	private static final ApiErrors NO_MESSAGE = new ApiErrors((String) null);
+
 	private List<String> errors;
 
 	public ApiErrors(BindingResult bindingResult) {
@@ -18,11 +27,27 @@ public class ApiErrors {
 	}
 
 	public ApiErrors(BussinessException ex) {
-		this.errors = Arrays.asList(ex.getMessage());
+		this(ex.getMessage());
 	}
 
 	public ApiErrors(ResponseStatusException ex) {
-		this.errors = Arrays.asList(ex.getReason());
+		this(ex.getReason());
+	}
+
+	public ApiErrors(String message) {
+		this.errors = Collections.singletonList(message);
+	}
+
+	public static ApiErrors of(String message) {
+		if (message == null)
+			return NO_MESSAGE;
+		ApiErrors cached = CACHE.get(message);
+		if (cached != null)
+			return cached;
+		ApiErrors errors = new ApiErrors(message);
+		if (CACHE.size() < MAX_CACHED)
+			CACHE.putIfAbsent(message, errors);
+		return errors;
 	}
 
 	public List<String> getErrors() {
@@ -0,0 +1,22 @@
+package com.adrianmorais.libraryapi.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 404 sem stack trace, para os lookups por id que nao encontram o recurso.
+ */
+public class NotFoundException extends ResponseStatusException {
+
+	private static final long serialVersionUID = 2911305318431580125L;
+
+	public NotFoundException() {
+		super(HttpStatus.NOT_FOUND);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+}
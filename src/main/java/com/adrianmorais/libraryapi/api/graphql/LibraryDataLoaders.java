@@ -0,0 +1,66 @@
+package com.adrianmorais.libraryapi.api.graphql;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.springframework.stereotype.Component;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.LoanService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * DataLoaders de uma consulta GraphQL: os ids pedidos num nivel da consulta sao juntados e resolvidos por uma
+ * unica chamada ao servico (um "in" por tipo), e cada id e buscado no maximo uma vez por requisicao.
+ * O registro e novo a cada requisicao, para o cache nao servir dados de uma consulta a outra.
+ */
+@Component
+@RequiredArgsConstructor
+public class LibraryDataLoaders {
+
+	static final String BOOK = "book";
+	static final String OPEN_LOAN = "openLoan";
+	static final String LOAN_COUNT = "loanCount";
+
+	private final BookService bookService;
+	private final LoanService loanService;
+
+	public DataLoaderRegistry newRegistry() {
+		DataLoaderRegistry registry = new DataLoaderRegistry();
+		registry.register(BOOK, DataLoader.newMappedDataLoader(this::books));
+		registry.register(OPEN_LOAN, DataLoader.newMappedDataLoader(this::openLoans));
+		registry.register(LOAN_COUNT, DataLoader.newMappedDataLoader(this::loanCounts));
+		return registry;
+	}
+
+	private CompletionStage<Map<Long, Book>> books(Set<Long> ids) {
+		Map<Long, Book> books = new HashMap<>();
+		for (Book book : bookService.getByIds(ids))
+			books.put(book.getId(), book);
+		return completedFuture(books);
+	}
+
+	// por id do livro; sem emprestimo em aberto o livro fica de fora e o campo volta nulo
+	private CompletionStage<Map<Long, Loan>> openLoans(Set<Long> bookIds) {
+		Map<Long, Loan> loans = new HashMap<>();
+		for (Loan loan : loanService.getOpenLoansByBookIds(bookIds))
+			loans.putIfAbsent(loan.getBook().getId(), loan);
+		return completedFuture(loans);
+	}
+
+	private CompletionStage<Map<Long, Long>> loanCounts(Set<Long> bookIds) {
+		Map<Long, Long> counts = loanService.countLoansByBookIds(bookIds);
+		bookIds.forEach(id -> counts.putIfAbsent(id, 0L));
+		return completedFuture(counts);
+	}
+
+}
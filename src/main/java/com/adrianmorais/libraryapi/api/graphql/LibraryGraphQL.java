@@ -0,0 +1,185 @@
+package com.adrianmorais.libraryapi.api.graphql;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.adrianmorais.libraryapi.api.dto.GraphQLRequestDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.LoanService;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import graphql.schema.idl.TypeRuntimeWiring;
+
+/**
+ * Schema GraphQL de leitura (graphql/library.graphqls) sobre BookService e LoanService.
+ *
+ * Os campos que atravessam entidades (Loan.book, Book.currentLoan, Book.loanCount) passam pelos
+ * LibraryDataLoaders; os livros das consultas de topo ja entram no cache do loader de livros. Os emprestimos
+ * de loans vem da consulta projetada, com o cliente no mesmo select. Profundidade e complexidade (campos
+ * multiplicados pelo size das listas) sao limitadas antes de executar.
+ */
+@Component
+public class LibraryGraphQL {
+
+	static final int DEFAULT_PAGE_SIZE = 20;
+	static final Set<String> PAGED_FIELDS = new LinkedHashSet<>(Arrays.asList("books", "loans"));
+
+	// colunas da consulta projetada de emprestimos: livro so pelo id, cliente ja resolvido
+	static final Set<String> LOAN_COLUMNS = new LinkedHashSet<>(
+			Arrays.asList("id", "loanDate", "returned", "bookId", "customerId", "customer", "email"));
+
+	private final BookService bookService;
+	private final LoanService loanService;
+	private final LibraryDataLoaders dataLoaders;
+	private final int maxPageSize;
+	private final GraphQL graphQL;
+
+	public LibraryGraphQL(BookService bookService, LoanService loanService, LibraryDataLoaders dataLoaders,
+			@Value("classpath:graphql/library.graphqls") Resource schema,
+			@Value("${application.graphql.max-depth:8}") int maxDepth,
+			@Value("${application.graphql.max-complexity:1000}") int maxComplexity,
+			@Value("${application.graphql.max-page-size:100}") int maxPageSize) throws IOException {
+		this.bookService = bookService;
+		this.loanService = loanService;
+		this.dataLoaders = dataLoaders;
+		this.maxPageSize = maxPageSize;
+
+		TypeDefinitionRegistry types;
+		try (Reader reader = new InputStreamReader(schema.getInputStream(), StandardCharsets.UTF_8)) {
+			types = new SchemaParser().parse(reader);
+		}
+		GraphQLSchema executable = new SchemaGenerator().makeExecutableSchema(types, wiring());
+		this.graphQL = GraphQL.newGraphQL(executable)
+				.instrumentation(new ChainedInstrumentation(Arrays.asList(
+						new MaxQueryDepthInstrumentation(maxDepth),
+						new MaxQueryComplexityInstrumentation(maxComplexity, this::complexity),
+						new DataLoaderDispatcherInstrumentation())))
+				.build();
+	}
+
+	public Map<String, Object> execute(GraphQLRequestDTO request) {
+		if (!StringUtils.hasText(request.getQuery()))
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A GraphQL query is required");
+		ExecutionInput input = ExecutionInput.newExecutionInput()
+				.query(request.getQuery())
+				.operationName(request.getOperationName())
+				.variables(request.getVariables() == null ? Collections.emptyMap() : request.getVariables())
+				.dataLoaderRegistry(dataLoaders.newRegistry())
+				.build();
+		return graphQL.execute(input).toSpecification();
+	}
+
+	private RuntimeWiring wiring() {
+		return RuntimeWiring.newRuntimeWiring()
+				.type("Query", type -> type
+						.dataFetcher("book", env -> primed(env, bookService.getById(Long.valueOf(env.getArgument("id"))).orElse(null)))
+						.dataFetcher("bookByIsbn", env -> primed(env, bookService.getBookByIsbn(env.getArgument("isbn")).orElse(null)))
+						.dataFetcher("books", this::books)
+						.dataFetcher("loans", this::loans))
+				.type("Book", type -> type
+						.dataFetcher("currentLoan", env -> load(env, LibraryDataLoaders.OPEN_LOAN, env.<Book>getSource().getId()))
+						.dataFetcher("loanCount", env -> load(env, LibraryDataLoaders.LOAN_COUNT, env.<Book>getSource().getId())))
+				.type("Loan", type -> type
+						.dataFetcher("book", env -> {
+							Book book = env.<Loan>getSource().getBook();
+							return book == null ? null : load(env, LibraryDataLoaders.BOOK, book.getId());
+						})
+						.dataFetcher("customer", env -> customer(env.getSource())))
+				.type(page("BookPage"))
+				.type(page("LoanPage"))
+				.build();
+	}
+
+	private Page<Book> books(DataFetchingEnvironment env) {
+		Book filter = Book.builder().title(env.getArgument("title")).author(env.getArgument("author")).build();
+		Page<Book> page = bookService.find(filter, pageRequest(env));
+		page.forEach(book -> primed(env, book));
+		return page;
+	}
+
+	private Page<Loan> loans(DataFetchingEnvironment env) {
+		LoanFilterDTO filter = LoanFilterDTO.builder().isbn(env.getArgument("isbn")).customer(env.getArgument("customer")).build();
+		return loanService.find(filter, pageRequest(env), LOAN_COLUMNS);
+	}
+
+	private PageRequest pageRequest(DataFetchingEnvironment env) {
+		int page = env.<Integer>getArgument("page");
+		int size = env.<Integer>getArgument("size");
+		if (page < 0 || size < 1 || size > maxPageSize)
+			throw new IllegalArgumentException("size must be between 1 and " + maxPageSize + " and page cannot be negative");
+		return PageRequest.of(page, size);
+	}
+
+	// livro ja lido pela consulta de topo: Loan.book e Book.currentLoan.book nao voltam ao banco por ele
+	private Book primed(DataFetchingEnvironment env, Book book) {
+		if (book != null)
+			env.<Long, Book>getDataLoader(LibraryDataLoaders.BOOK).prime(book.getId(), book);
+		return book;
+	}
+
+	private static <V> CompletableFuture<V> load(DataFetchingEnvironment env, String loader, Long id) {
+		DataLoader<Long, V> dataLoader = env.getDataLoader(loader);
+		return dataLoader.load(id);
+	}
+
+	// cliente do Customer ou, em linhas ainda nao migradas, das colunas antigas do emprestimo
+	private static Customer customer(Loan loan) {
+		if (loan.getCustomerName() == null)
+			return null;
+		Long id = loan.getCustomer() == null ? null : loan.getCustomer().getId();
+		return Customer.builder().id(id).name(loan.getCustomerName()).email(loan.getCustomerEmail()).build();
+	}
+
+	private static TypeRuntimeWiring page(String typeName) {
+		return TypeRuntimeWiring.newTypeWiring(typeName)
+				.dataFetcher("items", env -> env.<Page<?>>getSource().getContent())
+				.dataFetcher("page", env -> env.<Page<?>>getSource().getNumber())
+				.dataFetcher("size", env -> env.<Page<?>>getSource().getSize())
+				.dataFetcher("total", env -> env.<Page<?>>getSource().getTotalElements())
+				.build();
+	}
+
+	// cada campo vale 1; os de lista paginada multiplicam o custo dos filhos pelo size pedido
+	private int complexity(FieldComplexityEnvironment env, int childComplexity) {
+		if (!PAGED_FIELDS.contains(env.getField().getName()))
+			return 1 + childComplexity;
+		Object size = env.getArguments().get("size");
+		int items = size instanceof Integer ? Math.max(1, Math.min((Integer) size, maxPageSize)) : DEFAULT_PAGE_SIZE;
+		return 1 + childComplexity * items;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.adrianmorais.libraryapi.api.json;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Atende {@code application/cbor}. Substitui o conversor padrao do Spring para usar o mesmo
+ * ObjectMapper configurado pelo Boot, incluindo os @JsonComponent da aplicacao.
+ */
+@Component
+public class CborMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+	public CborMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		super(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+	}
+
+}
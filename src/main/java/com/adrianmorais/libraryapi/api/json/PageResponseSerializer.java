@@ -0,0 +1,99 @@
+package com.adrianmorais.libraryapi.api.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.adrianmorais.libraryapi.api.dto.PageResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Escreve o {@link PageResponse} direto no gerador, convertendo cada item para DTO no momento
+ * em que e escrito. Quando ha selecao de campos, escreve so as propriedades escolhidas,
+ * usando os mesmos escritores do serializador do DTO.
+ */
+@JsonComponent
+public class PageResponseSerializer extends StdSerializer<PageResponse<?>> {
+
+	private static final long serialVersionUID = 1L;
+
+	public PageResponseSerializer() {
+		super(PageResponse.class, false);
+	}
+
+	@Override
+	public void serialize(PageResponse<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		gen.writeStartObject();
+		gen.writeFieldName("items");
+		writeItems(value, gen, provider);
+		gen.writeNumberField("page", value.getPage());
+		gen.writeNumberField("size", value.getSize());
+		if (value.getTotal() != null)
+			gen.writeNumberField("total", value.getTotal());
+		gen.writeEndObject();
+	}
+
+	private void writeItems(PageResponse<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		int count = value.getItemCount();
+		gen.writeStartArray(count);
+
+		Set<String> fields = value.getFields();
+		Class<?> type = null;
+		JsonSerializer<Object> serializer = null;
+		List<PropertyWriter> writers = null;
+		for (int i = 0; i < count; i++) {
+			Object item = value.getItem(i);
+			if (item == null) {
+				gen.writeNull();
+				continue;
+			}
+			if (item.getClass() != type) {
+				type = item.getClass();
+				serializer = provider.findValueSerializer(type);
+				writers = fields == null ? null : selectedWriters(serializer, fields);
+			}
+
+			if (writers == null)
+				serializer.serialize(item, gen, provider);
+			else
+				writeSelected(item, writers, gen, provider);
+		}
+
+		gen.writeEndArray();
+	}
+
+	private List<PropertyWriter> selectedWriters(JsonSerializer<Object> serializer, Set<String> fields) {
+		List<PropertyWriter> writers = new ArrayList<>(fields.size());
+		for (Iterator<PropertyWriter> properties = serializer.properties(); properties.hasNext();) {
+			PropertyWriter writer = properties.next();
+			if (fields.contains(writer.getName()))
+				writers.add(writer);
+		}
+		return writers;
+	}
+
+	private void writeSelected(Object item, List<PropertyWriter> writers, JsonGenerator gen,
+			SerializerProvider provider) throws IOException {
+		gen.writeStartObject(item);
+		for (PropertyWriter writer : writers) {
+			try {
+				writer.serializeAsField(item, gen, provider);
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw JsonMappingException.from(gen, "Failed to write property " + writer.getName(), e);
+			}
+		}
+		gen.writeEndObject();
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.adrianmorais.libraryapi.api.json;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Atende {@code application/x-jackson-smile}, com o mesmo ObjectMapper configurado pelo Boot.
+ */
+@Component
+public class SmileMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+	public SmileMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		super(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+	}
+
+}
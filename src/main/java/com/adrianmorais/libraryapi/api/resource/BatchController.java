@@ -0,0 +1,33 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.adrianmorais.libraryapi.api.batch.BatchExecutor;
+import com.adrianmorais.libraryapi.api.dto.BatchRequestDTO;
+import com.adrianmorais.libraryapi.api.dto.BatchResponseDTO;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/batch")
+@RequiredArgsConstructor
+@Api("Batch API")
+public class BatchController {
+
+	private final BatchExecutor executor;
+
+	@PostMapping
+	@ApiOperation("Run book and loan operations in order, in a single transaction")
+	public BatchResponseDTO execute(@RequestBody BatchRequestDTO dto, HttpServletRequest request,
+			HttpServletResponse response) {
+		return executor.execute(dto, request, response);
+	}
+}
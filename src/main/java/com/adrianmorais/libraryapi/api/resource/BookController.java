@@ -1,13 +1,18 @@
 package com.adrianmorais.libraryapi.api.resource;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 import javax.validation.Valid;
 
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,14 +22,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.adrianmorais.libraryapi.api.dto.AvailabilityRequestDTO;
+import com.adrianmorais.libraryapi.api.dto.BookAvailabilityDTO;
 import com.adrianmorais.libraryapi.api.dto.BookDTO;
 import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.api.dto.PageResponse;
+import com.adrianmorais.libraryapi.api.exception.NotFoundException;
 import com.adrianmorais.libraryapi.model.entity.Book;
 import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.BookAvailability;
 import com.adrianmorais.libraryapi.service.BookService;
 import com.adrianmorais.libraryapi.service.LoanService;
 
@@ -46,6 +57,9 @@ public class BookController {
 	private final ModelMapper modelMapper;
 	private final LoanService loanService;
 
+	@Value("${application.books.availability.max-items:200}")
+	private int availabilityMaxItems;
+
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	@ApiOperation("Create a book")
@@ -62,7 +76,7 @@ public class BookController {
 		log.info("Obtaining details for book id {} ", id);
 		return service.getById(id)
 				.map(book -> modelMapper.map(book, BookDTO.class))
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+				.orElseThrow(NotFoundException::new);
 	}
 
 	@DeleteMapping("{id}")
@@ -71,7 +85,7 @@ public class BookController {
 	@ApiResponses(@ApiResponse(code = 204, message = "Book successfully deleted"))
 	public void delete(@PathVariable Long id) {
 		log.info("Deleting book of id {} ", id);
-		Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		Book book = service.getById(id).orElseThrow(NotFoundException::new);
 		service.delete(book);
 	}
 
@@ -79,47 +93,85 @@ public class BookController {
 	@ApiOperation("Updates a book")
 	public BookDTO update(@PathVariable Long id, @Valid @RequestBody BookDTO dto) {
 		log.info("Updating book of id {} ", id);
-		return service.getById(id)
-			.map(book -> {
-				book.setAuthor(dto.getAuthor());
-				book.setTitle(dto.getTitle());
-				book.setIsbn(dto.getIsbn());
-				book = service.update(book);
-				return modelMapper.map(book, BookDTO.class);
-			}).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		return service.update(id, modelMapper.map(dto, Book.class))
+			.map(book -> modelMapper.map(book, BookDTO.class))
+			.orElseThrow(NotFoundException::new);
 	}
 	
 	@GetMapping
 	@ApiOperation("Find books by params")
-	public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
+	public PageResponse<BookDTO> find(BookDTO dto, Pageable pageRequest,
+			@RequestParam(required = false) Set<String> fields) {
 		Book filter = modelMapper.map(dto, Book.class);
-		Page<Book> result = service.find(filter, pageRequest);
-		
-		List<BookDTO> list = result.getContent().stream()
-			.map(entity -> modelMapper.map(entity, BookDTO.class))
-			.collect(Collectors.toList());
+		Set<String> selected = FieldSelection.validate(fields, FieldSelection.BOOK_FIELDS);
+		Page<Book> result = selected == null
+				? service.find(filter, pageRequest)
+				: service.find(filter, pageRequest, selected);
 		
-		return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+		return PageResponse.of(result, entity -> modelMapper.map(entity, BookDTO.class)).withFields(selected);
+	}
+
+	@PostMapping("availability")
+	@ApiOperation("Check which books are on loan, by isbn or id, in a single request")
+	public List<BookAvailabilityDTO> availability(@RequestBody AvailabilityRequestDTO request) {
+		Set<String> isbns = request.getIsbns() == null ? new LinkedHashSet<>() : new LinkedHashSet<>(request.getIsbns());
+		Set<Long> ids = request.getIds() == null ? new LinkedHashSet<>() : new LinkedHashSet<>(request.getIds());
+		int items = isbns.size() + ids.size();
+		if (items == 0 || items > availabilityMaxItems)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Between 1 and " + availabilityMaxItems + " isbns or ids are allowed");
+
+		Map<String, BookAvailability> byIsbn = new HashMap<>();
+		Map<Long, BookAvailability> byId = new HashMap<>();
+		for (BookAvailability availability : service.getAvailability(isbns, ids)) {
+			byIsbn.putIfAbsent(availability.getIsbn(), availability);
+			byId.putIfAbsent(availability.getBookId(), availability);
+		}
+
+		// na ordem do pedido, isbns e depois ids
+		LocalDate today = LocalDate.now();
+		List<BookAvailabilityDTO> result = new ArrayList<>(items);
+		isbns.forEach(isbn -> result.add(toAvailabilityDTO(byIsbn.get(isbn), isbn, null, today)));
+		ids.forEach(id -> result.add(toAvailabilityDTO(byId.get(id), null, id, today)));
+		return result;
+	}
+
+	private BookAvailabilityDTO toAvailabilityDTO(BookAvailability availability, String isbn, Long id, LocalDate today) {
+		if (availability == null)
+			return BookAvailabilityDTO.builder().isbn(isbn).id(id).found(false).build();
+
+		LocalDate loanDate = availability.getLoanDate();
+		LocalDate dueDate = loanDate == null ? null : loanDate.plusDays(LoanService.LOAN_DAYS);
+		return BookAvailabilityDTO.builder()
+				.id(availability.getBookId())
+				.isbn(availability.getIsbn())
+				.found(true)
+				.available(availability.isAvailable())
+				.loanId(availability.getLoanId())
+				.loanDate(availability.getLoanDate())
+				.dueDate(dueDate)
+				.late(dueDate != null && !today.isBefore(dueDate))
+				.build();
 	}
 
 	@GetMapping("{id}/loans")
 	@ApiOperation("Load loans by book")
-	public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
+	public PageResponse<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable,
+			@RequestParam(defaultValue = "false") boolean history){
 		Book book = service.getById(id)
-			.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+			.orElseThrow(NotFoundException::new);
 		
-		Page<Loan> result = loanService.getLoansByBook(book, pageable);
+		Page<Loan> result = history
+				? loanService.getLoanHistoryByBook(book, pageable)
+				: loanService.getLoansByBook(book, pageable);
 		
-		List<LoanDTO> list = result.getContent().stream()
-			.map(loan -> {
+		return PageResponse.of(result, loan -> {
 				Book loanBook = loan.getBook();
 				BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
 				LoanDTO loanDTO  = modelMapper.map(loan, LoanDTO.class);
 				loanDTO.setBook(bookDTO);
 				return loanDTO;
-			}).collect(Collectors.toList());
-		
-		return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
+			});
 	}
 
 }
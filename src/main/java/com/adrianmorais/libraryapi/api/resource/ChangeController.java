@@ -0,0 +1,126 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.adrianmorais.libraryapi.api.dto.ChangeDTO;
+import com.adrianmorais.libraryapi.api.dto.ChangeFeedResponse;
+import com.adrianmorais.libraryapi.model.entity.ChangeLogEntry;
+import com.adrianmorais.libraryapi.service.changes.ChangeBatch;
+import com.adrianmorais.libraryapi.service.changes.ChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.changes.enabled", havingValue = "true", matchIfMissing = true)
+@Api("Changes API")
+public class ChangeController {
+
+	private final ChangeFeed feed;
+	private final ObjectMapper objectMapper;
+
+	@Value("${application.changes.long-poll-timeout-ms:30000}")
+	private long longPollTimeout;
+
+	@Value("${application.changes.sse-timeout-ms:600000}")
+	private long sseTimeout;
+
+	@GetMapping
+	@ApiOperation("Get book and loan changes after a cursor (since=0 returns the latest state of everything)")
+	public ChangeFeedResponse changes(@RequestParam(defaultValue = "0") long since,
+			@RequestParam(defaultValue = "100") int limit) {
+		validate(since, limit);
+		return toResponse(feed.read(since, limit));
+	}
+
+	@GetMapping(params = "wait=true")
+	@ApiOperation("Long-poll for changes after a cursor, answering empty when the timeout expires")
+	public DeferredResult<ChangeFeedResponse> awaitChanges(@RequestParam(defaultValue = "0") long since,
+			@RequestParam(defaultValue = "100") int limit) {
+		validate(since, limit);
+		DeferredResult<ChangeFeedResponse> result = new DeferredResult<>(longPollTimeout);
+		Runnable cancel = feed.await(since, limit, batch -> result.setResult(toResponse(batch)));
+		result.onTimeout(() -> {
+			cancel.run();
+			result.setResult(toResponse(new ChangeBatch(Collections.emptyList(), since, false)));
+		});
+		result.onCompletion(cancel);
+		return result;
+	}
+
+	@GetMapping(path = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ApiOperation("Stream changes after a cursor as server-sent events; the event id is the cursor")
+	public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+			@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		long cursor = since != null ? since : lastEventId != null ? lastEventId : 0;
+		validate(cursor, 1);
+
+		SseEmitter emitter = new SseEmitter(sseTimeout);
+		Runnable cancel = feed.stream(cursor, batch -> {
+			try {
+				for (ChangeLogEntry entry : batch.getEntries())
+					emitter.send(SseEmitter.event()
+							.id(String.valueOf(entry.getId()))
+							.name(entry.getEntity())
+							.data(toDTO(entry), MediaType.APPLICATION_JSON));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(error -> cancel.run());
+		emitter.onCompletion(cancel);
+		return emitter;
+	}
+
+	private void validate(long since, int limit) {
+		if (limit < 1 || limit > feed.getMaxLimit())
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + feed.getMaxLimit());
+		if (feed.isExpired(since))
+			throw new ResponseStatusException(HttpStatus.GONE, "Change cursor " + since + " expired, resync from since=0");
+	}
+
+	private ChangeFeedResponse toResponse(ChangeBatch batch) {
+		return ChangeFeedResponse.builder()
+				.items(batch.getEntries().stream().map(this::toDTO).collect(Collectors.toList()))
+				.cursor(batch.getCursor())
+				.more(batch.isMore())
+				.build();
+	}
+
+	private ChangeDTO toDTO(ChangeLogEntry entry) {
+		try {
+			return ChangeDTO.builder()
+					.cursor(entry.getId())
+					.entity(entry.getEntity())
+					.id(entry.getEntityId())
+					.type(entry.getType())
+					.at(entry.getCreatedAt())
+					.data(entry.getData() == null ? null : objectMapper.readTree(entry.getData()))
+					.build();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.api.dto.PageResponse;
+import com.adrianmorais.libraryapi.api.exception.NotFoundException;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.service.CustomerService;
+import com.adrianmorais.libraryapi.service.LoanService;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+@Api("Customers API")
+public class CustomerController {
+
+	private final CustomerService service;
+	private final LoanService loanService;
+	private final ModelMapper modelMapper;
+
+	@GetMapping("{id}/loans")
+	@ApiOperation("Load loans by customer")
+	public PageResponse<LoanDTO> loansByCustomer(@PathVariable Long id, Pageable pageable) {
+		Customer customer = service.getById(id)
+			.orElseThrow(NotFoundException::new);
+
+		Page<Loan> result = loanService.getLoansByCustomer(customer, pageable);
+
+		return PageResponse.of(result, loan -> {
+				Book book = loan.getBook();
+				LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+				loanDTO.setBook(book == null ? null : modelMapper.map(book, BookDTO.class));
+				return loanDTO;
+			});
+	}
+
+}
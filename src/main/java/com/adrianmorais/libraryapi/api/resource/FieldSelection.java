@@ -0,0 +1,37 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Campos aceitos no parametro {@code fields} das listagens.
+ */
+final class FieldSelection {
+
+	static final Set<String> BOOK_FIELDS = fields("id", "title", "author", "isbn");
+	static final Set<String> LOAN_FIELDS = fields("id", "isbn", "customer", "email", "book");
+
+	private FieldSelection() {
+	}
+
+	static Set<String> validate(Set<String> requested, Set<String> allowed) {
+		if (requested == null || requested.isEmpty())
+			return null;
+
+		for (String field : requested) {
+			if (!allowed.contains(field))
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + field);
+		}
+		return requested;
+	}
+
+	private static Set<String> fields(String... names) {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(names)));
+	}
+
+}
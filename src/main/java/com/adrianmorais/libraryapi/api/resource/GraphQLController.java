@@ -0,0 +1,30 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.adrianmorais.libraryapi.api.dto.GraphQLRequestDTO;
+import com.adrianmorais.libraryapi.api.graphql.LibraryGraphQL;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/graphql")
+@RequiredArgsConstructor
+@Api("GraphQL API")
+public class GraphQLController {
+
+	private final LibraryGraphQL graphQL;
+
+	@PostMapping
+	@ApiOperation("Query books and loans with GraphQL (schema in graphql/library.graphqls)")
+	public Map<String, Object> execute(@RequestBody GraphQLRequestDTO request) {
+		return graphQL.execute(request);
+	}
+}
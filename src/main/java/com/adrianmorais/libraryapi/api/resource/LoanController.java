@@ -1,12 +1,10 @@
 package com.adrianmorais.libraryapi.api.resource;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,6 +13,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
@@ -22,10 +21,13 @@ import org.springframework.web.server.ResponseStatusException;
 import com.adrianmorais.libraryapi.api.dto.BookDTO;
 import com.adrianmorais.libraryapi.api.dto.LoanDTO;
 import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
+import com.adrianmorais.libraryapi.api.dto.PageResponse;
 import com.adrianmorais.libraryapi.api.dto.ReturnedLoadDTO;
+import com.adrianmorais.libraryapi.api.exception.NotFoundException;
 import com.adrianmorais.libraryapi.model.entity.Book;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.CustomerService;
 import com.adrianmorais.libraryapi.service.LoanService;
 
 import io.swagger.annotations.Api;
@@ -40,6 +42,7 @@ public class LoanController {
 	
 	private final LoanService service;
 	private final BookService bookService;
+	private final CustomerService customerService;
 	private final ModelMapper modelMapper;
 	
 	@PostMapping
@@ -51,7 +54,9 @@ public class LoanController {
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
 		
 		Loan entity = Loan.builder()
-				.book(book).customer(dto.getCustomer()).loanDate(LocalDate.now()).build();
+				.book(book)
+				.customer(dto.getCustomer() == null ? null : customerService.resolve(dto.getCustomer(), dto.getEmail()))
+				.loanDate(LocalDate.now()).build();
 		
 		entity = service.save(entity);
 		return entity.getId();
@@ -60,26 +65,23 @@ public class LoanController {
 	@PatchMapping("{id}")
 	@ApiOperation("Return a book")
 	public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoadDTO dto) {
-		Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-		loan.setReturned(dto.getReturned());
-		service.update(loan);
+		service.returnBook(id, dto.getReturned()).orElseThrow(NotFoundException::new);
 	}
 
 	@GetMapping
 	@ApiOperation("Find loans by params")
-	public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
-		Page<Loan> result = service.find(dto, pageRequest);
+	public PageResponse<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest,
+			@RequestParam(required = false) Set<String> fields) {
+		Set<String> selected = FieldSelection.validate(fields, FieldSelection.LOAN_FIELDS);
+		Page<Loan> result = selected == null
+				? service.find(dto, pageRequest)
+				: service.find(dto, pageRequest, selected);
 		
-		List<LoanDTO> loans = result.getContent().stream()
-			.map(entity -> {
+		return PageResponse.of(result, entity -> {
 					Book book = entity.getBook();
-					BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
 					LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-					loanDTO.setBook(bookDTO);
+					loanDTO.setBook(book == null ? null : modelMapper.map(book, BookDTO.class));
 					return loanDTO;
-				})
-			.collect(Collectors.toList());
-		
-		return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
+				}).withFields(selected);
 	}
 }
@@ -0,0 +1,60 @@
+package com.adrianmorais.libraryapi.api.resource;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.adrianmorais.libraryapi.service.analytics.CustomerKey;
+import com.adrianmorais.libraryapi.service.analytics.LoanAnalytics;
+import com.adrianmorais.libraryapi.service.analytics.LoanStats;
+import com.adrianmorais.libraryapi.service.analytics.RankedCount;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.analytics.enabled", havingValue = "true", matchIfMissing = true)
+@Api("Stats API")
+public class StatsController {
+
+	private final LoanAnalytics analytics;
+
+	@GetMapping
+	@ApiOperation("Get all loan statistics")
+	public LoanStats stats() {
+		return analytics.stats();
+	}
+
+	@GetMapping("books/top")
+	@ApiOperation("Get the most borrowed books (book id and loan count)")
+	public List<RankedCount<Long>> topBooks() {
+		return analytics.stats().getTopBooks();
+	}
+
+	@GetMapping("customers/top")
+	@ApiOperation("Get the customers with most loans (customer id, name and email and loan count)")
+	public List<RankedCount<CustomerKey>> topCustomers() {
+		return analytics.stats().getTopCustomers();
+	}
+
+	@GetMapping("loans/daily")
+	@ApiOperation("Get the number of loans per day")
+	public SortedMap<LocalDate, Long> loansPerDay() {
+		return analytics.stats().getLoansPerDay();
+	}
+
+	@GetMapping("utilization")
+	@ApiOperation("Get the books, loans and currently-out ratio")
+	public LoanStats.Utilization utilization() {
+		return analytics.stats().getUtilization();
+	}
+
+}
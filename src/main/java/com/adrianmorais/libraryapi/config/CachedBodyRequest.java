@@ -0,0 +1,75 @@
+package com.adrianmorais.libraryapi.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Requisicao cujo corpo ja esta em memoria (lido por um filtro, ou o de uma operacao do lote): cada
+ * getInputStream le de novo a partir da copia. Leitura nao bloqueante tambem funciona, com o corpo
+ * inteiro disponivel desde o inicio.
+ */
+public class CachedBodyRequest extends HttpServletRequestWrapper {
+
+	private final byte[] body;
+
+	public CachedBodyRequest(HttpServletRequest request, byte[] body) {
+		super(request);
+		this.body = body;
+	}
+
+	protected byte[] getBody() {
+		return body;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() {
+		ByteArrayInputStream input = new ByteArrayInputStream(body);
+		return new ServletInputStream() {
+
+			@Override
+			public int read() {
+				return input.read();
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) {
+				return input.read(buffer, offset, length);
+			}
+
+			@Override
+			public boolean isFinished() {
+				return input.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener listener) {
+				try {
+					if (!isFinished())
+						listener.onDataAvailable();
+					listener.onAllDataRead();
+				} catch (IOException e) {
+					listener.onError(e);
+				}
+			}
+		};
+	}
+
+	@Override
+	public BufferedReader getReader() {
+		return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+	}
+
+}
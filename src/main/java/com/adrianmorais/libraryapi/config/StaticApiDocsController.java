@@ -0,0 +1,52 @@
+package com.adrianmorais.libraryapi.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import springfox.documentation.swagger.web.SwaggerResource;
+
+/**
+ * No perfil prod o springfox fica desligado e a especificacao gerada no build
+ * (SwaggerSpecGeneratorTest, execucao generate-api-docs do perfil maven prod) e servida como arquivo estatico, nos mesmos caminhos do springfox.
+ */
+@RestController
+@Profile("prod")
+public class StaticApiDocsController {
+
+	static final String API_DOCS = "/v2/api-docs";
+	static final String SPEC_LOCATION = "static-docs/swagger.json";
+
+	private final Resource spec = new ClassPathResource(SPEC_LOCATION);
+
+	@GetMapping(value = API_DOCS, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Resource> apiDocs() {
+		if (!spec.exists())
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		return ResponseEntity.ok(spec);
+	}
+
+	@GetMapping("/swagger-resources")
+	public List<SwaggerResource> swaggerResources() {
+		SwaggerResource resource = new SwaggerResource();
+		resource.setName("default");
+		resource.setLocation(API_DOCS);
+		resource.setSwaggerVersion("2.0");
+		return Collections.singletonList(resource);
+	}
+
+	@GetMapping({ "/swagger-resources/configuration/ui", "/swagger-resources/configuration/security" })
+	public Map<String, Object> swaggerConfiguration() {
+		return Collections.emptyMap();
+	}
+
+}
@@ -2,6 +2,7 @@ package com.adrianmorais.libraryapi.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
@@ -12,8 +13,10 @@ import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+// no perfil prod a especificacao e gerada no build e servida pelo StaticApiDocsController
 @EnableSwagger2
 @Configuration
+@Profile("!prod")
 public class SwaggerConfig {
 
 	@Bean
@@ -0,0 +1,45 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.hold-time.enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionHoldTimeConfig {
+
+	// static: o post processor precisa existir antes dos DataSources; guarda o MeterRegistry quando fica pronto
+	@Bean
+	public static BeanPostProcessor connectionHoldTimePostProcessor() {
+		AtomicReference<MeterRegistry> registry = new AtomicReference<>();
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof MeterRegistry)
+					registry.compareAndSet(null, (MeterRegistry) bean);
+				if (bean instanceof DataSource && !(bean instanceof ConnectionHoldTimeDataSource))
+					return new ConnectionHoldTimeDataSource((DataSource) bean, registry::get);
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public FilterRegistrationBean<ConnectionHoldTimeFilter> connectionHoldTimeFilter(ObjectProvider<MeterRegistry> registry) {
+		FilterRegistrationBean<ConnectionHoldTimeFilter> registration = new FilterRegistrationBean<>(
+				new ConnectionHoldTimeFilter(registry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+		return registration;
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede quanto tempo cada conexao fica com a aplicacao, do getConnection ate o close, e soma o tempo
+ * na requisicao corrente (ConnectionHoldTimeFilter). O DataSource e criado antes das metricas: o
+ * MeterRegistry chega depois, pelo post processor, e as conexoes fechadas antes disso nao entram no timer.
+ * Nao busca no BeanFactory ao fechar a conexao: o Hibernate sobe numa thread propria e a busca esperava o
+ * lock dos singletons, que a main segura enquanto espera o Hibernate.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+	static final String METRIC = "jdbc.connections.hold";
+
+	private final Supplier<MeterRegistry> registry;
+	private volatile Timer timer;
+
+	public ConnectionHoldTimeDataSource(DataSource target, Supplier<MeterRegistry> registry) {
+		super(target);
+		this.registry = registry;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return track(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return track(super.getConnection(username, password));
+	}
+
+	private Connection track(Connection connection) {
+		long start = System.nanoTime();
+		boolean[] closed = new boolean[1];
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if ("close".equals(method.getName()) && !closed[0]) {
+						closed[0] = true;
+						held(System.nanoTime() - start);
+					} else if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(connection)) {
+						return connection;
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+				});
+	}
+
+	private void held(long nanos) {
+		ConnectionHoldTimeFilter.held(nanos);
+		Timer current = timer;
+		if (current == null) {
+			MeterRegistry meterRegistry = registry.get();
+			if (meterRegistry == null)
+				return;
+			current = timer = Timer.builder(METRIC)
+					.description("Time each JDBC connection is held by the application")
+					.register(meterRegistry);
+		}
+		current.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Soma o tempo de conexao de cada requisicao e registra em http.server.requests.connection.hold,
+ * com as mesmas tags de uri, metodo e status do http.server.requests.
+ */
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+	static final String METRIC = "http.server.requests.connection.hold";
+
+	private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	public ConnectionHoldTimeFilter(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	static void held(long nanos) {
+		long[] current = CURRENT.get();
+		if (current != null) {
+			current[0] += nanos;
+			current[1]++;
+		}
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long[] current = new long[2];
+		CURRENT.set(current);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			CURRENT.remove();
+			MeterRegistry meterRegistry = registry.getIfAvailable();
+			if (meterRegistry != null && current[1] > 0) {
+				Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+				Timer.builder(METRIC)
+					.description("Total time JDBC connections were held while serving a request")
+					.tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+					.tag("method", request.getMethod())
+					.tag("status", String.valueOf(response.getStatus()))
+					.register(meterRegistry)
+					.record(current[0], TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+}
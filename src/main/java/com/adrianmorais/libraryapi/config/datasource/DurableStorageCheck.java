@@ -0,0 +1,159 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verificacoes do perfil durable, antes de qualquer bean usar o banco: H2 em arquivo local, ddl-auto que
+ * nao apaga as tabelas, WRITE_DELAY dentro da janela de perda aceita e nenhum ajuste que troca seguranca
+ * contra queda por velocidade. Depois abre o arquivo uma vez: e nessa abertura que o H2 se recupera de um
+ * desligamento abrupto, entao o tempo medido e o tempo de recuperacao.
+ */
+@Slf4j
+public class DurableStorageCheck {
+
+	static final long DEFAULT_WRITE_DELAY_MS = 500;
+
+	// create e create-drop recriam as tabelas; o padrao do Boot 2.3 para H2 e create-drop
+	private static final List<String> SAFE_DDL_AUTO = Arrays.asList("none", "validate", "update");
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final String ddlAuto;
+	private final long maxWriteDelayMillis;
+
+	public DurableStorageCheck(String url, String username, String password, String ddlAuto,
+			long maxWriteDelayMillis) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.ddlAuto = ddlAuto;
+		this.maxWriteDelayMillis = maxWriteDelayMillis;
+	}
+
+	public void run() {
+		List<String> problems = problems();
+		if (!problems.isEmpty())
+			throw new IllegalStateException("Durable storage is not crash safe: " + String.join("; ", problems));
+		long millis = open();
+		log.info("Opened durable store {} in {} ms (WRITE_DELAY={} ms)", path(url), millis, writeDelay(settings(url)));
+	}
+
+	List<String> problems() {
+		List<String> problems = new ArrayList<>();
+		String path = path(url);
+		if (path == null) {
+			problems.add("spring.datasource.url must point to an embedded H2 file database, not " + url);
+			return problems;
+		}
+		if (ddlAuto == null || !SAFE_DDL_AUTO.contains(ddlAuto.toLowerCase(Locale.ROOT)))
+			problems.add("spring.jpa.hibernate.ddl-auto must be one of " + SAFE_DDL_AUTO + ", not " + ddlAuto);
+
+		Map<String, String> settings = settings(url);
+		long writeDelay = writeDelay(settings);
+		if (writeDelay < 0 || writeDelay > maxWriteDelayMillis)
+			problems.add("WRITE_DELAY=" + writeDelay + " exceeds application.datasource.durable.max-write-delay-ms="
+					+ maxWriteDelayMillis);
+		if (!"FALSE".equals(settings.get("DB_CLOSE_ON_EXIT")))
+			problems.add("DB_CLOSE_ON_EXIT=FALSE is required so the pool, not the JVM shutdown hook, closes the store");
+		// sem o log de transacoes e sem as versoes antigas dos chunks o arquivo pode corromper numa queda
+		if ("0".equals(settings.get("LOG")))
+			problems.add("LOG=0 disables the transaction log");
+		if ("0".equals(settings.get("RETENTION_TIME")))
+			problems.add("RETENTION_TIME=0 lets a crash corrupt the file");
+		if ("FALSE".equals(settings.get("MV_STORE")))
+			problems.add("MV_STORE=FALSE is not supported");
+		String fileLock = settings.get("FILE_LOCK");
+		if ("NO".equals(fileLock) || "SERIALIZED".equals(fileLock))
+			problems.add("FILE_LOCK=" + fileLock + " allows two processes to write the same file");
+		if (settings.containsKey("ACCESS_MODE_DATA") && !settings.get("ACCESS_MODE_DATA").contains("w"))
+			problems.add("ACCESS_MODE_DATA opens the store read-only");
+
+		Path directory = Paths.get(path).toAbsolutePath().getParent();
+		try {
+			Files.createDirectories(directory);
+			if (!Files.isWritable(directory))
+				problems.add("Directory " + directory + " is not writable");
+		} catch (IOException e) {
+			problems.add("Could not create directory " + directory + ": " + e.getMessage());
+		}
+		return problems;
+	}
+
+	// H2 abre em modo somente leitura, sem erro, quando o arquivo nao pode ser escrito
+	long open() {
+		long start = System.nanoTime();
+		try (Connection connection = DriverManager.getConnection(url, username, password);
+				Statement statement = connection.createStatement();
+				ResultSet readOnly = statement.executeQuery("select readonly()")) {
+			long millis = (System.nanoTime() - start) / 1_000_000;
+			readOnly.next();
+			if (readOnly.getBoolean(1))
+				throw new IllegalStateException("Durable store " + path(url) + " was opened read-only");
+			return millis;
+		} catch (SQLException e) {
+			// inclui o arquivo travado por outro processo
+			throw new IllegalStateException("Could not open durable store " + path(url) + ": " + e.getMessage(), e);
+		}
+	}
+
+	// caminho do arquivo; nulo para bancos em memoria, servidores remotos e zip (somente leitura)
+	public static String path(String url) {
+		if (url == null || !url.startsWith("jdbc:h2:"))
+			return null;
+		String database = url.substring("jdbc:h2:".length());
+		int end = database.indexOf(';');
+		if (end >= 0)
+			database = database.substring(0, end);
+		if (database.startsWith("file:"))
+			database = database.substring("file:".length());
+		else if (database.startsWith("mem:") || database.startsWith("tcp:") || database.startsWith("ssl:")
+				|| database.startsWith("zip:") || database.startsWith("memFS:") || database.startsWith("memLZF:"))
+			return null;
+		if (database.isEmpty())
+			return null;
+		if (database.startsWith("~"))
+			database = System.getProperty("user.home") + database.substring(1);
+		return database;
+	}
+
+	static Map<String, String> settings(String url) {
+		Map<String, String> settings = new HashMap<>();
+		String[] parts = url.split(";");
+		for (int i = 1; i < parts.length; i++) {
+			int equals = parts[i].indexOf('=');
+			if (equals > 0)
+				settings.put(parts[i].substring(0, equals).trim().toUpperCase(Locale.ROOT),
+						parts[i].substring(equals + 1).trim().toUpperCase(Locale.ROOT));
+		}
+		return settings;
+	}
+
+	private static long writeDelay(Map<String, String> settings) {
+		String value = settings.get("WRITE_DELAY");
+		if (value == null)
+			return DEFAULT_WRITE_DELAY_MS;
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Perfil durable (H2 em arquivo): recusa a subida com uma configuracao que perde ou corrompe dados numa
+ * queda ou num reinicio.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.durable.enabled", havingValue = "true")
+public class DurableStorageConfig {
+
+	// static e BeanFactoryPostProcessor: roda antes do pool e do Hibernate abrirem o arquivo
+	@Bean
+	public static BeanFactoryPostProcessor durableStorageCheck(Environment environment) {
+		return beanFactory -> new DurableStorageCheck(environment.getProperty("spring.datasource.url"),
+				environment.getProperty("spring.datasource.username", "sa"),
+				environment.getProperty("spring.datasource.password", ""),
+				environment.getProperty("spring.jpa.hibernate.ddl-auto"),
+				environment.getProperty("application.datasource.durable.max-write-delay-ms", Long.class,
+						DurableStorageCheck.DEFAULT_WRITE_DELAY_MS)).run();
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Depois de uma escrita, as leituras da mesma requisicao vao para o primario. O cookie mantem o
+ * cliente no primario pelos proximos stickyMillis, tempo suficiente para as replicas alcancarem.
+ * Fora de uma requisicao HTTP (jobs agendados) nao ha aderencia.
+ */
+final class ReadYourWrites {
+
+	static final String COOKIE = "primary-until";
+	private static final String ATTRIBUTE = ReadYourWrites.class.getName();
+
+	private ReadYourWrites() {
+	}
+
+	static boolean mustReadFromPrimary() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null)
+			return false;
+		if (attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null)
+			return true;
+		if (!(attributes instanceof ServletRequestAttributes))
+			return false;
+		return mustReadFromPrimary(((ServletRequestAttributes) attributes).getRequest());
+	}
+
+	// so pelo cookie: serve tambem em filtros que rodam antes do RequestContextFilter
+	static boolean mustReadFromPrimary(HttpServletRequest request) {
+		Cookie[] cookies = request.getCookies();
+		if (cookies == null)
+			return false;
+		for (Cookie cookie : cookies) {
+			if (COOKIE.equals(cookie.getName()))
+				return parse(cookie.getValue()) > System.currentTimeMillis();
+		}
+		return false;
+	}
+
+	static void written(long stickyMillis) {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null)
+			return;
+
+		attributes.setAttribute(ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+		if (attributes instanceof ServletRequestAttributes) {
+			HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+			if (response != null && !response.isCommitted()) {
+				Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + stickyMillis));
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge((int) Math.max(1, stickyMillis / 1000));
+				response.addCookie(cookie);
+			}
+		}
+	}
+
+	private static long parse(String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
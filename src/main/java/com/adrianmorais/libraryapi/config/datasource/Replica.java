@@ -0,0 +1,39 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import javax.sql.DataSource;
+
+import lombok.Getter;
+
+/**
+ * Uma replica de leitura e o resultado da ultima verificacao de saude e atraso.
+ */
+@Getter
+public class Replica {
+
+	private final String name;
+	private final String url;
+	private final DataSource dataSource;
+
+	private volatile boolean healthy;
+	private volatile long lagMillis = -1;
+	private volatile String error = "not checked yet";
+
+	public Replica(String name, String url, DataSource dataSource) {
+		this.name = name;
+		this.url = url;
+		this.dataSource = dataSource;
+	}
+
+	void checked(long lagMillis, long maxLagMillis) {
+		this.lagMillis = lagMillis;
+		this.healthy = lagMillis <= maxLagMillis;
+		this.error = healthy ? null : "Replication lag of " + lagMillis + " ms exceeds " + maxLagMillis + " ms";
+	}
+
+	void failed(Exception ex) {
+		this.healthy = false;
+		this.lagMillis = -1;
+		this.error = ex.getMessage();
+	}
+
+}
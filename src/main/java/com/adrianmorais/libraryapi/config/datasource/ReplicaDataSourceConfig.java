@@ -0,0 +1,90 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Leituras readOnly nas replicas e escritas no primario (spring.datasource.*). Desligado por padrao;
+ * o perfil replica sobe um primario e uma replica H2 em memoria para desenvolvimento.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+	@Value("${application.datasource.replicas.urls}")
+	private List<String> replicaUrls;
+
+	@Value("${application.datasource.replicas.username:${spring.datasource.username:sa}}")
+	private String replicaUsername;
+
+	@Value("${application.datasource.replicas.password:${spring.datasource.password:}}")
+	private String replicaPassword;
+
+	@Value("${application.datasource.replicas.max-lag-ms:2000}")
+	private long maxLagMillis;
+
+	@Value("${application.datasource.replicas.sticky-ms:2000}")
+	private long stickyMillis;
+
+	@Value("${application.datasource.replicas.link-to-primary:false}")
+	private boolean linkToPrimary;
+
+	// os pools nao sao beans DataSource para nao competir com o roteador; o monitor os fecha
+	@Bean(destroyMethod = "close")
+	public ReplicaMonitor replicaMonitor(DataSourceProperties properties) {
+		ReplicaMonitor.PrimaryLink link = linkToPrimary
+				? new ReplicaMonitor.PrimaryLink(properties.determineUrl(), properties.determineUsername(),
+						properties.determinePassword(), replicaUsername, replicaPassword)
+				: null;
+		return new ReplicaMonitor(primary(properties), replicas(properties), maxLagMillis, link);
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaMonitor replicaMonitor) {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(replicaMonitor.getPrimary(),
+				replicaMonitor.getReplicas(), stickyMillis);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	@Bean
+	public ReplicaHealthIndicator replicasHealthIndicator(ReplicaMonitor replicaMonitor) {
+		return new ReplicaHealthIndicator(replicaMonitor);
+	}
+
+	private HikariDataSource primary(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	private List<Replica> replicas(DataSourceProperties properties) {
+		List<Replica> replicas = new ArrayList<>();
+		for (String url : replicaUrls) {
+			String name = "replica-" + (replicas.size() + 1);
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setPoolName(name);
+			dataSource.setJdbcUrl(url);
+			dataSource.setUsername(replicaUsername);
+			dataSource.setPassword(replicaPassword);
+			dataSource.setDriverClassName(properties.determineDriverClassName());
+			dataSource.setReadOnly(true);
+			replicas.add(new Replica(name, url, dataSource));
+		}
+		return replicas;
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Replicas fora do ar nao derrubam a aplicacao (as leituras voltam para o primario), entao o
+ * status e sempre UP e o estado de cada replica vai nos detalhes.
+ */
+public class ReplicaHealthIndicator extends AbstractHealthIndicator {
+
+	private final ReplicaMonitor monitor;
+
+	public ReplicaHealthIndicator(ReplicaMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	@Override
+	protected void doHealthCheck(Health.Builder builder) {
+		long healthy = monitor.getReplicas().stream().filter(Replica::isHealthy).count();
+		builder.up().withDetail("healthy", healthy).withDetail("total", monitor.getReplicas().size());
+
+		for (Replica replica : monitor.getReplicas()) {
+			Map<String, Object> details = new LinkedHashMap<>();
+			details.put("healthy", replica.isHealthy());
+			details.put("lagMillis", replica.getLagMillis());
+			if (replica.getError() != null)
+				details.put("error", replica.getError());
+			builder.withDetail(replica.getName(), details);
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verifica saude e atraso das replicas. A cada rodada grava um heartbeat no primario e le o valor
+ * em cada replica: o atraso e a diferenca entre o ultimo heartbeat gravado e o visto na replica.
+ * Replicas que falham ou passam de maxLagMillis deixam de receber leituras ate se recuperarem.
+ *
+ * Tambem e dono dos pools do primario e das replicas, fechados junto com o contexto.
+ *
+ * Com linkToPrimary (so para desenvolvimento com H2), as tabelas do primario sao expostas na
+ * replica como LINKED TABLE, fazendo o papel da replicacao.
+ */
+@Slf4j
+public class ReplicaMonitor {
+
+	static final String HEARTBEAT_TABLE = "REPLICA_HEARTBEAT";
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final long maxLagMillis;
+	private final PrimaryLink link;
+
+	public ReplicaMonitor(DataSource primary, List<Replica> replicas, long maxLagMillis, PrimaryLink link) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.maxLagMillis = maxLagMillis;
+		this.link = link;
+	}
+
+	@Scheduled(fixedDelayString = "${application.datasource.replicas.check-interval-ms:1000}")
+	public synchronized void check() {
+		long beat;
+		try {
+			beat = heartbeat();
+		} catch (SQLException e) {
+			log.warn("Could not write replication heartbeat on primary", e);
+			return;
+		}
+
+		for (Replica replica : replicas) {
+			boolean wasHealthy = replica.isHealthy();
+			try {
+				if (link != null)
+					link.linkMissingTables(primary, replica);
+				try (Connection connection = replica.getDataSource().getConnection()) {
+					replica.checked(beat - lastBeat(connection), maxLagMillis);
+				}
+			} catch (SQLException e) {
+				replica.failed(e);
+			}
+			if (wasHealthy != replica.isHealthy())
+				log.info("Replica {} is now {} ({})", replica.getName(), replica.isHealthy() ? "healthy" : "unhealthy",
+						replica.getError() == null ? "lag " + replica.getLagMillis() + " ms" : replica.getError());
+		}
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public List<Replica> getReplicas() {
+		return replicas;
+	}
+
+	public void close() {
+		close("primary", primary);
+		replicas.forEach(replica -> close(replica.getName(), replica.getDataSource()));
+	}
+
+	private void close(String name, DataSource dataSource) {
+		if (dataSource instanceof Closeable) {
+			try {
+				((Closeable) dataSource).close();
+			} catch (IOException e) {
+				log.warn("Could not close data source {}", name, e);
+			}
+		}
+	}
+
+	private long heartbeat() throws SQLException {
+		long now = System.currentTimeMillis();
+		try (Connection connection = primary.getConnection()) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE + " (ID INT PRIMARY KEY, BEAT_AT BIGINT)");
+			}
+			try (PreparedStatement statement = connection
+					.prepareStatement("MERGE INTO " + HEARTBEAT_TABLE + " (ID, BEAT_AT) KEY (ID) VALUES (1, ?)")) {
+				statement.setLong(1, now);
+				statement.executeUpdate();
+			}
+			if (!connection.getAutoCommit())
+				connection.commit();
+		}
+		return now;
+	}
+
+	private long lastBeat(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT BEAT_AT FROM " + HEARTBEAT_TABLE + " WHERE ID = 1")) {
+			if (!result.next())
+				throw new SQLException("No replication heartbeat found on replica");
+			return result.getLong(1);
+		}
+	}
+
+	/**
+	 * Substituto local da replicacao: cria na replica H2 uma LINKED TABLE para cada tabela do primario.
+	 * Usa uma conexao propria e deve rodar antes de o pool da replica abrir conexoes: o H2 trava se
+	 * outra sessao for aberta na replica enquanto a LINKED TABLE conecta no primario.
+	 */
+	public static class PrimaryLink {
+
+		private final String url;
+		private final String username;
+		private final String password;
+		private final String replicaUsername;
+		private final String replicaPassword;
+
+		public PrimaryLink(String url, String username, String password, String replicaUsername, String replicaPassword) {
+			this.url = url;
+			this.username = username;
+			this.password = password;
+			this.replicaUsername = replicaUsername;
+			this.replicaPassword = replicaPassword;
+		}
+
+		void linkMissingTables(DataSource primary, Replica replica) throws SQLException {
+			Set<String> missing;
+			try (Connection connection = primary.getConnection()) {
+				missing = tables(connection, new String[] { "TABLE" });
+			}
+
+			try (Connection connection = DriverManager.getConnection(replica.getUrl(), replicaUsername, replicaPassword)) {
+				// tabelas ja ligadas aparecem como TABLE LINK
+				missing.removeAll(tables(connection, null));
+
+				for (String table : missing) {
+					try (Statement statement = connection.createStatement()) {
+						statement.execute("CREATE LINKED TABLE IF NOT EXISTS " + table + "('org.h2.Driver', " + quote(url)
+								+ ", " + quote(username) + ", " + quote(password) + ", " + quote(table) + ") READONLY");
+					}
+				}
+			}
+		}
+
+		private String quote(String value) {
+			return "'" + (value == null ? "" : value.replace("'", "''")) + "'";
+		}
+
+		private Set<String> tables(Connection connection, String[] types) throws SQLException {
+			Set<String> tables = new LinkedHashSet<>();
+			try (ResultSet result = connection.getMetaData().getTables(null, "PUBLIC", "%", types)) {
+				while (result.next())
+					tables.add(result.getString("TABLE_NAME"));
+			}
+			return tables;
+		}
+
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envia transacoes readOnly para uma replica saudavel (em rodizio) e o restante para o primario.
+ * Deve ficar atras de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexao
+ * antes de marcar a transacao como readOnly, e o proxy adia a escolha ate o primeiro comando.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	private final List<Replica> replicas;
+	private final long stickyMillis;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long stickyMillis) {
+		this.replicas = replicas;
+		this.stickyMillis = stickyMillis;
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+
+	/**
+	 * Indica se as leituras da requisicao atual estao presas ao primario (read-your-writes).
+	 */
+	public static boolean readsFromPrimary() {
+		return ReadYourWrites.mustReadFromPrimary();
+	}
+
+	public static boolean readsFromPrimary(HttpServletRequest request) {
+		return ReadYourWrites.mustReadFromPrimary(request);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			return PRIMARY;
+
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					ReadYourWrites.written(stickyMillis);
+				}
+			});
+			return PRIMARY;
+		}
+
+		if (ReadYourWrites.mustReadFromPrimary())
+			return PRIMARY;
+
+		Replica replica = healthyReplica();
+		return replica == null ? PRIMARY : replica.getName();
+	}
+
+	private Replica healthyReplica() {
+		int size = replicas.size();
+		int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if (replica.isHealthy())
+				return replica;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.adrianmorais.libraryapi.model.entity.IdempotencyRecord;
+import com.adrianmorais.libraryapi.model.repository.IdempotencyRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Guarda as respostas na tabela idempotency_record, com o InMemoryIdempotencyStore na frente: repeticoes
+ * sobrevivem a um restart e sao vistas por outras instancias. Requisicoes simultaneas em instancias
+ * diferentes ainda podem executar duas vezes; a espera pela requisicao em andamento e local.
+ */
+@Slf4j
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+	private final InMemoryIdempotencyStore cache;
+	private final IdempotencyRecordRepository repository;
+	private final long ttlMillis;
+
+	public DatabaseIdempotencyStore(InMemoryIdempotencyStore cache, IdempotencyRecordRepository repository,
+			long ttlMillis) {
+		this.cache = cache;
+		this.repository = repository;
+		this.ttlMillis = ttlMillis;
+	}
+
+	@Override
+	public StoredResponse find(String key) {
+		StoredResponse cached = cache.find(key);
+		if (cached != null)
+			return cached;
+
+		StoredResponse stored = repository.findById(key)
+				.map(record -> StoredResponse.builder()
+						.fingerprint(record.getFingerprint())
+						.status(record.getStatus())
+						.contentType(record.getContentType())
+						.body(record.getBody())
+						.createdAt(record.getCreatedAt())
+						.build())
+				.filter(response -> !cache.isExpired(response))
+				.orElse(null);
+		if (stored != null)
+			cache.save(key, stored);
+		return stored;
+	}
+
+	@Override
+	public void save(String key, StoredResponse response) {
+		cache.save(key, response);
+		try {
+			repository.save(IdempotencyRecord.builder()
+					.key(key)
+					.fingerprint(response.getFingerprint())
+					.status(response.getStatus())
+					.contentType(response.getContentType())
+					.body(response.getBody())
+					.createdAt(response.getCreatedAt())
+					.build());
+		} catch (DataIntegrityViolationException e) {
+			// outra instancia gravou a mesma chave primeiro
+			log.debug("Idempotency key already stored: {}", key);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${application.idempotency.purge-interval-ms:600000}")
+	public void purge() {
+		int purged = repository.deleteCreatedBefore(System.currentTimeMillis() - ttlMillis);
+		if (purged > 0)
+			log.info("Purged {} expired idempotency records", purged);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.adrianmorais.libraryapi.model.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+@ConditionalOnProperty(name = "application.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+	@Value("${application.idempotency.max-entries:10000}")
+	private int maxEntries;
+
+	@Value("${application.idempotency.ttl-ms:86400000}")
+	private long ttlMillis;
+
+	@Value("${application.idempotency.wait-timeout-ms:10000}")
+	private long waitTimeoutMillis;
+
+	@Bean
+	@ConditionalOnProperty(name = "application.idempotency.store", havingValue = "memory", matchIfMissing = true)
+	public IdempotencyStore inMemoryIdempotencyStore() {
+		return new InMemoryIdempotencyStore(maxEntries, ttlMillis);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "application.idempotency.store", havingValue = "database")
+	public DatabaseIdempotencyStore databaseIdempotencyStore(IdempotencyRecordRepository repository) {
+		return new DatabaseIdempotencyStore(new InMemoryIdempotencyStore(maxEntries, ttlMillis), repository, ttlMillis);
+	}
+
+	@Bean
+	public FilterRegistrationBean<IdempotencyFilter> idempotencyFilterRegistration(IdempotencyStore store,
+			ObjectMapper objectMapper) {
+		FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+				new IdempotencyFilter(store, objectMapper, waitTimeoutMillis));
+		// depois do rate limit: repeticoes tambem contam no limite do cliente
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+		return registration;
+	}
+
+}
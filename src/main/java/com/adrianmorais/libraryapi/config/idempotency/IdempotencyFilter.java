@@ -0,0 +1,173 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.adrianmorais.libraryapi.api.exception.ApiErrors;
+import com.adrianmorais.libraryapi.config.CachedBodyRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * POST em /api com o header Idempotency-Key: a primeira requisicao executa e tem a resposta guardada;
+ * repeticoes da mesma chave (por cliente e rota) recebem a resposta original sem executar de novo.
+ * Repeticoes que chegam enquanto a original esta em andamento esperam por ela. Respostas 5xx nao sao
+ * guardadas, para a proxima tentativa executar de novo.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	static final String API_KEY_HEADER = "X-API-Key";
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final IdempotencyStore store;
+	private final ObjectMapper objectMapper;
+	private final long waitTimeoutMillis;
+	private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+	public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, long waitTimeoutMillis) {
+		this.store = store;
+		this.objectMapper = objectMapper;
+		this.waitTimeoutMillis = waitTimeoutMillis;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null
+				|| !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String idempotencyKey = request.getHeader(HEADER);
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			reject(response, HttpStatus.BAD_REQUEST, HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+			return;
+		}
+
+		// o corpo e lido para o hash; o controller le de novo a partir da copia
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String key = client(request) + " " + request.getRequestURI() + " " + idempotencyKey;
+		String fingerprint = fingerprint(body);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+
+		while (true) {
+			StoredResponse stored = store.find(key);
+			if (stored != null) {
+				replay(stored, fingerprint, response);
+				return;
+			}
+
+			CompletableFuture<StoredResponse> running = new CompletableFuture<>();
+			CompletableFuture<StoredResponse> other = inFlight.putIfAbsent(key, running);
+			if (other == null) {
+				execute(new CachedBodyRequest(request, body), response, chain, key, fingerprint, running);
+				return;
+			}
+
+			try {
+				stored = other.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				reject(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ServletException(e);
+			} catch (ExecutionException e) {
+				stored = null;
+			}
+			// nulo: a original falhou ou respondeu 5xx, esta tenta executar
+			if (stored != null) {
+				replay(stored, fingerprint, response);
+				return;
+			}
+		}
+	}
+
+	private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String key,
+			String fingerprint, CompletableFuture<StoredResponse> running) throws ServletException, IOException {
+		StoredResponse stored = null;
+		try {
+			// a original pode ter terminado entre o find e o putIfAbsent
+			stored = store.find(key);
+			if (stored != null) {
+				replay(stored, fingerprint, response);
+				return;
+			}
+
+			ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+			chain.doFilter(request, wrapper);
+			if (wrapper.getStatus() < 500) {
+				stored = StoredResponse.builder()
+						.fingerprint(fingerprint)
+						.status(wrapper.getStatus())
+						.contentType(wrapper.getContentType())
+						.body(wrapper.getContentAsByteArray())
+						.createdAt(System.currentTimeMillis())
+						.build();
+				store.save(key, stored);
+			}
+			wrapper.copyBodyToResponse();
+		} finally {
+			inFlight.remove(key, running);
+			running.complete(stored);
+		}
+	}
+
+	private void replay(StoredResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+		if (!stored.getFingerprint().equals(fingerprint)) {
+			reject(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used with a different request body");
+			return;
+		}
+		response.setStatus(stored.getStatus());
+		if (stored.getContentType() != null)
+			response.setContentType(stored.getContentType());
+		response.setHeader(REPLAYED_HEADER, "true");
+		response.setContentLength(stored.getBody().length);
+		response.getOutputStream().write(stored.getBody());
+	}
+
+	private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), ApiErrors.of(message));
+	}
+
+	// mesmo criterio do RateLimitFilter: chave de API ou IP
+	private String client(HttpServletRequest request) {
+		String apiKey = request.getHeader(API_KEY_HEADER);
+		return apiKey == null || apiKey.isEmpty() ? "ip:" + request.getRemoteAddr() : "key:" + apiKey;
+	}
+
+	private static String fingerprint(byte[] body) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash)
+				hex.append(String.format("%02x", b));
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+/**
+ * Respostas ja concluidas por chave. Quem coordena requisicoes em andamento e o IdempotencyFilter.
+ */
+public interface IdempotencyStore {
+
+	// nulo se a chave nao existe ou expirou
+	StoredResponse find(String key);
+
+	void save(String key, StoredResponse response);
+
+}
@@ -0,0 +1,49 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU limitado a maxEntries; entradas mais velhas que ttlMillis sao ignoradas e removidas na leitura.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+	private final long ttlMillis;
+	private final Map<String, StoredResponse> entries;
+
+	public InMemoryIdempotencyStore(int maxEntries, long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+		this.entries = new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	@Override
+	public synchronized StoredResponse find(String key) {
+		StoredResponse response = entries.get(key);
+		if (response != null && isExpired(response)) {
+			entries.remove(key);
+			return null;
+		}
+		return response;
+	}
+
+	@Override
+	public synchronized void save(String key, StoredResponse response) {
+		entries.put(key, response);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	boolean isExpired(StoredResponse response) {
+		return System.currentTimeMillis() - response.getCreatedAt() > ttlMillis;
+	}
+
+}
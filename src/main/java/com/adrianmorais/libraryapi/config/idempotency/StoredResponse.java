@@ -0,0 +1,24 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resposta original de uma requisicao com Idempotency-Key, reenviada as repeticoes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredResponse {
+
+	// hash do corpo da requisicao original: a mesma chave com outro corpo e rejeitada
+	private String fingerprint;
+	private int status;
+	private String contentType;
+	private byte[] body;
+	private long createdAt;
+
+}
@@ -0,0 +1,96 @@
+package com.adrianmorais.libraryapi.config.logging;
+
+import java.time.Instant;
+import java.util.Map;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.LayoutBase;
+
+/**
+ * Layout do logback que escreve cada evento como uma linha JSON.
+ */
+public class JsonLayout extends LayoutBase<ILoggingEvent> {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	@Override
+	public String doLayout(ILoggingEvent event) {
+		StringBuilder json = new StringBuilder(INITIAL_CAPACITY);
+		json.append('{');
+		field(json, "timestamp", Instant.ofEpochMilli(event.getTimeStamp()).toString()).append(',');
+		field(json, "level", event.getLevel().toString()).append(',');
+		field(json, "thread", event.getThreadName()).append(',');
+		field(json, "logger", event.getLoggerName()).append(',');
+		field(json, "message", event.getFormattedMessage());
+
+		Map<String, String> mdc = event.getMDCPropertyMap();
+		if (mdc != null && !mdc.isEmpty()) {
+			json.append(",\"mdc\":{");
+			boolean first = true;
+			for (Map.Entry<String, String> entry : mdc.entrySet()) {
+				if (!first)
+					json.append(',');
+				field(json, entry.getKey(), entry.getValue());
+				first = false;
+			}
+			json.append('}');
+		}
+
+		IThrowableProxy throwable = event.getThrowableProxy();
+		if (throwable != null) {
+			json.append(',');
+			field(json, "stack_trace", ThrowableProxyUtil.asString(throwable));
+		}
+
+		return json.append('}').append(CoreConstants.LINE_SEPARATOR).toString();
+	}
+
+	@Override
+	public String getContentType() {
+		return "application/json";
+	}
+
+	private static StringBuilder field(StringBuilder json, String name, String value) {
+		json.append('"');
+		escape(json, name);
+		json.append("\":");
+		if (value == null)
+			return json.append("null");
+
+		json.append('"');
+		escape(json, value);
+		return json.append('"');
+	}
+
+	private static void escape(StringBuilder json, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					json.append(String.format("\\u%04x", (int) c));
+				else
+					json.append(c);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.adrianmorais.libraryapi.config.logging;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Amostragem por logger: regras no formato {@code logger=taxa,outro.logger=taxa}, onde a taxa
+ * vai de 0.0 (descarta tudo) a 1.0 (mantem tudo). Vale a regra de maior prefixo; WARN e ERROR
+ * nunca sao amostrados.
+ */
+public class LoggerSamplingFilter extends Filter<ILoggingEvent> {
+
+	private final List<Rule> rules = new ArrayList<>();
+
+	public void setRules(String value) {
+		rules.clear();
+		if (value == null)
+			return;
+
+		for (String rule : value.split(",")) {
+			String trimmed = rule.trim();
+			if (trimmed.isEmpty())
+				continue;
+
+			int separator = trimmed.lastIndexOf('=');
+			if (separator <= 0) {
+				addWarn("Ignoring invalid sampling rule [" + trimmed + "]");
+				continue;
+			}
+			String logger = trimmed.substring(0, separator).trim();
+			rules.add(new Rule(logger, rate(trimmed.substring(separator + 1).trim(), trimmed)));
+		}
+		rules.sort(Comparator.comparingInt((Rule r) -> r.logger.length()).reversed());
+	}
+
+	// taxa invalida nao pode derrubar a subida do logback: fica 1.0 (sem amostragem), fora de [0,1] e limitada
+	private double rate(String value, String rule) {
+		double rate;
+		try {
+			rate = Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			addWarn("Invalid sampling rate in rule [" + rule + "], using 1.0");
+			return 1d;
+		}
+		if (Double.isNaN(rate)) {
+			addWarn("Invalid sampling rate in rule [" + rule + "], using 1.0");
+			return 1d;
+		}
+		if (rate < 0d || rate > 1d) {
+			addWarn("Sampling rate in rule [" + rule + "] is outside [0, 1], clamping");
+			return Math.max(0d, Math.min(1d, rate));
+		}
+		return rate;
+	}
+
+	@Override
+	public FilterReply decide(ILoggingEvent event) {
+		if (rules.isEmpty() || event.getLevel().isGreaterOrEqual(Level.WARN))
+			return FilterReply.NEUTRAL;
+
+		Rule rule = ruleFor(event.getLoggerName());
+		if (rule == null || rule.rate >= 1d)
+			return FilterReply.NEUTRAL;
+
+		return ThreadLocalRandom.current().nextDouble() < rule.rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+	}
+
+	private Rule ruleFor(String loggerName) {
+		for (Rule rule : rules) {
+			if (!loggerName.startsWith(rule.logger))
+				continue;
+			if (loggerName.length() == rule.logger.length() || loggerName.charAt(rule.logger.length()) == '.')
+				return rule;
+		}
+		return null;
+	}
+
+	private static final class Rule {
+		private final String logger;
+		private final double rate;
+
+		private Rule(String logger, double rate) {
+			this.logger = logger;
+			this.rate = rate;
+		}
+	}
+
+}
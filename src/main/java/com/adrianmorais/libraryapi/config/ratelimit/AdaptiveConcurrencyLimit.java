@@ -0,0 +1,94 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Limite de requisicoes simultaneas ajustado por AIMD a partir da latencia observada: enquanto as
+ * respostas ficam abaixo da latencia alvo e o limite esta em uso, cresce 1 a cada "limit" respostas;
+ * uma resposta acima do alvo reduz o limite pelo fator de backoff (no maximo uma vez por janela de
+ * latencia alvo, para uma rajada lenta nao derrubar o limite ate o minimo).
+ */
+public class AdaptiveConcurrencyLimit {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+	private final double backoff;
+
+	private final AtomicLong limitBits;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+	private final LongAdder rejected = new LongAdder();
+
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis, double backoff) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+		this.backoff = backoff;
+		this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+	}
+
+	public boolean tryAcquire() {
+		int limit = getLimit();
+		while (true) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				rejected.increment();
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	public void release(long latencyNanos) {
+		int current = inFlight.getAndDecrement();
+		long now = System.nanoTime();
+
+		if (latencyNanos > targetLatencyNanos) {
+			long last = lastDecrease.get();
+			if (now - last >= targetLatencyNanos && lastDecrease.compareAndSet(last, now))
+				update(limit -> Math.max(minLimit, limit * backoff));
+		} else if (current * 2 >= getLimit()) {
+			update(limit -> Math.min(maxLimit, limit + 1 / limit));
+		}
+	}
+
+	private void update(DoubleUnaryOperator function) {
+		while (true) {
+			long bits = limitBits.get();
+			double next = function.applyAsDouble(Double.longBitsToDouble(bits));
+			if (limitBits.compareAndSet(bits, Double.doubleToLongBits(next)))
+				return;
+		}
+	}
+
+	public int getLimit() {
+		return (int) Double.longBitsToDouble(limitBits.get());
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public long getTargetLatencyMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+public class RateLimitConfig {
+
+	@Value("${application.ratelimit.enabled:false}")
+	private boolean enabled;
+
+	@Value("${application.ratelimit.max-clients:10000}")
+	private int maxClients;
+
+	@Value("${application.ratelimit.max-keys-per-address:10}")
+	private int maxKeysPerAddress;
+
+	@Value("${application.ratelimit.point.capacity:100}")
+	private int pointCapacity;
+
+	@Value("${application.ratelimit.point.refill-per-second:50}")
+	private double pointRefill;
+
+	@Value("${application.ratelimit.search.capacity:20}")
+	private int searchCapacity;
+
+	@Value("${application.ratelimit.search.refill-per-second:5}")
+	private double searchRefill;
+
+	@Value("${application.ratelimit.concurrency.initial-limit:20}")
+	private int initialLimit;
+
+	@Value("${application.ratelimit.concurrency.min-limit:4}")
+	private int minLimit;
+
+	@Value("${application.ratelimit.concurrency.max-limit:200}")
+	private int maxLimit;
+
+	@Value("${application.ratelimit.concurrency.target-latency-ms:250}")
+	private long targetLatencyMillis;
+
+	@Value("${application.ratelimit.concurrency.backoff:0.9}")
+	private double backoff;
+
+	@Bean
+	public RateLimiter rateLimiter() {
+		return new RateLimiter(new TierSettings(pointCapacity, pointRefill),
+				new TierSettings(searchCapacity, searchRefill), maxClients, maxKeysPerAddress);
+	}
+
+	// o limite de clientes e aplicado aqui, fora do caminho da requisicao
+	@Scheduled(fixedDelayString = "${application.ratelimit.eviction-interval-ms:1000}")
+	public void evictClients() {
+		if (enabled)
+			rateLimiter().evict();
+	}
+
+	@Bean
+	public AdaptiveConcurrencyLimit adaptiveConcurrencyLimit() {
+		return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, targetLatencyMillis, backoff);
+	}
+
+	@Bean
+	public RateLimitFilter rateLimitFilter(ObjectMapper objectMapper) {
+		return new RateLimitFilter(rateLimiter(), adaptiveConcurrencyLimit(), objectMapper, enabled);
+	}
+
+	@Bean
+	public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+		FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.setEnabled(enabled);
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+}
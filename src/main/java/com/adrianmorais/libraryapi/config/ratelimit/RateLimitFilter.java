@@ -0,0 +1,131 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.adrianmorais.libraryapi.api.exception.ApiErrors;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Aplica o limite por cliente (429) e o limite adaptativo de concorrencia (503) nas rotas /api.
+ * Listagens, buscas e consultas GraphQL (que listam livros e emprestimos numa unica requisicao) consomem do
+ * balde SEARCH; leituras por id e escritas, do balde POINT.
+ * Fica inativo ate a aplicacao aceitar trafego, para nao limitar o aquecimento, e sempre que desligado.
+ */
+public class RateLimitFilter extends OncePerRequestFilter
+		implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+	static final String API_KEY_HEADER = "X-API-Key";
+
+	private static final Pattern SEARCH_PATH = Pattern.compile("/api/(books|loans)/?|/api/(books|customers)/[^/]+/loans/?");
+	private static final Pattern GRAPHQL_PATH = Pattern.compile("/api/graphql/?");
+
+	private final RateLimiter rateLimiter;
+	private final AdaptiveConcurrencyLimit concurrencyLimit;
+	private final ObjectMapper objectMapper;
+	private final boolean enabled;
+
+	private volatile boolean active;
+
+	public RateLimitFilter(RateLimiter rateLimiter, AdaptiveConcurrencyLimit concurrencyLimit, ObjectMapper objectMapper,
+			boolean enabled) {
+		this.rateLimiter = rateLimiter;
+		this.concurrencyLimit = concurrencyLimit;
+		this.objectMapper = objectMapper;
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void onApplicationEvent(AvailabilityChangeEvent<ReadinessState> event) {
+		this.active = enabled && event.getState() == ReadinessState.ACCEPTING_TRAFFIC;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !active || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long wait = rateLimiter.tryAcquire(request.getRemoteAddr(), request.getHeader(API_KEY_HEADER), tier(request));
+		if (wait > 0) {
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, "Too many requests");
+			return;
+		}
+
+		if (!concurrencyLimit.tryAcquire()) {
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Server is overloaded");
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			concurrencyLimit.release(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Cobra do cliente da requisicao as operacoes de um lote, despachadas sem passar por este filtro: point
+	 * fichas do balde POINT e search do SEARCH. Sem fichas preenche o Retry-After e retorna falso; as fichas
+	 * ja tiradas do outro balde nao voltam. Inativo, nao cobra nada.
+	 */
+	public boolean tryAcquire(HttpServletRequest request, HttpServletResponse response, int point, int search) {
+		if (!active)
+			return true;
+		String address = request.getRemoteAddr();
+		String apiKey = request.getHeader(API_KEY_HEADER);
+		long wait = rateLimiter.tryAcquire(address, apiKey, RateLimiter.Tier.SEARCH, search);
+		if (wait == 0)
+			wait = rateLimiter.tryAcquire(address, apiKey, RateLimiter.Tier.POINT, point);
+		if (wait == 0)
+			return true;
+		retryAfter(response, wait);
+		return false;
+	}
+
+	// path sem o context path e sem a query string
+	public static RateLimiter.Tier tier(String method, String path) {
+		return "GET".equals(method) && SEARCH_PATH.matcher(path).matches()
+				|| "POST".equals(method) && GRAPHQL_PATH.matcher(path).matches()
+				? RateLimiter.Tier.SEARCH
+				: RateLimiter.Tier.POINT;
+	}
+
+	private RateLimiter.Tier tier(HttpServletRequest request) {
+		return tier(request.getMethod(), request.getRequestURI().substring(request.getContextPath().length()));
+	}
+
+	private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+			throws IOException {
+		response.setStatus(status.value());
+		retryAfter(response, waitNanos);
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), ApiErrors.of(message));
+	}
+
+	private static void retryAfter(HttpServletResponse response, long waitNanos) {
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+	}
+
+}
@@ -0,0 +1,177 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Baldes por cliente (API key ou IP), um por tipo de requisicao. Nenhuma requisicao pega lock: os clientes
+ * ficam num ConcurrentHashMap e o limite de maxClients e aplicado por evict(), chamado periodicamente fora
+ * do caminho da requisicao, que descarta os clientes usados ha mais tempo. Entre duas passadas o mapa pode
+ * passar de maxClients pelos clientes novos do intervalo. A API key nao e autenticada, entao cada endereco
+ * tem no maximo maxKeysPerAddress chaves com balde proprio; as demais dividem o balde do endereco (trocar
+ * de chave a cada requisicao nao renova a cota).
+ */
+public class RateLimiter {
+
+	public enum Tier {
+		POINT, SEARCH
+	}
+
+	private final Map<Tier, TierSettings> settings = new EnumMap<>(Tier.class);
+	private final Map<Tier, LongAdder> rejected = new EnumMap<>(Tier.class);
+	private final Map<String, Client> clients = new ConcurrentHashMap<>();
+	private final Map<String, Address> keysByAddress = new ConcurrentHashMap<>();
+	private final int maxClients;
+	private final int maxKeysPerAddress;
+
+	public RateLimiter(TierSettings point, TierSettings search, int maxClients, int maxKeysPerAddress) {
+		this.settings.put(Tier.POINT, point);
+		this.settings.put(Tier.SEARCH, search);
+		for (Tier tier : Tier.values())
+			this.rejected.put(tier, new LongAdder());
+		this.maxClients = maxClients;
+		this.maxKeysPerAddress = maxKeysPerAddress;
+	}
+
+	/**
+	 * Retorna 0 quando a requisicao pode seguir ou os nanos ate o cliente ter uma nova ficha.
+	 */
+	public long tryAcquire(String address, String apiKey, Tier tier) {
+		return tryAcquire(address, apiKey, tier, 1);
+	}
+
+	/**
+	 * Como tryAcquire, consumindo permits fichas de uma vez (ex.: as operacoes de um lote).
+	 */
+	public long tryAcquire(String address, String apiKey, Tier tier, int permits) {
+		if (permits <= 0)
+			return 0;
+		long now = System.nanoTime();
+		Client client = clients.computeIfAbsent(client(address, apiKey, now), key -> new Client(newBuckets(now), now));
+		client.lastSeen = now;
+		long wait = client.buckets[tier.ordinal()].tryConsume(now, permits);
+		if (wait > 0)
+			rejected.get(tier).increment();
+		return wait;
+	}
+
+	public RateLimiterState.TierState tierState(Tier tier) {
+		TierSettings tierSettings = settings.get(tier);
+		return RateLimiterState.TierState.builder()
+				.capacity(tierSettings.getCapacity())
+				.refillPerSecond(tierSettings.getRefillPerSecond())
+				.rejected(rejected.get(tier).sum())
+				.build();
+	}
+
+	public int getClients() {
+		return clients.size();
+	}
+
+	/**
+	 * Descarta os clientes (e os enderecos) usados ha mais tempo ate voltar a maxClients. Roda fora do
+	 * caminho da requisicao; um cliente descartado que volta recomeca com o balde cheio.
+	 */
+	public void evict() {
+		evictOldest(clients, maxClients);
+		evictOldest(keysByAddress, maxClients);
+	}
+
+	/**
+	 * Clientes com menos fichas disponiveis em algum balde, do mais restrito para o menos.
+	 */
+	public List<RateLimiterState.ClientState> mostThrottled(int max) {
+		long now = System.nanoTime();
+		return clients.entrySet().stream()
+				.map(entry -> RateLimiterState.ClientState.builder()
+						.client(entry.getKey())
+						.pointTokens(entry.getValue().buckets[Tier.POINT.ordinal()].available(now))
+						.searchTokens(entry.getValue().buckets[Tier.SEARCH.ordinal()].available(now))
+						.build())
+				.filter(state -> state.getPointTokens() < settings.get(Tier.POINT).getCapacity()
+						|| state.getSearchTokens() < settings.get(Tier.SEARCH).getCapacity())
+				.sorted(Comparator.comparingDouble(state -> Math.min(
+						state.getPointTokens() / settings.get(Tier.POINT).getCapacity(),
+						state.getSearchTokens() / settings.get(Tier.SEARCH).getCapacity())))
+				.limit(max)
+				.collect(Collectors.toList());
+	}
+
+	private TokenBucket[] newBuckets(long now) {
+		TokenBucket[] buckets = new TokenBucket[Tier.values().length];
+		for (Tier tier : Tier.values()) {
+			TierSettings tierSettings = settings.get(tier);
+			buckets[tier.ordinal()] = new TokenBucket(tierSettings.getCapacity(), tierSettings.getRefillPerSecond(), now);
+		}
+		return buckets;
+	}
+
+	private String client(String address, String apiKey, long now) {
+		if (apiKey == null || apiKey.isEmpty())
+			return "ip:" + address;
+		Address entry = keysByAddress.computeIfAbsent(address, key -> new Address(now));
+		entry.lastSeen = now;
+		Set<String> keys = entry.keys;
+		if (!keys.contains(apiKey)) {
+			if (keys.size() >= maxKeysPerAddress)
+				return "ip:" + address;
+			// duas chaves novas ao mesmo tempo podem passar da conta; a que passou desiste
+			if (keys.add(apiKey) && keys.size() > maxKeysPerAddress) {
+				keys.remove(apiKey);
+				return "ip:" + address;
+			}
+		}
+		return "key:" + apiKey;
+	}
+
+	private static <V extends Recent> void evictOldest(Map<String, V> entries, int maxEntries) {
+		int excess = entries.size() - maxEntries;
+		if (excess <= 0)
+			return;
+		// lastSeen muda durante a passada: ordena por uma copia para o sort ver valores estaveis
+		List<Map.Entry<String, Long>> snapshot = new ArrayList<>(entries.size());
+		entries.forEach((key, value) -> snapshot.add(new SimpleImmutableEntry<>(key, value.lastSeen)));
+		snapshot.sort(Map.Entry.comparingByValue());
+		for (int i = 0; i < Math.min(excess, snapshot.size()); i++) {
+			Map.Entry<String, Long> oldest = snapshot.get(i);
+			// usado desde a copia: fica
+			entries.computeIfPresent(oldest.getKey(),
+					(key, value) -> value.lastSeen == oldest.getValue() ? null : value);
+		}
+	}
+
+	private abstract static class Recent {
+		// escrita sem CAS: perder uma atualizacao concorrente so adianta um pouco o descarte
+		volatile long lastSeen;
+
+		Recent(long now) {
+			this.lastSeen = now;
+		}
+	}
+
+	private static class Client extends Recent {
+		final TokenBucket[] buckets;
+
+		Client(TokenBucket[] buckets, long now) {
+			super(now);
+			this.buckets = buckets;
+		}
+	}
+
+	private static class Address extends Recent {
+		final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+		Address(long now) {
+			super(now);
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@Endpoint(id = "ratelimiter")
+@RequiredArgsConstructor
+public class RateLimiterEndpoint {
+
+	private static final int MAX_THROTTLED_CLIENTS = 20;
+
+	private final RateLimiter rateLimiter;
+	private final AdaptiveConcurrencyLimit concurrencyLimit;
+	private final RateLimitFilter filter;
+
+	@Value("${application.ratelimit.enabled:false}")
+	private boolean enabled;
+
+	@ReadOperation
+	public RateLimiterState state() {
+		Map<String, RateLimiterState.TierState> tiers = new LinkedHashMap<>();
+		for (RateLimiter.Tier tier : RateLimiter.Tier.values())
+			tiers.put(tier.name().toLowerCase(), rateLimiter.tierState(tier));
+
+		return RateLimiterState.builder()
+				.enabled(enabled)
+				.active(enabled && filter.isActive())
+				.concurrency(RateLimiterState.ConcurrencyState.builder()
+						.limit(concurrencyLimit.getLimit())
+						.inFlight(concurrencyLimit.getInFlight())
+						.minLimit(concurrencyLimit.getMinLimit())
+						.maxLimit(concurrencyLimit.getMaxLimit())
+						.targetLatencyMillis(concurrencyLimit.getTargetLatencyMillis())
+						.rejected(concurrencyLimit.getRejected())
+						.build())
+				.tiers(tiers)
+				.clients(rateLimiter.getClients())
+				.throttledClients(rateLimiter.mostThrottled(MAX_THROTTLED_CLIENTS))
+				.build();
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RateLimiterState {
+
+	private boolean enabled;
+	private boolean active;
+	private ConcurrencyState concurrency;
+	private Map<String, TierState> tiers;
+	private int clients;
+	private List<ClientState> throttledClients;
+
+	@Data
+	@Builder
+	public static class ConcurrencyState {
+		private int limit;
+		private int inFlight;
+		private int minLimit;
+		private int maxLimit;
+		private long targetLatencyMillis;
+		private long rejected;
+	}
+
+	@Data
+	@Builder
+	public static class TierState {
+		private int capacity;
+		private double refillPerSecond;
+		private long rejected;
+	}
+
+	@Data
+	@Builder
+	public static class ClientState {
+		private String client;
+		private double pointTokens;
+		private double searchTokens;
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TierSettings {
+
+	private int capacity;
+	private double refillPerSecond;
+
+}
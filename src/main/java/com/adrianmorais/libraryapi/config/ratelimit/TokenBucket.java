@@ -0,0 +1,51 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock no formato GCRA: o estado e apenas o instante teorico (em nanos) em que o
+ * balde volta a ficar cheio, atualizado com CAS. Equivale a um balde com capacity fichas que
+ * recebe refillPerSecond fichas por segundo.
+ */
+class TokenBucket {
+
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final AtomicLong fullAt;
+
+	TokenBucket(int capacity, double refillPerSecond, long now) {
+		this.intervalNanos = (long) (1e9 / refillPerSecond);
+		this.burstNanos = intervalNanos * capacity;
+		this.fullAt = new AtomicLong(now);
+	}
+
+	/**
+	 * Consome uma ficha. Retorna 0 quando permitido ou os nanos ate a proxima ficha ficar disponivel.
+	 */
+	long tryConsume(long now) {
+		return tryConsume(now, 1);
+	}
+
+	/**
+	 * Consome permits fichas de uma vez; mais fichas que a capacidade custam o balde cheio. Retorna 0 quando
+	 * permitido ou os nanos ate haver fichas suficientes.
+	 */
+	long tryConsume(long now, int permits) {
+		long cost = Math.min(intervalNanos * permits, burstNanos);
+		while (true) {
+			long current = fullAt.get();
+			long next = Math.max(current, now) + cost;
+			long wait = next - now - burstNanos;
+			if (wait > 0)
+				return wait;
+			if (fullAt.compareAndSet(current, next))
+				return 0;
+		}
+	}
+
+	double available(long now) {
+		long used = Math.max(0, fullAt.get() - now);
+		return (burstNanos - used) / (double) intervalNanos;
+	}
+
+}
@@ -0,0 +1,195 @@
+package com.adrianmorais.libraryapi.config.responsecache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bytes prontos de GET /api/books/{id} por id e formato, mais a versao gzip quando o corpo passa do
+ * server.compression.min-response-size. Sai do cache apos o commit de cada alteracao do livro (e nas
+ * invalidacoes vindas de outras instancias) ou apos ttlMillis.
+ *
+ * Uma leitura que comecou antes de uma alteracao nao grava: put compara o contador de remocoes lido
+ * antes da consulta (stamp) com o atual.
+ *
+ * Cheio, o descarte e um LRU aproximado (CLOCK): os ids ficam numa fila em ordem de entrada e a entrada
+ * lida desde a ultima volta ganha uma segunda chance no fim da fila. Cada put examina no maximo
+ * MAX_PROBES ids, entao uma entrada nova sempre entra em tempo constante, sem lock.
+ */
+public class BookResponseCache {
+
+	public enum Format {
+		JSON("application/json"), CBOR("application/cbor"), SMILE("application/x-jackson-smile");
+
+		private final String contentType;
+
+		Format(String contentType) {
+			this.contentType = contentType;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+	}
+
+	public static final class Entry {
+		private final byte[][] bodies;
+		private final byte[][] gzipped;
+		private final long expiresAt;
+		// lida desde que passou pela cabeca da fila
+		private volatile boolean referenced;
+
+		Entry(byte[][] bodies, byte[][] gzipped, long expiresAt) {
+			this.bodies = bodies;
+			this.gzipped = gzipped;
+			this.expiresAt = expiresAt;
+		}
+
+		public byte[] body(Format format) {
+			return bodies[format.ordinal()];
+		}
+
+		// nulo quando o corpo e pequeno demais para compensar a compressao
+		public byte[] gzipped(Format format) {
+			return gzipped[format.ordinal()];
+		}
+	}
+
+	static final int MAX_PROBES = 8;
+
+	private final ObjectMapper[] mappers = new ObjectMapper[Format.values().length];
+	private final int maxEntries;
+	private final long ttlMillis;
+	private final int minGzipSize;
+
+	private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong evictions = new AtomicLong();
+	// ids em ordem de entrada; pode ter ids ja removidos, descartados quando chegam a cabeca
+	private final Queue<Long> order = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+
+	public BookResponseCache(ObjectMapper json, ObjectMapper cbor, ObjectMapper smile, int maxEntries, long ttlMillis,
+			int minGzipSize) {
+		this.mappers[Format.JSON.ordinal()] = json;
+		this.mappers[Format.CBOR.ordinal()] = cbor;
+		this.mappers[Format.SMILE.ordinal()] = smile;
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttlMillis;
+		this.minGzipSize = minGzipSize;
+	}
+
+	public Entry get(Long id) {
+		Entry entry = entries.get(id);
+		if (entry == null)
+			return null;
+		if (entry.expiresAt < System.currentTimeMillis()) {
+			entries.remove(id, entry);
+			return null;
+		}
+		if (!entry.referenced)
+			entry.referenced = true;
+		return entry;
+	}
+
+	public long stamp() {
+		return evictions.get();
+	}
+
+	/**
+	 * Serializa o livro em todos os formatos. So guarda se nenhuma remocao aconteceu desde stamp; devolve
+	 * a entrada de qualquer forma, para responder a requisicao atual.
+	 */
+	public Entry put(Long id, BookDTO dto, long stamp) {
+		Format[] formats = Format.values();
+		byte[][] bodies = new byte[formats.length][];
+		byte[][] gzipped = new byte[formats.length][];
+		for (Format format : formats) {
+			bodies[format.ordinal()] = serialize(format, dto);
+			if (bodies[format.ordinal()].length >= minGzipSize)
+				gzipped[format.ordinal()] = gzip(bodies[format.ordinal()]);
+		}
+		Entry entry = new Entry(bodies, gzipped, System.currentTimeMillis() + ttlMillis);
+
+		if (evictions.get() != stamp)
+			return entry;
+		makeRoom();
+		if (entries.put(id, entry) == null) {
+			order.add(id);
+			queued.incrementAndGet();
+		}
+		// uma remocao entre a comparacao e o put
+		if (evictions.get() != stamp)
+			entries.remove(id, entry);
+		return entry;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		evict(event.getBook().getId());
+	}
+
+	public void evict(Long id) {
+		evictions.incrementAndGet();
+		if (id != null)
+			entries.remove(id);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	// uma volta do CLOCK limitada a MAX_PROBES ids; tambem limpa ids removidos por evict ou vencidos
+	private void makeRoom() {
+		long now = System.currentTimeMillis();
+		for (int probe = 0; probe < MAX_PROBES
+				&& (entries.size() >= maxEntries || queued.get() > 2 * maxEntries); probe++) {
+			Long id = order.poll();
+			if (id == null)
+				return;
+			queued.decrementAndGet();
+			Entry entry = entries.get(id);
+			if (entry == null)
+				continue;
+			if (entry.referenced && entry.expiresAt >= now) {
+				entry.referenced = false;
+				order.add(id);
+				queued.incrementAndGet();
+			} else {
+				entries.remove(id, entry);
+			}
+		}
+	}
+
+	private byte[] serialize(Format format, BookDTO dto) {
+		try {
+			return mappers[format.ordinal()].writeValueAsBytes(dto);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize book " + dto.getId(), e);
+		}
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,156 @@
+package com.adrianmorais.libraryapi.config.responsecache;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.config.datasource.ReplicaRoutingDataSource;
+import com.adrianmorais.libraryapi.config.responsecache.BookResponseCache.Entry;
+import com.adrianmorais.libraryapi.config.responsecache.BookResponseCache.Format;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.service.BookService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Responde GET /api/books/{id} com os bytes do BookResponseCache, antes do DispatcherServlet: num acerto
+ * nao ha consulta, ModelMapper nem Jackson. Na falta busca o livro, guarda e responde do mesmo jeito; livro
+ * inexistente, Accept que o cache nao sabe atender e clientes presos ao primario (read-your-writes) seguem
+ * para o BookController.
+ */
+public class BookResponseCacheFilter extends OncePerRequestFilter {
+
+	static final String PREFIX = "/api/books/";
+	static final String PATTERN = "/api/books/{id}";
+	static final String METRIC = "books.response.cache";
+
+	private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+	private static final String GZIP = "gzip";
+	private static final Format[] FORMATS = Format.values();
+
+	private final BookResponseCache cache;
+	private final BookService service;
+	private final ModelMapper modelMapper;
+
+	private final Counter hits;
+	private final Counter misses;
+
+	public BookResponseCacheFilter(BookResponseCache cache, BookService service, ModelMapper modelMapper,
+			MeterRegistry registry) {
+		this.cache = cache;
+		this.service = service;
+		this.modelMapper = modelMapper;
+		this.hits = Counter.builder(METRIC).description("Book detail reads answered from cached bytes")
+				.tag("result", "hit").register(registry);
+		this.misses = Counter.builder(METRIC).description("Book detail reads answered from cached bytes")
+				.tag("result", "miss").register(registry);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || id(request) < 0;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		Format format = format(request.getHeader(HttpHeaders.ACCEPT));
+		if (format == null || ReplicaRoutingDataSource.readsFromPrimary(request)) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		Long id = id(request);
+		Entry entry = cache.get(id);
+		if (entry != null) {
+			hits.increment();
+		} else {
+			long stamp = cache.stamp();
+			Book book = service.getById(id).orElse(null);
+			if (book == null) {
+				chain.doFilter(request, response);
+				return;
+			}
+			misses.increment();
+			entry = cache.put(id, modelMapper.map(book, BookDTO.class), stamp);
+		}
+		write(request, response, entry, format);
+	}
+
+	private void write(HttpServletRequest request, HttpServletResponse response, Entry entry, Format format)
+			throws IOException {
+		// mesma tag uri do http.server.requests que a requisicao teria passando pelo controller
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+
+		byte[] body = entry.body(format);
+		byte[] gzipped = entry.gzipped(format);
+		if (gzipped != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			body = gzipped;
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(format.getContentType());
+		response.setHeader(HttpHeaders.VARY, VARY);
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	// id numerico logo depois de /api/books/, sem nada depois; -1 para qualquer outro caminho
+	static long id(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		int start = request.getContextPath().length() + PREFIX.length();
+		if (uri.length() <= start || uri.length() - start > 18 || !uri.startsWith(PREFIX, start - PREFIX.length()))
+			return -1;
+		long id = 0;
+		for (int i = start; i < uri.length(); i++) {
+			char c = uri.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			id = id * 10 + (c - '0');
+		}
+		return id;
+	}
+
+	/*
+	 * So os casos sem ambiguidade: sem Accept, qualquer tipo ou exatamente um dos formatos do cache.
+	 * Listas com varios formatos e pesos ficam com a negociacao do Spring.
+	 */
+	static Format format(String accept) {
+		if (accept == null || accept.isEmpty() || accept.equals("*/*"))
+			return Format.JSON;
+		for (Format format : FORMATS)
+			if (accept.equals(format.getContentType()))
+				return format;
+		return null;
+	}
+
+	// gzip listado e sem peso zero (gzip;q=0 ou q=0.0)
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+		int start = acceptEncoding.indexOf(GZIP);
+		if (start < 0)
+			return false;
+		int end = acceptEncoding.indexOf(',', start);
+		int q = acceptEncoding.indexOf("q=", start);
+		if (q < 0 || (end >= 0 && q > end))
+			return true;
+		for (int i = q + 2; i < (end < 0 ? acceptEncoding.length() : end); i++) {
+			char c = acceptEncoding.charAt(i);
+			if (c != '0' && c != '.' && c != ' ')
+				return true;
+		}
+		return false;
+	}
+
+}
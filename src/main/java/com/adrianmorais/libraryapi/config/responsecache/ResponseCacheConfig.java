@@ -0,0 +1,57 @@
+package com.adrianmorais.libraryapi.config.responsecache;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import com.adrianmorais.libraryapi.api.json.CborMessageConverter;
+import com.adrianmorais.libraryapi.api.json.SmileMessageConverter;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.invalidation.InvalidationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "application.books.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+	@Value("${application.books.response-cache.max-entries:10000}")
+	private int maxEntries;
+
+	@Value("${application.books.response-cache.ttl-ms:600000}")
+	private long ttlMillis;
+
+	// gzip pronto apenas quando o Tomcat tambem comprimiria a resposta
+	@Value("${server.compression.enabled:false}")
+	private boolean compression;
+
+	@Value("${server.compression.min-response-size:2KB}")
+	private DataSize minResponseSize;
+
+	@Bean
+	public BookResponseCache bookResponseCache(ObjectMapper objectMapper, CborMessageConverter cbor,
+			SmileMessageConverter smile, ObjectProvider<InvalidationBus> invalidationBus) {
+		BookResponseCache cache = new BookResponseCache(objectMapper, cbor.getObjectMapper(), smile.getObjectMapper(),
+				maxEntries, ttlMillis, compression ? (int) minResponseSize.toBytes() : Integer.MAX_VALUE);
+		invalidationBus.ifAvailable(bus -> bus.addListener(InvalidationBus.BOOK, cache::evict));
+		return cache;
+	}
+
+	@Bean
+	public FilterRegistrationBean<BookResponseCacheFilter> bookResponseCacheFilterRegistration(BookResponseCache cache,
+			BookService bookService, ModelMapper modelMapper, MeterRegistry registry) {
+		FilterRegistrationBean<BookResponseCacheFilter> registration = new FilterRegistrationBean<>(
+				new BookResponseCacheFilter(cache, bookService, modelMapper, registry));
+		// depois do rate limit e da medicao de conexoes
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 40);
+		return registration;
+	}
+
+}
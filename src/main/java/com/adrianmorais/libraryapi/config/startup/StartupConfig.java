@@ -0,0 +1,28 @@
+package com.adrianmorais.libraryapi.config.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.adrianmorais.libraryapi.config.datasource.ReplicaMonitor;
+import com.adrianmorais.libraryapi.config.idempotency.DatabaseIdempotencyStore;
+import com.adrianmorais.libraryapi.service.ScheduleService;
+import com.adrianmorais.libraryapi.service.analytics.LoanAnalytics;
+import com.adrianmorais.libraryapi.service.archive.LoanArchiver;
+import com.adrianmorais.libraryapi.service.changes.ChangeFeed;
+import com.adrianmorais.libraryapi.service.changes.ChangeLog;
+import com.adrianmorais.libraryapi.service.invalidation.InvalidationBus;
+import com.adrianmorais.libraryapi.service.migration.CustomerMigration;
+
+@Configuration
+public class StartupConfig {
+
+	// com spring.main.lazy-initialization=true, beans com @Scheduled precisam ser criados na subida
+	@Bean
+	public static LazyInitializationExcludeFilter eagerBeans() {
+		return LazyInitializationExcludeFilter.forBeanTypes(ScheduleService.class, ReplicaMonitor.class,
+				LoanAnalytics.class, CustomerMigration.class, LoanArchiver.class,
+				ChangeLog.class, ChangeFeed.class, DatabaseIdempotencyStore.class, InvalidationBus.class);
+	}
+
+}
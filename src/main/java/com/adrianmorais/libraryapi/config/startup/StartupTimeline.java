@@ -0,0 +1,83 @@
+package com.adrianmorais.libraryapi.config.startup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+/**
+ * Linha do tempo da inicializacao: instante de cada fase do SpringApplication e os beans mais
+ * lentos para criar (tempo inclusivo, ou seja, contando as dependencias criadas junto).
+ */
+public class StartupTimeline {
+
+	public static final String BEAN_NAME = "startupTimeline";
+
+	private static final int SLOWEST_BEANS = 20;
+
+	private final long startNanos = System.nanoTime();
+	private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+	private final long startMillis = System.currentTimeMillis();
+	private final List<Map<String, Object>> phases = new ArrayList<>();
+	private final Map<String, Long> beansInCreation = new ConcurrentHashMap<>();
+	private final Map<String, Long> beanDurations = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+
+	public synchronized void mark(String phase) {
+		Map<String, Object> entry = new LinkedHashMap<>();
+		entry.put("phase", phase);
+		entry.put("offsetMillis", elapsedMillis());
+		phases.add(entry);
+	}
+
+	public void ready() {
+		mark("ApplicationReady");
+		this.ready = true;
+	}
+
+	public InstantiationAwareBeanPostProcessor beanTimer() {
+		return new InstantiationAwareBeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+				if (!ready)
+					beansInCreation.put(beanName, System.nanoTime());
+				return null;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+				Long start = beansInCreation.remove(beanName);
+				if (start != null)
+					beanDurations.put(beanName, System.nanoTime() - start);
+				return bean;
+			}
+		};
+	}
+
+	public synchronized Map<String, Object> report() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("jvmToApplicationStartMillis", startMillis - jvmStartMillis);
+		report.put("ready", ready);
+		report.put("phases", new ArrayList<>(phases));
+		report.put("beansCreated", beanDurations.size());
+		report.put("slowestBeans", beanDurations.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(SLOWEST_BEANS)
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> TimeUnit.NANOSECONDS.toMillis(e.getValue()),
+						(a, b) -> a, LinkedHashMap::new)));
+		return report;
+	}
+
+	private long elapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.adrianmorais.libraryapi.config.startup;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@Endpoint(id = "startuptimeline")
+@RequiredArgsConstructor
+public class StartupTimelineEndpoint {
+
+	private final ObjectProvider<StartupTimeline> timeline;
+
+	@ReadOperation
+	public Map<String, Object> timeline() {
+		StartupTimeline startupTimeline = timeline.getIfAvailable();
+		return startupTimeline == null ? Collections.emptyMap() : startupTimeline.report();
+	}
+
+}
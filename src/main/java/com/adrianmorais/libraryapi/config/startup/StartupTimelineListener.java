@@ -0,0 +1,41 @@
+package com.adrianmorais.libraryapi.config.startup;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.SpringApplicationEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Registrado em META-INF/spring.factories para acompanhar a inicializacao desde o inicio,
+ * antes de o contexto existir. Ao preparar o contexto, publica a {@link StartupTimeline} como bean.
+ */
+public class StartupTimelineListener implements ApplicationListener<ApplicationEvent> {
+
+	private final StartupTimeline timeline = new StartupTimeline();
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		if (event instanceof ApplicationReadyEvent) {
+			timeline.ready();
+			return;
+		}
+
+		if (event instanceof SpringApplicationEvent || event instanceof ContextRefreshedEvent
+				|| event instanceof WebServerInitializedEvent)
+			timeline.mark(event.getClass().getSimpleName().replace("Event", ""));
+
+		if (event instanceof ApplicationPreparedEvent) {
+			ConfigurableListableBeanFactory beanFactory = ((ApplicationPreparedEvent) event)
+				.getApplicationContext().getBeanFactory();
+			if (!beanFactory.containsSingleton(StartupTimeline.BEAN_NAME)) {
+				beanFactory.registerSingleton(StartupTimeline.BEAN_NAME, timeline);
+				beanFactory.addBeanPostProcessor(timeline.beanTimer());
+			}
+		}
+	}
+
+}
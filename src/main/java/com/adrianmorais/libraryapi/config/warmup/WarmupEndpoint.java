@@ -0,0 +1,21 @@
+package com.adrianmorais.libraryapi.config.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@Endpoint(id = "warmup")
+@RequiredArgsConstructor
+public class WarmupEndpoint {
+
+	private final WarmupRunner runner;
+
+	@ReadOperation
+	public WarmupReport report() {
+		return runner.getReport();
+	}
+
+}
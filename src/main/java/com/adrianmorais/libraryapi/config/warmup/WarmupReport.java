@@ -0,0 +1,21 @@
+package com.adrianmorais.libraryapi.config.warmup;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmupReport {
+
+	private int rounds;
+	private long durationMillis;
+	private boolean settled;
+	private double firstRoundMillis;
+	private double lastRoundsMillis;
+	private double speedup;
+
+}
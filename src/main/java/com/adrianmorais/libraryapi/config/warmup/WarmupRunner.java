@@ -0,0 +1,199 @@
+package com.adrianmorais.libraryapi.config.warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
+import com.adrianmorais.libraryapi.api.dto.ReturnedLoadDTO;
+import com.adrianmorais.libraryapi.api.resource.BookController;
+import com.adrianmorais.libraryapi.api.resource.LoanController;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aquece JIT, planos de consulta do Hibernate e serializadores do Jackson antes de a aplicacao
+ * ficar pronta: os ApplicationRunner rodam antes de o readiness mudar para ACCEPTING_TRAFFIC.
+ *
+ * Cada rodada executa o fluxo de escrita e leitura pelos controllers dentro de uma transacao
+ * desfeita no final e, com o servidor ja escutando, as leituras principais via HTTP.
+ * Para quando o tempo das rodadas estabiliza ou ao atingir o limite de rodadas/tempo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+	static final String ISBN_PREFIX = "warmup-";
+
+	private final BookController bookController;
+	private final LoanController loanController;
+	private final ObjectMapper objectMapper;
+	private final PlatformTransactionManager transactionManager;
+	private final Environment environment;
+
+	@Value("${application.warmup.enabled:false}")
+	private boolean enabled;
+
+	@Value("${application.warmup.max-seconds:60}")
+	private long maxSeconds;
+
+	@Value("${application.warmup.min-rounds:10}")
+	private int minRounds;
+
+	@Value("${application.warmup.max-rounds:1000}")
+	private int maxRounds;
+
+	@Value("${application.warmup.settle-threshold:0.05}")
+	private double settleThreshold;
+
+	@Value("${application.warmup.settle-rounds:5}")
+	private int settleRounds;
+
+	private volatile WarmupReport report;
+
+	public WarmupReport getReport() {
+		return report;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled)
+			return;
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		RestTemplate rest = restTemplate();
+		String baseUrl = baseUrl();
+
+		List<Long> roundNanos = new ArrayList<>();
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.SECONDS.toNanos(maxSeconds);
+		boolean settled = false;
+
+		while (roundNanos.size() < maxRounds && System.nanoTime() < deadline && !settled) {
+			long roundStart = System.nanoTime();
+			int round = roundNanos.size();
+
+			transaction.execute(status -> {
+				status.setRollbackOnly();
+				writeAndReadPaths(round);
+				return null;
+			});
+			if (baseUrl != null)
+				httpReadPaths(rest, baseUrl);
+
+			roundNanos.add(System.nanoTime() - roundStart);
+			settled = roundNanos.size() >= minRounds && settled(roundNanos);
+		}
+
+		this.report = report(roundNanos, System.nanoTime() - start, settled);
+		log.info("Warm-up finished in {} ms after {} rounds (settled: {}), round time {} ms -> {} ms ({}x faster)",
+				report.getDurationMillis(), report.getRounds(), report.isSettled(),
+				String.format("%.2f", report.getFirstRoundMillis()), String.format("%.2f", report.getLastRoundsMillis()),
+				String.format("%.1f", report.getSpeedup()));
+	}
+
+	private void writeAndReadPaths(int round) {
+		String isbn = ISBN_PREFIX + round;
+		PageRequest page = PageRequest.of(0, 20);
+
+		BookDTO book = bookController.create(BookDTO.builder().title("Warm-up").author("Warm-up").isbn(isbn).build());
+		serialize(book);
+		serialize(bookController.get(book.getId()));
+		serialize(bookController.update(book.getId(), book));
+		serialize(bookController.find(BookDTO.builder().title("Warm").build(), page, null));
+
+		Long loanId = loanController.create(
+				LoanDTO.builder().isbn(isbn).customer(ISBN_PREFIX + "customer").email("warmup@library-api.com").build());
+		serialize(loanController.find(LoanFilterDTO.builder().isbn(isbn).customer(ISBN_PREFIX + "customer").build(), page, null));
+		serialize(bookController.loansByBook(book.getId(), page, true));
+		loanController.returnBook(loanId, ReturnedLoadDTO.builder().returned(true).build());
+	}
+
+	private void httpReadPaths(RestTemplate rest, String baseUrl) {
+		try {
+			rest.getForObject(baseUrl + "/api/books?title=Warm&page=0&size=20", byte[].class);
+			rest.getForObject(baseUrl + "/api/loans?isbn=" + ISBN_PREFIX + "&customer=" + ISBN_PREFIX + "&page=0&size=20",
+					byte[].class);
+			rest.getForObject(baseUrl + "/api/books/0", byte[].class);
+		} catch (RestClientException e) {
+			log.debug("Warm-up HTTP request failed", e);
+		}
+	}
+
+	private boolean settled(List<Long> roundNanos) {
+		if (roundNanos.size() < settleRounds * 2)
+			return false;
+
+		double previous = average(roundNanos, roundNanos.size() - settleRounds * 2, roundNanos.size() - settleRounds);
+		double current = average(roundNanos, roundNanos.size() - settleRounds, roundNanos.size());
+		return (previous - current) / previous < settleThreshold;
+	}
+
+	private WarmupReport report(List<Long> roundNanos, long durationNanos, boolean settled) {
+		if (roundNanos.isEmpty())
+			return WarmupReport.builder().durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos)).build();
+
+		double first = roundNanos.get(0) / 1e6;
+		double last = average(roundNanos, Math.max(0, roundNanos.size() - settleRounds), roundNanos.size()) / 1e6;
+		return WarmupReport.builder()
+				.rounds(roundNanos.size())
+				.durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+				.settled(settled)
+				.firstRoundMillis(first)
+				.lastRoundsMillis(last)
+				.speedup(first / last)
+				.build();
+	}
+
+	private double average(List<Long> values, int from, int to) {
+		return values.subList(from, to).stream().mapToLong(Long::longValue).average().orElse(0d);
+	}
+
+	private void serialize(Object value) {
+		try {
+			objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String baseUrl() {
+		String port = environment.getProperty("local.server.port");
+		return port == null ? null : "http://localhost:" + port;
+	}
+
+	private RestTemplate restTemplate() {
+		RestTemplate rest = new RestTemplate();
+		rest.setErrorHandler(new ResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) {
+				return false;
+			}
+
+			@Override
+			public void handleError(ClientHttpResponse response) {
+			}
+		});
+		return rest;
+	}
+
+}
@@ -1,11 +1,15 @@
 package com.adrianmorais.libraryapi.exception;
 
+/**
+ * Resultado de negocio esperado (isbn duplicado, livro ja emprestado...). Nao
+ * guarda stack trace: e tratada no ApplicationControllerAdvice e nunca logada.
+ */
 public class BussinessException extends RuntimeException {
 
 	private static final long serialVersionUID = -7270806585250776488L;
 
 	public BussinessException(String msg) {
-		super(msg);
+		super(msg, null, false, false);
 	}
 
 }
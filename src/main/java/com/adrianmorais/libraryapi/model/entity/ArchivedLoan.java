@@ -0,0 +1,54 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Emprestimo devolvido movido da tabela loan pelo LoanArchiver. Mantem o id original.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "loan_archive", indexes = @Index(name = "ix_loan_archive_book", columnList = "id_book"))
+public class ArchivedLoan {
+
+	@Id
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "id_customer")
+	private Customer customer;
+
+	@ManyToOne
+	@JoinColumn(name = "id_book")
+	private Book book;
+
+	@Column
+	private LocalDate loanDate;
+
+	@Column
+	private Boolean returned;
+
+	@Column
+	private LocalDateTime archivedAt;
+
+	public Loan toLoan() {
+		return Loan.builder().id(id).customer(customer).book(book).loanDate(loanDate).returned(returned).build();
+	}
+
+}
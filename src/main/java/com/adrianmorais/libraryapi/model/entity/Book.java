@@ -7,20 +7,23 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = @Index(name = "ix_book_isbn", columnList = "isbn"))
 public class Book {
 
 	@Id
@@ -36,7 +39,10 @@ public class Book {
 	@Column
 	private String isbn;
 
+	// lazy: fora de toString/equals para nao carregar a colecao fora da transacao
 	@OneToMany(mappedBy = "book")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private List<Loan> loans;
 	
 }
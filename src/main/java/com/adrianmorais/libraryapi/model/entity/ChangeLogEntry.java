@@ -0,0 +1,52 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada do log de alteracoes de /api/changes. O id e o cursor dos clientes, tirado de uma sequence no
+ * persist; data guarda o JSON do BookDTO/LoanDTO apos a alteracao (nulo em exclusoes).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "ix_change_log_entity", columnList = "entity, entityId"))
+public class ChangeLogEntry {
+
+	// allocationSize = 1: o ChangeLog tira cada id com ChangeLogRepository.nextId e grava com insert
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+	@SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 1)
+	private Long id;
+
+	@Column(length = 20, nullable = false)
+	private String entity;
+
+	@Column(nullable = false)
+	private Long entityId;
+
+	@Column(length = 20, nullable = false)
+	private String type;
+
+	@Column(length = 4000)
+	private String data;
+
+	@Column(nullable = false)
+	private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,31 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Horizonte da compactacao do change log, uma linha so (id 1) compartilhada pelas instancias: cursores
+ * anteriores a upTo podem ter perdido uma exclusao e recebem 410.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class ChangeLogHorizon {
+
+	public static final int ID = 1;
+
+	@Id
+	private Integer id;
+
+	@Column(nullable = false)
+	private Long upTo;
+
+}
@@ -0,0 +1,47 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resposta guardada para uma Idempotency-Key quando application.idempotency.store=database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "ix_idempotency_record_created_at", columnList = "createdAt"))
+public class IdempotencyRecord {
+
+	// cliente, rota e chave enviada
+	@Id
+	@Column(name = "idempotency_key", length = 400)
+	private String key;
+
+	@Column(length = 64, nullable = false)
+	private String fingerprint;
+
+	@Column(nullable = false)
+	private Integer status;
+
+	@Column(length = 100)
+	private String contentType;
+
+	@Lob
+	private byte[] body;
+
+	// epoch em milissegundos
+	@Column(nullable = false)
+	private Long createdAt;
+
+}
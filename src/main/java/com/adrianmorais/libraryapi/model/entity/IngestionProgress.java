@@ -0,0 +1,42 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bloco de um arquivo ja carregado pelo BookIngestion, gravado na transacao do ultimo lote do bloco. Os limites
+ * dos blocos dependem de chunkBytes: com outro tamanho o progresso nao vale.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "ix_ingestion_progress_file", columnList = "file"))
+public class IngestionProgress {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// caminho absoluto do arquivo
+	@Column(length = 1000, nullable = false)
+	private String file;
+
+	@Column(nullable = false)
+	private Long chunkBytes;
+
+	@Column(nullable = false)
+	private Integer chunkIndex;
+
+}
@@ -0,0 +1,48 @@
+package com.adrianmorais.libraryapi.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mensagem do barramento de invalidacao quando application.invalidation.transport=database. As instancias
+ * leem as linhas novas por id; origin identifica a instancia que gravou, que ignora as proprias mensagens.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "ix_invalidation_entry_created_at", columnList = "createdAt"))
+public class InvalidationEntry {
+
+	// allocationSize = 1: ids densos, um buraco na sequencia quase sempre e uma transacao ainda aberta
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invalidation_seq")
+	@SequenceGenerator(name = "invalidation_seq", sequenceName = "invalidation_seq", allocationSize = 1)
+	private Long id;
+
+	@Column(length = 20, nullable = false)
+	private String entity;
+
+	@Column(nullable = false)
+	private Long entityId;
+
+	@Column(length = 36, nullable = false)
+	private String origin;
+
+	// epoch millis de quem publicou
+	@Column(nullable = false)
+	private Long createdAt;
+
+}
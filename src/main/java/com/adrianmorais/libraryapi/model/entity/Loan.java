@@ -7,8 +7,10 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,17 +22,24 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = { @Index(name = "ix_loan_customer", columnList = "id_customer"),
+		@Index(name = "ix_loan_book_returned", columnList = "id_book, returned") })
 public class Loan {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
-	@Column(length = 100)
-	private String customer;
+	@ManyToOne
+	@JoinColumn(name = "id_customer")
+	private Customer customer;
+
+	// colunas de texto anteriores ao Customer: so linhas ainda nao migradas (CustomerMigration) as preenchem
+	@Column(name = "customer", length = 100)
+	private String legacyCustomer;
 	
 	@Column(name="customer_email")
-	private String customerEmail;
+	private String legacyCustomerEmail;
 
 	@ManyToOne
 	@JoinColumn(name = "id_book")
@@ -42,4 +51,14 @@ public class Loan {
 	@Column
 	private Boolean returned;
 
-}
\ No newline at end of file
+	public String getCustomerName() {
+		return customer == null ? legacyCustomer : customer.getName();
+	}
+
+	public String getCustomerEmail() {
+		if (customer == null)
+			return legacyCustomerEmail;
+		return customer.getEmail() == null || customer.getEmail().isEmpty() ? null : customer.getEmail();
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.adrianmorais.libraryapi.model.entity.ArchivedLoan;
+
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+}
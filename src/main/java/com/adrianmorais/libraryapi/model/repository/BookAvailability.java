@@ -0,0 +1,24 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Livro com o emprestimo em aberto, se houver (loanId e loanDate nulos quando disponivel).
+ */
+@Data
+@AllArgsConstructor
+public class BookAvailability {
+
+	private Long bookId;
+	private String isbn;
+	private Long loanId;
+	private LocalDate loanDate;
+
+	public boolean isAvailable() {
+		return loanId == null;
+	}
+
+}
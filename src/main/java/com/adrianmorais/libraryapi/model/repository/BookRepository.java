@@ -1,15 +1,43 @@
 package com.adrianmorais.libraryapi.model.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
 	boolean existsByIsbn(String isbn);
 
 	Optional<Book> findByIsbn(String isbn);
 
+	// todos os isbns em streaming, para a carga em lote deduplicar sem um select por livro (exige transacao)
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select b.isbn from Book b where b.isbn is not null")
+	Stream<String> streamAllIsbns();
+
+	// sem readOnly: le no primario, para recarregar caches sem depender do atraso das replicas
+	@Transactional
+	@Query("select b from Book b where b.id = :id")
+	Optional<Book> findCurrentById(@Param("id") Long id);
+
+	// uma linha por livro encontrado, com o emprestimo em aberto pelo indice (id_book, returned) de loan
+	@Query("select new com.adrianmorais.libraryapi.model.repository.BookAvailability(b.id, b.isbn, l.id, l.loanDate) "
+			+ "from Book b left join b.loans l on (l.returned is null or l.returned = false) where b.isbn in :isbns")
+	List<BookAvailability> findAvailabilityByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+	@Query("select new com.adrianmorais.libraryapi.model.repository.BookAvailability(b.id, b.isbn, l.id, l.loanDate) "
+			+ "from Book b left join b.loans l on (l.returned is null or l.returned = false) where b.id in :ids")
+	List<BookAvailability> findAvailabilityByIdIn(@Param("ids") Collection<Long> ids);
+
 }
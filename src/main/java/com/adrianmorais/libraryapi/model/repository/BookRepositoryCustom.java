@@ -0,0 +1,18 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+
+public interface BookRepositoryCustom {
+
+	/**
+	 * Mesmo filtro do BookService.find (contem, sem diferenciar maiusculas), mas selecionando apenas
+	 * as colunas pedidas (id, title, author, isbn). Os livros retornados nao sao gerenciados.
+	 */
+	Page<Book> findProjected(Book filter, Set<String> fields, Pageable pageable);
+
+}
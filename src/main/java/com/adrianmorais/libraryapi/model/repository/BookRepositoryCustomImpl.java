@@ -0,0 +1,102 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<Book> findProjected(Book filter, Set<String> fields, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Book> root = query.from(Book.class);
+
+		List<String> columns = new ArrayList<>(fields);
+		query.multiselect(columns.stream().map(column -> root.get(column).alias(column)).collect(Collectors.toList()));
+		query.where(predicates(cb, root, filter));
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+
+		List<Book> content = typedQuery.getResultList().stream()
+			.map(tuple -> toBook(tuple, columns))
+			.collect(Collectors.toList());
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+	}
+
+	private long count(Book filter) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Book> root = query.from(Book.class);
+		query.select(cb.count(root)).where(predicates(cb, root, filter));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	private Predicate[] predicates(CriteriaBuilder cb, Root<Book> root, Book filter) {
+		List<Predicate> predicates = new ArrayList<>();
+		if (filter.getId() != null)
+			predicates.add(cb.equal(root.get("id"), filter.getId()));
+		if (filter.getTitle() != null)
+			predicates.add(contains(cb, root, "title", filter.getTitle()));
+		if (filter.getAuthor() != null)
+			predicates.add(contains(cb, root, "author", filter.getAuthor()));
+		if (filter.getIsbn() != null)
+			predicates.add(contains(cb, root, "isbn", filter.getIsbn()));
+		return predicates.toArray(new Predicate[0]);
+	}
+
+	private Predicate contains(CriteriaBuilder cb, Root<Book> root, String attribute, String value) {
+		String escaped = value.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+		return cb.like(cb.lower(root.get(attribute)), "%" + escaped + "%", '\\');
+	}
+
+	private Book toBook(Tuple tuple, List<String> columns) {
+		Book book = new Book();
+		for (String column : columns) {
+			Object value = tuple.get(column);
+			switch (column) {
+			case "id":
+				book.setId((Long) value);
+				break;
+			case "title":
+				book.setTitle((String) value);
+				break;
+			case "author":
+				book.setAuthor((String) value);
+				break;
+			case "isbn":
+				book.setIsbn((String) value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown book field: " + column);
+			}
+		}
+		return book;
+	}
+
+}
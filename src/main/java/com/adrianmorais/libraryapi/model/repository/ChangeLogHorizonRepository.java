@@ -0,0 +1,35 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.adrianmorais.libraryapi.model.entity.ChangeLogHorizon;
+
+/**
+ * Leituras no primario pelo mesmo motivo do ChangeLogRepository: uma replica atrasada aceitaria um cursor
+ * ja expirado.
+ */
+public interface ChangeLogHorizonRepository extends JpaRepository<ChangeLogHorizon, Integer> {
+
+	@Transactional
+	@Query("select h.upTo from ChangeLogHorizon h where h.id = " + ChangeLogHorizon.ID)
+	Long findUpTo();
+
+	// so avanca: duas instancias compactando ao mesmo tempo nao fazem o horizonte voltar
+	@Transactional
+	@Modifying
+	@Query(value = "update change_log_horizon set up_to = greatest(up_to, :upTo) where id = " + ChangeLogHorizon.ID,
+			nativeQuery = true)
+	int raise(@Param("upTo") Long upTo);
+
+	// falha com chave duplicada se outra instancia gravou a linha antes
+	@Transactional
+	@Modifying
+	@Query(value = "insert into change_log_horizon (id, up_to) values (" + ChangeLogHorizon.ID + ", :upTo)",
+			nativeQuery = true)
+	int create(@Param("upTo") Long upTo);
+
+}
@@ -0,0 +1,68 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.adrianmorais.libraryapi.model.entity.ChangeLogEntry;
+
+/**
+ * Leituras sem readOnly de proposito: o cursor visivel e calculado no primario, uma replica atrasada
+ * poderia pular entradas.
+ */
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+	@Transactional
+	@Query("select e from ChangeLogEntry e where e.id > :since and e.id <= :upTo order by e.id")
+	List<ChangeLogEntry> findChanges(@Param("since") Long since, @Param("upTo") Long upTo, Pageable pageable);
+
+	// o ChangeLog tira o id antes do insert para registra-lo em voo
+	@Transactional
+	@Query(value = "select next value for change_log_seq", nativeQuery = true)
+	Long nextId();
+
+	@Transactional
+	@Modifying
+	@Query(value = "insert into change_log_entry (id, entity, entity_id, type, data, created_at) "
+			+ "values (:#{#entry.id}, :#{#entry.entity}, :#{#entry.entityId}, :#{#entry.type}, :#{#entry.data}, "
+			+ ":#{#entry.createdAt})", nativeQuery = true)
+	int insert(@Param("entry") ChangeLogEntry entry);
+
+	// ids ja confirmados por qualquer instancia, para achar os buracos deixados por transacoes ainda abertas
+	@Transactional
+	@Query("select e.id from ChangeLogEntry e where e.id > :after order by e.id")
+	List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+	@Transactional
+	@Query("select min(e.id) from ChangeLogEntry e")
+	Long findMinId();
+
+	@Transactional
+	@Query("select max(e.id) from ChangeLogEntry e")
+	Long findMaxId();
+
+	// compactacao: remove entradas com uma mais nova para a mesma entidade
+	@Transactional
+	@Modifying
+	@Query(value = "delete from change_log_entry where id <= :upTo and created_at < :before and exists ("
+			+ "select 1 from change_log_entry n where n.entity = change_log_entry.entity "
+			+ "and n.entity_id = change_log_entry.entity_id and n.id > change_log_entry.id and n.id <= :upTo)",
+			nativeQuery = true)
+	int deleteSuperseded(@Param("upTo") Long upTo, @Param("before") LocalDateTime before);
+
+	@Transactional
+	@Query("select max(e.id) from ChangeLogEntry e where e.type = 'DELETED' and e.createdAt < :before and e.id <= :upTo")
+	Long findLastTombstoneBefore(@Param("before") LocalDateTime before, @Param("upTo") Long upTo);
+
+	@Transactional
+	@Modifying
+	@Query("delete from ChangeLogEntry e where e.type = 'DELETED' and e.id <= :upTo")
+	int deleteTombstones(@Param("upTo") Long upTo);
+
+}
@@ -0,0 +1,14 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.adrianmorais.libraryapi.model.entity.Customer;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+	// usa a chave unica (name, email)
+	Optional<Customer> findByNameAndEmail(String name, String email);
+
+}
@@ -0,0 +1,18 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.adrianmorais.libraryapi.model.entity.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	@Transactional
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.createdAt < :before")
+	int deleteCreatedBefore(@Param("before") Long before);
+
+}
@@ -0,0 +1,23 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.adrianmorais.libraryapi.model.entity.IngestionProgress;
+
+public interface IngestionProgressRepository extends JpaRepository<IngestionProgress, Long> {
+
+	@Transactional
+	List<IngestionProgress> findByFile(String file);
+
+	@Transactional
+	@Modifying
+	@Query("delete from IngestionProgress p where p.file = :file")
+	int deleteByFile(@Param("file") String file);
+
+}
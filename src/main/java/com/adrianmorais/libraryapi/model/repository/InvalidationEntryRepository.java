@@ -0,0 +1,37 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.adrianmorais.libraryapi.model.entity.InvalidationEntry;
+
+/**
+ * Leituras sem readOnly de proposito: numa replica atrasada a invalidacao chegaria depois do que deveria.
+ */
+public interface InvalidationEntryRepository extends JpaRepository<InvalidationEntry, Long> {
+
+	@Transactional
+	@Query("select e from InvalidationEntry e where e.id > :after order by e.id")
+	List<InvalidationEntry> findAfter(@Param("after") Long after, Pageable pageable);
+
+	@Transactional
+	@Query("select e from InvalidationEntry e where e.id in :ids")
+	List<InvalidationEntry> findByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Transactional
+	@Query("select max(e.id) from InvalidationEntry e")
+	Long findMaxId();
+
+	@Transactional
+	@Modifying
+	@Query("delete from InvalidationEntry e where e.createdAt < :before")
+	int deleteCreatedBefore(@Param("before") Long before);
+
+}
@@ -0,0 +1,14 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+/**
+ * Projecao das linhas de loan que ainda guardam o cliente em texto livre.
+ */
+public interface LegacyCustomerLoan {
+
+	Long getId();
+
+	String getLegacyCustomer();
+
+	String getLegacyCustomerEmail();
+
+}
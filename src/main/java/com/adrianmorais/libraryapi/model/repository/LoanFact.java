@@ -0,0 +1,51 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Linha enxuta de emprestimo para agregacoes: so as colunas usadas nas estatisticas, sem carregar o livro.
+ */
+@Data
+@AllArgsConstructor
+public class LoanFact {
+
+	private Long id;
+	private Long bookId;
+	// id nulo em linhas ainda nao migradas para Customer; nome e email vem das colunas antigas
+	private Long customerId;
+	private String customer;
+	private String customerEmail;
+	private LocalDate loanDate;
+	private Boolean returned;
+
+	public boolean isOut() {
+		return returned == null || !returned;
+	}
+
+	public static LoanFact of(Loan loan) {
+		Customer customer = loan.getCustomer();
+		return new LoanFact(loan.getId(), loan.getBook() == null ? null : loan.getBook().getId(),
+				customer == null ? null : customer.getId(), loan.getCustomerName(),
+				customer == null ? loan.getLegacyCustomerEmail() : customer.getEmail(), loan.getLoanDate(),
+				loan.getReturned());
+	}
+
+	// linha de LoanRepository.findFactRowsWithArchiveByIdBetween: id, id_book, id_customer, customer, customer_email,
+	// loan_date, returned
+	public static LoanFact of(Object[] row) {
+		return new LoanFact(number(row[0]), number(row[1]), number(row[2]), (String) row[3], (String) row[4],
+				row[5] == null ? null : ((Date) row[5]).toLocalDate(), (Boolean) row[6]);
+	}
+
+	private static Long number(Object value) {
+		return value == null ? null : ((Number) value).longValue();
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.adrianmorais.libraryapi.model.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -8,24 +9,86 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
 
 	// @Query(value = "", nativeQuery = true) // para realizar queries usando sql nativo
 	@Query("select case when (count (l.id) > 0) then true else false end "
 			+ "from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
 	boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-	@Query("select l from Loan as l join l.book as b where b.isbn =:isbn or l.customer =:customer")
-	Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, 
-			Pageable pageRequest);
+	// legacy: tambem compara as colunas antigas, para linhas que a CustomerMigration ainda nao migrou
+	@Query("select l from Loan as l join l.book as b left join l.customer as c where b.isbn =:isbn or c.name =:customer "
+			+ "or (:legacy = true and l.legacyCustomer =:customer)")
+	Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
+			@Param("legacy") boolean legacy, Pageable pageRequest);
+
+	// parte do indice unico de customer (name, email) e chega aos emprestimos pelo indice de id_customer
+	@Query("select l from Loan as l join l.customer as c where c.name =:customer")
+	Page<Loan> findByCustomerName(@Param("customer") String customer, Pageable pageRequest);
+
+	// enquanto a migracao nao termina: o OR com a coluna antiga troca os indices por uma varredura de loan
+	@Query("select l from Loan as l left join l.customer as c where c.name =:customer or l.legacyCustomer =:customer")
+	Page<Loan> findByCustomerNameOrLegacyCustomer(@Param("customer") String customer, Pageable pageRequest);
 
 	Page<Loan> findByBook(Book book, Pageable pageable);
 
+	// livro e cliente no mesmo select, em vez de um select por emprestimo para os @ManyToOne
+	@Query("select l from Loan l join fetch l.book b left join fetch l.customer "
+			+ "where b.id in :bookIds and (l.returned is null or l.returned is false)")
+	List<Loan> findNotReturnedByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+	// [id do livro, quantidade] incluindo o arquivo, num unico comando como countWithArchive
+	@Query(value = "select id_book, count(*) from (select id_book from loan where id_book in :bookIds "
+			+ "union all select id_book from loan_archive where id_book in :bookIds) t group by id_book",
+			nativeQuery = true)
+	List<Object[]> countWithArchiveByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+	Page<Loan> findByCustomer(Customer customer, Pageable pageable);
+
 	@Query("select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
 	List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
 
-}
\ No newline at end of file
+	@Query("select count(l.id) from Loan l where l.returned is null or l.returned is false")
+	long countNotReturned();
+
+	// total de emprestimos incluindo o arquivo, num unico comando para nao contar duas vezes uma linha sendo arquivada
+	@Query(value = "select (select count(*) from loan) + (select count(*) from loan_archive)", nativeQuery = true)
+	long countWithArchive();
+
+	// [total com o arquivo, nao devolvidos, livros] num unico comando: as tres contagens do mesmo instante
+	@Query(value = "select (select count(*) from loan) + (select count(*) from loan_archive), "
+			+ "(select count(*) from loan where returned is null or returned = false), (select count(*) from book)",
+			nativeQuery = true)
+	List<Object[]> countForReconciliation();
+
+	@Query(value = "select min(id) from (select min(id) id from loan union all select min(id) id from loan_archive) t",
+			nativeQuery = true)
+	Long findMinIdWithArchive();
+
+	@Query(value = "select max(id) from (select max(id) id from loan union all select max(id) id from loan_archive) t",
+			nativeQuery = true)
+	Long findMaxIdWithArchive();
+
+	// readOnly: com replicas ligadas a varredura do historico sai do primario. A uniao roda num unico comando,
+	// entao uma linha movida pelo LoanArchiver durante a varredura aparece em exatamente uma das tabelas
+	@Transactional(readOnly = true)
+	@Query(value = "select l.id, l.id_book, c.id customer_id, coalesce(c.name, l.customer) customer_name, "
+			+ "coalesce(c.email, l.customer_email) customer_email, l.loan_date, l.returned "
+			+ "from loan l left join customer c on c.id = l.id_customer where l.id between :from and :to "
+			+ "union all select a.id, a.id_book, c.id, c.name, c.email, a.loan_date, a.returned "
+			+ "from loan_archive a left join customer c on c.id = a.id_customer where a.id between :from and :to",
+			nativeQuery = true)
+	List<Object[]> findFactRowsWithArchiveByIdBetween(@Param("from") Long from, @Param("to") Long to);
+
+	// linhas gravadas antes do Customer, ainda com o cliente em texto livre; percorre a chave primaria a partir de :afterId
+	@Query("select l.id as id, l.legacyCustomer as legacyCustomer, l.legacyCustomerEmail as legacyCustomerEmail "
+			+ "from Loan l where l.id > :afterId and l.customer is null and l.legacyCustomer is not null order by l.id")
+	List<LegacyCustomerLoan> findLegacyCustomerLoans(@Param("afterId") Long afterId, Pageable pageable);
+
+}
@@ -0,0 +1,29 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+
+public interface LoanRepositoryCustom {
+
+	/**
+	 * Mesmo criterio de findByBookIsbnOrCustomer, selecionando apenas as colunas dos campos do
+	 * LoanDTO pedidos: id, customer, email, isbn (do livro) e book (id, title, author e isbn do livro);
+	 * tambem bookId, customerId, loanDate e returned, para quem monta o livro e o cliente a parte.
+	 * Os emprestimos retornados nao sao gerenciados.
+	 */
+	Page<Loan> findProjectedByBookIsbnOrCustomer(String isbn, String customer, boolean legacy, Set<String> fields,
+			Pageable pageable);
+
+	/**
+	 * Emprestimos do livro em loan e em loan_archive como uma unica lista paginada, lida num unico comando.
+	 * A ordenacao pedida (id, loanDate, returned ou customer; id desempata) vale para a uniao.
+	 * Os emprestimos retornados nao sao gerenciados.
+	 */
+	Page<Loan> findByBookWithArchive(Book book, Pageable pageable);
+
+}
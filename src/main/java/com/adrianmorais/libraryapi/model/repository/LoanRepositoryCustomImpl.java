@@ -0,0 +1,265 @@
+package com.adrianmorais.libraryapi.model.repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+	// loan e loan_archive num unico comando: uma linha movida pelo LoanArchiver durante a leitura aparece em
+	// exatamente uma das tabelas, e a ordenacao e a pagina valem para a uniao
+	private static final String HISTORY_SELECT = "select l.id, c.id customer_id, c.name customer_name, "
+			+ "c.email customer_email, l.customer legacy_customer, l.customer_email legacy_customer_email, "
+			+ "l.loan_date, l.returned from loan l left join customer c on c.id = l.id_customer where l.id_book = :book "
+			+ "union all select a.id, c.id, c.name, c.email, null, null, a.loan_date, a.returned "
+			+ "from loan_archive a left join customer c on c.id = a.id_customer where a.id_book = :book";
+
+	private static final String HISTORY_COUNT = "select count(*) from (select id from loan where id_book = :book "
+			+ "union all select id from loan_archive where id_book = :book) t";
+
+	// colunas do historico ordenaveis por ?sort=
+	private static final Map<String, String> HISTORY_SORT = new LinkedHashMap<>();
+
+	static {
+		HISTORY_SORT.put("id", "id");
+		HISTORY_SORT.put("loanDate", "loan_date");
+		HISTORY_SORT.put("returned", "returned");
+		HISTORY_SORT.put("customer", "coalesce(customer_name, legacy_customer)");
+	}
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<Loan> findProjectedByBookIsbnOrCustomer(String isbn, String customerName, boolean legacy,
+			Set<String> fields, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Loan> root = query.from(Loan.class);
+		Join<Loan, Book> book = root.join("book");
+		Join<Loan, Customer> customer = root.join("customer", JoinType.LEFT);
+
+		Map<String, Expression<?>> columns = columns(root, book, customer, fields);
+		List<Selection<?>> selections = new ArrayList<>();
+		columns.forEach((alias, path) -> selections.add(path.alias(alias)));
+		query.multiselect(selections);
+		query.where(predicate(cb, root, book, customer, isbn, customerName, legacy));
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+
+		List<Loan> content = typedQuery.getResultList().stream()
+			.map(tuple -> toLoan(tuple, columns.keySet()))
+			.collect(Collectors.toList());
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(isbn, customerName, legacy));
+	}
+
+	@Override
+	public Page<Loan> findByBookWithArchive(Book book, Pageable pageable) {
+		Query query = entityManager.createNativeQuery("select * from (" + HISTORY_SELECT + ") t order by "
+				+ historyOrder(pageable.getSort()));
+		query.setParameter("book", book.getId());
+		if (pageable.isPaged()) {
+			query.setFirstResult((int) pageable.getOffset());
+			query.setMaxResults(pageable.getPageSize());
+		}
+
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = query.getResultList();
+		List<Loan> content = rows.stream().map(row -> toHistoryLoan(row, book)).collect(Collectors.toList());
+		return PageableExecutionUtils.getPage(content, pageable, () -> ((Number) entityManager
+				.createNativeQuery(HISTORY_COUNT)
+				.setParameter("book", book.getId())
+				.getSingleResult()).longValue());
+	}
+
+	// id desempata, para a mesma linha nao aparecer em duas paginas
+	private String historyOrder(Sort sort) {
+		StringBuilder order = new StringBuilder();
+		boolean byId = false;
+		for (Sort.Order sortOrder : sort) {
+			String column = HISTORY_SORT.get(sortOrder.getProperty());
+			if (column == null)
+				throw new IllegalArgumentException("Unknown loan sort: " + sortOrder.getProperty());
+			byId |= column.equals("id");
+			order.append(column).append(sortOrder.isAscending() ? " asc, " : " desc, ");
+		}
+		if (!byId)
+			order.append("id asc, ");
+		return order.substring(0, order.length() - 2);
+	}
+
+	// linha de HISTORY_SELECT; o livro e o do filtro
+	private Loan toHistoryLoan(Object[] row, Book book) {
+		Loan loan = Loan.builder()
+				.id(((Number) row[0]).longValue())
+				.legacyCustomer((String) row[4])
+				.legacyCustomerEmail((String) row[5])
+				.book(book)
+				.loanDate(row[6] == null ? null : ((Date) row[6]).toLocalDate())
+				.returned((Boolean) row[7])
+				.build();
+		if (row[1] != null)
+			loan.setCustomer(Customer.builder()
+					.id(((Number) row[1]).longValue())
+					.name((String) row[2])
+					.email((String) row[3])
+					.build());
+		return loan;
+	}
+
+	private long count(String isbn, String customerName, boolean legacy) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Loan> root = query.from(Loan.class);
+		Join<Loan, Book> book = root.join("book");
+		Join<Loan, Customer> customer = root.join("customer", JoinType.LEFT);
+		query.select(cb.count(root)).where(predicate(cb, root, book, customer, isbn, customerName, legacy));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	// equivalente a "b.isbn = :isbn or c.name = :customer", onde comparar com null nunca e verdadeiro;
+	// com legacy tambem "or l.legacyCustomer = :customer"
+	private Predicate predicate(CriteriaBuilder cb, Root<Loan> root, Join<Loan, Book> book,
+			Join<Loan, Customer> customer, String isbn, String customerName, boolean legacy) {
+		List<Predicate> predicates = new ArrayList<>();
+		if (isbn != null)
+			predicates.add(cb.equal(book.get("isbn"), isbn));
+		if (customerName != null)
+			predicates.add(cb.equal(customer.get("name"), customerName));
+		if (customerName != null && legacy)
+			predicates.add(cb.equal(root.get("legacyCustomer"), customerName));
+		return cb.or(predicates.toArray(new Predicate[0]));
+	}
+
+	// cliente e email caem nas colunas antigas enquanto a linha nao foi migrada para Customer
+	private Map<String, Expression<?>> columns(Root<Loan> root, Join<Loan, Book> book, Join<Loan, Customer> customer,
+			Set<String> fields) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		Map<String, Expression<?>> columns = new LinkedHashMap<>();
+		for (String field : fields) {
+			switch (field) {
+			case "id":
+				columns.put("id", root.get("id"));
+				break;
+			case "customer":
+				columns.put("customer", cb.coalesce(customer.<String>get("name"), root.<String>get("legacyCustomer")));
+				break;
+			case "email":
+				columns.put("email", cb.coalesce(customer.<String>get("email"), root.<String>get("legacyCustomerEmail")));
+				break;
+			case "isbn":
+				columns.put("bookIsbn", book.get("isbn"));
+				break;
+			case "bookId":
+				columns.put("bookId", book.get("id"));
+				break;
+			case "customerId":
+				columns.put("customerId", customer.get("id"));
+				break;
+			case "loanDate":
+				columns.put("loanDate", root.get("loanDate"));
+				break;
+			case "returned":
+				columns.put("returned", root.get("returned"));
+				break;
+			case "book":
+				columns.put("bookId", book.get("id"));
+				columns.put("bookTitle", book.get("title"));
+				columns.put("bookAuthor", book.get("author"));
+				columns.put("bookIsbn", book.get("isbn"));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown loan field: " + field);
+			}
+		}
+		return columns;
+	}
+
+	private Loan toLoan(Tuple tuple, Set<String> aliases) {
+		Loan loan = new Loan();
+		Book book = null;
+		for (String alias : aliases) {
+			Object value = tuple.get(alias);
+			if (alias.startsWith("book") && book == null) {
+				book = new Book();
+				loan.setBook(book);
+			}
+			switch (alias) {
+			case "id":
+				loan.setId((Long) value);
+				break;
+			case "customer":
+				customer(loan).setName((String) value);
+				break;
+			case "email":
+				customer(loan).setEmail((String) value);
+				break;
+			case "customerId":
+				customer(loan).setId((Long) value);
+				break;
+			case "loanDate":
+				loan.setLoanDate((LocalDate) value);
+				break;
+			case "returned":
+				loan.setReturned((Boolean) value);
+				break;
+			case "bookId":
+				book.setId((Long) value);
+				break;
+			case "bookTitle":
+				book.setTitle((String) value);
+				break;
+			case "bookAuthor":
+				book.setAuthor((String) value);
+				break;
+			case "bookIsbn":
+				book.setIsbn((String) value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown loan column: " + alias);
+			}
+		}
+		return loan;
+	}
+
+	private Customer customer(Loan loan) {
+		if (loan.getCustomer() == null)
+			loan.setCustomer(new Customer());
+		return loan.getCustomer();
+	}
+
+}
@@ -1,11 +1,15 @@
 package com.adrianmorais.libraryapi.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookAvailability;
 
 public interface BookService {
 
@@ -17,8 +21,18 @@ public interface BookService {
 
 	public Book update(Book book);
 
+	public Optional<Book> update(Long id, Book changes);
+
 	public Page<Book> find(Book filter, Pageable pageRequest);
 
+	public Page<Book> find(Book filter, Pageable pageRequest, Set<String> fields);
+
 	public Optional<Book> getBookByIsbn(String isbn);
 
+	// uma unica consulta para todos os ids; ids inexistentes ficam de fora
+	public List<Book> getByIds(Collection<Long> ids);
+
+	// livros encontrados por isbn ou id, com o emprestimo em aberto de cada um
+	public List<BookAvailability> getAvailability(Collection<String> isbns, Collection<Long> ids);
+
 }
@@ -0,0 +1,13 @@
+package com.adrianmorais.libraryapi.service;
+
+import java.util.Optional;
+
+import com.adrianmorais.libraryapi.model.entity.Customer;
+
+public interface CustomerService {
+
+	Customer resolve(String name, String email);
+
+	Optional<Customer> getById(Long id);
+
+}
@@ -1,26 +1,48 @@
 package com.adrianmorais.libraryapi.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 
 public interface LoanService {
 
+	// um emprestimo fica atrasado a partir de loanDate + LOAN_DAYS
+	int LOAN_DAYS = 4;
+
 	Loan save(Loan loan);
 
 	Optional<Loan> getById(Long id);
 
 	Loan update(Loan loan);
 
+	Optional<Loan> returnBook(Long id, Boolean returned);
+
 	Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
+	Page<Loan> find(LoanFilterDTO filter, Pageable pageable, Set<String> fields);
+
 	Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+	// inclui os emprestimos ja movidos para o arquivo
+	Page<Loan> getLoanHistoryByBook(Book book, Pageable pageable);
+
+	Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable);
+
 	List<Loan> getAllLateLoans();
+
+	// emprestimos em aberto dos livros, com livro e cliente na mesma consulta
+	List<Loan> getOpenLoansByBookIds(Collection<Long> bookIds);
+
+	// emprestimos, incluindo os arquivados, por id do livro; livros sem emprestimo ficam de fora
+	Map<Long, Long> countLoansByBookIds(Collection<Long> bookIds);
 }
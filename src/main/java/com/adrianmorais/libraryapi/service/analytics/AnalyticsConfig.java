@@ -0,0 +1,46 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+
+@Configuration
+@ConditionalOnProperty(name = "application.analytics.enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsConfig {
+
+	@Value("${application.analytics.top-size:10}")
+	private int topSize;
+
+	@Value("${application.analytics.window-days:90}")
+	private int windowDays;
+
+	@Value("${application.analytics.rebuild.parallelism:4}")
+	private int parallelism;
+
+	@Value("${application.analytics.rebuild.chunk-size:5000}")
+	private int chunkSize;
+
+	@Bean
+	public LoanAnalytics loanAnalytics(LoanRepository loanRepository, BookRepository bookRepository) {
+		return new LoanAnalytics(loanRepository, bookRepository, topSize, windowDays, parallelism, chunkSize);
+	}
+
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+	public ApplicationRunner loanAnalyticsLoader(LoanAnalytics loanAnalytics) {
+		return args -> loanAnalytics.rebuild();
+	}
+
+	@Bean
+	public AnalyticsEndpoint analyticsEndpoint(LoanAnalytics loanAnalytics) {
+		return new AnalyticsEndpoint(loanAnalytics);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import lombok.RequiredArgsConstructor;
+
+@Endpoint(id = "analytics")
+@RequiredArgsConstructor
+public class AnalyticsEndpoint {
+
+	private final LoanAnalytics analytics;
+
+	@ReadOperation
+	public AnalyticsStatus status() {
+		return analytics.status();
+	}
+
+	// refaz os agregados a partir de todo o historico de emprestimos
+	@WriteOperation
+	public AnalyticsStatus rebuild() {
+		return analytics.rebuild();
+	}
+
+}
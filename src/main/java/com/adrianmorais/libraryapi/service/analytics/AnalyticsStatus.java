@@ -0,0 +1,24 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AnalyticsStatus {
+
+	private boolean loaded;
+	private boolean rebuilding;
+	private long rebuilds;
+	private LocalDateTime lastRebuildAt;
+	private long lastRebuildMillis;
+	private long lastRebuildLoans;
+	private int lastRebuildChunks;
+	private int parallelism;
+	private long reconciliations;
+	private long drifts;
+	private LocalDateTime lastReconciliationAt;
+
+}
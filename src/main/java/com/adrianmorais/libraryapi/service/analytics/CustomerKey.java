@@ -0,0 +1,62 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+import com.adrianmorais.libraryapi.model.repository.LoanFact;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Cliente no ranking. A identidade e o par (nome, email), a mesma chave unica de Customer que o
+ * CustomerService.resolve e a CustomerMigration usam: um emprestimo ainda nao migrado conta para o mesmo
+ * cliente que tera depois da migracao, e dois clientes com o mesmo nome e emails diferentes ficam separados.
+ * O id nao entra na comparacao; e preenchido na foto das estatisticas.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CustomerKey implements Comparable<CustomerKey> {
+
+	private static final Comparator<CustomerKey> ORDER = Comparator.comparing(CustomerKey::getName)
+			.thenComparing(CustomerKey::getEmail);
+
+	private final Long id;
+	private final String name;
+	private final String email;
+
+	// nulo quando o emprestimo nao tem cliente; email vazio como no CustomerService
+	static CustomerKey of(LoanFact loan) {
+		if (loan.getCustomer() == null)
+			return null;
+		return new CustomerKey(loan.getCustomerId(), loan.getCustomer(),
+				loan.getCustomerEmail() == null ? "" : loan.getCustomerEmail());
+	}
+
+	CustomerKey withId(Long id) {
+		return new CustomerKey(id, name, email);
+	}
+
+	@Override
+	public int compareTo(CustomerKey other) {
+		return ORDER.compare(this, other);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (!(other instanceof CustomerKey))
+			return false;
+		CustomerKey key = (CustomerKey) other;
+		return name.equals(key.name) && email.equals(key.email);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, email);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.adrianmorais.libraryapi.model.repository.LoanFact;
+
+/**
+ * Agregados dos emprestimos. Cada emprestimo contribui uma vez; alteracoes sao aplicadas como
+ * remove(anterior) + add(atual). Nao e thread-safe: o LoanAnalytics serializa as escritas.
+ */
+class LoanAggregates {
+
+	final RankedCounter<Long> byBook = new RankedCounter<>();
+	final RankedCounter<CustomerKey> byCustomer = new RankedCounter<>();
+	// id de cada cliente ja visto com id, para a foto; clientes so com linhas nao migradas ficam sem
+	final Map<CustomerKey, Long> customerIds = new HashMap<>();
+	final TreeMap<LocalDate, Long> byDay = new TreeMap<>();
+	// ids dos emprestimos em aberto: add/remove idempotentes ao reaplicar eventos apos um rebuild
+	final Set<Long> out = new HashSet<>();
+	long total;
+
+	void add(LoanFact loan) {
+		total++;
+		byBook.add(loan.getBookId(), 1);
+		CustomerKey customer = CustomerKey.of(loan);
+		byCustomer.add(customer, 1);
+		if (customer != null && customer.getId() != null)
+			customerIds.put(customer, customer.getId());
+		if (loan.getLoanDate() != null)
+			byDay.merge(loan.getLoanDate(), 1l, Long::sum);
+		if (loan.isOut())
+			out.add(loan.getId());
+	}
+
+	void remove(LoanFact loan) {
+		total--;
+		byBook.add(loan.getBookId(), -1);
+		byCustomer.add(CustomerKey.of(loan), -1);
+		if (loan.getLoanDate() != null)
+			byDay.computeIfPresent(loan.getLoanDate(), (day, count) -> count > 1 ? count - 1 : null);
+		out.remove(loan.getId());
+	}
+
+	List<RankedCount<CustomerKey>> topCustomers(int size) {
+		List<RankedCount<CustomerKey>> top = new ArrayList<>();
+		for (RankedCount<CustomerKey> entry : byCustomer.top(size))
+			top.add(new RankedCount<>(entry.getKey().withId(customerIds.get(entry.getKey())), entry.getCount()));
+		return top;
+	}
+
+	void merge(LoanAggregates other) {
+		total += other.total;
+		byBook.addAll(other.byBook);
+		byCustomer.addAll(other.byCustomer);
+		customerIds.putAll(other.customerIds);
+		other.byDay.forEach((day, count) -> byDay.merge(day, count, Long::sum));
+		out.addAll(other.out);
+	}
+
+}
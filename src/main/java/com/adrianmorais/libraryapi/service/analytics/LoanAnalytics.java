@@ -0,0 +1,299 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanFact;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+import com.adrianmorais.libraryapi.service.event.LoanChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estatisticas de emprestimos mantidas de forma incremental pelos eventos do LoanService/BookService
+ * (apos o commit). Um rebuild varre o historico em faixas de id em paralelo e a reconciliacao periodica
+ * compara as contagens com o banco, refazendo tudo se houver divergencia. Emprestimos arquivados continuam
+ * contando: o historico e a soma de loan e loan_archive.
+ *
+ * Eventos recebidos durante o rebuild sao reaplicados so sobre o estado que a varredura contou: cada faixa
+ * guarda a linha lida dos emprestimos com evento pendente, e um evento so e aplicado se o estado anterior
+ * dele for o contado. Um evento que chega depois da faixa terminar e tratado como posterior a leitura.
+ */
+@Slf4j
+public class LoanAnalytics {
+
+	private final LoanRepository loanRepository;
+	private final BookRepository bookRepository;
+	private final int topSize;
+	private final int windowDays;
+	private final int parallelism;
+	private final int chunkSize;
+
+	private LoanAggregates state = new LoanAggregates();
+	private long books;
+	private boolean loaded;
+	// eventos recebidos durante um rebuild, reaplicados sobre o resultado; nulo fora de um rebuild
+	private List<LoanChangedEvent> pending;
+
+	private long rebuilds;
+	private LocalDateTime lastRebuildAt;
+	private long lastRebuildMillis;
+	private long lastRebuildLoans;
+	private int lastRebuildChunks;
+	private long reconciliations;
+	private long drifts;
+	private LocalDateTime lastReconciliationAt;
+
+	private volatile LoanStats stats;
+
+	public LoanAnalytics(LoanRepository loanRepository, BookRepository bookRepository, int topSize, int windowDays,
+			int parallelism, int chunkSize) {
+		this.loanRepository = loanRepository;
+		this.bookRepository = bookRepository;
+		this.topSize = topSize;
+		this.windowDays = windowDays;
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+		this.stats = snapshot();
+	}
+
+	public LoanStats stats() {
+		return stats;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onLoanChanged(LoanChangedEvent event) {
+		apply(state, event);
+		if (pending != null)
+			pending.add(event);
+		stats = snapshot();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onBookChanged(BookChangedEvent event) {
+		if (event.getType() == BookChangedEvent.Type.CREATED)
+			books++;
+		else if (event.getType() == BookChangedEvent.Type.DELETED)
+			books--;
+		else
+			return;
+		stats = snapshot();
+	}
+
+	public AnalyticsStatus rebuild() {
+		synchronized (this) {
+			if (pending != null)
+				throw new IllegalStateException("Loan analytics rebuild already running");
+			pending = new ArrayList<>();
+		}
+
+		try {
+			long start = System.nanoTime();
+			Long minId = loanRepository.findMinIdWithArchive();
+			Long maxId = loanRepository.findMaxIdWithArchive();
+
+			List<long[]> ranges = new ArrayList<>();
+			if (maxId != null)
+				for (long from = minId; from <= maxId; from += chunkSize)
+					ranges.add(new long[] { from, Math.min(from + chunkSize - 1, maxId) });
+
+			LoanAggregates rebuilt = new LoanAggregates();
+			// linhas contadas pela varredura dos emprestimos com evento pendente
+			Map<Long, LoanFact> scanned = new ConcurrentHashMap<>();
+			if (!ranges.isEmpty()) {
+				ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()),
+						threadFactory());
+				try {
+					List<CompletableFuture<LoanAggregates>> parts = new ArrayList<>(ranges.size());
+					for (long[] range : ranges)
+						parts.add(CompletableFuture.supplyAsync(() -> scan(range[0], range[1], scanned), executor));
+					for (CompletableFuture<LoanAggregates> part : parts)
+						rebuilt.merge(part.join());
+				} finally {
+					executor.shutdown();
+				}
+			}
+			long bookCount = bookRepository.count();
+
+			synchronized (this) {
+				replay(rebuilt, scanned);
+
+				state = rebuilt;
+				books = bookCount;
+				loaded = true;
+				rebuilds++;
+				lastRebuildAt = LocalDateTime.now();
+				lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+				lastRebuildLoans = rebuilt.total;
+				lastRebuildChunks = ranges.size();
+				stats = snapshot();
+				log.info("Loan analytics rebuilt from {} loans in {} chunks in {} ms", lastRebuildLoans,
+						lastRebuildChunks, lastRebuildMillis);
+			}
+		} finally {
+			synchronized (this) {
+				pending = null;
+			}
+		}
+		return status();
+	}
+
+	@Scheduled(fixedDelayString = "${application.analytics.reconcile-interval-ms:300000}",
+			initialDelayString = "${application.analytics.reconcile-interval-ms:300000}")
+	public void reconcile() {
+		long[] counts = counts();
+		synchronized (this) {
+			if (!loaded || pending != null)
+				return;
+
+			reconciliations++;
+			lastReconciliationAt = LocalDateTime.now();
+			if (!drifted(counts)) {
+				books = counts[2];
+				stats = snapshot();
+				return;
+			}
+		}
+
+		// um commit ja visivel no banco pode ainda nao ter entregue o evento: so refaz se a divergencia se mantiver
+		counts = counts();
+		boolean drifted;
+		synchronized (this) {
+			if (!loaded || pending != null)
+				return;
+
+			drifted = drifted(counts);
+			if (drifted) {
+				drifts++;
+				log.warn("Loan analytics drifted from the database (loans {} vs {}, out {} vs {}), rebuilding",
+						state.total, counts[0], state.out.size(), counts[1]);
+			}
+			books = counts[2];
+			stats = snapshot();
+		}
+
+		if (drifted)
+			rebuild();
+	}
+
+	public synchronized AnalyticsStatus status() {
+		return AnalyticsStatus.builder()
+				.loaded(loaded)
+				.rebuilding(pending != null)
+				.rebuilds(rebuilds)
+				.lastRebuildAt(lastRebuildAt)
+				.lastRebuildMillis(lastRebuildMillis)
+				.lastRebuildLoans(lastRebuildLoans)
+				.lastRebuildChunks(lastRebuildChunks)
+				.parallelism(parallelism)
+				.reconciliations(reconciliations)
+				.drifts(drifts)
+				.lastReconciliationAt(lastReconciliationAt)
+				.build();
+	}
+
+	// [emprestimos com o arquivo, nao devolvidos, livros]
+	private long[] counts() {
+		Object[] row = loanRepository.countForReconciliation().get(0);
+		return new long[] { ((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+				((Number) row[2]).longValue() };
+	}
+
+	// chamado com o lock
+	private boolean drifted(long[] counts) {
+		return counts[0] != state.total || counts[1] != state.out.size();
+	}
+
+	private LoanAggregates scan(long from, long to, Map<Long, LoanFact> scanned) {
+		LoanAggregates part = new LoanAggregates();
+		List<LoanFact> facts = new ArrayList<>();
+		for (Object[] row : loanRepository.findFactRowsWithArchiveByIdBetween(from, to))
+			facts.add(LoanFact.of(row));
+		// eventos que chegaram ate aqui podem ou nao estar na leitura: guarda o que foi contado
+		Set<Long> touched = pendingIds(from, to);
+		for (LoanFact fact : facts) {
+			part.add(fact);
+			if (touched.contains(fact.getId()))
+				scanned.put(fact.getId(), fact);
+		}
+		return part;
+	}
+
+	private synchronized Set<Long> pendingIds(long from, long to) {
+		Set<Long> ids = new HashSet<>();
+		for (LoanChangedEvent event : pending)
+			if (event.getLoan().getId() >= from && event.getLoan().getId() <= to)
+				ids.add(event.getLoan().getId());
+		return ids;
+	}
+
+	// chamado com o lock. Sem linha guardada, a varredura contou o estado anterior ao evento (nenhum, na criacao)
+	private void replay(LoanAggregates rebuilt, Map<Long, LoanFact> scanned) {
+		Map<Long, LoanFact> counted = new HashMap<>(scanned);
+		for (LoanChangedEvent event : pending) {
+			Long id = event.getLoan().getId();
+			LoanFact previous = event.getPrevious() == null ? null : LoanFact.of(event.getPrevious());
+			LoanFact current = counted.containsKey(id) ? counted.get(id) : previous;
+			// a varredura ja leu um estado posterior a este evento
+			if (!Objects.equals(current, previous))
+				continue;
+			apply(rebuilt, event);
+			counted.put(id, LoanFact.of(event.getLoan()));
+		}
+	}
+
+	private static void apply(LoanAggregates aggregates, LoanChangedEvent event) {
+		if (event.getPrevious() != null)
+			aggregates.remove(LoanFact.of(event.getPrevious()));
+		aggregates.add(LoanFact.of(event.getLoan()));
+	}
+
+	// chamado com o lock; custo proporcional ao top e a janela de dias, nao ao historico
+	private LoanStats snapshot() {
+		long out = state.out.size();
+		LocalDate firstDay = LocalDate.now().minusDays(windowDays - 1);
+		return LoanStats.builder()
+				.loaded(loaded)
+				.utilization(LoanStats.Utilization.builder()
+						.books(books)
+						.totalLoans(state.total)
+						.loansOut(out)
+						.outRatio(books > 0 ? (double) out / books : 0)
+						.build())
+				.topBooks(Collections.unmodifiableList(state.byBook.top(topSize)))
+				.topCustomers(Collections.unmodifiableList(state.topCustomers(topSize)))
+				.loansPerDay(Collections.unmodifiableSortedMap(new TreeMap<>(state.byDay.tailMap(firstDay))))
+				.updatedAt(LocalDateTime.now())
+				.build();
+	}
+
+	private static ThreadFactory threadFactory() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "loan-analytics-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
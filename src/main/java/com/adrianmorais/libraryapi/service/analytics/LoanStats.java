@@ -0,0 +1,38 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Foto imutavel das estatisticas, refeita a cada escrita; as leituras de /api/stats so devolvem a
+ * referencia atual.
+ */
+@Data
+@Builder
+public class LoanStats {
+
+	private boolean loaded;
+	private Utilization utilization;
+	private List<RankedCount<Long>> topBooks;
+	private List<RankedCount<CustomerKey>> topCustomers;
+	private SortedMap<LocalDate, Long> loansPerDay;
+	private LocalDateTime updatedAt;
+
+	@Data
+	@Builder
+	public static class Utilization {
+
+		private long books;
+		private long totalLoans;
+		private long loansOut;
+		// emprestimos em aberto / livros cadastrados
+		private double outRatio;
+
+	}
+
+}
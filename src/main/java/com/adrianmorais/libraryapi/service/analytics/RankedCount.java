@@ -0,0 +1,13 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RankedCount<K> {
+
+	private K key;
+	private long count;
+
+}
@@ -0,0 +1,61 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Contador por chave que mantem o ranking ordenado a cada incremento (O(log n)), de modo que o top N
+ * sai sem varrer todas as chaves. Nao e thread-safe.
+ */
+class RankedCounter<K extends Comparable<K>> {
+
+	private final Map<K, Long> counts = new HashMap<>();
+	private final TreeSet<RankedCount<K>> ranking = new TreeSet<>(
+			Comparator.<RankedCount<K>>comparingLong(RankedCount::getCount).reversed()
+					.thenComparing(RankedCount::getKey));
+
+	public void add(K key, long delta) {
+		if (key == null || delta == 0)
+			return;
+
+		Long current = counts.get(key);
+		if (current != null)
+			ranking.remove(new RankedCount<>(key, current));
+
+		long updated = (current == null ? 0 : current) + delta;
+		if (updated > 0) {
+			counts.put(key, updated);
+			ranking.add(new RankedCount<>(key, updated));
+		} else {
+			counts.remove(key);
+		}
+	}
+
+	public void addAll(RankedCounter<K> other) {
+		other.counts.forEach(this::add);
+	}
+
+	public long get(K key) {
+		return counts.getOrDefault(key, 0l);
+	}
+
+	public int size() {
+		return counts.size();
+	}
+
+	public List<RankedCount<K>> top(int size) {
+		List<RankedCount<K>> top = new ArrayList<>(Math.min(size, ranking.size()));
+		Iterator<RankedCount<K>> iterator = ranking.iterator();
+		while (iterator.hasNext() && top.size() < size) {
+			RankedCount<K> entry = iterator.next();
+			top.add(new RankedCount<>(entry.getKey(), entry.getCount()));
+		}
+		return top;
+	}
+
+}
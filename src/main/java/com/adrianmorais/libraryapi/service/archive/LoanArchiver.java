@@ -0,0 +1,132 @@
+package com.adrianmorais.libraryapi.service.archive;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.adrianmorais.libraryapi.model.repository.ArchivedLoanRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Move emprestimos devolvidos com loan_date anterior a min-age-days da tabela loan para loan_archive, para manter
+ * pequenas as consultas de emprestimos em aberto. Cada lote roda numa transacao curta que trava apenas as
+ * linhas do lote. Linhas com o cliente ainda em texto livre esperam a CustomerMigration.
+ */
+@Service
+@ConditionalOnProperty(name = "application.loans.archive.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LoanArchiver {
+
+	static final String MOVED_METRIC = "loans.archive.moved";
+	static final String BATCH_METRIC = "loans.archive.batch";
+	static final String HOT_SIZE_METRIC = "loans.hot.size";
+	static final String ARCHIVE_SIZE_METRIC = "loans.archive.size";
+
+	private static final String SELECT_BATCH = "select id from loan where id > ? and returned = true and loan_date < ? "
+			+ "and (id_customer is not null or customer is null) order by id limit ? for update";
+	private static final String COPY_BATCH = "insert into loan_archive (id, id_book, id_customer, loan_date, returned, "
+			+ "archived_at) select id, id_book, id_customer, loan_date, returned, :archivedAt from loan where id in (:ids)";
+	private static final String DELETE_BATCH = "delete from loan where id in (:ids)";
+
+	private final LoanRepository loanRepository;
+	private final ArchivedLoanRepository archiveRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+	private final TransactionTemplate transaction;
+	private final int minAgeDays;
+	private final int batchSize;
+	private final int maxBatchesPerRun;
+
+	private final Counter moved;
+	private final Timer batchTimer;
+	private final AtomicLong hotSize = new AtomicLong();
+	private final AtomicLong archiveSize = new AtomicLong();
+
+	public LoanArchiver(LoanRepository loanRepository, ArchivedLoanRepository archiveRepository,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry registry,
+			@Value("${application.loans.archive.min-age-days:90}") int minAgeDays,
+			@Value("${application.loans.archive.batch-size:500}") int batchSize,
+			@Value("${application.loans.archive.max-batches-per-run:20}") int maxBatchesPerRun) {
+		this.loanRepository = loanRepository;
+		this.archiveRepository = archiveRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.minAgeDays = minAgeDays;
+		this.batchSize = batchSize;
+		this.maxBatchesPerRun = maxBatchesPerRun;
+
+		this.moved = Counter.builder(MOVED_METRIC)
+				.description("Returned loans moved from loan to loan_archive")
+				.register(registry);
+		this.batchTimer = Timer.builder(BATCH_METRIC)
+				.description("Time spent moving one batch of loans to the archive, lock held for the whole batch")
+				.register(registry);
+		Gauge.builder(HOT_SIZE_METRIC, hotSize, AtomicLong::get)
+				.description("Rows in the loan table after the last archive run")
+				.register(registry);
+		Gauge.builder(ARCHIVE_SIZE_METRIC, archiveSize, AtomicLong::get)
+				.description("Rows in the loan_archive table after the last archive run")
+				.register(registry);
+	}
+
+	/**
+	 * Arquiva ate max-batches-per-run lotes e atualiza os tamanhos das tabelas. Retorna as linhas movidas.
+	 */
+	@Scheduled(fixedDelayString = "${application.loans.archive.interval-ms:60000}")
+	public synchronized long archive() {
+		LocalDate cutoff = LocalDate.now().minusDays(minAgeDays);
+		long total = 0;
+		long lastId = 0;
+		for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+			long afterId = lastId;
+			long[] result = batchTimer.record(() -> archiveBatch(afterId, cutoff));
+			if (result[0] == 0)
+				break;
+			moved.increment(result[0]);
+			total += result[0];
+			lastId = result[1];
+		}
+
+		hotSize.set(loanRepository.count());
+		archiveSize.set(archiveRepository.count());
+		if (total > 0)
+			log.info("Archived {} returned loans older than {}", total, cutoff);
+		return total;
+	}
+
+	// {linhas movidas, ultimo id do lote}
+	private long[] archiveBatch(long afterId, LocalDate cutoff) {
+		return transaction.execute(status -> {
+			List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH, Long.class, afterId, Date.valueOf(cutoff), batchSize);
+			if (ids.isEmpty())
+				return new long[] { 0, afterId };
+
+			MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+					.addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now()));
+			namedJdbcTemplate.update(COPY_BATCH, params);
+			int deleted = namedJdbcTemplate.update(DELETE_BATCH, params);
+			return new long[] { deleted, ids.get(ids.size() - 1) };
+		});
+	}
+
+}
@@ -0,0 +1,408 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+
+/**
+ * Copia em memoria de todos os livros em formato colunar: ids em long[], titulos em UTF-8,
+ * autores codificados por dicionario (int[] + tabela de valores distintos) e indices por id e isbn
+ * com enderecamento aberto. As linhas removidas sao reaproveitadas; o dicionario de autores so cresce.
+ *
+ * Leituras por id/isbn usam leitura otimista do StampedLock (sem bloquear); buscas e escritas usam
+ * os locks de leitura e escrita. Os livros devolvidos sao copias, sem a colecao de emprestimos.
+ *
+ * Durante uma carga, put/remove tambem ficam anotados e sao reaplicados depois que o snapshot substitui
+ * o conteudo: uma alteracao confirmada entre a consulta e a troca nao se perde.
+ */
+public class BookCatalog {
+
+	public static final Collection<String> SORTABLE = Arrays.asList("id", "title", "author", "isbn");
+
+	private static final int NO_AUTHOR = -1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final StampedLock lock = new StampedLock();
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private byte[][] titles = new byte[INITIAL_CAPACITY][];
+	private int[] authors = new int[INITIAL_CAPACITY];
+	private String[] isbns = new String[INITIAL_CAPACITY];
+	private int rowCount;
+	private int[] freeRows = new int[16];
+	private int freeCount;
+
+	private String[] authorValues = new String[16];
+	private int authorCount;
+	private final StringIntHashIndex authorCodes = new StringIntHashIndex(16);
+
+	private final LongIntHashIndex idIndex = new LongIntHashIndex(INITIAL_CAPACITY);
+	private final StringIntHashIndex isbnIndex = new StringIntHashIndex(INITIAL_CAPACITY);
+
+	private volatile boolean loaded;
+	// alteracoes recebidas desde o inicio da carga em andamento; nulo fora de uma carga
+	private List<Change> pending;
+
+	private final LongAdder idLookups = new LongAdder();
+	private final LongAdder idLookupNanos = new LongAdder();
+	private final LongAdder isbnLookups = new LongAdder();
+	private final LongAdder isbnLookupNanos = new LongAdder();
+
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Substitui todo o conteudo pelos livros informados e marca o catalogo como carregado.
+	 */
+	public void load(Iterable<Book> books) {
+		loadFrom(() -> books);
+	}
+
+	/**
+	 * Substitui todo o conteudo pelo snapshot lido de source (fora do lock) e reaplica as alteracoes
+	 * recebidas enquanto ele era lido.
+	 */
+	public synchronized void loadFrom(Supplier<? extends Iterable<Book>> source) {
+		long stamp = lock.writeLock();
+		try {
+			pending = new ArrayList<>();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+
+		Iterable<Book> books;
+		try {
+			books = source.get();
+		} catch (RuntimeException e) {
+			long failed = lock.writeLock();
+			pending = null;
+			lock.unlockWrite(failed);
+			throw e;
+		}
+
+		stamp = lock.writeLock();
+		try {
+			rowCount = 0;
+			freeCount = 0;
+			idIndex.clear();
+			isbnIndex.clear();
+			Arrays.fill(ids, 0);
+			for (Book book : books)
+				write(book);
+			for (Change change : pending) {
+				if (change.book == null)
+					delete(change.id);
+				else
+					write(change.book);
+			}
+			pending = null;
+			loaded = true;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void put(Book book) {
+		long stamp = lock.writeLock();
+		try {
+			if (pending != null)
+				pending.add(new Change(book.getId(), book));
+			write(book);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public void remove(long id) {
+		long stamp = lock.writeLock();
+		try {
+			if (pending != null)
+				pending.add(new Change(id, null));
+			delete(id);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public Optional<Book> getById(long id) {
+		long start = System.nanoTime();
+		Book book = optimisticRead(() -> {
+			int row = idIndex.get(id);
+			return row == LongIntHashIndex.MISSING ? null : toBook(row);
+		});
+		idLookups.increment();
+		idLookupNanos.add(System.nanoTime() - start);
+		return Optional.ofNullable(book);
+	}
+
+	public Optional<Book> getByIsbn(String isbn) {
+		if (isbn == null)
+			return Optional.empty();
+
+		long start = System.nanoTime();
+		Book book = optimisticRead(() -> {
+			int row = isbnIndex.get(isbn);
+			return row == StringIntHashIndex.MISSING ? null : toBook(row);
+		});
+		isbnLookups.increment();
+		isbnLookupNanos.add(System.nanoTime() - start);
+		return Optional.ofNullable(book);
+	}
+
+	/**
+	 * Mesma semantica do Example usado no BookService: id exato e titulo, autor e isbn por
+	 * "contem", sem diferenciar maiusculas. Ordena apenas pelas propriedades em SORTABLE.
+	 */
+	public Page<Book> find(Book filter, Pageable pageable) {
+		long stamp = lock.readLock();
+		try {
+			String title = lower(filter.getTitle());
+			String author = lower(filter.getAuthor());
+			String isbn = lower(filter.getIsbn());
+
+			int[] matches = new int[16];
+			int count = 0;
+			for (int row = 0; row < rowCount; row++) {
+				if (ids[row] == 0 || (filter.getId() != null && ids[row] != filter.getId())
+						|| !contains(isbns[row], isbn) || !contains(authorOf(row), author)
+						|| (title != null && !contains(decode(titles[row]), title)))
+					continue;
+				if (count == matches.length)
+					matches = Arrays.copyOf(matches, count * 2);
+				matches[count++] = row;
+			}
+
+			List<Integer> rows = new ArrayList<>(count);
+			for (int i = 0; i < count; i++)
+				rows.add(matches[i]);
+			Comparator<Integer> comparator = comparator(pageable.getSort());
+			if (comparator != null)
+				rows.sort(comparator);
+
+			int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), count) : 0;
+			int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), count) : count;
+			List<Book> content = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++)
+				content.add(toBook(rows.get(i)));
+			return new PageImpl<>(content, pageable, count);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public CatalogStats stats() {
+		long stamp = lock.readLock();
+		try {
+			long strings = 0;
+			long boxedStrings = 0;
+			for (int row = 0; row < rowCount; row++) {
+				if (ids[row] == 0)
+					continue;
+				strings += titles[row] == null ? 0 : CatalogMemory.array(titles[row].length, 1);
+				strings += CatalogMemory.string(isbns[row]);
+				boxedStrings += CatalogMemory.string(decode(titles[row])) + CatalogMemory.string(isbns[row])
+						+ CatalogMemory.string(authorOf(row));
+			}
+			for (int i = 0; i < authorCount; i++)
+				strings += CatalogMemory.string(authorValues[i]);
+
+			long bytes = CatalogMemory.array(ids.length, 8) + CatalogMemory.array(titles.length, CatalogMemory.REFERENCE)
+					+ CatalogMemory.array(authors.length, 4) + CatalogMemory.array(isbns.length, CatalogMemory.REFERENCE)
+					+ CatalogMemory.array(freeRows.length, 4) + CatalogMemory.array(authorValues.length, CatalogMemory.REFERENCE)
+					+ authorCodes.bytes() + idIndex.bytes() + isbnIndex.bytes() + strings;
+
+			int books = idIndex.size();
+			return CatalogStats.builder()
+					.loaded(loaded)
+					.books(books)
+					.capacity(ids.length)
+					.distinctAuthors(authorCount)
+					.bytes(bytes)
+					.bytesPerBook(books == 0 ? 0 : (double) bytes / books)
+					.boxedBytesPerBook(books == 0 ? 0 : (double) (boxedBytes(books) + boxedStrings) / books)
+					.idLookups(idLookups.sum())
+					.avgIdLookupNanos(average(idLookupNanos, idLookups))
+					.isbnLookups(isbnLookups.sum())
+					.avgIsbnLookupNanos(average(isbnLookupNanos, isbnLookups))
+					.build();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private void write(Book book) {
+		long id = book.getId();
+		int row = idIndex.get(id);
+		if (row == LongIntHashIndex.MISSING) {
+			row = freeCount > 0 ? freeRows[--freeCount] : nextRow();
+			idIndex.put(id, row);
+		} else if (isbns[row] != null) {
+			isbnIndex.remove(isbns[row]);
+		}
+
+		ids[row] = id;
+		titles[row] = book.getTitle() == null ? null : book.getTitle().getBytes(StandardCharsets.UTF_8);
+		authors[row] = authorCode(book.getAuthor());
+		isbns[row] = book.getIsbn();
+		if (book.getIsbn() != null)
+			isbnIndex.put(book.getIsbn(), row);
+	}
+
+	private void delete(long id) {
+		int row = idIndex.get(id);
+		if (row == LongIntHashIndex.MISSING)
+			return;
+		idIndex.remove(id);
+		if (isbns[row] != null)
+			isbnIndex.remove(isbns[row]);
+		ids[row] = 0;
+		titles[row] = null;
+		isbns[row] = null;
+		if (freeCount == freeRows.length)
+			freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+		freeRows[freeCount++] = row;
+	}
+
+	private int nextRow() {
+		if (rowCount == ids.length) {
+			int capacity = ids.length * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			titles = Arrays.copyOf(titles, capacity);
+			authors = Arrays.copyOf(authors, capacity);
+			isbns = Arrays.copyOf(isbns, capacity);
+		}
+		return rowCount++;
+	}
+
+	private int authorCode(String author) {
+		if (author == null)
+			return NO_AUTHOR;
+		int code = authorCodes.get(author);
+		if (code != StringIntHashIndex.MISSING)
+			return code;
+
+		if (authorCount == authorValues.length)
+			authorValues = Arrays.copyOf(authorValues, authorCount * 2);
+		authorValues[authorCount] = author;
+		authorCodes.put(author, authorCount);
+		return authorCount++;
+	}
+
+	private String authorOf(int row) {
+		return authors[row] == NO_AUTHOR ? null : authorValues[authors[row]];
+	}
+
+	private Book toBook(int row) {
+		return Book.builder()
+				.id(ids[row])
+				.title(decode(titles[row]))
+				.author(authorOf(row))
+				.isbn(isbns[row])
+				.build();
+	}
+
+	private <T> T optimisticRead(Supplier<T> read) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				T value = read.get();
+				if (lock.validate(stamp))
+					return value;
+			} catch (RuntimeException e) {
+				// escrita concorrente trocou os arrays no meio da leitura; repete com lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return read.get();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private Comparator<Integer> comparator(Sort sort) {
+		Comparator<Integer> result = null;
+		for (Sort.Order order : sort) {
+			Comparator<Integer> next;
+			switch (order.getProperty()) {
+			case "id":
+				next = Comparator.comparingLong(row -> ids[row]);
+				break;
+			case "title":
+				next = nullsFirst(row -> decode(titles[row]));
+				break;
+			case "author":
+				next = nullsFirst(this::authorOf);
+				break;
+			case "isbn":
+				next = nullsFirst(row -> isbns[row]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+			}
+			if (order.isDescending())
+				next = next.reversed();
+			result = result == null ? next : result.thenComparing(next);
+		}
+		return result;
+	}
+
+	private static Comparator<Integer> nullsFirst(IntFunction<String> value) {
+		return Comparator.comparing(value::apply, Comparator.nullsFirst(Comparator.naturalOrder()));
+	}
+
+	private static boolean contains(String value, String lowerFilter) {
+		return lowerFilter == null || (value != null && value.toLowerCase().contains(lowerFilter));
+	}
+
+	private static String lower(String value) {
+		return value == null ? null : value.toLowerCase();
+	}
+
+	private static String decode(byte[] value) {
+		return value == null ? null : new String(value, StandardCharsets.UTF_8);
+	}
+
+	private static double average(LongAdder nanos, LongAdder count) {
+		long total = count.sum();
+		return total == 0 ? 0 : (double) nanos.sum() / total;
+	}
+
+	// livro nulo: remocao
+	private static final class Change {
+		private final long id;
+		private final Book book;
+
+		private Change(long id, Book book) {
+			this.id = id;
+			this.book = book;
+		}
+	}
+
+	// HashMap<Long, Book> por id e HashMap<String, Book> por isbn, com carga 0.75
+	private static long boxedBytes(int books) {
+		long node = CatalogMemory.object(4 + 3 * CatalogMemory.REFERENCE);
+		long table = (long) Math.ceil(books / 0.75) * CatalogMemory.REFERENCE;
+		long book = CatalogMemory.object(5 * CatalogMemory.REFERENCE);
+		long boxedId = CatalogMemory.object(8);
+		return books * (2 * node + book + boxedId) + 2 * table;
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookAvailability;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+
+/**
+ * BookService que responde as leituras pelo BookCatalog e repassa as escritas ao BookServiceImpl.
+ * O catalogo e atualizado apenas depois do commit; por isso, dentro de uma transacao (que pode ter
+ * escritas ainda nao confirmadas) e antes da carga inicial, as leituras tambem vao ao banco.
+ */
+public class CatalogBookService implements BookService {
+
+	private final BookService delegate;
+	private final BookCatalog catalog;
+
+	public CatalogBookService(BookService delegate, BookCatalog catalog) {
+		this.delegate = delegate;
+		this.catalog = catalog;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		if (event.getType() == BookChangedEvent.Type.DELETED)
+			catalog.remove(event.getBook().getId());
+		else
+			catalog.put(event.getBook());
+	}
+
+	@Override
+	public Book save(Book book) {
+		return delegate.save(book);
+	}
+
+	@Override
+	public Optional<Book> getById(Long id) {
+		return useCatalog() ? catalog.getById(id) : delegate.getById(id);
+	}
+
+	@Override
+	public void delete(Book book) {
+		delegate.delete(book);
+	}
+
+	@Override
+	public Book update(Book book) {
+		return delegate.update(book);
+	}
+
+	@Override
+	public Optional<Book> update(Long id, Book changes) {
+		return delegate.update(id, changes);
+	}
+
+	@Override
+	public Page<Book> find(Book filter, Pageable pageRequest) {
+		return useCatalog() && sortable(pageRequest.getSort())
+				? catalog.find(filter, pageRequest)
+				: delegate.find(filter, pageRequest);
+	}
+
+	// o catalogo devolve o livro inteiro; o PageResponse filtra os campos na serializacao
+	@Override
+	public Page<Book> find(Book filter, Pageable pageRequest, Set<String> fields) {
+		return useCatalog() && sortable(pageRequest.getSort())
+				? catalog.find(filter, pageRequest)
+				: delegate.find(filter, pageRequest, fields);
+	}
+
+	@Override
+	public Optional<Book> getBookByIsbn(String isbn) {
+		return useCatalog() ? catalog.getByIsbn(isbn) : delegate.getBookByIsbn(isbn);
+	}
+
+	@Override
+	public List<Book> getByIds(Collection<Long> ids) {
+		if (!useCatalog())
+			return delegate.getByIds(ids);
+		List<Book> books = new ArrayList<>(ids.size());
+		for (Long id : ids)
+			catalog.getById(id).ifPresent(books::add);
+		return books;
+	}
+
+	// depende dos emprestimos, que o catalogo nao guarda
+	@Override
+	public List<BookAvailability> getAvailability(Collection<String> isbns, Collection<Long> ids) {
+		return delegate.getAvailability(isbns, ids);
+	}
+
+	private boolean useCatalog() {
+		return catalog.isLoaded() && !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	private boolean sortable(Sort sort) {
+		return sort.stream().allMatch(order -> BookCatalog.SORTABLE.contains(order.getProperty()));
+	}
+
+}
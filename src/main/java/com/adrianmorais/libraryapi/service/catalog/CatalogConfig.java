@@ -0,0 +1,66 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.invalidation.InvalidationBus;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@ConditionalOnProperty(name = "application.catalog.snapshot.enabled", havingValue = "true")
+@Slf4j
+public class CatalogConfig {
+
+	@Bean
+	public BookCatalog bookCatalog() {
+		return new BookCatalog();
+	}
+
+	@Bean
+	@Primary
+	public CatalogBookService catalogBookService(@Qualifier("bookServiceImpl") BookService bookService,
+			BookRepository repository, ObjectProvider<InvalidationBus> invalidationBus) {
+		// alteracoes feitas em outras instancias: recarrega o livro do primario (ou remove, se foi excluido)
+		invalidationBus.ifAvailable(bus -> bus.addListener(InvalidationBus.BOOK, id -> {
+			Optional<Book> book = repository.findCurrentById(id);
+			if (book.isPresent())
+				bookCatalog().put(book.get());
+			else
+				bookCatalog().remove(id);
+		}));
+		return new CatalogBookService(bookService, bookCatalog());
+	}
+
+	// carrega antes do aquecimento (WarmupRunner), que ja le pelo catalogo
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public ApplicationRunner bookCatalogLoader(BookRepository repository) {
+		return args -> {
+			long start = System.nanoTime();
+			bookCatalog().loadFrom(repository::findAll);
+			CatalogStats stats = bookCatalog().stats();
+			log.info("Book catalog loaded with {} books in {} ms, {} bytes per book ({} in boxed maps)", stats.getBooks(),
+					(System.nanoTime() - start) / 1_000_000, String.format("%.1f", stats.getBytesPerBook()),
+					String.format("%.1f", stats.getBoxedBytesPerBook()));
+		};
+	}
+
+	@Bean
+	public CatalogEndpoint catalogEndpoint() {
+		return new CatalogEndpoint(bookCatalog());
+	}
+
+}
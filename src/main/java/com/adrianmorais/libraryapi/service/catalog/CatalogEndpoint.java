@@ -0,0 +1,19 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import lombok.RequiredArgsConstructor;
+
+@Endpoint(id = "catalog")
+@RequiredArgsConstructor
+public class CatalogEndpoint {
+
+	private final BookCatalog catalog;
+
+	@ReadOperation
+	public CatalogStats stats() {
+		return catalog.stats();
+	}
+
+}
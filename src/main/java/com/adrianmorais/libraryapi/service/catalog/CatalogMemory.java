@@ -0,0 +1,33 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+/**
+ * Estimativa de tamanho de objetos numa JVM 64 bits com compressed oops (cabecalho de 12 bytes,
+ * alinhamento de 8). Serve para comparar layouts, nao para medir o heap com precisao.
+ */
+final class CatalogMemory {
+
+	static final int REFERENCE = 4;
+	static final int OBJECT_HEADER = 12;
+	static final int ARRAY_HEADER = 16;
+
+	private CatalogMemory() {
+	}
+
+	static long array(int length, int elementSize) {
+		return align(ARRAY_HEADER + (long) length * elementSize);
+	}
+
+	static long object(int fieldBytes) {
+		return align(OBJECT_HEADER + fieldBytes);
+	}
+
+	// String do Java 8: objeto com char[] e hash
+	static long string(String value) {
+		return value == null ? 0 : object(REFERENCE + 4) + array(value.length(), 2);
+	}
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CatalogStats {
+
+	private boolean loaded;
+	private int books;
+	private int capacity;
+	private int distinctAuthors;
+	private long bytes;
+	private double bytesPerBook;
+	// o mesmo conteudo em HashMap<Long, Book> + HashMap<String, Book>
+	private double boxedBytesPerBook;
+	private long idLookups;
+	private double avgIdLookupNanos;
+	private long isbnLookups;
+	private double avgIsbnLookupNanos;
+
+}
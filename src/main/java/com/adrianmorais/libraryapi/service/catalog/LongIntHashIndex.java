@@ -0,0 +1,112 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> int com enderecamento aberto (sondagem linear) em dois arrays primitivos, sem
+ * boxing. A chave 0 marca posicao vazia, entao nao pode ser usada (ids de identidade comecam em 1).
+ * Nao e thread-safe: o BookCatalog controla o acesso.
+ */
+class LongIntHashIndex {
+
+	static final int MISSING = -1;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	LongIntHashIndex(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+	}
+
+	int get(long key) {
+		long[] keys = this.keys;
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			long current = keys[i];
+			if (current == key)
+				return values[i];
+			if (current == 0)
+				return MISSING;
+		}
+	}
+
+	void put(long key, int value) {
+		if (key == 0)
+			throw new IllegalArgumentException("Key 0 is reserved");
+		if ((size + 1) * 2 > keys.length)
+			resize(keys.length * 2);
+
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			if (keys[i] == 0) {
+				keys[i] = key;
+				values[i] = value;
+				size++;
+				return;
+			}
+		}
+	}
+
+	void remove(long key) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (keys[i] != key) {
+			if (keys[i] == 0)
+				return;
+			i = (i + 1) & mask;
+		}
+
+		// remocao com deslocamento para tras, sem lapides
+		int gap = i;
+		for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+			int home = slot(keys[j], mask);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		keys[gap] = 0;
+		size--;
+	}
+
+	void clear() {
+		Arrays.fill(keys, 0);
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	long bytes() {
+		return CatalogMemory.array(keys.length, 8) + CatalogMemory.array(values.length, 4);
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity];
+		values = new int[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0)
+				put(oldKeys[i], oldValues[i]);
+		}
+	}
+
+	private static int slot(long key, int mask) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key & mask;
+	}
+
+}
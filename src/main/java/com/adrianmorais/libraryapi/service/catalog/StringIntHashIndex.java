@@ -0,0 +1,109 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Mapa String -> int com enderecamento aberto (sondagem linear), sem objetos de entrada como no
+ * HashMap. As chaves sao as proprias Strings guardadas pelo catalogo, sem copia.
+ * Nao e thread-safe: o BookCatalog controla o acesso.
+ */
+class StringIntHashIndex {
+
+	static final int MISSING = -1;
+
+	private String[] keys;
+	private int[] values;
+	private int size;
+
+	StringIntHashIndex(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+		keys = new String[capacity];
+		values = new int[capacity];
+	}
+
+	int get(String key) {
+		String[] keys = this.keys;
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			String current = keys[i];
+			if (current == null)
+				return MISSING;
+			if (current.equals(key))
+				return values[i];
+		}
+	}
+
+	void put(String key, int value) {
+		if ((size + 1) * 2 > keys.length)
+			resize(keys.length * 2);
+
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			if (keys[i] == null) {
+				keys[i] = key;
+				values[i] = value;
+				size++;
+				return;
+			}
+			if (keys[i].equals(key)) {
+				values[i] = value;
+				return;
+			}
+		}
+	}
+
+	void remove(String key) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (!key.equals(keys[i])) {
+			if (keys[i] == null)
+				return;
+			i = (i + 1) & mask;
+		}
+
+		// remocao com deslocamento para tras, sem lapides
+		int gap = i;
+		for (int j = (gap + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+			int home = slot(keys[j], mask);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				values[gap] = values[j];
+				gap = j;
+			}
+		}
+		keys[gap] = null;
+		size--;
+	}
+
+	void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	// apenas os arrays; as Strings sao contadas nas colunas
+	long bytes() {
+		return CatalogMemory.array(keys.length, CatalogMemory.REFERENCE) + CatalogMemory.array(values.length, 4);
+	}
+
+	private void resize(int capacity) {
+		String[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new String[capacity];
+		values = new int[capacity];
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null)
+				put(oldKeys[i], oldValues[i]);
+		}
+	}
+
+	private static int slot(String key, int mask) {
+		int hash = key.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.adrianmorais.libraryapi.service.changes;
+
+import java.util.List;
+
+import com.adrianmorais.libraryapi.model.entity.ChangeLogEntry;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ChangeBatch {
+
+	private List<ChangeLogEntry> entries;
+	// cursor para a proxima leitura: id da ultima entrada ou o since recebido
+	private long cursor;
+	// limite atingido, ha mais entradas para ler sem esperar
+	private boolean more;
+
+}
@@ -0,0 +1,176 @@
+package com.adrianmorais.libraryapi.service.changes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.adrianmorais.libraryapi.model.entity.ChangeLogEntry;
+
+/**
+ * Entrega do ChangeLog para clientes esperando (long-poll) ou conectados (SSE). A cada commit o feed le
+ * uma vez as entradas novas e repassa a todos os inscritos, em vez de uma consulta por cliente.
+ *
+ * Inscricoes e repasses rodam numa unica thread (change-feed): um inscrito so passa a receber os
+ * repasses depois de alcancar o fim do log, entao nao ha buracos entre o historico e as entradas novas.
+ *
+ * Commits de outras instancias e buracos que assentaram nao passam pelo listener do ChangeLog: poll() le de
+ * novo a cada intervalo enquanto houver inscritos ou buracos.
+ */
+public class ChangeFeed {
+
+	private final ChangeLog changeLog;
+	private final int maxLimit;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "change-feed");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// commits em sequencia geram uma unica leitura
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	// so acessados na thread change-feed
+	private final List<Subscription> subscriptions = new ArrayList<>();
+	private long tail = -1;
+	// tamanho de subscriptions, lido fora da thread change-feed por poll()
+	private volatile int subscribed;
+
+	public ChangeFeed(ChangeLog changeLog, int maxLimit) {
+		this.changeLog = changeLog;
+		this.maxLimit = maxLimit;
+		changeLog.addListener(this::changed);
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public boolean isExpired(long since) {
+		return changeLog.isExpired(since);
+	}
+
+	public ChangeBatch read(long since, int limit) {
+		int capped = Math.min(limit, maxLimit);
+		List<ChangeLogEntry> entries = changeLog.read(since, capped);
+		return batch(entries, since, entries.size() == capped);
+	}
+
+	/**
+	 * Long-poll: entrega uma unica vez as primeiras entradas depois de since. Retorna o cancelamento, para o timeout.
+	 */
+	public Runnable await(long since, int limit, Consumer<ChangeBatch> consumer) {
+		return subscribe(new Subscription(since, Math.min(limit, maxLimit), consumer, true));
+	}
+
+	/**
+	 * SSE: entrega tudo depois de since, em lotes, ate ser cancelado ou o consumidor falhar.
+	 */
+	public Runnable stream(long since, Consumer<ChangeBatch> consumer) {
+		return subscribe(new Subscription(since, maxLimit, consumer, false));
+	}
+
+	@Scheduled(fixedDelayString = "${application.changes.poll-interval-ms:1000}")
+	public void poll() {
+		if (subscribed > 0 || changeLog.hasGaps())
+			changed();
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private Runnable subscribe(Subscription subscription) {
+		executor.execute(() -> {
+			if (tail < 0)
+				tail = changeLog.visibleUpTo();
+			List<ChangeLogEntry> entries;
+			do {
+				entries = changeLog.read(subscription.cursor, subscription.limit);
+			} while (subscription.offer(entries) && !subscription.once);
+			if (!subscription.done)
+				subscriptions.add(subscription);
+			subscribed = subscriptions.size();
+		});
+		return subscription::cancel;
+	}
+
+	private void changed() {
+		if (drainScheduled.compareAndSet(false, true))
+			executor.execute(() -> {
+				drainScheduled.set(false);
+				drain();
+			});
+	}
+
+	private void drain() {
+		subscriptions.removeIf(subscription -> subscription.done);
+		subscribed = subscriptions.size();
+		if (subscriptions.isEmpty()) {
+			tail = changeLog.visibleUpTo();
+			return;
+		}
+
+		List<ChangeLogEntry> entries;
+		while (!(entries = changeLog.read(tail, maxLimit)).isEmpty()) {
+			tail = entries.get(entries.size() - 1).getId();
+			for (Subscription subscription : subscriptions)
+				subscription.offer(entries);
+			subscriptions.removeIf(subscription -> subscription.done);
+		}
+		subscribed = subscriptions.size();
+	}
+
+	private ChangeBatch batch(List<ChangeLogEntry> entries, long since, boolean more) {
+		long cursor = entries.isEmpty() ? since : entries.get(entries.size() - 1).getId();
+		return new ChangeBatch(entries, cursor, more);
+	}
+
+	private class Subscription {
+
+		private final int limit;
+		private final Consumer<ChangeBatch> consumer;
+		private final boolean once;
+		private long cursor;
+		private volatile boolean done;
+
+		Subscription(long since, int limit, Consumer<ChangeBatch> consumer, boolean once) {
+			this.cursor = since;
+			this.limit = limit;
+			this.consumer = consumer;
+			this.once = once;
+		}
+
+		// repassa as entradas depois do cursor; retorna true se entregou algo
+		boolean offer(List<ChangeLogEntry> entries) {
+			if (done)
+				return false;
+			List<ChangeLogEntry> pending = new ArrayList<>();
+			for (ChangeLogEntry entry : entries)
+				if (entry.getId() > cursor && pending.size() < limit)
+					pending.add(entry);
+			if (pending.isEmpty())
+				return false;
+
+			ChangeBatch batch = batch(pending, cursor, pending.size() == limit);
+			cursor = batch.getCursor();
+			done = once;
+			try {
+				consumer.accept(batch);
+			} catch (RuntimeException e) {
+				// cliente desconectado
+				done = true;
+			}
+			return true;
+		}
+
+		void cancel() {
+			done = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.adrianmorais.libraryapi.service.changes;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.adrianmorais.libraryapi.model.repository.ChangeLogHorizonRepository;
+import com.adrianmorais.libraryapi.model.repository.ChangeLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+@ConditionalOnProperty(name = "application.changes.enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeFeedConfig {
+
+	@Value("${application.changes.max-limit:500}")
+	private int maxLimit;
+
+	@Value("${application.changes.compact-after-ms:600000}")
+	private long compactAfterMillis;
+
+	@Value("${application.changes.tombstone-retention-days:7}")
+	private int tombstoneRetentionDays;
+
+	@Value("${application.changes.settle-ms:10000}")
+	private long settleMillis;
+
+	@Bean
+	public ChangeLog changeLog(ChangeLogRepository repository, ChangeLogHorizonRepository horizons,
+			ModelMapper modelMapper, ObjectMapper objectMapper) {
+		return new ChangeLog(repository, horizons, modelMapper, objectMapper, compactAfterMillis,
+				tombstoneRetentionDays, settleMillis);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public ChangeFeed changeFeed(ChangeLog changeLog) {
+		return new ChangeFeed(changeLog, maxLimit);
+	}
+
+}
@@ -0,0 +1,297 @@
+package com.adrianmorais.libraryapi.service.changes;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.ChangeLogEntry;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.ChangeLogHorizonRepository;
+import com.adrianmorais.libraryapi.model.repository.ChangeLogRepository;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+import com.adrianmorais.libraryapi.service.event.LoanChangedEvent;
+import com.adrianmorais.libraryapi.service.invalidation.SequenceGaps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log de alteracoes de livros e emprestimos, gravado na mesma transacao da escrita (BEFORE_COMMIT).
+ *
+ * Cada id fica "em voo" desde que sai da sequence ate a transacao terminar; a leitura so enxerga ate o
+ * menor id em voo, entao um cliente nunca avanca o cursor por cima de uma entrada que ainda vai
+ * aparecer. Os ids tirados por outras instancias so aparecem no banco: um id pulado entre as linhas
+ * confirmadas vira buraco (SequenceGaps, como no DatabaseInvalidationTransport) e segura o cursor ate
+ * aparecer ou ate settleMillis (transacao desfeita).
+ *
+ * A compactacao remove entradas substituidas por uma mais nova da mesma entidade (o log guarda
+ * sempre o ultimo estado de cada livro/emprestimo, entao since=0 e uma sincronizacao completa) e as
+ * exclusoes expiram apos a retencao. Cursores anteriores a uma exclusao expirada precisam recomecar; esse
+ * horizonte fica no banco (ChangeLogHorizon), porque qualquer instancia pode ter compactado.
+ */
+@Slf4j
+public class ChangeLog {
+
+	public static final String BOOK = "book";
+	public static final String LOAN = "loan";
+
+	static final int BATCH_SIZE = 500;
+
+	private final ChangeLogRepository repository;
+	private final ChangeLogHorizonRepository horizons;
+	private final ModelMapper modelMapper;
+	private final ObjectMapper objectMapper;
+	private final long compactAfterMillis;
+	private final int tombstoneRetentionDays;
+
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	// carregado do banco no primeiro uso; -1 enquanto nao carregado
+	private long lastId = -1;
+	private final TreeSet<Long> inFlight = new TreeSet<>();
+	// ultimo id ate o qual todas as instancias ja confirmaram ou desistiram
+	private long confirmed = -1;
+	private final SequenceGaps gaps;
+	// ids desta instancia desfeitos: o buraco nao precisa esperar settleMillis
+	private final TreeSet<Long> rolledBack = new TreeSet<>();
+
+	public ChangeLog(ChangeLogRepository repository, ChangeLogHorizonRepository horizons, ModelMapper modelMapper,
+			ObjectMapper objectMapper, long compactAfterMillis, int tombstoneRetentionDays, long settleMillis) {
+		this.repository = repository;
+		this.horizons = horizons;
+		this.modelMapper = modelMapper;
+		this.objectMapper = objectMapper;
+		this.compactAfterMillis = compactAfterMillis;
+		this.tombstoneRetentionDays = tombstoneRetentionDays;
+		this.gaps = new SequenceGaps(settleMillis);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		Book book = event.getBook();
+		boolean deleted = event.getType() == BookChangedEvent.Type.DELETED;
+		append(BOOK, book.getId(), event.getType().name(), deleted ? null : modelMapper.map(book, BookDTO.class));
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void onLoanChanged(LoanChangedEvent event) {
+		Loan loan = event.getLoan();
+		LoanDTO dto = modelMapper.map(loan, LoanDTO.class);
+		if (loan.getBook() != null)
+			dto.setBook(modelMapper.map(loan.getBook(), BookDTO.class));
+		append(LOAN, loan.getId(), event.getType().name(), dto);
+	}
+
+	/**
+	 * Entradas depois de since ja confirmadas, em ordem de cursor.
+	 */
+	public List<ChangeLogEntry> read(long since, int limit) {
+		long upTo = visibleUpTo();
+		if (since >= upTo)
+			return Collections.emptyList();
+		return repository.findChanges(since, upTo, PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Cursor anterior a uma exclusao expirada ou maior que qualquer id atribuido (banco recriado). since=0
+	 * nunca expira: o cliente ainda nao tem copia, entao nao precisa das exclusoes.
+	 */
+	public boolean isExpired(long since) {
+		if (since == 0)
+			return false;
+		long horizon = horizon();
+		if (since < horizon)
+			return true;
+		synchronized (this) {
+			load();
+			if (since <= lastId)
+				return false;
+		}
+
+		// o cursor pode ter vindo de outra instancia, com ids que esta ainda nao leu
+		Long max = repository.findMaxId();
+		synchronized (this) {
+			if (max != null)
+				lastId = Math.max(lastId, max);
+			// a ultima entrada pode ter sido uma exclusao expirada, ja apagada
+			return since > Math.max(lastId, horizon);
+		}
+	}
+
+	public long visibleUpTo() {
+		long after;
+		synchronized (this) {
+			load();
+			after = confirmed;
+		}
+		List<Long> ids = repository.findIdsAfter(after, PageRequest.of(0, BATCH_SIZE));
+
+		synchronized (this) {
+			advance(ids, System.currentTimeMillis());
+			return inFlight.isEmpty() ? confirmed : Math.min(confirmed, inFlight.first() - 1);
+		}
+	}
+
+	/**
+	 * Ha ids pulados segurando o cursor ate aparecerem ou assentarem.
+	 */
+	public synchronized boolean hasGaps() {
+		return !gaps.isEmpty();
+	}
+
+	// chamado na thread da escrita apos cada transacao que gravou no log; nao deve bloquear
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	@Scheduled(fixedDelayString = "${application.changes.compaction-interval-ms:60000}",
+			initialDelayString = "${application.changes.compaction-interval-ms:60000}")
+	public void compact() {
+		long upTo = visibleUpTo();
+		LocalDateTime now = LocalDateTime.now();
+		int superseded = repository.deleteSuperseded(upTo, now.minusNanos(compactAfterMillis * 1_000_000));
+
+		int expired = 0;
+		Long lastTombstone = repository.findLastTombstoneBefore(now.minusDays(tombstoneRetentionDays), upTo);
+		if (lastTombstone != null) {
+			// o horizonte avanca antes da exclusao: um cliente pode receber 410 um pouco antes, nunca perder uma exclusao
+			raiseHorizon(Math.max(lastTombstone, horizon()));
+			expired = repository.deleteTombstones(lastTombstone);
+		}
+
+		if (superseded > 0 || expired > 0)
+			log.info("Change log compacted: {} superseded entries and {} expired deletions removed", superseded, expired);
+	}
+
+	private void append(String entity, Long entityId, String type, Object data) {
+		ChangeLogEntry entry;
+		try {
+			entry = ChangeLogEntry.builder()
+					.entity(entity)
+					.entityId(entityId)
+					.type(type)
+					.data(data == null ? null : objectMapper.writeValueAsString(data))
+					.createdAt(LocalDateTime.now())
+					.build();
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize change of " + entity + " " + entityId, e);
+		}
+
+		// o id sai da sequence fora do lock; ate entrar em inFlight ele e um buraco como os de outra instancia,
+		// que segura o cursor por settleMillis
+		long id = repository.nextId();
+		synchronized (this) {
+			load();
+			lastId = Math.max(lastId, id);
+			inFlight.add(id);
+		}
+		entry.setId(id);
+		try {
+			repository.insert(entry);
+		} catch (RuntimeException e) {
+			complete(id, false);
+			throw e;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					complete(id, status == STATUS_COMMITTED);
+				}
+			});
+		else
+			complete(id, true);
+	}
+
+	private void complete(long id, boolean committed) {
+		synchronized (this) {
+			inFlight.remove(id);
+			if (!committed && id > confirmed) {
+				rolledBack.add(id);
+				gaps.remove(id);
+			}
+		}
+		for (Runnable listener : listeners)
+			listener.run();
+	}
+
+	// chamado com o lock; ids sao os confirmados no banco depois de um valor anterior de confirmed, em ordem
+	private void advance(List<Long> ids, long now) {
+		long previous = confirmed;
+		for (long id : ids) {
+			if (id <= previous)
+				continue;
+			gaps.remove(id);
+			gaps.record(previous, id, now, rolledBack::contains);
+			previous = id;
+		}
+
+		for (long id : ids) {
+			if (id <= confirmed)
+				continue;
+			// um id em voo nesta instancia nunca assenta: a transacao ainda pode confirmar
+			if (gaps.isOpen(confirmed, id, now, inFlight::contains)) {
+				forget();
+				return;
+			}
+			confirmed = id;
+			lastId = Math.max(lastId, id);
+		}
+		forget();
+	}
+
+	private void forget() {
+		gaps.forget(confirmed);
+		rolledBack.headSet(confirmed, true).clear();
+	}
+
+	// chamado com o lock
+	private void load() {
+		if (lastId >= 0)
+			return;
+		Long max = repository.findMaxId();
+		lastId = max == null ? 0 : max;
+		confirmed = lastId;
+	}
+
+	private long horizon() {
+		Long upTo = horizons.findUpTo();
+		if (upTo != null)
+			return upTo;
+		// nenhuma exclusao expirou desde que o horizonte passou a ser gravado: tudo antes da menor entrada
+		// pode ter sido compactado antes disso
+		Long min = repository.findMinId();
+		if (min != null)
+			return min - 1;
+		Long max = repository.findMaxId();
+		return max == null ? 0 : max;
+	}
+
+	private void raiseHorizon(long upTo) {
+		if (horizons.raise(upTo) > 0)
+			return;
+		try {
+			horizons.create(upTo);
+		} catch (DataIntegrityViolationException e) {
+			// outra instancia criou a linha primeiro
+			horizons.raise(upTo);
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.adrianmorais.libraryapi.service.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Junta chamadas concorrentes para a mesma chave: a primeira (lider) executa o loader e as que
+ * chegam enquanto ele roda (seguidoras) esperam o mesmo resultado. Nao e cache: a chave sai do
+ * mapa assim que o lider termina, e a proxima chamada executa o loader de novo.
+ *
+ * Uma seguidora espera no maximo timeoutMillis; depois disso executa o loader ela mesma.
+ * Erros do lider sao repassados as seguidoras que estavam esperando.
+ */
+public class SingleFlight<K, V> {
+
+	static final String CALLS_METRIC = "lookups.coalescing.calls";
+	static final String RATIO_METRIC = "lookups.coalescing.ratio";
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final long timeoutMillis;
+	private final UnaryOperator<V> share;
+
+	private final Counter leaders;
+	private final Counter followers;
+	private final Counter timeouts;
+
+	/**
+	 * @param share copia entregue a cada seguidora, para que nao dividam o mesmo objeto mutavel com o lider
+	 */
+	public SingleFlight(String name, long timeoutMillis, UnaryOperator<V> share, MeterRegistry registry) {
+		this.timeoutMillis = timeoutMillis;
+		this.share = share;
+		this.leaders = counter(registry, name, "leader");
+		this.followers = counter(registry, name, "follower");
+		this.timeouts = counter(registry, name, "timeout");
+		Gauge.builder(RATIO_METRIC, this, SingleFlight::coalescingRatio)
+				.description("Share of lookups answered by another caller's in-flight query")
+				.tag("key", name)
+				.register(registry);
+	}
+
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+		if (existing == null)
+			return lead(key, flight, loader);
+
+		followers.increment();
+		try {
+			return share.apply(existing.get(timeoutMillis, TimeUnit.MILLISECONDS));
+		} catch (TimeoutException e) {
+			timeouts.increment();
+			return loader.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for an in-flight lookup", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Solta a chave: chamadas seguintes iniciam uma nova consulta em vez de esperar a atual, que pode
+	 * ter comecado antes de uma escrita.
+	 */
+	public void forget(K key) {
+		if (key != null)
+			inFlight.remove(key);
+	}
+
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	public double coalescingRatio() {
+		double led = leaders.count();
+		double followed = followers.count();
+		return led + followed == 0 ? 0 : followed / (led + followed);
+	}
+
+	private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+		leaders.increment();
+		try {
+			V value = loader.get();
+			inFlight.remove(key, flight);
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static Counter counter(MeterRegistry registry, String name, String role) {
+		return Counter.builder(CALLS_METRIC)
+				.description("Lookups by role in request coalescing")
+				.tag("key", name)
+				.tag("role", role)
+				.register(registry);
+	}
+
+}
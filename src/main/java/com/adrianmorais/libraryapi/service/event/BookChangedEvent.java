@@ -0,0 +1,25 @@
+package com.adrianmorais.libraryapi.service.event;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Publicado pelo BookService em toda escrita. Ouvintes que mantem copias dos livros devem usar
+ * @TransactionalEventListener para reagir apenas apos o commit.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookChangedEvent {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	private final Type type;
+	private final Book book;
+
+}
@@ -0,0 +1,38 @@
+package com.adrianmorais.libraryapi.service.event;
+
+import com.adrianmorais.libraryapi.model.entity.Loan;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Publicado pelo LoanService em toda escrita. {@code previous} e uma copia do emprestimo antes da
+ * alteracao (nulo na criacao), para que agregados possam desfazer o estado antigo e aplicar o novo.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LoanChangedEvent {
+
+	public enum Type {
+		CREATED, UPDATED
+	}
+
+	private final Type type;
+	private final Loan loan;
+	private final Loan previous;
+
+	public static Loan snapshot(Loan loan) {
+		return Loan.builder()
+				.id(loan.getId())
+				.customer(loan.getCustomer())
+				.legacyCustomer(loan.getLegacyCustomer())
+				.legacyCustomerEmail(loan.getLegacyCustomerEmail())
+				.book(loan.getBook())
+				.loanDate(loan.getLoanDate())
+				.returned(loan.getReturned())
+				.build();
+	}
+
+}
@@ -1,57 +1,132 @@
 package com.adrianmorais.libraryapi.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import com.adrianmorais.libraryapi.config.datasource.ReplicaRoutingDataSource;
+import com.adrianmorais.libraryapi.model.repository.BookAvailability;
 import com.adrianmorais.libraryapi.model.repository.BookRepository;
 import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.coalescing.SingleFlight;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.adrianmorais.libraryapi.exception.BussinessException;
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
 
 @Service
 public class BookServiceImpl implements BookService {
 
 	private BookRepository repository;
+	private ApplicationEventPublisher eventPublisher;
 
-	public BookServiceImpl(BookRepository repository) {
+	// buscas concorrentes pelo mesmo id/isbn dividem uma unica consulta (null = desligado)
+	private TransactionTemplate readOnlyTransaction;
+	private SingleFlight<Long, Optional<Book>> lookupsById;
+	private SingleFlight<String, Optional<Book>> lookupsByIsbn;
+
+	public BookServiceImpl(BookRepository repository, ApplicationEventPublisher eventPublisher) {
 		this.repository = repository;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Autowired
+	public BookServiceImpl(BookRepository repository, ApplicationEventPublisher eventPublisher,
+			PlatformTransactionManager transactionManager, MeterRegistry registry,
+			@Value("${application.books.coalescing.enabled:true}") boolean coalescing,
+			@Value("${application.books.coalescing.wait-timeout-ms:2000}") long waitTimeoutMillis) {
+		this(repository, eventPublisher);
+		if (coalescing) {
+			this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+			this.readOnlyTransaction.setReadOnly(true);
+			this.lookupsById = new SingleFlight<>("book-id", waitTimeoutMillis, BookServiceImpl::copy, registry);
+			this.lookupsByIsbn = new SingleFlight<>("book-isbn", waitTimeoutMillis, BookServiceImpl::copy, registry);
+		}
+	}
+
+	// uma consulta que ja estava em andamento pode ter lido o livro antes desta escrita
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		if (lookupsById == null)
+			return;
+		lookupsById.forget(event.getBook().getId());
+		lookupsByIsbn.forget(event.getBook().getIsbn());
 	}
 	
 	@Override
+	// a recusa acontece antes de qualquer escrita: nao condena a transacao de quem chamou (ex.: /api/batch)
+	@Transactional(noRollbackFor = BussinessException.class)
 	public Book save(Book book) {
 		if(repository.existsByIsbn(book.getIsbn())) 
 			throw new BussinessException("Isbn já cadastrado");
 		
-		return repository.save(book);
+		Book saved = repository.save(book);
+		eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.CREATED, saved));
+		return saved;
 	}
 
 	@Override
 	public Optional<Book> getById(Long id) {
-		return repository.findById(id);
+		if (!coalesce())
+			return readOnly(() -> repository.findById(id));
+		return lookupsById.execute(id, () -> readOnly(() -> repository.findById(id)));
 	}
 
 	@Override
+	@Transactional
 	public void delete(Book book) {
 		if(book == null || book.getId() == null)
 			throw new IllegalArgumentException("Book id cant be null.");
 		
 		this.repository.delete(book);
+		eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.DELETED, book));
 	}
 
 	@Override
+	@Transactional
 	public Book update(Book book) {
 		if(book == null || book.getId() == null)
 			throw new IllegalArgumentException("Book id cant be null.");
 		
-		return this.repository.save(book);
+		Book updated = this.repository.save(book);
+		eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.UPDATED, updated));
+		return updated;
 	}
 
+	// leitura e escrita na mesma transacao: o dirty checking grava as alteracoes no commit
 	@Override
+	@Transactional
+	public Optional<Book> update(Long id, Book changes) {
+		return repository.findById(id).map(book -> {
+			book.setAuthor(changes.getAuthor());
+			book.setTitle(changes.getTitle());
+			book.setIsbn(changes.getIsbn());
+			eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.Type.UPDATED, book));
+			return book;
+		});
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Page<Book> find(Book filter, Pageable pageRequest) {
 		Example<Book> example = Example.of(filter, 
 				ExampleMatcher
@@ -63,9 +138,58 @@ public class BookServiceImpl implements BookService {
 		return repository.findAll(example, pageRequest);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Page<Book> find(Book filter, Pageable pageRequest, Set<String> fields) {
+		if(fields == null || fields.isEmpty())
+			return find(filter, pageRequest);
+		
+		return repository.findProjected(filter, fields, pageRequest);
+	}
+
 	@Override
 	public Optional<Book> getBookByIsbn(String isbn) {
-		return repository.findByIsbn(isbn);
+		if (!coalesce() || isbn == null)
+			return readOnly(() -> repository.findByIsbn(isbn));
+		return lookupsByIsbn.execute(isbn, () -> readOnly(() -> repository.findByIsbn(isbn)));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Book> getByIds(Collection<Long> ids) {
+		return repository.findAllById(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<BookAvailability> getAvailability(Collection<String> isbns, Collection<Long> ids) {
+		List<BookAvailability> result = new ArrayList<>();
+		if (isbns != null && !isbns.isEmpty())
+			result.addAll(repository.findAvailabilityByIsbnIn(isbns));
+		if (ids != null && !ids.isEmpty())
+			result.addAll(repository.findAvailabilityByIdIn(ids));
+		return result;
+	}
+
+	/*
+	 * Dentro de uma transacao a leitura tem que ver as escritas ainda nao confirmadas, e quem acabou de
+	 * escrever le do primario (read-your-writes); nos dois casos a consulta nao e compartilhada.
+	 */
+	private boolean coalesce() {
+		return lookupsById != null && !TransactionSynchronizationManager.isActualTransactionActive()
+				&& !ReplicaRoutingDataSource.readsFromPrimary();
+	}
+
+	// a transacao comeca so no lider: as seguidoras esperam sem segurar conexao
+	private Optional<Book> readOnly(Supplier<Optional<Book>> query) {
+		if (readOnlyTransaction == null || TransactionSynchronizationManager.isActualTransactionActive())
+			return query.get();
+		return readOnlyTransaction.execute(status -> query.get());
+	}
+
+	private static Optional<Book> copy(Optional<Book> book) {
+		return book.map(b -> Book.builder().id(b.getId()).title(b.getTitle()).author(b.getAuthor()).isbn(b.getIsbn())
+				.build());
 	}
 
 }
@@ -0,0 +1,84 @@
+package com.adrianmorais.libraryapi.service.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.repository.CustomerRepository;
+import com.adrianmorais.libraryapi.service.CustomerService;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+	private CustomerRepository repository;
+	// (name, email) -> cliente ja gravado; a mesma instancia e reaproveitada por todos os emprestimos do cliente
+	private Map<String, Customer> interned;
+
+	public CustomerServiceImpl(CustomerRepository repository,
+			@Value("${application.customers.cache-size:10000}") int cacheSize) {
+		this.repository = repository;
+		this.interned = Collections.synchronizedMap(new LinkedHashMap<String, Customer>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Customer> eldest) {
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	// sem @Transactional: fora de uma transacao o cliente novo e confirmado pelo save, antes do emprestimo
+	@Override
+	public Customer resolve(String name, String email) {
+		if (name == null)
+			throw new IllegalArgumentException("Customer name cant be null.");
+
+		String normalizedEmail = email == null ? "" : email;
+		String key = name + '\u0000' + normalizedEmail;
+		Customer customer = interned.get(key);
+		if (customer != null)
+			return customer;
+
+		customer = repository.findByNameAndEmail(name, normalizedEmail)
+				.orElseGet(() -> create(name, normalizedEmail));
+		intern(key, customer);
+		return customer;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Customer> getById(Long id) {
+		return repository.findById(id);
+	}
+
+	private Customer create(String name, String email) {
+		try {
+			return repository.save(Customer.builder().name(name).email(email).build());
+		} catch (DataIntegrityViolationException e) {
+			// outra requisicao criou o mesmo cliente ao mesmo tempo
+			return repository.findByNameAndEmail(name, email).orElseThrow(() -> e);
+		}
+	}
+
+	// dentro de uma transacao o cliente so entra no cache apos o commit, para nunca guardar um id desfeito
+	private void intern(String key, Customer customer) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			interned.put(key, customer);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				interned.put(key, customer);
+			}
+		});
+	}
+
+}
@@ -1,62 +1,149 @@
 package com.adrianmorais.libraryapi.service.impl;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
 import com.adrianmorais.libraryapi.exception.BussinessException;
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 import com.adrianmorais.libraryapi.model.repository.LoanRepository;
 import com.adrianmorais.libraryapi.service.LoanService;
+import com.adrianmorais.libraryapi.service.event.LoanChangedEvent;
+import com.adrianmorais.libraryapi.service.migration.CustomerMigration;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
 	private LoanRepository repository;
+	private ApplicationEventPublisher eventPublisher;
+	private ObjectProvider<CustomerMigration> customerMigration;
 
-	public LoanServiceImpl(LoanRepository repository) {
+	public LoanServiceImpl(LoanRepository repository, ApplicationEventPublisher eventPublisher,
+			ObjectProvider<CustomerMigration> customerMigration) {
 		this.repository = repository;
+		this.eventPublisher = eventPublisher;
+		this.customerMigration = customerMigration;
 	}
 
 	@Override
+	// a recusa acontece antes de qualquer escrita: nao condena a transacao de quem chamou (ex.: /api/batch)
+	@Transactional(noRollbackFor = BussinessException.class)
 	public Loan save(Loan loan) {
 		if(repository.existsByBookAndNotReturned(loan.getBook()))
 			throw new BussinessException("Book already loaned");
 		
-		return repository.save(loan);
+		Loan saved = repository.save(loan);
+		eventPublisher.publishEvent(new LoanChangedEvent(LoanChangedEvent.Type.CREATED, saved, null));
+		return saved;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Optional<Loan> getById(Long id) {
 		return repository.findById(id);
 	}
 
 	@Override
+	@Transactional
 	public Loan update(Loan loan) {
-		return repository.save(loan);
+		// copia antes do save, que aplica o merge sobre a mesma instancia gerenciada
+		Loan previous = repository.findById(loan.getId()).map(LoanChangedEvent::snapshot).orElse(null);
+		Loan updated = repository.save(loan);
+		eventPublisher.publishEvent(new LoanChangedEvent(LoanChangedEvent.Type.UPDATED, updated, previous));
+		return updated;
 	}
 
 	@Override
+	@Transactional
+	public Optional<Loan> returnBook(Long id, Boolean returned) {
+		return repository.findById(id).map(loan -> {
+			Loan previous = LoanChangedEvent.snapshot(loan);
+			loan.setReturned(returned);
+			eventPublisher.publishEvent(new LoanChangedEvent(LoanChangedEvent.Type.UPDATED, loan, previous));
+			return loan;
+		});
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
-		return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+		boolean legacy = hasLegacyCustomers();
+		// so pelo cliente: consulta guiada pelos indices de customer e id_customer, sem o OR com o isbn
+		if(filter.getIsbn() == null && filter.getCustomer() != null)
+			return legacy ? repository.findByCustomerNameOrLegacyCustomer(filter.getCustomer(), pageable)
+					: repository.findByCustomerName(filter.getCustomer(), pageable);
+		
+		return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), legacy, pageable);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public Page<Loan> find(LoanFilterDTO filter, Pageable pageable, Set<String> fields) {
+		if(fields == null || fields.isEmpty())
+			return find(filter, pageable);
+		
+		return repository.findProjectedByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(),
+				hasLegacyCustomers(), fields, pageable);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
 		return repository.findByBook(book, pageable);
 	}
 
 	@Override
+	@Transactional(readOnly = true)
+	public Page<Loan> getLoanHistoryByBook(Book book, Pageable pageable) {
+		return repository.findByBookWithArchive(book, pageable);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable) {
+		return repository.findByCustomer(customer, pageable);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
 	public List<Loan> getAllLateLoans() {
-		final Integer loanDays = 4;
-		LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
+		LocalDate threeDaysAgo = LocalDate.now().minusDays(LOAN_DAYS);
 		return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public List<Loan> getOpenLoansByBookIds(Collection<Long> bookIds) {
+		return repository.findNotReturnedByBookIdIn(bookIds);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, Long> countLoansByBookIds(Collection<Long> bookIds) {
+		Map<Long, Long> counts = new HashMap<>();
+		for (Object[] row : repository.countWithArchiveByBookIdIn(bookIds))
+			counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+		return counts;
+	}
+
+	// linhas com o cliente nas colunas antigas podem existir ate a migracao terminar, ou sempre, se ela estiver desligada
+	private boolean hasLegacyCustomers() {
+		CustomerMigration migration = customerMigration.getIfAvailable();
+		return migration == null || !migration.isComplete();
+	}
+
 }
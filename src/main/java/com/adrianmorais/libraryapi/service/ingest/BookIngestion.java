@@ -0,0 +1,632 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.model.entity.IngestionProgress;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.IngestionProgressRepository;
+import com.adrianmorais.libraryapi.service.changes.ChangeLog;
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+import com.adrianmorais.libraryapi.service.invalidation.SequenceGaps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carga offline de livros a partir de um CSV grande (cabecalho com isbn, title e, opcionalmente, author;
+ * um registro por linha). O arquivo e mapeado em memoria e dividido em blocos terminados em fim de linha:
+ *
+ * parse (ForkJoinPool, um bloco por tarefa) -> fila -> deduplicacao (uma thread) -> fila -> escrita (writers)
+ *
+ * As filas sao limitadas, entao o parse espera quando o banco nao acompanha. A deduplicacao parte dos isbns
+ * ja gravados (lidos uma vez, em streaming) e descarta repeticoes dentro do proprio arquivo, comparando a forma
+ * normalizada (ISBN-13); o isbn e gravado como esta no arquivo, como no cadastro pela API. A escrita usa
+ * insert em batch JDBC, uma transacao por lote. Os lotes de um bloco vao sempre para o mesmo writer, em ordem,
+ * e o ultimo grava o bloco em ingestion_progress na mesma transacao das suas linhas: depois de uma falha, rodar
+ * de novo pula esses blocos, e as linhas ja gravadas dos demais caem na deduplicacao.
+ *
+ * As gravacoes nao passam pelo BookService. Com o change log ligado, cada lote grava na mesma transacao uma
+ * entrada CREATED por livro, com o JSON do BookDTO como o ChangeLog, entao os clientes de /api/changes recebem a
+ * carga sem ressincronizar. Catalogo e invalidacao nao recebem eventos: a carga deve rodar antes de subir as
+ * instancias ou com elas reiniciadas depois.
+ */
+@Service
+@Slf4j
+public class BookIngestion {
+
+	static final String INSERT = "insert into book (title, author, isbn) values (?, ?, ?)";
+	static final String CHANGE_INSERT = "insert into change_log_entry (id, entity, entity_id, type, data, created_at) "
+			+ "values (next value for change_log_seq, '" + ChangeLog.BOOK + "', ?, '" + BookChangedEvent.Type.CREATED
+			+ "', ?, ?)";
+	// tamanho padrao das colunas de Book
+	static final int MAX_LENGTH = 255;
+
+	private static final int MAX_HEADER_BYTES = 64 * 1024;
+	private static final int LOGGED_REJECTIONS = 10;
+
+	private final BookRepository repository;
+	private final IngestionProgressRepository progressRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transaction;
+	private final ObjectMapper objectMapper;
+	private final boolean changeLog;
+	private final long chunkBytes;
+	private final int batchSize;
+	private final int parallelism;
+	private final int queueCapacity;
+	private final int writers;
+	private final long progressIntervalMillis;
+
+	@Autowired
+	public BookIngestion(BookRepository repository, IngestionProgressRepository progressRepository,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			@Value("${application.changes.enabled:true}") boolean changeLog,
+			@Value("${application.ingest.chunk-size-mb:64}") int chunkSizeMb,
+			@Value("${application.ingest.batch-size:400}") int batchSize,
+			@Value("${application.ingest.parallelism:0}") int parallelism,
+			@Value("${application.ingest.queue-capacity:32}") int queueCapacity,
+			@Value("${application.ingest.writers:2}") int writers,
+			@Value("${application.ingest.progress-interval-ms:10000}") long progressIntervalMillis) {
+		this(repository, progressRepository, jdbcTemplate, transactionManager, objectMapper, changeLog,
+				chunkSizeMb * 1024L * 1024L, batchSize, parallelism, queueCapacity, writers, progressIntervalMillis);
+	}
+
+	BookIngestion(BookRepository repository, IngestionProgressRepository progressRepository, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, ObjectMapper objectMapper, boolean changeLog, long chunkBytes,
+			int batchSize, int parallelism, int queueCapacity, int writers, long progressIntervalMillis) {
+		// um MappedByteBuffer enderecca no maximo Integer.MAX_VALUE bytes
+		if (chunkBytes < 1 || chunkBytes > 1024L * 1024L * 1024L)
+			throw new IllegalArgumentException("Chunk size must be between 1 byte and 1024 MB");
+		// ids do change log em voo alem de MAX_GAPS parecem um salto da sequence e as instancias nao esperam por eles
+		if (changeLog && (long) batchSize * writers >= SequenceGaps.MAX_GAPS)
+			throw new IllegalArgumentException("application.ingest.batch-size x application.ingest.writers must stay below "
+					+ SequenceGaps.MAX_GAPS + " while the change log is enabled");
+		this.repository = repository;
+		this.progressRepository = progressRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.objectMapper = objectMapper;
+		this.changeLog = changeLog;
+		this.chunkBytes = chunkBytes;
+		this.batchSize = batchSize;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.queueCapacity = queueCapacity;
+		this.writers = writers;
+		this.progressIntervalMillis = progressIntervalMillis;
+	}
+
+	/**
+	 * Carrega o arquivo e devolve os totais e a vazao de cada etapa. Em caso de falha lanca IllegalStateException
+	 * e mantem o progresso para a proxima execucao; no sucesso o progresso do arquivo e removido.
+	 */
+	public IngestionReport ingest(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			Run run = new Run(file, channel);
+			return run.execute();
+		}
+	}
+
+	/*
+	 * Uma execucao: filas, contadores e falha ficam aqui, para o servico nao guardar estado entre cargas.
+	 */
+	private class Run {
+
+		final Path file;
+		final String key;
+		final FileChannel channel;
+		final BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(queueCapacity);
+		// uma fila por writer: os lotes de um bloco sao gravados em ordem, o ultimo depois de todos os outros
+		final List<BlockingQueue<Batch>> deduplicated = new ArrayList<>(writers);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		final Stage parseStage = new Stage();
+		final Stage dedupeStage = new Stage();
+		final Stage writeStage = new Stage();
+		final AtomicLong rejected = new AtomicLong();
+		final AtomicLong duplicates = new AtomicLong();
+		volatile long existing;
+
+		Columns columns;
+
+		Run(Path file, FileChannel channel) {
+			this.file = file;
+			this.key = file.toAbsolutePath().normalize().toString();
+			this.channel = channel;
+			for (int i = 0; i < writers; i++)
+				deduplicated.add(new ArrayBlockingQueue<>(queueCapacity));
+		}
+
+		IngestionReport execute() throws IOException {
+			long start = System.currentTimeMillis();
+			columns = header();
+			List<Chunk> chunks = chunks(columns.dataStart);
+			Set<Integer> completed = completedChunks();
+			List<Chunk> pending = new ArrayList<>(chunks.size());
+			for (Chunk chunk : chunks)
+				if (!completed.contains(chunk.index))
+					pending.add(chunk);
+			log.info("Ingesting {}: {} bytes in {} chunks ({} already done), {} parser threads, {} writers", file,
+					channel.size(), chunks.size(), chunks.size() - pending.size(), parallelism, writers);
+
+			Thread deduper = thread("ingest-dedupe", this::dedupe);
+			List<Thread> threads = new ArrayList<>();
+			threads.add(deduper);
+			for (int i = 0; i < writers; i++) {
+				BlockingQueue<Batch> queue = deduplicated.get(i);
+				threads.add(thread("ingest-writer-" + i, () -> write(queue)));
+			}
+			threads.forEach(Thread::start);
+
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			CountDownLatch parsing = new CountDownLatch(pending.size());
+			try {
+				for (Chunk chunk : pending)
+					pool.execute(() -> {
+						try {
+							parse(chunk);
+						} finally {
+							parsing.countDown();
+						}
+					});
+				while (!parsing.await(progressIntervalMillis, TimeUnit.MILLISECONDS))
+					logProgress();
+				put(parsed, Batch.END);
+				for (Thread thread : threads)
+					while (thread.isAlive()) {
+						thread.join(progressIntervalMillis);
+						if (thread.isAlive())
+							logProgress();
+					}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(e);
+			} finally {
+				pool.shutdownNow();
+			}
+
+			if (failure.get() != null)
+				throw new IllegalStateException("Ingestion of " + file + " failed; run it again to resume after the last "
+						+ "completed chunk", failure.get());
+			progressRepository.deleteByFile(key);
+
+			IngestionReport report = IngestionReport.builder()
+					.file(file.toString())
+					.chunks(chunks.size())
+					.chunksSkipped(chunks.size() - pending.size())
+					.existingIsbns(existing)
+					.rowsParsed(parseStage.rows.get())
+					.rowsRejected(rejected.get())
+					.duplicates(duplicates.get())
+					.rowsInserted(writeStage.rows.get())
+					.durationMillis(System.currentTimeMillis() - start)
+					.parseRowsPerSecond(parseStage.rate())
+					.dedupeRowsPerSecond(dedupeStage.rate())
+					.writeRowsPerSecond(writeStage.rate())
+					.build();
+			log.info("Ingestion of {} finished: {}", file, report);
+			return report;
+		}
+
+		// etapa 1: um bloco do arquivo mapeado, linha a linha, em lotes de batchSize
+		void parse(Chunk chunk) {
+			try {
+				if (failure.get() != null)
+					return;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.length);
+				parseStage.begin();
+				byte[] line = new byte[256];
+				int length = 0;
+				List<Row> rows = new ArrayList<>(batchSize);
+				while (buffer.hasRemaining()) {
+					byte b = buffer.get();
+					if (b != '\n') {
+						if (length == line.length)
+							line = Arrays.copyOf(line, length * 2);
+						line[length++] = b;
+						continue;
+					}
+					rows = accept(chunk, chunk.start + buffer.position(), line, length, rows);
+					length = 0;
+				}
+				if (length > 0)
+					rows = accept(chunk, chunk.start + buffer.position(), line, length, rows);
+				// sempre emitido, mesmo vazio: e ele que marca o bloco como concluido
+				emit(chunk, rows, true);
+			} catch (Throwable e) {
+				fail(e);
+			}
+		}
+
+		private List<Row> accept(Chunk chunk, long offset, byte[] line, int length, List<Row> rows) {
+			if (length > 0 && line[length - 1] == '\r')
+				length--;
+			if (length == 0)
+				return rows;
+			String text = new String(line, 0, length, StandardCharsets.UTF_8);
+			Row row = columns.row(text);
+			if (row == null) {
+				if (rejected.incrementAndGet() <= LOGGED_REJECTIONS)
+					log.warn("Rejected row ending at byte {}: {}", offset, text);
+				return rows;
+			}
+			rows.add(row);
+			if (rows.size() < batchSize)
+				return rows;
+			emit(chunk, rows, false);
+			return new ArrayList<>(batchSize);
+		}
+
+		private void emit(Chunk chunk, List<Row> rows, boolean last) {
+			parseStage.record(rows.size());
+			if (!put(parsed, new Batch(chunk, rows, last)))
+				throw new CancellationException("Ingestion aborted");
+		}
+
+		// etapa 2: isbns ja gravados e repetidos no arquivo saem aqui
+		void dedupe() {
+			try {
+				IsbnSet seen = existingIsbns();
+				Batch batch;
+				while ((batch = take(parsed)) != null && batch != Batch.END) {
+					dedupeStage.begin();
+					List<Row> fresh = new ArrayList<>(batch.rows.size());
+					for (Row row : batch.rows)
+						if (seen.add(row.key))
+							fresh.add(row);
+						else
+							duplicates.incrementAndGet();
+					dedupeStage.record(batch.rows.size());
+					if (!put(deduplicated.get(batch.chunk.index % writers), new Batch(batch.chunk, fresh, batch.last)))
+						return;
+				}
+			} catch (Throwable e) {
+				fail(e);
+			} finally {
+				for (BlockingQueue<Batch> queue : deduplicated)
+					put(queue, Batch.END);
+			}
+		}
+
+		// no primario (transacao de escrita): uma replica atrasada deixaria passar isbns ja gravados
+		private IsbnSet existingIsbns() {
+			IsbnSet seen = new IsbnSet(1 << 16);
+			transaction.execute(status -> {
+				try (Stream<String> isbns = repository.streamAllIsbns()) {
+					isbns.forEach(isbn -> {
+						String normalized = Isbn.normalize(isbn);
+						if (normalized != null)
+							seen.add(Isbn.toLong(normalized));
+					});
+				}
+				return null;
+			});
+			existing = seen.size();
+			log.info("Loaded {} existing isbns for deduplication", existing);
+			return seen;
+		}
+
+		// etapa 3: insert em batch, uma transacao por lote
+		void write(BlockingQueue<Batch> queue) {
+			try {
+				Batch batch;
+				while ((batch = take(queue)) != null && batch != Batch.END) {
+					Batch current = batch;
+					if (current.rows.isEmpty() && !current.last)
+						continue;
+					if (!current.rows.isEmpty())
+						writeStage.begin();
+					transaction.execute(status -> {
+						write(current.rows);
+						// os lotes anteriores do bloco ja foram confirmados por esta mesma thread
+						if (current.last)
+							progressRepository.save(IngestionProgress.builder()
+									.file(key)
+									.chunkBytes(chunkBytes)
+									.chunkIndex(current.chunk.index)
+									.build());
+						return null;
+					});
+					writeStage.record(current.rows.size());
+				}
+			} catch (Throwable e) {
+				fail(e);
+			}
+		}
+
+		private void write(List<Row> rows) {
+			if (rows.isEmpty())
+				return;
+			List<BookDTO> books = jdbcTemplate.execute(
+					connection -> connection.prepareStatement(INSERT, new String[] { "id" }),
+					(PreparedStatement statement) -> {
+						for (Row row : rows) {
+							statement.setString(1, row.title);
+							statement.setString(2, row.author);
+							statement.setString(3, row.isbn);
+							statement.addBatch();
+						}
+						statement.executeBatch();
+						List<BookDTO> inserted = new ArrayList<>(rows.size());
+						try (ResultSet keys = statement.getGeneratedKeys()) {
+							for (Row row : rows) {
+								keys.next();
+								inserted.add(BookDTO.builder().id(keys.getLong(1)).title(row.title).author(row.author)
+										.isbn(row.isbn).build());
+							}
+						}
+						return inserted;
+					});
+			if (!changeLog)
+				return;
+			Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+			jdbcTemplate.batchUpdate(CHANGE_INSERT, books, books.size(), (statement, book) -> {
+				statement.setLong(1, book.getId());
+				statement.setString(2, json(book));
+				statement.setTimestamp(3, now);
+			});
+		}
+
+		private String json(BookDTO book) {
+			try {
+				return objectMapper.writeValueAsString(book);
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException("Could not serialize change of book " + book.getId(), e);
+			}
+		}
+
+		// blocos concluidos numa execucao anterior que falhou
+		private Set<Integer> completedChunks() {
+			Set<Integer> completed = new HashSet<>();
+			for (IngestionProgress progress : progressRepository.findByFile(key)) {
+				if (progress.getChunkBytes() != chunkBytes)
+					throw new IllegalStateException("Progress of " + key + " was recorded with another chunk size; use the "
+							+ "same application.ingest.chunk-size-mb or delete its ingestion_progress rows to start over");
+				completed.add(progress.getChunkIndex());
+			}
+			return completed;
+		}
+
+		// cabecalho: posicao das colunas e inicio dos dados
+		private Columns header() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(MAX_HEADER_BYTES, channel.size()));
+			channel.read(buffer, 0);
+			byte[] bytes = buffer.array();
+			int end = 0;
+			while (end < buffer.position() && bytes[end] != '\n')
+				end++;
+			if (end == buffer.position() && end < channel.size())
+				throw new IllegalArgumentException("CSV header of " + file + " is longer than " + MAX_HEADER_BYTES + " bytes");
+			String header = new String(bytes, 0, end, StandardCharsets.UTF_8).replace("\uFEFF", "").trim();
+			return new Columns(Columns.split(header), end + 1);
+		}
+
+		// blocos de ~chunkBytes, cada um terminando logo depois de um '\n'
+		private List<Chunk> chunks(long start) throws IOException {
+			long size = channel.size();
+			List<Chunk> chunks = new ArrayList<>();
+			ByteBuffer window = ByteBuffer.allocate(8192);
+			while (start < size) {
+				long end = Math.min(start + chunkBytes, size);
+				end = nextLine(end, size, window);
+				chunks.add(new Chunk(chunks.size(), start, end - start));
+				start = end;
+			}
+			return chunks;
+		}
+
+		private long nextLine(long position, long size, ByteBuffer window) throws IOException {
+			while (position < size) {
+				window.clear();
+				int read = channel.read(window, position);
+				if (read <= 0)
+					return size;
+				for (int i = 0; i < read; i++)
+					if (window.get(i) == '\n')
+						return position + i + 1;
+				position += read;
+			}
+			return size;
+		}
+
+		// false quando a carga falhou em outra etapa
+		private boolean put(BlockingQueue<Batch> queue, Batch batch) {
+			try {
+				while (failure.get() == null)
+					if (queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+						return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(e);
+			}
+			return false;
+		}
+
+		// nulo quando a carga falhou em outra etapa
+		private Batch take(BlockingQueue<Batch> queue) throws InterruptedException {
+			while (failure.get() == null) {
+				Batch batch = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (batch != null)
+					return batch;
+			}
+			return null;
+		}
+
+		private void fail(Throwable e) {
+			if (failure.compareAndSet(null, e))
+				log.error("Ingestion of {} failed", file, e);
+		}
+
+		private Thread thread(String name, Runnable body) {
+			Thread thread = new Thread(body, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+
+		private void logProgress() {
+			log.info("Ingesting {}: parsed {} rows ({} rows/s), deduplicated {} ({} rows/s), inserted {} ({} rows/s), "
+					+ "{} rejected, {} duplicates", file.getFileName(), parseStage.rows.get(), Math.round(parseStage.rate()),
+					dedupeStage.rows.get(), Math.round(dedupeStage.rate()), writeStage.rows.get(), Math.round(writeStage.rate()),
+					rejected.get(), duplicates.get());
+		}
+	}
+
+	// linhas por segundo entre o inicio do primeiro lote e o fim do ultimo
+	static final class Stage {
+		final AtomicLong rows = new AtomicLong();
+		final AtomicLong started = new AtomicLong();
+		volatile long finished;
+
+		void begin() {
+			started.compareAndSet(0, System.nanoTime());
+		}
+
+		void record(int count) {
+			rows.addAndGet(count);
+			finished = System.nanoTime();
+		}
+
+		double rate() {
+			long elapsed = finished - started.get();
+			return started.get() == 0 || elapsed <= 0 ? 0 : rows.get() * 1e9 / elapsed;
+		}
+	}
+
+	static final class Chunk {
+		final int index;
+		final long start;
+		final long length;
+
+		Chunk(int index, long start, long length) {
+			this.index = index;
+			this.start = start;
+			this.length = length;
+		}
+	}
+
+	static final class Batch {
+		static final Batch END = new Batch(null, Collections.emptyList(), false);
+
+		final Chunk chunk;
+		final List<Row> rows;
+		// ultimo lote do bloco: o parse chegou ao fim
+		final boolean last;
+
+		Batch(Chunk chunk, List<Row> rows, boolean last) {
+			this.chunk = chunk;
+			this.rows = rows;
+			this.last = last;
+		}
+	}
+
+	static final class Row {
+		// como esta no arquivo; key e o ISBN-13 normalizado, so para a deduplicacao
+		final String isbn;
+		final long key;
+		final String title;
+		final String author;
+
+		Row(String isbn, long key, String title, String author) {
+			this.isbn = isbn;
+			this.key = key;
+			this.title = title;
+			this.author = author;
+		}
+	}
+
+	static final class Columns {
+		final int isbn;
+		final int title;
+		final int author;
+		final long dataStart;
+
+		Columns(List<String> header, long dataStart) {
+			List<String> names = new ArrayList<>(header.size());
+			header.forEach(name -> names.add(name.trim().toLowerCase(Locale.ROOT)));
+			this.isbn = names.indexOf("isbn");
+			this.title = names.indexOf("title");
+			this.author = names.indexOf("author");
+			this.dataStart = dataStart;
+			if (isbn < 0 || title < 0)
+				throw new IllegalArgumentException("CSV header must have isbn and title columns: " + header);
+		}
+
+		// nulo para linhas sem isbn valido, sem titulo ou com campos maiores que as colunas
+		Row row(String line) {
+			List<String> fields = split(line);
+			if (fields.size() <= Math.max(isbn, Math.max(title, author)))
+				return null;
+			String isbnValue = fields.get(isbn).trim();
+			String normalized = Isbn.normalize(isbnValue);
+			String titleValue = fields.get(title).trim();
+			String authorValue = author < 0 ? null : fields.get(author).trim();
+			if (normalized == null || isbnValue.length() > MAX_LENGTH || titleValue.isEmpty()
+					|| titleValue.length() > MAX_LENGTH || (authorValue != null && authorValue.length() > MAX_LENGTH))
+				return null;
+			return new Row(isbnValue, Isbn.toLong(normalized), titleValue,
+					authorValue == null || authorValue.isEmpty() ? null : authorValue);
+		}
+
+		// CSV com aspas opcionais ("" dentro de aspas e uma aspa)
+		static List<String> split(String line) {
+			List<String> fields = new ArrayList<>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (quoted) {
+					if (c != '"')
+						field.append(c);
+					else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+						field.append(line.charAt(++i));
+					else
+						quoted = false;
+				} else if (c == '"') {
+					quoted = true;
+				} else if (c == ',') {
+					fields.add(field.toString());
+					field.setLength(0);
+				} else {
+					field.append(c);
+				}
+			}
+			fields.add(field.toString());
+			return fields;
+		}
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionReport {
+
+	private String file;
+	private int chunks;
+	// ja concluidos numa execucao anterior (retomada)
+	private int chunksSkipped;
+	private long existingIsbns;
+	private long rowsParsed;
+	private long rowsRejected;
+	private long duplicates;
+	private long rowsInserted;
+	private long durationMillis;
+	private double parseRowsPerSecond;
+	private double dedupeRowsPerSecond;
+	private double writeRowsPerSecond;
+
+}
@@ -0,0 +1,57 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.adrianmorais.libraryapi.config.datasource.DurableStorageCheck;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Comando de carga: com application.ingest.file definido a aplicacao carrega o arquivo e termina, com codigo
+ * de saida 0 no sucesso e 1 na falha (rodar de novo retoma a carga). Ver o perfil ingest.
+ *
+ * So roda sobre um banco em arquivo: num banco em memoria os livros e o progresso sumiriam com o processo.
+ */
+@Component
+@ConditionalOnProperty(name = "application.ingest.file")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionRunner implements ApplicationRunner {
+
+	private final BookIngestion ingestion;
+	private final ConfigurableApplicationContext context;
+
+	@Value("${application.ingest.file}")
+	private String file;
+
+	@Value("${spring.datasource.url:}")
+	private String url;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		int code;
+		try {
+			if (DurableStorageCheck.path(url) == null)
+				throw new IllegalStateException("Ingestion needs a persistent database, not " + url
+						+ "; run it with --spring.profiles.active=ingest,durable or point spring.datasource.url to an H2 file");
+			ingestion.ingest(Paths.get(file));
+			code = 0;
+		} catch (Exception e) {
+			log.error("Ingestion of {} did not complete", file, e);
+			code = 1;
+		}
+		// os agendamentos manteriam a JVM de pe
+		int exitCode = code;
+		System.exit(SpringApplication.exit(context, () -> exitCode));
+	}
+
+}
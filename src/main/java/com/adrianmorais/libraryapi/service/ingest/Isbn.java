@@ -0,0 +1,62 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+/**
+ * Normalizacao de ISBN para a carga: sem hifens e espacos, ISBN-10 convertido para ISBN-13 (prefixo 978) e
+ * digito verificador conferido. Assim "0-306-40615-2" e "978-0-306-40615-7" viram o mesmo livro.
+ */
+public final class Isbn {
+
+	private Isbn() {
+	}
+
+	// ISBN-13 so com digitos, ou nulo quando o valor nao e um ISBN valido
+	public static String normalize(String raw) {
+		if (raw == null)
+			return null;
+		char[] digits = new char[13];
+		int length = 0;
+		for (int i = 0; i < raw.length(); i++) {
+			char c = raw.charAt(i);
+			if (c == '-' || c == ' ')
+				continue;
+			if (length == 13 || !(c >= '0' && c <= '9' || (c == 'X' || c == 'x') && length == 9))
+				return null;
+			digits[length++] = Character.toUpperCase(c);
+		}
+
+		if (length == 10) {
+			if (checkDigit10(digits) != digits[9])
+				return null;
+			System.arraycopy(digits, 0, digits, 3, 9);
+			digits[0] = '9';
+			digits[1] = '7';
+			digits[2] = '8';
+		} else if (length != 13 || digits[9] == 'X' || !(digits[0] == '9' && digits[1] == '7'
+				&& (digits[2] == '8' || digits[2] == '9')) || checkDigit13(digits) != digits[12]) {
+			return null;
+		}
+		digits[12] = checkDigit13(digits);
+		return new String(digits);
+	}
+
+	// o ISBN-13 normalizado como numero, para o conjunto de ja vistos
+	public static long toLong(String isbn13) {
+		return Long.parseLong(isbn13);
+	}
+
+	private static char checkDigit10(char[] digits) {
+		int sum = 0;
+		for (int i = 0; i < 9; i++)
+			sum += (digits[i] - '0') * (10 - i);
+		int check = (11 - sum % 11) % 11;
+		return check == 10 ? 'X' : (char) ('0' + check);
+	}
+
+	private static char checkDigit13(char[] digits) {
+		int sum = 0;
+		for (int i = 0; i < 12; i++)
+			sum += (digits[i] - '0') * (i % 2 == 0 ? 1 : 3);
+		return (char) ('0' + (10 - sum % 10) % 10);
+	}
+
+}
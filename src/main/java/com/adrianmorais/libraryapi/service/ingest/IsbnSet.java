@@ -0,0 +1,59 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+/**
+ * Conjunto de ISBN-13 em long, com enderecamento aberto: milhoes de ISBNs sem um Long e uma entrada de
+ * HashMap por item. Nao e thread-safe; a carga so o usa na etapa de deduplicacao, que tem uma unica thread.
+ */
+class IsbnSet {
+
+	// nenhum ISBN-13 normalizado e zero (comeca com 978 ou 979)
+	private static final long EMPTY = 0;
+
+	private long[] slots;
+	private int size;
+
+	IsbnSet(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+		slots = new long[capacity];
+	}
+
+	// false quando o isbn ja estava no conjunto
+	boolean add(long isbn) {
+		if (size * 2 >= slots.length)
+			grow();
+		if (!insert(slots, isbn))
+			return false;
+		size++;
+		return true;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static boolean insert(long[] table, long isbn) {
+		int mask = table.length - 1;
+		for (int i = index(isbn, mask);; i = (i + 1) & mask) {
+			if (table[i] == EMPTY) {
+				table[i] = isbn;
+				return true;
+			}
+			if (table[i] == isbn)
+				return false;
+		}
+	}
+
+	private void grow() {
+		long[] old = slots;
+		slots = new long[old.length * 2];
+		for (long isbn : old)
+			if (isbn != EMPTY)
+				insert(slots, isbn);
+	}
+
+	private static int index(long isbn, int mask) {
+		long hash = isbn * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.PageRequest;
+
+import com.adrianmorais.libraryapi.model.entity.InvalidationEntry;
+import com.adrianmorais.libraryapi.model.repository.InvalidationEntryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transporte sem broker: a mensagem e gravada em invalidation_entry na transacao da escrita e cada
+ * instancia le as linhas novas a cada pollIntervalMillis.
+ *
+ * Os ids saem da sequence antes do commit, entao uma transacao mais lenta pode confirmar um id menor
+ * depois que as instancias ja leram um maior. Os ids pulados viram buracos, consultados de novo a cada
+ * leitura ate aparecerem ou ate settleMillis (transacao desfeita). As linhas sao apagadas apos retentionMillis.
+ */
+@Slf4j
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+	static final int BATCH_SIZE = 500;
+
+	private final InvalidationEntryRepository repository;
+	private final long pollIntervalMillis;
+	private final long retentionMillis;
+	private final long purgeIntervalMillis;
+
+	private ScheduledExecutorService executor;
+	private Consumer<Invalidation> receiver;
+
+	// so acessados na thread invalidation-poller
+	private long highest;
+	private final SequenceGaps gaps;
+	private long lastPurge;
+
+	public DatabaseInvalidationTransport(InvalidationEntryRepository repository, long pollIntervalMillis,
+			long settleMillis, long retentionMillis, long purgeIntervalMillis) {
+		this.repository = repository;
+		this.pollIntervalMillis = pollIntervalMillis;
+		this.gaps = new SequenceGaps(settleMillis);
+		this.retentionMillis = retentionMillis;
+		this.purgeIntervalMillis = purgeIntervalMillis;
+	}
+
+	@Override
+	public void publish(Invalidation invalidation) {
+		repository.save(InvalidationEntry.builder()
+				.entity(invalidation.getEntity())
+				.entityId(invalidation.getEntityId())
+				.origin(invalidation.getOrigin())
+				.createdAt(invalidation.getSentAt())
+				.build());
+	}
+
+	// so o que for gravado depois da subida interessa: os caches locais comecam vazios ou recem carregados
+	@Override
+	public synchronized void start(Consumer<Invalidation> receiver) {
+		this.receiver = receiver;
+		Long max = repository.findMaxId();
+		this.highest = max == null ? 0 : max;
+		this.lastPurge = System.currentTimeMillis();
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "invalidation-poller");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::pollSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	private void pollSafely() {
+		try {
+			while (poll() == BATCH_SIZE)
+				;
+			purge();
+		} catch (RuntimeException e) {
+			log.warn("Invalidation poll failed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Entrega as linhas novas e as que preencheram buracos. Devolve quantas linhas novas foram lidas.
+	 */
+	int poll() {
+		long now = System.currentTimeMillis();
+		if (!gaps.isEmpty()) {
+			for (InvalidationEntry entry : repository.findByIdIn(gaps.missing())) {
+				gaps.remove(entry.getId());
+				deliver(entry);
+			}
+			gaps.expire(now);
+		}
+
+		List<InvalidationEntry> entries = repository.findAfter(highest, PageRequest.of(0, BATCH_SIZE));
+		for (InvalidationEntry entry : entries) {
+			gaps.record(highest, entry.getId(), now, id -> false);
+			highest = entry.getId();
+			deliver(entry);
+		}
+		return entries.size();
+	}
+
+	private void deliver(InvalidationEntry entry) {
+		receiver.accept(new Invalidation(entry.getEntity(), entry.getEntityId(), entry.getOrigin(), entry.getCreatedAt()));
+	}
+
+	private void purge() {
+		long now = System.currentTimeMillis();
+		if (now - lastPurge < purgeIntervalMillis)
+			return;
+		lastPurge = now;
+		int purged = repository.deleteCreatedBefore(now - retentionMillis);
+		if (purged > 0)
+			log.debug("Invalidation entries purged: {}", purged);
+	}
+
+}
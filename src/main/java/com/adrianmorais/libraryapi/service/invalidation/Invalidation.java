@@ -0,0 +1,18 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Aviso de que entity/entityId mudou na instancia origin; sentAt em epoch millis.
+ */
+@Data
+@AllArgsConstructor
+public class Invalidation {
+
+	private final String entity;
+	private final Long entityId;
+	private final String origin;
+	private final long sentAt;
+
+}
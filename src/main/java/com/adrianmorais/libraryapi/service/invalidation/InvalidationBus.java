@@ -0,0 +1,101 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.adrianmorais.libraryapi.service.event.BookChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Avisa as outras instancias de que um livro mudou, para que seus caches locais descartem ou recarreguem
+ * a copia. A mensagem e publicada na transacao da escrita (BEFORE_COMMIT) e cada instancia ignora as
+ * proprias: localmente os caches ja sao atualizados pelo BookChangedEvent.
+ *
+ * Os listeners recebem o id alterado na thread do transporte e nao devem demorar.
+ */
+@Slf4j
+public class InvalidationBus {
+
+	public static final String BOOK = "book";
+
+	static final String PUBLISHED_METRIC = "invalidation.published";
+	static final String RECEIVED_METRIC = "invalidation.received";
+	static final String LATENCY_METRIC = "invalidation.latency";
+
+	private final String node = UUID.randomUUID().toString();
+	private final InvalidationTransport transport;
+	private final Map<String, List<Consumer<Long>>> listeners = new ConcurrentHashMap<>();
+
+	private final Counter published;
+	private final Counter received;
+	private final Timer latency;
+
+	public InvalidationBus(InvalidationTransport transport, MeterRegistry registry) {
+		this.transport = transport;
+		this.published = Counter.builder(PUBLISHED_METRIC)
+				.description("Invalidations sent to the other instances")
+				.register(registry);
+		this.received = Counter.builder(RECEIVED_METRIC)
+				.description("Invalidations received from the other instances")
+				.register(registry);
+		this.latency = Timer.builder(LATENCY_METRIC)
+				.description("Time from publish on the origin instance to delivery here")
+				.register(registry);
+	}
+
+	public void start() {
+		transport.start(this::receive);
+	}
+
+	public void stop() {
+		transport.stop();
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public void addListener(String entity, Consumer<Long> listener) {
+		listeners.computeIfAbsent(entity, key -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void onBookChanged(BookChangedEvent event) {
+		publish(BOOK, event.getBook().getId());
+	}
+
+	public void publish(String entity, Long entityId) {
+		transport.publish(new Invalidation(entity, entityId, node, System.currentTimeMillis()));
+		published.increment();
+	}
+
+	void receive(Invalidation invalidation) {
+		if (node.equals(invalidation.getOrigin()))
+			return;
+
+		received.increment();
+		latency.record(Math.max(0, System.currentTimeMillis() - invalidation.getSentAt()), TimeUnit.MILLISECONDS);
+		for (Consumer<Long> listener : listeners.getOrDefault(invalidation.getEntity(), Collections.emptyList())) {
+			try {
+				listener.accept(invalidation.getEntityId());
+			} catch (RuntimeException e) {
+				log.warn("Invalidation of {} {} failed: {}", invalidation.getEntity(), invalidation.getEntityId(),
+						e.getMessage());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.adrianmorais.libraryapi.model.repository.InvalidationEntryRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnProperty(name = "application.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class InvalidationConfig {
+
+	@Value("${application.invalidation.transport:database}")
+	private String transport;
+
+	@Value("${application.invalidation.poll-interval-ms:200}")
+	private long pollIntervalMillis;
+
+	@Value("${application.invalidation.settle-ms:10000}")
+	private long settleMillis;
+
+	@Value("${application.invalidation.retention-ms:600000}")
+	private long retentionMillis;
+
+	@Value("${application.invalidation.purge-interval-ms:60000}")
+	private long purgeIntervalMillis;
+
+	@Bean
+	public InvalidationTransport invalidationTransport(InvalidationEntryRepository repository) {
+		if ("database".equals(transport))
+			return new DatabaseInvalidationTransport(repository, pollIntervalMillis, settleMillis, retentionMillis,
+					purgeIntervalMillis);
+		throw new IllegalStateException("Unknown application.invalidation.transport: " + transport);
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "stop")
+	public InvalidationBus invalidationBus(InvalidationTransport invalidationTransport, MeterRegistry registry) {
+		return new InvalidationBus(invalidationTransport, registry);
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Meio pelo qual as instancias trocam invalidacoes. Cada mensagem publicada deve chegar a todas as
+ * instancias, inclusive a que publicou (o InvalidationBus filtra pela origem).
+ */
+public interface InvalidationTransport {
+
+	/**
+	 * Chamado dentro da transacao da escrita: a mensagem so deve ser entregue se ela for confirmada.
+	 */
+	void publish(Invalidation invalidation);
+
+	void start(Consumer<Invalidation> receiver);
+
+	void stop();
+
+}
@@ -0,0 +1,84 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Ids pulados de uma sequence lida em ordem (invalidation_entry, change_log_entry). Os ids saem da sequence
+ * antes do commit, entao um id menor pode aparecer depois de um maior; cada buraco guarda quando foi visto e
+ * assenta (transacao desfeita) apos settleMillis.
+ *
+ * Nao e thread-safe: o dono usa de uma thread so ou com o proprio lock.
+ */
+public class SequenceGaps {
+
+	public static final int MAX_GAPS = 1000;
+
+	private final long settleMillis;
+	// id -> quando foi visto
+	private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+	public SequenceGaps(long settleMillis) {
+		this.settleMillis = settleMillis;
+	}
+
+	/**
+	 * Registra os ids entre previous e id (exclusivos) ainda nao vistos, exceto os que skip aceita.
+	 */
+	public void record(long previous, long id, long now, LongPredicate skip) {
+		// um salto grande e a sequence pulando valores (cache do banco), nao transacoes abertas
+		if (id - previous > MAX_GAPS)
+			return;
+		for (long missing = previous + 1; missing < id; missing++)
+			if (!skip.test(missing))
+				gaps.putIfAbsent(missing, now);
+	}
+
+	// true se id era um buraco
+	public boolean remove(long id) {
+		return gaps.remove(id) != null;
+	}
+
+	// os buracos mais antigos, no maximo MAX_GAPS, para consultar de novo
+	public List<Long> missing() {
+		List<Long> missing = new ArrayList<>(Math.min(gaps.size(), MAX_GAPS));
+		for (Long id : gaps.keySet()) {
+			if (missing.size() == MAX_GAPS)
+				break;
+			missing.add(id);
+		}
+		return missing;
+	}
+
+	/**
+	 * Ha buraco entre from e to (exclusivos) que ainda pode aparecer: visto ha menos de settleMillis ou
+	 * aceito por open (transacao sabidamente aberta).
+	 */
+	public boolean isOpen(long from, long to, long now, LongPredicate open) {
+		for (Map.Entry<Long, Long> gap : gaps.subMap(from, false, to, false).entrySet())
+			if (open.test(gap.getKey()) || now - gap.getValue() < settleMillis)
+				return true;
+		return false;
+	}
+
+	// descarta os buracos que ja assentaram
+	public void expire(long now) {
+		for (Iterator<Long> it = gaps.values().iterator(); it.hasNext();)
+			if (now - it.next() >= settleMillis)
+				it.remove();
+	}
+
+	// descarta os buracos ate upTo, inclusive
+	public void forget(long upTo) {
+		gaps.headMap(upTo, true).clear();
+	}
+
+	public boolean isEmpty() {
+		return gaps.isEmpty();
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.adrianmorais.libraryapi.service.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.repository.LegacyCustomerLoan;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.CustomerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migracao online dos clientes em texto livre de Loan para a tabela Customer: a cada intervalo um lote
+ * de linhas antigas recebe o id_customer e tem as colunas de texto limpas, sem parar a aplicacao.
+ * Quando nao restarem linhas antigas as colunas customer/customer_email podem ser removidas.
+ */
+@Service
+@ConditionalOnProperty(name = "application.customers.migration.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CustomerMigration {
+
+	private final LoanRepository loanRepository;
+	private final CustomerService customerService;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transaction;
+	private final int batchSize;
+	// ultimo id migrado; volta a zero quando um lote vem vazio, para pegar linhas antigas gravadas depois
+	private long lastId;
+	// guardado para as consultas nao pagarem uma busca a mais; um lote com linhas antigas volta para falso
+	private volatile boolean complete;
+
+	public CustomerMigration(LoanRepository loanRepository, CustomerService customerService, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			@Value("${application.customers.migration.batch-size:500}") int batchSize) {
+		this.loanRepository = loanRepository;
+		this.customerService = customerService;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+	}
+
+	@Scheduled(fixedDelayString = "${application.customers.migration.interval-ms:1000}")
+	public synchronized void migrateBatch() {
+		Integer migrated = transaction.execute(status -> {
+			List<LegacyCustomerLoan> loans = loanRepository.findLegacyCustomerLoans(lastId, PageRequest.of(0, batchSize));
+			if (loans.isEmpty()) {
+				lastId = 0;
+				return 0;
+			}
+			complete = false;
+
+			// um unico batch JDBC por lote, sem carregar as entidades
+			List<Object[]> updates = new ArrayList<>(loans.size());
+			for (LegacyCustomerLoan loan : loans) {
+				Customer customer = customerService.resolve(loan.getLegacyCustomer(), loan.getLegacyCustomerEmail());
+				updates.add(new Object[] { customer.getId(), loan.getId() });
+			}
+			jdbcTemplate.batchUpdate(
+					"update loan set id_customer = ?, customer = null, customer_email = null where id = ?", updates);
+			lastId = loans.get(loans.size() - 1).getId();
+			return loans.size();
+		});
+
+		if (migrated > 0)
+			log.info("Migrated {} loans to the customer table", migrated);
+	}
+
+	public boolean isComplete() {
+		if (!complete)
+			complete = loanRepository.findLegacyCustomerLoans(0l, PageRequest.of(0, 1)).isEmpty();
+		return complete;
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.adrianmorais.libraryapi.api.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.adrianmorais.libraryapi.api.dto.BatchOperationDTO;
+import com.adrianmorais.libraryapi.api.dto.BatchRequestDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BatchExecutorTest {
+
+	static String BATCH_API = "/api/batch";
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Test
+	@DisplayName("Deve buscar o livro, criar o emprestimo e listar os emprestimos numa unica requisicao.")
+	public void deskSequenceTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("batch-1").author("Fulano").title("As aventuras").build());
+
+		perform(BatchRequestDTO.builder().operations(Arrays.asList(
+				operation("GET", "/api/books/" + book.getId(), null),
+				operation("POST", "/api/loans", loan("batch-1")),
+				operation("GET", "/api/loans?isbn=batch-1&page=0&size=10", null))).build())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("committed").value(true))
+				.andExpect(jsonPath("results[0].status").value(200))
+				.andExpect(jsonPath("results[0].body.title").value("As aventuras"))
+				.andExpect(jsonPath("results[1].status").value(201))
+				.andExpect(jsonPath("results[2].status").value(200))
+				.andExpect(jsonPath("results[2].body.items[0].book.isbn").value("batch-1"));
+
+		assertThat(loanRepository.findByBook(book, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve desfazer o lote inteiro e pular as operacoes seguintes no primeiro erro.")
+	public void stopOnErrorTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("batch-2").author("Fulano").title("As aventuras").build());
+
+		perform(BatchRequestDTO.builder().operations(Arrays.asList(
+				operation("POST", "/api/loans", loan("batch-2")),
+				operation("POST", "/api/loans", loan("batch-2")),
+				operation("GET", "/api/books/" + book.getId(), null))).build())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("committed").value(false))
+				.andExpect(jsonPath("results[0].status").value(201))
+				.andExpect(jsonPath("results[1].status").value(400))
+				.andExpect(jsonPath("results[1].body.errors[0]").value("Book already loaned"))
+				.andExpect(jsonPath("results[2].status").value(424));
+
+		assertThat(loanRepository.existsByBookAndNotReturned(book)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve seguir depois de um erro esperado e confirmar as demais operacoes quando stopOnError e falso.")
+	public void continueOnErrorTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("batch-3").author("Fulano").title("As aventuras").build());
+
+		perform(BatchRequestDTO.builder().stopOnError(false).operations(Arrays.asList(
+				operation("POST", "/api/loans", loan("batch-3")),
+				operation("POST", "/api/loans", loan("batch-3")),
+				operation("GET", "/api/books/0", null),
+				operation("GET", "/api/books/" + book.getId(), null))).build())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("committed").value(true))
+				.andExpect(jsonPath("results[0].status").value(201))
+				.andExpect(jsonPath("results[1].status").value(400))
+				.andExpect(jsonPath("results[2].status").value(404))
+				.andExpect(jsonPath("results[3].status").value(200));
+
+		assertThat(loanRepository.existsByBookAndNotReturned(book)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve recusar lotes vazios e operacoes fora de livros e emprestimos.")
+	public void invalidBatchTest() throws Exception {
+		perform(BatchRequestDTO.builder().operations(Collections.emptyList()).build())
+				.andExpect(status().isBadRequest());
+		perform(BatchRequestDTO.builder().operations(Arrays.asList(
+				operation("GET", "/api/customers/1", null))).build())
+				.andExpect(status().isBadRequest());
+		perform(BatchRequestDTO.builder().operations(Arrays.asList(
+				operation("POST", "/api/books/../batch", null))).build())
+				.andExpect(status().isBadRequest());
+	}
+
+	private ResultActions perform(BatchRequestDTO batch) throws Exception {
+		return mvc.perform(post(BATCH_API).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(batch)));
+	}
+
+	private BatchOperationDTO operation(String method, String path, Object body) {
+		return BatchOperationDTO.builder().method(method).path(path)
+				.body(body == null ? null : objectMapper.valueToTree(body)).build();
+	}
+
+	private static LoanDTO loan(String isbn) {
+		return LoanDTO.builder().isbn(isbn).customer("Fulano").email("fulano@email.com").build();
+	}
+}
@@ -0,0 +1,39 @@
+package com.adrianmorais.libraryapi.api.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class BatchResponseTest {
+
+	@Test
+	@DisplayName("Deve aceitar escrita por WriteListener no corpo em memoria da operacao.")
+	public void writeListenerTest() {
+		BatchResponse response = new BatchResponse(new MockHttpServletResponse());
+		ServletOutputStream output = response.getOutputStream();
+		output.setWriteListener(new WriteListener() {
+
+			@Override
+			public void onWritePossible() throws IOException {
+				if (output.isReady())
+					output.write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				throw new AssertionError(t);
+			}
+		});
+
+		assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.adrianmorais.libraryapi.api.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.adrianmorais.libraryapi.exception.BussinessException;
+
+public class ApiErrorsTest {
+
+	@Test
+	@DisplayName("Deve reaproveitar o mesmo corpo de erro para a mesma mensagem.")
+	public void cachedErrorsTest() {
+		ApiErrors errors = ApiErrors.of("Book already loaned");
+
+		assertThat(ApiErrors.of("Book already loaned")).isSameAs(errors);
+		assertThat(errors.getErrors()).containsExactly("Book already loaned");
+		assertThatThrownBy(() -> errors.getErrors().add("outro")).isInstanceOf(UnsupportedOperationException.class);
+		assertThat(ApiErrors.of(null).getErrors()).containsExactly((String) null);
+	}
+
+	@Test
+	@DisplayName("Deve lancar as exceptions de negocio e 404 sem stack trace.")
+	public void stacklessExceptionsTest() {
+		assertThat(new BussinessException("Isbn já cadastrado").getStackTrace()).isEmpty();
+		NotFoundException notFound = new NotFoundException();
+		assertThat(notFound.getStackTrace()).isEmpty();
+		assertThat(notFound.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+}
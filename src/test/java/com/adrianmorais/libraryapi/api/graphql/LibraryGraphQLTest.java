@@ -0,0 +1,163 @@
+package com.adrianmorais.libraryapi.api.graphql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.adrianmorais.libraryapi.api.dto.GraphQLRequestDTO;
+import com.adrianmorais.libraryapi.model.entity.ArchivedLoan;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.ArchivedLoanRepository;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.CustomerRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.LoanService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LibraryGraphQLTest {
+
+	static String GRAPHQL_API = "/api/graphql";
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	CustomerRepository customerRepository;
+
+	@Autowired
+	ArchivedLoanRepository archivedLoanRepository;
+
+	@SpyBean
+	BookService bookService;
+
+	@SpyBean
+	LoanService loanService;
+
+	@Test
+	@DisplayName("Deve resolver emprestimo em aberto e contagem de uma pagina de livros com uma consulta por tipo.")
+	public void booksWithLoansTest() throws Exception {
+		Customer customer = customerRepository.save(Customer.builder().name("Graphql Fulano").email("").build());
+		Book first = book("graphql-1", "Autor GraphQL");
+		Book second = book("graphql-2", "Autor GraphQL");
+		book("graphql-3", "Autor GraphQL");
+		loan(first, customer, false);
+		archive(loan(second, customer, true));
+		loan(second, customer, false);
+		clearInvocations(bookService, loanService);
+
+		perform("{ books(author: \"Autor GraphQL\", size: 10) { total items { isbn loanCount "
+				+ "currentLoan { returned customer { name email } book { isbn } } } } }")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("errors").doesNotExist())
+				.andExpect(jsonPath("data.books.total").value(3))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-1')].loanCount", contains(1)))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-2')].loanCount", contains(2)))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-3')].loanCount", contains(0)))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-1')].currentLoan.customer.name", contains("Graphql Fulano")))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-1')].currentLoan.customer.email", contains((Object) null)))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-2')].currentLoan.book.isbn", contains("graphql-2")))
+				.andExpect(jsonPath("data.books.items[?(@.isbn == 'graphql-3')].currentLoan", contains((Object) null)));
+
+		verify(loanService, times(1)).getOpenLoansByBookIds(anyCollection());
+		verify(loanService, times(1)).countLoansByBookIds(anyCollection());
+		verify(bookService, never()).getByIds(anyCollection());
+	}
+
+	@Test
+	@DisplayName("Deve carregar os livros de uma pagina de emprestimos numa unica chamada.")
+	@SuppressWarnings("unchecked")
+	public void loansWithBooksTest() throws Exception {
+		Customer customer = customerRepository.save(Customer.builder().name("Graphql Cicrano").email("cicrano@email.com").build());
+		Book first = book("graphql-4", "Fulano");
+		Book second = book("graphql-5", "Fulano");
+		loan(first, customer, false);
+		loan(second, customer, false);
+		clearInvocations(bookService, loanService);
+
+		perform("{ loans(customer: \"Graphql Cicrano\") { total items { returned book { isbn title } customer { name email } } } }")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("errors").doesNotExist())
+				.andExpect(jsonPath("data.loans.total").value(2))
+				.andExpect(jsonPath("data.loans.items[*].book.isbn", containsInAnyOrder("graphql-4", "graphql-5")))
+				.andExpect(jsonPath("data.loans.items[*].customer.email", contains("cicrano@email.com", "cicrano@email.com")));
+
+		ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+		verify(bookService, times(1)).getByIds(ids.capture());
+		assertThat(ids.getValue()).containsExactlyInAnyOrder(first.getId(), second.getId());
+	}
+
+	@Test
+	@DisplayName("Deve recusar consultas acima dos limites de complexidade e profundidade.")
+	public void queryLimitsTest() throws Exception {
+		perform("{ books(size: 100) { items { isbn title author loanCount currentLoan { returned loanDate "
+				+ "book { isbn title } customer { name email } } } } }")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("data").doesNotExist())
+				.andExpect(jsonPath("errors[0].message").exists());
+
+		perform("{ loans(isbn: \"x\") { items { book { currentLoan { book { currentLoan { book { currentLoan { id } } } } } } } } }")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("data").doesNotExist())
+				.andExpect(jsonPath("errors[0].message").exists());
+
+		verify(bookService, never()).find(any(), any());
+	}
+
+	private ResultActions perform(String query) throws Exception {
+		return mvc.perform(post(GRAPHQL_API).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(GraphQLRequestDTO.builder().query(query).build())));
+	}
+
+	private Book book(String isbn, String author) {
+		return bookRepository.save(Book.builder().isbn(isbn).author(author).title("Livro " + isbn).build());
+	}
+
+	private Loan loan(Book book, Customer customer, boolean returned) {
+		return loanRepository.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).returned(returned).build());
+	}
+
+	// como o LoanArchiver: mesmo id em loan_archive e fora de loan
+	private void archive(Loan loan) {
+		archivedLoanRepository.save(ArchivedLoan.builder().id(loan.getId()).book(loan.getBook()).customer(loan.getCustomer())
+				.loanDate(loan.getLoanDate()).returned(loan.getReturned()).archivedAt(LocalDateTime.now()).build());
+		loanRepository.delete(loan);
+	}
+}
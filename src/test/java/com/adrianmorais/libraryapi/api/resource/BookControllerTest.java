@@ -1,9 +1,13 @@
 package com.adrianmorais.libraryapi.api.resource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
 
 import org.hamcrest.Matchers;
@@ -29,9 +33,13 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import com.adrianmorais.libraryapi.api.dto.BookDTO;
 import com.adrianmorais.libraryapi.exception.BussinessException;
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookAvailability;
 import com.adrianmorais.libraryapi.service.BookService;
 import com.adrianmorais.libraryapi.service.LoanService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 
 // @RunWith(SpringRunner.class)
@@ -191,11 +199,8 @@ public class BookControllerTest {
 		BookDTO dto = createNewBook();
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
-		Book updatingBook = Book.builder().id(id).title("some title").author("some author").isbn("321").build();
-		BDDMockito.given(service.getById(id)).willReturn(Optional.of(updatingBook));
-
 		Book updatedBook = Book.builder().id(id).author("Artur").title("As aventuras").isbn("001").build();
-		BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+		BDDMockito.given(service.update(Mockito.eq(id), Mockito.any(Book.class))).willReturn(Optional.of(updatedBook));
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 			.put(BOOK_API.concat("/" + 1))
@@ -218,7 +223,7 @@ public class BookControllerTest {
 		BookDTO dto = createNewBook();
 		String json = new ObjectMapper().writeValueAsString(dto);
 		
-		BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(service.update(Mockito.anyLong(), Mockito.any(Book.class))).willReturn(Optional.empty());
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 			.put(BOOK_API.concat("/" + 1))
@@ -251,10 +256,126 @@ public class BookControllerTest {
 			
 			mvc.perform(request)
 				.andExpect(status().isOk())
-				.andExpect(jsonPath("content", Matchers.hasSize(1)))
-				.andExpect(jsonPath("totalElements").value(1))
-				.andExpect(jsonPath("pageable.pageSize").value(100))
-				.andExpect(jsonPath("pageable.pageNumber").value(0));
+				.andExpect(jsonPath("items", Matchers.hasSize(1)))
+				.andExpect(jsonPath("total").value(1))
+				.andExpect(jsonPath("size").value(100))
+				.andExpect(jsonPath("page").value(0));
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros retornando apenas os campos pedidos.")
+	public void findBooksWithFieldsTest() throws Exception {
+		Book book = Book.builder().isbn("001").title("As aventuras").build();
+		
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class),
+				Mockito.eq(new HashSet<>(Arrays.asList("isbn", "title")))))
+			.willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?fields=isbn,title&page=0&size=10"))
+				.accept(MediaType.APPLICATION_JSON);
+			
+			mvc.perform(request)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items", Matchers.hasSize(1)))
+				.andExpect(jsonPath("items[0].isbn").value("001"))
+				.andExpect(jsonPath("items[0].title").value("As aventuras"))
+				.andExpect(jsonPath("items[0].id").doesNotExist())
+				.andExpect(jsonPath("items[0].author").doesNotExist());
+	}
+	
+	@Test
+	@DisplayName("Deve retornar erro ao pedir um campo inexistente.")
+	public void findBooksWithUnknownFieldTest() throws Exception {
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?fields=isbn,loans"))
+				.accept(MediaType.APPLICATION_JSON);
+			
+			mvc.perform(request)
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("errors[0]").value("Unknown field: loans"));
+	}
+	
+	@Test
+	@DisplayName("Deve criar um livro recebendo e respondendo em CBOR.")
+	public void createBookWithCborTest() throws Exception {
+		BookDTO dto = createNewBook();
+		Book savedBook = Book.builder().id(10l).author("Artur").title("As aventuras").isbn("001").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(savedBook);
+		
+		ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+		
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+			.post(BOOK_API)
+			.contentType(MediaType.APPLICATION_CBOR)
+			.accept(MediaType.APPLICATION_CBOR)
+			.content(cbor.writeValueAsBytes(dto));
+		
+		byte[] body = mvc.perform(request)
+			.andExpect(status().isCreated())
+			.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		BookDTO created = cbor.readValue(body, BookDTO.class);
+		assertThat(created.getId()).isEqualTo(10l);
+		assertThat(created.getIsbn()).isEqualTo(dto.getIsbn());
+	}
+	
+	@Test
+	@DisplayName("Deve filtrar livros respondendo em Smile.")
+	public void findBooksWithSmileTest() throws Exception {
+		Book book = Book.builder().id(1l).author("Artur").title("As aventuras").isbn("001").build();
+		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+			.willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+		
+		MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?page=0&size=10"))
+				.accept(smile);
+		
+		byte[] body = mvc.perform(request)
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(smile))
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		JsonNode page = new ObjectMapper(new SmileFactory()).readTree(body);
+		assertThat(page.get("items")).hasSize(1);
+		assertThat(page.get("items").get(0).get("isbn").asText()).isEqualTo("001");
+		assertThat(page.get("total").asLong()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Deve informar a disponibilidade de varios livros em uma unica chamada.")
+	public void availabilityTest() throws Exception {
+		LocalDate loanDate = LocalDate.now().minusDays(10);
+		BDDMockito.given(service.getAvailability(Mockito.anyCollection(), Mockito.anyCollection()))
+			.willReturn(Arrays.asList(new BookAvailability(1l, "001", null, null),
+					new BookAvailability(2l, "002", 7l, loanDate)));
+		
+		String json = "{\"isbns\":[\"002\",\"001\",\"999\"]}";
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/availability"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(request)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", Matchers.hasSize(3)))
+			.andExpect(jsonPath("[0].isbn").value("002"))
+			.andExpect(jsonPath("[0].available").value(false))
+			.andExpect(jsonPath("[0].loanId").value(7))
+			.andExpect(jsonPath("[0].dueDate").value(loanDate.plusDays(LoanService.LOAN_DAYS).toString()))
+			.andExpect(jsonPath("[0].late").value(true))
+			.andExpect(jsonPath("[1].id").value(1))
+			.andExpect(jsonPath("[1].available").value(true))
+			.andExpect(jsonPath("[1].dueDate").isEmpty())
+			.andExpect(jsonPath("[2].isbn").value("999"))
+			.andExpect(jsonPath("[2].found").value(false));
+		
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API.concat("/availability"))
+				.contentType(MediaType.APPLICATION_JSON).content("{\"isbns\":[]}"))
+			.andExpect(status().isBadRequest());
 	}
 	
 	private BookDTO createNewBook() {
@@ -33,8 +33,10 @@ import com.adrianmorais.libraryapi.api.dto.LoanDTO;
 import com.adrianmorais.libraryapi.api.dto.ReturnedLoadDTO;
 import com.adrianmorais.libraryapi.exception.BussinessException;
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.CustomerService;
 import com.adrianmorais.libraryapi.service.LoanService;
 import com.adrianmorais.libraryapi.service.LoanServiceTest;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,6 +58,9 @@ public class LoanControllerTest {
 	@MockBean
 	LoanService loanService;
 	
+	@MockBean
+	CustomerService customerService;
+	
 	@Test
 	@DisplayName("Deve criar um empréstimo.")
 	public void createLoanTest() throws Exception {
@@ -66,7 +71,10 @@ public class LoanControllerTest {
 		BDDMockito.given(bookService.getBookByIsbn("123"))
 			.willReturn(Optional.of(book));
 		
-		Loan loan = Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+		Customer customer = Customer.builder().id(1l).name("Fulano").email("customer@email.com").build();
+		BDDMockito.given(customerService.resolve("Fulano", "customer@email.com")).willReturn(customer);
+		
+		Loan loan = Loan.builder().id(1l).customer(customer).book(book).loanDate(LocalDate.now()).build();
 		BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -130,8 +138,8 @@ public class LoanControllerTest {
 		ReturnedLoadDTO dto = ReturnedLoadDTO.builder().returned(true).build();
 		String json = new ObjectMapper().writeValueAsString(dto);
 
-		Loan loan = Loan.builder().id(1l).build();
-		BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.of(loan));
+		Loan loan = Loan.builder().id(1l).returned(true).build();
+		BDDMockito.given(loanService.returnBook(1l, true)).willReturn(Optional.of(loan));
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.patch(LOAN_API.concat("/1"))
@@ -142,7 +150,7 @@ public class LoanControllerTest {
 			mvc.perform(request)
 				.andExpect(status().isOk());
 
-		Mockito.verify(loanService, Mockito.times(1)).update(loan);
+		Mockito.verify(loanService, Mockito.times(1)).returnBook(1l, true);
 	}
 	
 
@@ -153,7 +161,7 @@ public class LoanControllerTest {
 		ReturnedLoadDTO dto = ReturnedLoadDTO.builder().returned(true).build();
 		String json = new ObjectMapper().writeValueAsString(dto);
 
-		BDDMockito.given(loanService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(loanService.returnBook(Mockito.anyLong(), Mockito.anyBoolean())).willReturn(Optional.empty());
 		
 		MockHttpServletRequestBuilder request = MockMvcRequestBuilders
 				.patch(LOAN_API.concat("/1"))
@@ -186,10 +194,10 @@ public class LoanControllerTest {
 			
 			mvc.perform(request)
 				.andExpect(status().isOk())
-				.andExpect(jsonPath("content", Matchers.hasSize(1)))
-				.andExpect(jsonPath("totalElements").value(1))
-				.andExpect(jsonPath("pageable.pageSize").value(10))
-				.andExpect(jsonPath("pageable.pageNumber").value(0));
+				.andExpect(jsonPath("items", Matchers.hasSize(1)))
+				.andExpect(jsonPath("total").value(1))
+				.andExpect(jsonPath("size").value(10))
+				.andExpect(jsonPath("page").value(0));
 		
 	}
 }
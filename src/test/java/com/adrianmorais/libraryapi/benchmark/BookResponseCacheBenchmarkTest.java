@@ -0,0 +1,104 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.config.responsecache.BookResponseCacheFilter;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Custo por leitura de GET /api/books/{id} no acerto do BookResponseCacheFilter contra o caminho do
+ * controller (getById + ModelMapper + Jackson), com request e response reaproveitados.
+ * Rodar com: mvn test -Pbenchmark -Dtest=BookResponseCacheBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class BookResponseCacheBenchmarkTest {
+
+	static final long MEASURE_NANOS = 3_000_000_000L;
+
+	@Autowired
+	FilterRegistrationBean<BookResponseCacheFilter> registration;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	ModelMapper modelMapper;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Test
+	@DisplayName("Deve comparar o acerto do cache de bytes com a leitura pelo controller.")
+	public void responseCacheTest() throws Exception {
+		Book book = repository.save(Book.builder().title("As aventuras").author("Fulano").isbn("bench-response").build());
+		BookResponseCacheFilter filter = registration.getFilter();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/" + book.getId());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		try {
+			System.out.printf("%n[benchmark] GET /api/books/{id}, single thread%n");
+			System.out.printf("[benchmark] %-16s %14s %12s%n", "path", "ops/s", "bytes/op");
+			run("controller", () -> {
+				response.reset();
+				BookDTO dto = modelMapper.map(service.getById(book.getId()).get(), BookDTO.class);
+				objectMapper.writeValue(response.getOutputStream(), dto);
+			});
+			run("cache hit", () -> {
+				response.reset();
+				request.removeAttribute(BookResponseCacheFilter.class.getName() + ".FILTERED");
+				filter.doFilter(request, response, chain);
+			});
+		} finally {
+			service.delete(book);
+		}
+	}
+
+	private void run(String name, Operation operation) throws Exception {
+		throughput(operation);
+		long before = allocatedBytes();
+		double opsPerSecond = throughput(operation);
+		long allocated = allocatedBytes() - before;
+		System.out.printf("[benchmark] %-16s %,14.0f %,12.0f%n", name, opsPerSecond,
+				allocated / (opsPerSecond * MEASURE_NANOS / 1e9));
+	}
+
+	private double throughput(Operation operation) throws Exception {
+		long operations = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < MEASURE_NANOS) {
+			operation.run();
+			operations++;
+		}
+		return operations * 1e9 / (System.nanoTime() - start);
+	}
+
+	@SuppressWarnings("restriction")
+	private long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	interface Operation {
+		void run() throws Exception;
+	}
+}
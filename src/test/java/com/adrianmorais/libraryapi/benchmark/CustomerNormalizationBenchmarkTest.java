@@ -0,0 +1,106 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
+import com.adrianmorais.libraryapi.service.LoanService;
+import com.adrianmorais.libraryapi.service.migration.CustomerMigration;
+
+/**
+ * Tamanho das linhas de loan e latencia da busca por cliente antes (texto livre) e depois da migracao
+ * para a tabela customer. Rodar com: mvn test -Pbenchmark -Dtest=CustomerNormalizationBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "application.customers.migration.interval-ms=3600000")
+public class CustomerNormalizationBenchmarkTest {
+
+	static final int LOANS = 50_000;
+	static final int CUSTOMERS = 2_000;
+	static final int BOOKS = 500;
+	static final int SEARCHES = 300;
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	@Autowired
+	LoanService loanService;
+
+	@Autowired
+	CustomerMigration migration;
+
+	@Test
+	@DisplayName("Deve medir tamanho de linha e latencia da busca por cliente antes e depois da migracao.")
+	public void customerNormalizationTest() {
+		List<Object[]> books = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++)
+			books.add(new Object[] { "Livro " + i, "Autor " + i, "bench-customer-" + i });
+		jdbc.batchUpdate("insert into book (title, author, isbn) values (?, ?, ?)", books);
+		Long firstBook = jdbc.queryForObject("select min(id) from book where isbn like 'bench-customer-%'", Long.class);
+
+		List<Object[]> loans = new ArrayList<>();
+		for (int i = 0; i < LOANS; i++)
+			loans.add(new Object[] { firstBook + i % BOOKS, name(i % CUSTOMERS), "customer" + (i % CUSTOMERS) + "@library-api.com" });
+		jdbc.batchUpdate("insert into loan (id_book, customer, customer_email, loan_date, returned) "
+				+ "values (?, ?, ?, current_date, true)", loans);
+
+		double textBytes = jdbc.queryForObject(
+				"select avg(octet_length(customer) + octet_length(customer_email)) from loan", Double.class);
+		// a consulta anterior, pagina + contagem como o Page do repositorio
+		double legacyNanos = search(() -> {
+			Object[] args = { null, randomName() };
+			jdbc.queryForList("select l.* from loan l join book b on b.id = l.id_book "
+					+ "where b.isbn = ? or l.customer = ? limit 20", args);
+			jdbc.queryForObject("select count(l.id) from loan l join book b on b.id = l.id_book "
+					+ "where b.isbn = ? or l.customer = ?", args, Long.class);
+		});
+
+		long start = System.nanoTime();
+		while (!migration.isComplete())
+			migration.migrateBatch();
+		long migrationMillis = (System.nanoTime() - start) / 1_000_000;
+
+		// depois: o id_customer (bigint) na linha e cada cliente uma unica vez na tabela customer
+		double customerBytes = jdbc.queryForObject(
+				"select sum(8 + octet_length(name) + octet_length(email)) from customer", Double.class) / LOANS;
+		double indexedNanos = search(() -> loanService.find(LoanFilterDTO.builder().customer(randomName()).build(),
+				PageRequest.of(0, 20)));
+
+		System.out.printf("%n[benchmark] %d loans, %d customers, migrated in %d ms%n", LOANS, CUSTOMERS, migrationMillis);
+		System.out.printf("[benchmark] customer per loan row: %.1f bytes free text, 8 bytes id_customer + %.1f bytes "
+				+ "amortized in customer%n", textBytes, customerBytes);
+		System.out.printf("[benchmark] search by customer: %.1f us free text, %.1f us via customer index%n",
+				legacyNanos / 1_000, indexedNanos / 1_000);
+	}
+
+	private double search(Runnable query) {
+		for (int i = 0; i < SEARCHES; i++)
+			query.run();
+		long[] samples = new long[SEARCHES];
+		for (int i = 0; i < SEARCHES; i++) {
+			long start = System.nanoTime();
+			query.run();
+			samples[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(samples);
+		return samples[SEARCHES / 2];
+	}
+
+	private static String randomName() {
+		return name((int) (Math.random() * CUSTOMERS));
+	}
+
+	private static String name(int customer) {
+		return "Customer with a reasonably long name " + customer;
+	}
+
+}
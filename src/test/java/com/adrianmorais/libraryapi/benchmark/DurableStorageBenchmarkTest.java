@@ -0,0 +1,179 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Vazao de insert/update no esquema de book, customer e loan (copiado do banco da aplicacao) e tempo de
+ * abertura apos um desligamento limpo e apos uma queda simulada (SHUTDOWN IMMEDIATELY): em memoria, em
+ * arquivo com os padroes do H2, em arquivo gravando a cada commit (WRITE_DELAY=0) e com a URL do perfil
+ * durable. Cada escrita e uma transacao, como nas requisicoes da API. Na queda so devem se perder as
+ * escritas confirmadas dentro do ultimo WRITE_DELAY (a segunda metade das linhas).
+ * Rodar com: mvn test -Pbenchmark -Dtest=DurableStorageBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class DurableStorageBenchmarkTest {
+
+	static final int ROWS = 20_000;
+	static final int CUSTOMERS = 100;
+	static final int CRASH_ROWS = 2_000;
+	static final long MAX_WRITE_DELAY_MS = 500;
+	static final String PATH = "${application.datasource.durable.path}";
+
+	@Autowired
+	JdbcTemplate jdbc;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	@DisplayName("Deve comparar vazao de escrita e recuperacao entre as configuracoes de armazenamento.")
+	public void durableStorageTest() throws Exception {
+		List<String> schema = jdbc.queryForList("script nodata table book, customer, loan", String.class).stream()
+				.filter(sql -> !sql.startsWith("--") && !sql.startsWith("CREATE USER"))
+				.collect(Collectors.toList());
+		String durable = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-durable.properties"))
+				.getProperty("spring.datasource.url");
+
+		Map<String, String> configurations = new LinkedHashMap<>();
+		configurations.put("mem", "jdbc:h2:mem:bench-durable;DB_CLOSE_DELAY=-1");
+		configurations.put("file default", "jdbc:h2:file:" + PATH);
+		configurations.put("file sync commit", "jdbc:h2:file:" + PATH + ";WRITE_DELAY=0");
+		configurations.put("durable profile", durable);
+
+		write("jdbc:h2:mem:bench-warmup;DB_CLOSE_DELAY=-1", schema);
+
+		System.out.printf("%n[benchmark] H2 storage, %,d rows per table, one transaction per statement%n", ROWS);
+		System.out.printf("[benchmark] %-18s %12s %12s %12s %10s %12s %10s%n", "configuration", "book ins/s",
+				"loan ins/s", "book upd/s", "open ms", "recovery ms", "lost rows");
+		for (Map.Entry<String, String> configuration : configurations.entrySet()) {
+			String url = configuration.getValue().replace(PATH, dir.resolve(configuration.getKey().replace(' ', '-')).toString());
+			double[] rates = write(url, schema);
+			if (url.startsWith("jdbc:h2:mem:")) {
+				System.out.printf("[benchmark] %-18s %,12.0f %,12.0f %,12.0f %10s %12s %10s%n", configuration.getKey(),
+						rates[0], rates[1], rates[2], "-", "-", "-");
+				continue;
+			}
+			long[] recovery = crash(url);
+			System.out.printf("[benchmark] %-18s %,12.0f %,12.0f %,12.0f %,10d %,12d %,10d%n", configuration.getKey(),
+					rates[0], rates[1], rates[2], recovery[0], recovery[1], recovery[2]);
+		}
+	}
+
+	// livros, emprestimos e atualizacoes por segundo; fecha o banco no fim (desligamento limpo)
+	private double[] write(String url, List<String> schema) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement()) {
+			for (String sql : schema)
+				statement.execute(sql);
+			try (PreparedStatement insert = connection.prepareStatement("insert into customer (name, email) values (?, ?)")) {
+				for (int i = 0; i < CUSTOMERS; i++) {
+					insert.setString(1, "Cliente " + i);
+					insert.setString(2, "cliente" + i + "@library-api.com");
+					insert.executeUpdate();
+				}
+			}
+			long firstCustomer = min(statement, "customer");
+
+			double[] rates = new double[3];
+			long start = System.nanoTime();
+			try (PreparedStatement insert = connection.prepareStatement("insert into book (title, author, isbn) values (?, ?, ?)")) {
+				for (int i = 0; i < ROWS; i++) {
+					insert.setString(1, "Livro " + i);
+					insert.setString(2, "Autor " + i % 500);
+					insert.setString(3, "bench-durable-" + i);
+					insert.executeUpdate();
+				}
+			}
+			rates[0] = ROWS * 1e9 / (System.nanoTime() - start);
+			long firstBook = min(statement, "book");
+
+			start = System.nanoTime();
+			try (PreparedStatement insert = connection.prepareStatement(
+					"insert into loan (id_book, id_customer, loan_date, returned) values (?, ?, current_date, false)")) {
+				for (int i = 0; i < ROWS; i++) {
+					insert.setLong(1, firstBook + i);
+					insert.setLong(2, firstCustomer + i % CUSTOMERS);
+					insert.executeUpdate();
+				}
+			}
+			rates[1] = ROWS * 1e9 / (System.nanoTime() - start);
+
+			start = System.nanoTime();
+			try (PreparedStatement update = connection.prepareStatement("update book set title = ? where id = ?")) {
+				for (int i = 0; i < ROWS; i++) {
+					update.setString(1, "Outro titulo " + i);
+					update.setLong(2, firstBook + i);
+					update.executeUpdate();
+				}
+			}
+			rates[2] = ROWS * 1e9 / (System.nanoTime() - start);
+
+			statement.execute("shutdown");
+			return rates;
+		}
+	}
+
+	// abertura apos o desligamento limpo, abertura apos a queda e escritas confirmadas perdidas na queda
+	private long[] crash(String url) throws SQLException, InterruptedException {
+		long[] result = new long[3];
+		long start = System.nanoTime();
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement();
+				PreparedStatement insert = connection.prepareStatement("insert into book (title, author, isbn) values (?, ?, ?)")) {
+			result[0] = (System.nanoTime() - start) / 1_000_000;
+			for (int i = 0; i < CRASH_ROWS; i++) {
+				insert.setString(1, "Livro " + i);
+				insert.setString(2, "Fulano");
+				insert.setString(3, "bench-crash-" + i);
+				insert.executeUpdate();
+				// a primeira metade fica mais velha que o maior WRITE_DELAY aceito
+				if (i == CRASH_ROWS / 2 - 1)
+					Thread.sleep(2 * MAX_WRITE_DELAY_MS);
+			}
+			// fecha os arquivos sem gravar o que esta pendente, como uma queda do processo
+			statement.execute("shutdown immediately");
+		} catch (SQLException e) {
+			// a conexao ja foi fechada pelo shutdown
+		}
+
+		start = System.nanoTime();
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement();
+				ResultSet count = statement.executeQuery("select count(*) from book where isbn like 'bench-crash-%'")) {
+			result[1] = (System.nanoTime() - start) / 1_000_000;
+			count.next();
+			result[2] = CRASH_ROWS - count.getLong(1);
+			statement.execute("shutdown");
+		}
+		return result;
+	}
+
+	private static long min(Statement statement, String table) throws SQLException {
+		try (ResultSet min = statement.executeQuery("select min(id) from " + table)) {
+			min.next();
+			return min.getLong(1);
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.PageResponse;
+import com.adrianmorais.libraryapi.api.json.PageResponseSerializer;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Bytes por resposta e tempo de serializacao do PageImpl antigo contra o PageResponse.
+ * Rodar com: mvn test -Pbenchmark -Dtest=PageSerializationBenchmarkTest
+ */
+@Tag("benchmark")
+public class PageSerializationBenchmarkTest {
+
+	static final int[] PAGE_SIZES = { 20, 100, 1000 };
+	static final long MEASURE_NANOS = 2_000_000_000L;
+
+	ModelMapper modelMapper = new ModelMapper();
+	ObjectMapper objectMapper = new ObjectMapper()
+		.registerModule(new SimpleModule().addSerializer(new PageResponseSerializer()));
+
+	@Test
+	@DisplayName("Deve comparar tamanho e tempo de serializacao das paginas.")
+	public void pageEnvelopeTest() throws Exception {
+		System.out.printf("%n[benchmark] %6s %12s %12s %14s %14s%n", "items", "PageImpl B", "envelope B",
+				"PageImpl us", "envelope us");
+
+		for (int size : PAGE_SIZES) {
+			Page<Book> page = new PageImpl<>(books(size), PageRequest.of(0, size), size * 10L);
+
+			byte[] legacy = legacy(page);
+			byte[] envelope = envelope(page);
+
+			measure(() -> legacy(page));
+			measure(() -> envelope(page));
+			double legacyMicros = measure(() -> legacy(page));
+			double envelopeMicros = measure(() -> envelope(page));
+
+			System.out.printf("[benchmark] %6d %12d %12d %14.1f %14.1f%n", size, legacy.length, envelope.length,
+					legacyMicros, envelopeMicros);
+		}
+	}
+
+	private byte[] legacy(Page<Book> page) throws Exception {
+		List<BookDTO> list = page.getContent().stream()
+			.map(entity -> modelMapper.map(entity, BookDTO.class))
+			.collect(Collectors.toList());
+		return objectMapper.writeValueAsBytes(new PageImpl<>(list, page.getPageable(), page.getTotalElements()));
+	}
+
+	private byte[] envelope(Page<Book> page) throws Exception {
+		return objectMapper.writeValueAsBytes(PageResponse.of(page, entity -> modelMapper.map(entity, BookDTO.class)));
+	}
+
+	private double measure(Serialization serialization) throws Exception {
+		long operations = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < MEASURE_NANOS) {
+			serialization.run();
+			operations++;
+		}
+		return (System.nanoTime() - start) / 1000d / operations;
+	}
+
+	private List<Book> books(int size) {
+		List<Book> books = new ArrayList<>(size);
+		for (long i = 0; i < size; i++)
+			books.add(Book.builder().id(i).title("As aventuras " + i).author("Fulano").isbn("isbn-" + i).build());
+		return books;
+	}
+
+	interface Serialization {
+		byte[] run() throws Exception;
+	}
+}
@@ -0,0 +1,75 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Tamanho e vazao de codificacao/decodificacao de listas de LoanDTO em JSON, CBOR e Smile.
+ * Rodar com: mvn test -Pbenchmark -Dtest=PayloadFormatBenchmarkTest
+ */
+@Tag("benchmark")
+public class PayloadFormatBenchmarkTest {
+
+	static final int ITEMS = 1000;
+	static final long MEASURE_NANOS = 3_000_000_000L;
+	static final TypeReference<List<LoanDTO>> LOANS = new TypeReference<List<LoanDTO>>() {
+	};
+
+	@Test
+	@DisplayName("Deve comparar JSON, CBOR e Smile.")
+	public void payloadFormatsTest() throws Exception {
+		List<LoanDTO> loans = loans();
+
+		System.out.printf("%n[benchmark] %d LoanDTO%n", ITEMS);
+		System.out.printf("[benchmark] %-6s %10s %14s %14s%n", "format", "bytes", "encode ops/s", "decode ops/s");
+		run("json", new ObjectMapper(), loans);
+		run("cbor", new ObjectMapper(new CBORFactory()), loans);
+		run("smile", new ObjectMapper(new SmileFactory()), loans);
+	}
+
+	private void run(String name, ObjectMapper mapper, List<LoanDTO> loans) throws Exception {
+		byte[] payload = mapper.writeValueAsBytes(loans);
+
+		throughput(() -> mapper.writeValueAsBytes(loans));
+		double encode = throughput(() -> mapper.writeValueAsBytes(loans));
+		throughput(() -> mapper.readValue(payload, LOANS));
+		double decode = throughput(() -> mapper.readValue(payload, LOANS));
+
+		System.out.printf("[benchmark] %-6s %10d %14.0f %14.0f%n", name, payload.length, encode, decode);
+	}
+
+	private double throughput(Operation operation) throws Exception {
+		long operations = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < MEASURE_NANOS) {
+			operation.run();
+			operations++;
+		}
+		return operations * 1e9 / (System.nanoTime() - start);
+	}
+
+	private List<LoanDTO> loans() {
+		List<LoanDTO> loans = new ArrayList<>(ITEMS);
+		for (long i = 0; i < ITEMS; i++) {
+			BookDTO book = BookDTO.builder().id(i).title("As aventuras " + i).author("Fulano").isbn("isbn-" + i).build();
+			loans.add(LoanDTO.builder().id(i).isbn(book.getIsbn()).customer("customer-" + (i % 100))
+					.email("customer" + (i % 100) + "@email.com").book(book).build());
+		}
+		return loans;
+	}
+
+	interface Operation {
+		Object run() throws Exception;
+	}
+}
@@ -0,0 +1,115 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.adrianmorais.libraryapi.api.exception.ApiErrors;
+import com.adrianmorais.libraryapi.api.exception.NotFoundException;
+import com.adrianmorais.libraryapi.exception.BussinessException;
+
+/**
+ * Custo por requisicao rejeitada (throw + corpo de erro) com exceptions que guardam
+ * stack trace e corpo novo a cada erro, contra as exceptions sem stack e ApiErrors.of.
+ * As exceptions sao lancadas a STACK_DEPTH frames de profundidade, proximo do que
+ * um request real tem entre o Tomcat e o service.
+ * Rodar com: mvn test -Pbenchmark -Dtest=RejectionPathBenchmarkTest
+ */
+@Tag("benchmark")
+public class RejectionPathBenchmarkTest {
+
+	static final int STACK_DEPTH = 120;
+	static final long MEASURE_NANOS = 3_000_000_000L;
+
+	static volatile Object sink;
+
+	@Test
+	@DisplayName("Deve comparar o custo de rejeitar requisicoes com e sem stack trace.")
+	public void rejectionPathTest() throws Exception {
+		System.out.printf("%n[benchmark] rejection at %d frames deep%n", STACK_DEPTH);
+		System.out.printf("[benchmark] %-28s %14s %12s%n", "path", "ops/s", "bytes/op");
+
+		run("business, before", () -> reject(() -> new StackfulBussinessException("Book already loaned")));
+		run("business, after", () -> reject(() -> new BussinessException("Book already loaned")));
+		run("not found, before", () -> reject(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+		run("not found, after", () -> reject(NotFoundException::new));
+	}
+
+	private Object reject(ExceptionFactory factory) {
+		try {
+			throwAt(STACK_DEPTH, factory);
+			return null;
+		} catch (StackfulBussinessException ex) {
+			return new ResponseEntity<>(new LegacyApiErrors(ex.getMessage()), HttpStatus.BAD_REQUEST);
+		} catch (BussinessException ex) {
+			return new ResponseEntity<>(ApiErrors.of(ex.getMessage()), HttpStatus.BAD_REQUEST);
+		} catch (NotFoundException ex) {
+			return new ResponseEntity<>(ApiErrors.of(ex.getReason()), ex.getStatus());
+		} catch (ResponseStatusException ex) {
+			return new ResponseEntity<>(new LegacyApiErrors(ex.getReason()), ex.getStatus());
+		}
+	}
+
+	private void throwAt(int depth, ExceptionFactory factory) {
+		if (depth == 0)
+			throw factory.create();
+		throwAt(depth - 1, factory);
+	}
+
+	private void run(String name, Operation operation) {
+		throughput(operation);
+		long before = allocatedBytes();
+		double opsPerSecond = throughput(operation);
+		long allocated = allocatedBytes() - before;
+		double seconds = MEASURE_NANOS / 1e9;
+		System.out.printf("[benchmark] %-28s %,14.0f %,12.0f%n", name, opsPerSecond, allocated / (opsPerSecond * seconds));
+	}
+
+	private double throughput(Operation operation) {
+		long operations = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < MEASURE_NANOS) {
+			sink = operation.run();
+			operations++;
+		}
+		return operations * 1e9 / (System.nanoTime() - start);
+	}
+
+	@SuppressWarnings("restriction")
+	private long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	interface Operation {
+		Object run();
+	}
+
+	interface ExceptionFactory {
+		RuntimeException create();
+	}
+
+	// como eram a BussinessException e o ApiErrors antes
+	static class StackfulBussinessException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		StackfulBussinessException(String msg) {
+			super(msg);
+		}
+	}
+
+	static class LegacyApiErrors {
+		final List<String> errors;
+
+		LegacyApiErrors(String message) {
+			this.errors = Arrays.asList(message);
+		}
+	}
+}
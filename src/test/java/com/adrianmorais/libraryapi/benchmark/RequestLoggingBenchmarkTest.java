@@ -0,0 +1,98 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.adrianmorais.libraryapi.api.resource.BookController;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+
+/**
+ * Vazao de GET /api/books/{id} com o log do BookController ligado e desligado.
+ * Rodar com: mvn test -Pbenchmark -Dtest=RequestLoggingBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RequestLoggingBenchmarkTest {
+
+	static final int THREADS = 8;
+	static final long WARMUP_MILLIS = 3_000;
+	static final long MEASURE_MILLIS = 10_000;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	LoggingSystem loggingSystem;
+
+	@Test
+	@DisplayName("Deve comparar a vazao de requisicoes com log ligado e desligado.")
+	public void requestThroughputWithAndWithoutLoggingTest() throws Exception {
+		Book book = repository.save(Book.builder().title("As aventuras").author("Fulano").isbn("bench-log").build());
+		String uri = "/api/books/" + book.getId();
+
+		try {
+			loggingSystem.setLogLevel(BookController.class.getName(), LogLevel.OFF);
+			run(uri, WARMUP_MILLIS);
+			double off = run(uri, MEASURE_MILLIS);
+
+			loggingSystem.setLogLevel(BookController.class.getName(), LogLevel.INFO);
+			run(uri, WARMUP_MILLIS);
+			double on = run(uri, MEASURE_MILLIS);
+
+			System.out.printf("%n[benchmark] GET %s with %d threads%n", uri, THREADS);
+			System.out.printf("[benchmark] logging on : %,.0f req/s%n", on);
+			System.out.printf("[benchmark] logging off: %,.0f req/s%n", off);
+			System.out.printf("[benchmark] overhead   : %.1f%%%n", (off - on) / off * 100);
+		} finally {
+			loggingSystem.setLogLevel(BookController.class.getName(), null);
+			repository.delete(book);
+		}
+	}
+
+	private double run(String uri, long millis) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		AtomicLong requests = new AtomicLong();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				while (System.nanoTime() < deadline) {
+					mvc.perform(MockMvcRequestBuilders.get(uri).accept(MediaType.APPLICATION_JSON))
+						.andExpect(status().isOk());
+					requests.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures)
+			future.get();
+		executor.shutdown();
+
+		return requests.get() * 1000d / millis;
+	}
+}
@@ -0,0 +1,119 @@
+package com.adrianmorais.libraryapi.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.CustomerRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.LoanService;
+
+/**
+ * Tamanho da resposta (com e sem gzip) e bytes lidos do banco nas listagens, com e sem fields=.
+ * Os bytes do banco sao estimados pela soma do tamanho das colunas efetivamente carregadas.
+ * Rodar com: mvn test -Pbenchmark -Dtest=SparseFieldsBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SparseFieldsBenchmarkTest {
+
+	static final int ROWS = 500;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	CustomerRepository customerRepository;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	LoanService loanService;
+
+	@Test
+	@DisplayName("Deve medir payload e bytes lidos com e sem selecao de campos.")
+	public void sparseFieldsTest() throws Exception {
+		Customer customer = customerRepository.save(Customer.builder().name("Fulano").email("fulano@email.com").build());
+		for (int i = 0; i < ROWS; i++) {
+			Book book = bookRepository.save(Book.builder().title("As aventuras de um livro " + i)
+					.author("Autor com um nome longo " + (i % 20)).isbn("isbn-sparse-" + i).build());
+			loanRepository.save(Loan.builder().book(book).customer(customer)
+					.loanDate(LocalDate.now()).returned(true).build());
+		}
+
+		PageRequest page = PageRequest.of(0, ROWS);
+		Set<String> bookFields = new HashSet<>(Arrays.asList("isbn", "title"));
+		Set<String> loanFields = new HashSet<>(Arrays.asList("id", "customer"));
+		LoanFilterDTO loanFilter = LoanFilterDTO.builder().customer("Fulano").build();
+
+		System.out.printf("%n[benchmark] %-32s %10s %10s %10s%n", "request", "body B", "gzip B", "db B");
+		report("/api/books?title=aventuras", bookBytes(bookService.find(Book.builder().title("aventuras").build(), page)));
+		report("/api/books?title=aventuras&fields=isbn,title",
+				bookBytes(bookService.find(Book.builder().title("aventuras").build(), page, bookFields)));
+		report("/api/loans?customer=Fulano", loanBytes(loanService.find(loanFilter, page)));
+		report("/api/loans?customer=Fulano&fields=id,customer", loanBytes(loanService.find(loanFilter, page, loanFields)));
+	}
+
+	private void report(String uri, long dbBytes) throws Exception {
+		byte[] body = mvc.perform(MockMvcRequestBuilders.get(uri + "&page=0&size=" + ROWS).accept(MediaType.APPLICATION_JSON))
+			.andReturn().getResponse().getContentAsByteArray();
+		String name = uri.length() > 32 ? "..." + uri.substring(uri.length() - 29) : uri;
+		System.out.printf("[benchmark] %-32s %10d %10d %10d%n", name, body.length, gzip(body).length, dbBytes);
+	}
+
+	private long bookBytes(Page<Book> books) {
+		return books.getContent().stream().mapToLong(this::bookBytes).sum();
+	}
+
+	private long bookBytes(Book book) {
+		return (book.getId() == null ? 0 : 8) + length(book.getTitle()) + length(book.getAuthor()) + length(book.getIsbn());
+	}
+
+	private long loanBytes(Page<Loan> loans) {
+		return loans.getContent().stream().mapToLong(loan -> (loan.getId() == null ? 0 : 8)
+				+ length(loan.getCustomerName()) + length(loan.getCustomerEmail())
+				+ (loan.getLoanDate() == null ? 0 : 4) + (loan.getReturned() == null ? 0 : 1)
+				+ (loan.getBook() == null ? 0 : bookBytes(loan.getBook()))).sum();
+	}
+
+	private long length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	private byte[] gzip(byte[] body) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		return out.toByteArray();
+	}
+}
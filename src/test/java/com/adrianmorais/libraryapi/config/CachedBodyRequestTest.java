@@ -0,0 +1,55 @@
+package com.adrianmorais.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+public class CachedBodyRequestTest {
+
+	@Test
+	@DisplayName("Deve entregar o corpo em memoria de novo a cada leitura, tambem por ReadListener.")
+	public void readListenerTest() throws Exception {
+		byte[] body = "{\"isbn\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+		CachedBodyRequest request = new CachedBodyRequest(new MockHttpServletRequest(), body);
+
+		assertThat(StreamUtils.copyToByteArray(request.getInputStream())).isEqualTo(body);
+
+		ServletInputStream input = request.getInputStream();
+		ByteArrayOutputStream read = new ByteArrayOutputStream();
+		boolean[] allRead = new boolean[1];
+		input.setReadListener(new ReadListener() {
+
+			@Override
+			public void onDataAvailable() throws IOException {
+				byte[] buffer = new byte[4];
+				int count;
+				while (input.isReady() && !input.isFinished() && (count = input.read(buffer, 0, buffer.length)) > 0)
+					read.write(buffer, 0, count);
+			}
+
+			@Override
+			public void onAllDataRead() {
+				allRead[0] = true;
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				throw new AssertionError(t);
+			}
+		});
+
+		assertThat(read.toByteArray()).isEqualTo(body);
+		assertThat(allRead[0]).isTrue();
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.adrianmorais.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Gera no build a especificacao swagger servida pelo StaticApiDocsController no perfil prod.
+ * O diretorio de saida vem do surefire (target/classes/static-docs), entao o arquivo entra no jar; no
+ * perfil maven prod a execucao generate-api-docs (prepare-package) roda este teste mesmo com -DskipTests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SwaggerSpecGeneratorTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	@DisplayName("Deve gerar a especificacao swagger da API.")
+	public void generateSwaggerSpecTest() throws Exception {
+		String spec = mvc.perform(MockMvcRequestBuilders.get("/v2/api-docs").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		assertThat(spec).contains("/api/books").contains("/api/loans");
+
+		Path dir = Paths.get(System.getProperty("apiDocsOutputDirectory", "target/classes/static-docs"));
+		Files.createDirectories(dir);
+		Files.write(dir.resolve("swagger.json"), spec.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConnectionHoldTimeTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	ApplicationContext context;
+
+	@Test
+	@DisplayName("Deve registrar o tempo de conexao por requisicao sem Open Session In View.")
+	public void connectionHoldTimePerRequestTest() throws Exception {
+		Book book = repository.save(Book.builder().isbn("hold-123").author("Fulano").title("As aventuras").build());
+
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId())).andExpect(status().isOk());
+
+		Timer request = registry.find(ConnectionHoldTimeFilter.METRIC)
+				.tags("uri", "/api/books/{id}", "method", "GET", "status", "200").timer();
+		assertThat(request).isNotNull();
+		assertThat(request.count()).isEqualTo(1);
+		assertThat(request.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+
+		assertThat(registry.find(ConnectionHoldTimeDataSource.METRIC).timer().count()).isPositive();
+		assertThat(context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+	}
+
+}
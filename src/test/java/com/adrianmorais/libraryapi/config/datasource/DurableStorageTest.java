@@ -0,0 +1,67 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.adrianmorais.libraryapi.LibraryApiApplication;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+
+public class DurableStorageTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	@DisplayName("Deve manter os livros gravados depois de reiniciar a aplicacao no perfil durable.")
+	public void restartTest() {
+		Long id;
+		try (ConfigurableApplicationContext context = start()) {
+			id = context.getBean(BookRepository.class)
+					.save(Book.builder().isbn("durable-1").author("Fulano").title("As aventuras").build()).getId();
+		}
+		try (ConfigurableApplicationContext context = start()) {
+			assertThat(context.getBean(BookRepository.class).findById(id))
+					.hasValueSatisfying(book -> assertThat(book.getIsbn()).isEqualTo("durable-1"));
+		}
+	}
+
+	@Test
+	@DisplayName("Deve recusar configuracoes que perdem ou corrompem dados numa queda.")
+	public void crashSafetyTest() {
+		String file = "jdbc:h2:file:" + dir.resolve("library");
+
+		assertThat(new DurableStorageCheck(file + ";WRITE_DELAY=200;DB_CLOSE_ON_EXIT=FALSE", "sa", "", "update", 500)
+				.problems()).isEmpty();
+		assertThat(new DurableStorageCheck("jdbc:h2:mem:durable;DB_CLOSE_ON_EXIT=FALSE", "sa", "", "update", 500)
+				.problems()).hasSize(1);
+		assertThat(new DurableStorageCheck(file + ";WRITE_DELAY=5000;LOG=0;FILE_LOCK=NO", "sa", "", null, 500)
+				.problems())
+				.hasSize(5)
+				.anyMatch(problem -> problem.startsWith("spring.jpa.hibernate.ddl-auto"))
+				.anyMatch(problem -> problem.startsWith("WRITE_DELAY=5000"))
+				.anyMatch(problem -> problem.startsWith("DB_CLOSE_ON_EXIT"))
+				.anyMatch(problem -> problem.startsWith("LOG=0"))
+				.anyMatch(problem -> problem.startsWith("FILE_LOCK=NO"));
+		assertThatThrownBy(() -> new DurableStorageCheck(file, "sa", "", "create-drop", 500).run())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("create-drop");
+	}
+
+	private ConfigurableApplicationContext start() {
+		return new SpringApplicationBuilder(LibraryApiApplication.class)
+				.profiles("durable")
+				.properties("server.port=-1")
+				// argumento, e nao default: o caminho do perfil durable tem precedencia sobre os defaults
+				.run("--application.datasource.durable.path=" + dir.resolve("library"));
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.adrianmorais.libraryapi.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.Cookie;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.service.BookService;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"application.datasource.replicas.urls=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"application.datasource.replicas.check-interval-ms=3600000" })
+@ActiveProfiles("replica")
+public class ReplicaRoutingTest {
+
+	@Autowired
+	ReplicaMonitor monitor;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	public void setUp() {
+		monitor.check();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	@DisplayName("Deve enviar transacoes readOnly para a replica e as demais para o primario.")
+	public void routeByReadOnlyTest() {
+		assertThat(monitor.getReplicas()).allMatch(Replica::isHealthy);
+
+		assertThat(database(true)).isEqualTo("ROUTING-REPLICA");
+		assertThat(database(false)).isEqualTo("ROUTING-PRIMARY");
+
+		Book book = bookService.save(Book.builder().isbn("replica-123").author("Fulano").title("As aventuras").build());
+		assertThat(bookService.getBookByIsbn("replica-123")).hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(book.getId()));
+	}
+
+	@Test
+	@DisplayName("Deve ler do primario depois de uma escrita na mesma requisicao e enquanto o cookie valer.")
+	public void readYourWritesTest() {
+		MockHttpServletResponse response = request(null);
+		assertThat(database(true)).isEqualTo("ROUTING-REPLICA");
+
+		bookService.save(Book.builder().isbn("replica-456").author("Fulano").title("As aventuras").build());
+
+		assertThat(database(true)).isEqualTo("ROUTING-PRIMARY");
+		Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+		assertThat(cookie).isNotNull();
+
+		request(cookie);
+		assertThat(database(true)).isEqualTo("ROUTING-PRIMARY");
+
+		request(null);
+		assertThat(database(true)).isEqualTo("ROUTING-REPLICA");
+	}
+
+	@Test
+	@DisplayName("Deve tirar de rodizio a replica atrasada e manter a saude da aplicacao.")
+	public void laggingReplicaTest() throws Exception {
+		// replica H2 sem ligacao com o primario, com um heartbeat antigo
+		JdbcDataSource stale = new JdbcDataSource();
+		stale.setURL("jdbc:h2:mem:routing-stale;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+		try (Connection connection = stale.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE " + ReplicaMonitor.HEARTBEAT_TABLE + " (ID INT PRIMARY KEY, BEAT_AT BIGINT)");
+			statement.execute("INSERT INTO " + ReplicaMonitor.HEARTBEAT_TABLE + " VALUES (1, 0)");
+		}
+		Replica replica = new Replica("stale", "jdbc:h2:mem:routing-stale", stale);
+		ReplicaMonitor staleMonitor = new ReplicaMonitor(monitor.getPrimary(), Collections.singletonList(replica), 2000, null);
+
+		staleMonitor.check();
+
+		assertThat(replica.isHealthy()).isFalse();
+		assertThat(replica.getError()).contains("Replication lag");
+
+		Health health = new ReplicaHealthIndicator(staleMonitor).health();
+		assertThat(health.getStatus()).isEqualTo(Status.UP);
+		assertThat(health.getDetails()).containsEntry("healthy", 0L);
+
+		// sem replica saudavel, a leitura fica no primario
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(monitor.getPrimary(),
+				Collections.singletonList(replica), 2000);
+		routing.afterPropertiesSet();
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routing));
+		transaction.setReadOnly(true);
+		String database = transaction
+				.execute(status -> new JdbcTemplate(routing).queryForObject("SELECT DATABASE()", String.class));
+		assertThat(database).isEqualTo("ROUTING-PRIMARY");
+	}
+
+	private String database(boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(status -> (String) entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult());
+	}
+
+	private MockHttpServletResponse request(Cookie cookie) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (cookie != null)
+			request.setCookies(cookie);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+		return response;
+	}
+
+}
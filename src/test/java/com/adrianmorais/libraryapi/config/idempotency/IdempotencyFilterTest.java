@@ -0,0 +1,100 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.IdempotencyRecordRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+
+@SpringBootTest(properties = "application.idempotency.store=database")
+@AutoConfigureMockMvc
+public class IdempotencyFilterTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	IdempotencyRecordRepository recordRepository;
+
+	@Test
+	@DisplayName("Deve repetir a resposta original para a mesma Idempotency-Key sem criar outro livro.")
+	public void replayTest() throws Exception {
+		String json = "{\"isbn\":\"idempotency-1\",\"author\":\"Fulano\",\"title\":\"Livro\"}";
+
+		MvcResult first = mvc.perform(post("/api/books").header(IdempotencyFilter.HEADER, "book-1")
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(status().isCreated())
+				.andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+				.andReturn();
+		MvcResult second = mvc.perform(post("/api/books").header(IdempotencyFilter.HEADER, "book-1")
+				.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+				.andReturn();
+
+		assertThat(second.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+		assertThat(bookRepository.findByIsbn("idempotency-1")).isPresent();
+		assertThat(recordRepository.count()).isGreaterThanOrEqualTo(1);
+
+		mvc.perform(post("/api/books").header(IdempotencyFilter.HEADER, "book-1")
+				.contentType(MediaType.APPLICATION_JSON).content(json.replace("Livro", "Outro")))
+				.andExpect(status().isUnprocessableEntity());
+	}
+
+	@Test
+	@DisplayName("Deve executar uma unica vez repeticoes simultaneas de um emprestimo.")
+	public void concurrentTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("idempotency-2").author("Fulano").title("Livro").build());
+		String json = "{\"isbn\":\"idempotency-2\",\"customer\":\"Fulano\",\"email\":\"fulano@email.com\"}";
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<MvcResult>> results = new ArrayList<>();
+			Callable<MvcResult> request = () -> mvc.perform(post("/api/loans").header(IdempotencyFilter.HEADER, "loan-1")
+					.contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(json))
+					.andReturn();
+			for (int i = 0; i < 4; i++)
+				results.add(executor.submit(request));
+
+			String id = null;
+			for (Future<MvcResult> result : results) {
+				assertThat(result.get().getResponse().getStatus()).isEqualTo(201);
+				String body = result.get().getResponse().getContentAsString();
+				assertThat(id == null || id.equals(body)).isTrue();
+				id = body;
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(loanRepository.findByBook(book, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+	}
+
+}
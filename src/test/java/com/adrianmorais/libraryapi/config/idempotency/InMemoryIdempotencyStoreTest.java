@@ -0,0 +1,39 @@
+package com.adrianmorais.libraryapi.config.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryIdempotencyStoreTest {
+
+	@Test
+	@DisplayName("Deve descartar a chave menos usada ao passar do limite.")
+	public void evictLeastRecentlyUsedTest() {
+		InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(2, 60_000);
+		store.save("a", response(System.currentTimeMillis()));
+		store.save("b", response(System.currentTimeMillis()));
+		store.find("a");
+		store.save("c", response(System.currentTimeMillis()));
+
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(store.find("a")).isNotNull();
+		assertThat(store.find("b")).isNull();
+		assertThat(store.find("c")).isNotNull();
+	}
+
+	@Test
+	@DisplayName("Deve ignorar e remover respostas mais velhas que o ttl.")
+	public void expireTest() {
+		InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, 60_000);
+		store.save("old", response(System.currentTimeMillis() - 120_000));
+
+		assertThat(store.find("old")).isNull();
+		assertThat(store.size()).isZero();
+	}
+
+	private StoredResponse response(long createdAt) {
+		return StoredResponse.builder().fingerprint("f").status(201).body(new byte[0]).createdAt(createdAt).build();
+	}
+
+}
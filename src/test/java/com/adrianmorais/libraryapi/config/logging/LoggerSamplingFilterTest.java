@@ -0,0 +1,75 @@
+package com.adrianmorais.libraryapi.config.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class LoggerSamplingFilterTest {
+
+	static String BOOK_CONTROLLER = "com.adrianmorais.libraryapi.api.resource.BookController";
+
+	@Test
+	@DisplayName("Deve descartar eventos INFO de um logger com taxa zero.")
+	public void denyInfoWithZeroRateTest() {
+		LoggerSamplingFilter filter = createFilter("com.adrianmorais.libraryapi.api.resource=0");
+
+		assertThat(filter.decide(event(BOOK_CONTROLLER, Level.INFO))).isEqualTo(FilterReply.DENY);
+	}
+
+	@Test
+	@DisplayName("Nunca deve descartar eventos WARN e ERROR.")
+	public void neverDenyWarnAndErrorTest() {
+		LoggerSamplingFilter filter = createFilter("com.adrianmorais.libraryapi=0");
+
+		assertThat(filter.decide(event(BOOK_CONTROLLER, Level.WARN))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event(BOOK_CONTROLLER, Level.ERROR))).isEqualTo(FilterReply.NEUTRAL);
+	}
+
+	@Test
+	@DisplayName("Deve usar a regra de maior prefixo.")
+	public void longestPrefixWinsTest() {
+		LoggerSamplingFilter filter = createFilter("com.adrianmorais.libraryapi=0, " + BOOK_CONTROLLER + "=1");
+
+		assertThat(filter.decide(event(BOOK_CONTROLLER, Level.INFO))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event("com.adrianmorais.libraryapi.service.ScheduleService", Level.INFO)))
+			.isEqualTo(FilterReply.DENY);
+	}
+
+	@Test
+	@DisplayName("Nao deve aplicar regra a logger que apenas comeca com o mesmo texto.")
+	public void prefixMustMatchPackageBoundaryTest() {
+		LoggerSamplingFilter filter = createFilter(BOOK_CONTROLLER + "=0");
+
+		assertThat(filter.decide(event(BOOK_CONTROLLER + "Helper", Level.INFO))).isEqualTo(FilterReply.NEUTRAL);
+	}
+
+	@Test
+	@DisplayName("Deve manter tudo com taxa invalida e limitar taxas fora de [0,1].")
+	public void invalidRateTest() {
+		LoggerSamplingFilter filter = createFilter(BOOK_CONTROLLER + "=abc, com.adrianmorais.libraryapi.service=-2");
+
+		assertThat(filter.decide(event(BOOK_CONTROLLER, Level.INFO))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event("com.adrianmorais.libraryapi.service.ScheduleService", Level.INFO)))
+			.isEqualTo(FilterReply.DENY);
+	}
+
+	private LoggerSamplingFilter createFilter(String rules) {
+		LoggerSamplingFilter filter = new LoggerSamplingFilter();
+		filter.setRules(rules);
+		filter.start();
+		return filter;
+	}
+
+	private LoggingEvent event(String logger, Level level) {
+		LoggingEvent event = new LoggingEvent();
+		event.setLoggerName(logger);
+		event.setLevel(level);
+		event.setMessage("message");
+		return event;
+	}
+}
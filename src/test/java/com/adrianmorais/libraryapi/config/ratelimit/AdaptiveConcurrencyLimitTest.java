@@ -0,0 +1,58 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimitTest {
+
+	static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	@Test
+	@DisplayName("Deve recusar requisicoes acima do limite.")
+	public void rejectAboveLimitTest() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 100, 0.5);
+
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isFalse();
+		assertThat(limit.getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve aumentar o limite enquanto a latencia fica abaixo do alvo.")
+	public void additiveIncreaseTest() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 100, 0.5);
+
+		for (int i = 0; i < 20; i++) {
+			limit.tryAcquire();
+			limit.tryAcquire();
+			limit.release(FAST);
+			limit.release(FAST);
+		}
+
+		assertThat(limit.getLimit()).isGreaterThan(2).isLessThanOrEqualTo(10);
+	}
+
+	@Test
+	@DisplayName("Deve reduzir o limite quando a latencia passa do alvo, respeitando o minimo.")
+	public void multiplicativeDecreaseTest() throws Exception {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 3, 10, 1, 0.5);
+
+		Thread.sleep(2);
+		limit.tryAcquire();
+		limit.release(SLOW);
+		assertThat(limit.getLimit()).isEqualTo(4);
+
+		Thread.sleep(2);
+		limit.tryAcquire();
+		limit.release(SLOW);
+		assertThat(limit.getLimit()).isEqualTo(3);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+}
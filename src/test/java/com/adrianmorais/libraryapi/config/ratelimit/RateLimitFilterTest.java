@@ -0,0 +1,126 @@
+package com.adrianmorais.libraryapi.config.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@SpringBootTest(properties = {
+		"application.ratelimit.enabled=true",
+		"application.ratelimit.search.capacity=2",
+		"application.ratelimit.search.refill-per-second=0.01" })
+@AutoConfigureMockMvc
+@DirtiesContext
+public class RateLimitFilterTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	RateLimiterEndpoint endpoint;
+
+	@Test
+	@DisplayName("Deve retornar 429 quando o cliente esgotar o balde de buscas.")
+	public void searchBucketExhaustedTest() throws Exception {
+		for (int i = 0; i < 2; i++)
+			mvc.perform(search("client-a")).andExpect(status().isOk());
+
+		mvc.perform(search("client-a"))
+			.andExpect(status().isTooManyRequests())
+			.andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+			.andExpect(jsonPath("errors[0]").value("Too many requests"));
+
+		// consultas GraphQL tambem sao buscas
+		mvc.perform(MockMvcRequestBuilders.post("/api/graphql").header(RateLimitFilter.API_KEY_HEADER, "client-a")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"query\":\"{ books(page: 0, size: 1) { total } }\"}"))
+			.andExpect(status().isTooManyRequests());
+
+		// outro cliente e leituras por id usam baldes proprios
+		mvc.perform(search("client-b")).andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/1").header(RateLimitFilter.API_KEY_HEADER, "client-a"))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@DisplayName("Deve cobrar cada operacao de um lote pelo balde do seu tipo antes de executar.")
+	public void batchOperationsTest() throws Exception {
+		mvc.perform(search("client-d")).andExpect(status().isOk());
+
+		// uma ficha de busca sobrando e duas buscas no lote
+		mvc.perform(batch("client-d", "GET /api/books?title=abc", "GET /api/loans?isbn=abc", "GET /api/books/1"))
+			.andExpect(status().isTooManyRequests())
+			.andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+			.andExpect(jsonPath("errors[0]").value("Too many requests"));
+
+		mvc.perform(batch("client-e", "GET /api/books?title=abc", "GET /api/books/1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("results[0].status").value(200))
+			.andExpect(jsonPath("results[1].status").value(404));
+		mvc.perform(search("client-e")).andExpect(status().isOk());
+		mvc.perform(search("client-e")).andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	@DisplayName("Deve expor o estado do limitador no actuator.")
+	public void endpointStateTest() throws Exception {
+		mvc.perform(search("client-c")).andExpect(status().isOk());
+
+		RateLimiterState state = endpoint.state();
+
+		assertThat(state.isActive()).isTrue();
+		assertThat(state.getTiers()).containsKeys("point", "search");
+		assertThat(state.getTiers().get("search").getCapacity()).isEqualTo(2);
+		assertThat(state.getThrottledClients()).anyMatch(client -> client.getClient().equals("key:client-c"));
+	}
+
+	@Test
+	@DisplayName("Deve limitar as chaves com balde proprio por endereco e descartar o cliente menos recente.")
+	public void keysPerAddressAndEvictionTest() {
+		RateLimiter limiter = new RateLimiter(new TierSettings(1, 0.01), new TierSettings(1, 0.01), 3, 2);
+
+		assertThat(limiter.tryAcquire("10.0.0.1", "key-1", RateLimiter.Tier.POINT)).isZero();
+		assertThat(limiter.tryAcquire("10.0.0.1", "key-2", RateLimiter.Tier.POINT)).isZero();
+		// terceira chave do mesmo endereco: balde do endereco, que a quarta ja encontra vazio
+		assertThat(limiter.tryAcquire("10.0.0.1", "key-3", RateLimiter.Tier.POINT)).isZero();
+		assertThat(limiter.tryAcquire("10.0.0.1", "key-4", RateLimiter.Tier.POINT)).isPositive();
+		assertThat(limiter.tryAcquire("10.0.0.1", null, RateLimiter.Tier.POINT)).isPositive();
+		assertThat(limiter.getClients()).isEqualTo(3);
+
+		// cheio: o novo cliente entra e a passada de descarte tira o menos usado (key-1)
+		assertThat(limiter.tryAcquire("10.0.0.2", null, RateLimiter.Tier.POINT)).isZero();
+		assertThat(limiter.getClients()).isEqualTo(4);
+		limiter.evict();
+		assertThat(limiter.getClients()).isEqualTo(3);
+		assertThat(limiter.mostThrottled(10)).noneMatch(client -> client.getClient().equals("key:key-1"));
+	}
+
+	// operacoes como "GET /api/books/1"
+	private MockHttpServletRequestBuilder batch(String apiKey, String... operations) {
+		StringBuilder json = new StringBuilder("{\"stopOnError\":false,\"operations\":[");
+		for (int i = 0; i < operations.length; i++) {
+			String[] operation = operations[i].split(" ");
+			json.append(i == 0 ? "" : ",").append("{\"method\":\"").append(operation[0])
+				.append("\",\"path\":\"").append(operation[1]).append("\"}");
+		}
+		return MockMvcRequestBuilders.post("/api/batch").header(RateLimitFilter.API_KEY_HEADER, apiKey)
+				.contentType(MediaType.APPLICATION_JSON).content(json.append("]}").toString());
+	}
+
+	private MockHttpServletRequestBuilder search(String apiKey) {
+		return MockMvcRequestBuilders.get("/api/books?title=abc&page=0&size=10")
+				.header(RateLimitFilter.API_KEY_HEADER, apiKey);
+	}
+
+}
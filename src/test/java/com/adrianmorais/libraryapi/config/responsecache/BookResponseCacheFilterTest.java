@@ -0,0 +1,147 @@
+package com.adrianmorais.libraryapi.config.responsecache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.StreamUtils;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.json.CborMessageConverter;
+import com.adrianmorais.libraryapi.config.responsecache.BookResponseCache.Entry;
+import com.adrianmorais.libraryapi.config.responsecache.BookResponseCache.Format;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// contexto proprio: as leituras daqui nao entram nas metricas de /api/books/{id} dos outros testes
+@SpringBootTest(properties = "application.books.response-cache.ttl-ms=60000")
+@AutoConfigureMockMvc
+public class BookResponseCacheFilterTest {
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	BookResponseCache cache;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	CborMessageConverter cbor;
+
+	@Test
+	@DisplayName("Deve responder a leitura por id com os bytes em cache e remove-los quando o livro muda.")
+	public void cacheHitAndInvalidationTest() throws Exception {
+		Book book = repository.save(Book.builder().isbn("response-cache-1").author("Fulano").title("As aventuras").build());
+		String uri = "/api/books/" + book.getId();
+		double hits = hits();
+
+		mvc.perform(get(uri)).andExpect(status().isOk()).andExpect(jsonPath("title").value("As aventuras"));
+		assertThat(cache.get(book.getId())).isNotNull();
+		mvc.perform(get(uri).accept("application/json"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/json"))
+				.andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+				.andExpect(jsonPath("isbn").value("response-cache-1"));
+		byte[] body = mvc.perform(get(uri).accept("application/cbor")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(cbor.getObjectMapper().readValue(body, BookDTO.class).getTitle()).isEqualTo("As aventuras");
+		assertThat(hits() - hits).isEqualTo(2);
+
+		service.update(book.getId(), Book.builder().isbn("response-cache-1").author("Fulano").title("Outro titulo").build());
+		assertThat(cache.get(book.getId())).isNull();
+		mvc.perform(get(uri)).andExpect(status().isOk()).andExpect(jsonPath("title").value("Outro titulo"));
+
+		service.delete(repository.findById(book.getId()).get());
+		mvc.perform(get(uri)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	@DisplayName("Deve deixar para o controller os Accept que o cache nao atende.")
+	public void passThroughTest() throws Exception {
+		Book book = repository.save(Book.builder().isbn("response-cache-2").author("Fulano").title("As aventuras").build());
+		double hits = hits();
+
+		mvc.perform(get("/api/books/" + book.getId()).accept("application/json, text/plain, */*"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("title").value("As aventuras"));
+		mvc.perform(get("/api/books/" + book.getId()).accept("text/html")).andExpect(status().isNotAcceptable());
+		assertThat(hits()).isEqualTo(hits);
+	}
+
+	@Test
+	@DisplayName("Deve guardar a versao gzip a partir do tamanho minimo e descartar leituras anteriores a uma alteracao.")
+	public void gzipAndStaleReadTest() throws Exception {
+		BookResponseCache small = new BookResponseCache(objectMapper, objectMapper, objectMapper, 10, 60_000, 16);
+		BookDTO dto = BookDTO.builder().id(1l).isbn("123").author("Fulano").title("As aventuras").build();
+
+		Entry entry = small.put(1l, dto, small.stamp());
+		byte[] unzipped = StreamUtils.copyToByteArray(
+				new GZIPInputStream(new ByteArrayInputStream(entry.gzipped(Format.JSON))));
+		assertThat(unzipped).isEqualTo(entry.body(Format.JSON));
+		assertThat(small.get(1l)).isSameAs(entry);
+
+		long stamp = small.stamp();
+		small.evict(1l);
+		small.put(1l, dto, stamp);
+		assertThat(small.get(1l)).isNull();
+
+		assertThat(BookResponseCacheFilter.acceptsGzip("gzip, deflate")).isTrue();
+		assertThat(BookResponseCacheFilter.acceptsGzip("deflate, gzip;q=0.5")).isTrue();
+		assertThat(BookResponseCacheFilter.acceptsGzip("gzip;q=0, deflate")).isFalse();
+		assertThat(BookResponseCacheFilter.acceptsGzip(null)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve continuar guardando quando cheio, descartando primeiro as entradas nao lidas.")
+	public void evictionTest() {
+		BookResponseCache small = new BookResponseCache(objectMapper, objectMapper, objectMapper, 2, 60_000, 1024);
+		small.put(1l, book(1l), small.stamp());
+		small.put(2l, book(2l), small.stamp());
+		assertThat(small.get(1l)).isNotNull();
+
+		// 1 foi lido: ganha uma segunda chance e sai o 2
+		small.put(3l, book(3l), small.stamp());
+		assertThat(small.size()).isEqualTo(2);
+		assertThat(small.get(2l)).isNull();
+		assertThat(small.get(3l)).isNotNull();
+
+		small.put(4l, book(4l), small.stamp());
+		assertThat(small.size()).isEqualTo(2);
+		assertThat(small.get(4l)).isNotNull();
+	}
+
+	private BookDTO book(Long id) {
+		return BookDTO.builder().id(id).isbn("isbn-" + id).author("Fulano").title("Livro").build();
+	}
+
+	private double hits() {
+		return registry.counter(BookResponseCacheFilter.METRIC, "result", "hit").count();
+	}
+}
@@ -0,0 +1,59 @@
+package com.adrianmorais.libraryapi.config.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.adrianmorais.libraryapi.LibraryApiApplication;
+
+public class FastStartupTest {
+
+	@Test
+	@DisplayName("Deve registrar o tempo ate a primeira requisicao com sucesso no perfil prod.")
+	public void timeToFirstSuccessfulRequestTest() throws Exception {
+		long start = System.nanoTime();
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+				.profiles("prod")
+				.properties("server.port=0")
+				.run()) {
+			long started = System.nanoTime();
+			String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			RestTemplate rest = new RestTemplate();
+
+			HttpStatus status = null;
+			while (status != HttpStatus.OK && System.nanoTime() - start < TimeUnit.MINUTES.toNanos(1)) {
+				try {
+					status = rest.getForEntity(baseUrl + "/api/books?page=0&size=10", String.class).getStatusCode();
+				} catch (RestClientException e) {
+					Thread.sleep(10);
+				}
+			}
+			long firstRequest = System.nanoTime();
+
+			assertThat(status).isEqualTo(HttpStatus.OK);
+			assertThat(rest.getForEntity(baseUrl + "/actuator/startuptimeline", String.class).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+
+			String result = String.format("{\"profile\":\"prod\",\"startupMillis\":%d,\"timeToFirstRequestMillis\":%d}",
+					TimeUnit.NANOSECONDS.toMillis(started - start), TimeUnit.NANOSECONDS.toMillis(firstRequest - start));
+			Path dir = Paths.get("target", "startup");
+			Files.createDirectories(dir);
+			Files.write(dir.resolve("time-to-first-request.json"), result.getBytes(StandardCharsets.UTF_8));
+			System.out.println("[startup] " + result);
+		}
+	}
+
+}
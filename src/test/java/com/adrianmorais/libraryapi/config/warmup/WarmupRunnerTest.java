@@ -0,0 +1,55 @@
+package com.adrianmorais.libraryapi.config.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"application.warmup.enabled=true",
+		"application.warmup.min-rounds=3",
+		"application.warmup.max-rounds=20" })
+public class WarmupRunnerTest {
+
+	@Autowired
+	WarmupRunner runner;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	ApplicationAvailability availability;
+
+	@Test
+	@DisplayName("Deve aquecer a aplicacao antes do readiness sem deixar dados gravados.")
+	public void warmupBeforeReadinessTest() {
+		WarmupReport report = runner.getReport();
+
+		assertThat(report).isNotNull();
+		assertThat(report.getRounds()).isBetween(3, 20);
+		assertThat(report.getFirstRoundMillis()).isPositive();
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+		assertThat(bookRepository.findAll())
+			.noneMatch(book -> book.getIsbn().startsWith(WarmupRunner.ISBN_PREFIX));
+
+		// o banco de teste e compartilhado: compara as contagens antes e depois de uma nova rodada
+		long books = bookRepository.count();
+		long loans = loanRepository.count();
+		runner.run(null);
+		assertThat(bookRepository.count()).isEqualTo(books);
+		assertThat(loanRepository.count()).isEqualTo(loans);
+	}
+
+}
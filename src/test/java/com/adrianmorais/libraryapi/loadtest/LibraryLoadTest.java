@@ -0,0 +1,185 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.adrianmorais.libraryapi.api.dto.BookDTO;
+import com.adrianmorais.libraryapi.api.dto.LoanDTO;
+import com.adrianmorais.libraryapi.api.dto.ReturnedLoadDTO;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.CustomerService;
+import com.adrianmorais.libraryapi.service.LoanService;
+
+/**
+ * Sobe a aplicacao com H2 em memoria e executa o mix de cenarios configurado, gerando
+ * target/loadtest/report.json e report.html. Falha se a taxa de erro ou o p99 passarem dos limites.
+ *
+ * Rodar com: mvn test -Ploadtest -Dloadtest.rate=200 -Dloadtest.duration=120
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "application.ratelimit.enabled=false")
+public class LibraryLoadTest {
+
+	@Autowired
+	TestRestTemplate rest;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	LoanService loanService;
+
+	@Autowired
+	CustomerService customerService;
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final Queue<Book> availableBooks = new ConcurrentLinkedQueue<>();
+	private final Queue<Loan> activeLoans = new ConcurrentLinkedQueue<>();
+
+	@Test
+	@DisplayName("Deve sustentar a taxa configurada dentro dos limites de erro e latencia.")
+	public void bookAndLoanWorkflowsUnderLoadTest() throws Exception {
+		LoadTestSettings settings = new LoadTestSettings();
+		for (int i = 0; i < settings.getSeedBooks(); i++)
+			availableBooks.add(bookRepository.save(newBook()));
+
+		LoadGenerator generator = new LoadGenerator(settings, this::execute);
+		generator.run(settings.getWarmupSeconds());
+		generator.reset();
+
+		long start = System.nanoTime();
+		generator.run(settings.getDurationSeconds());
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		LoadTestReport report = new LoadTestReport(settings, generator.getStats(), elapsed);
+		Path path = report.write(settings.getReportDir());
+		System.out.printf("%n[loadtest] %d requests in %.1fs, %.1f req/s, error rate %.4f, p99 %.2f ms, report at %s%n",
+				report.getOverall().count(), elapsed, report.getOverall().count() / elapsed,
+				report.getOverall().errorRate(), report.getOverall().percentileMillis(99), path.toAbsolutePath());
+
+		assertThat(report.getOverall().errorRate()).isLessThanOrEqualTo(settings.getMaxErrorRate());
+		if (settings.getMaxP99Millis() > 0)
+			assertThat(report.getOverall().percentileMillis(99)).isLessThanOrEqualTo(settings.getMaxP99Millis());
+	}
+
+	private boolean execute(Scenario scenario) {
+		switch (scenario) {
+		case CREATE_BOOK:
+			return createBook();
+		case SEARCH:
+			return search();
+		case CREATE_LOAN:
+			return createLoan();
+		case RETURN_LOAN:
+			return returnLoan();
+		case LATE_LOAN:
+			return lateLoan();
+		default:
+			throw new IllegalArgumentException(scenario.name());
+		}
+	}
+
+	private boolean createBook() {
+		Book book = newBook();
+		BookDTO dto = BookDTO.builder().title(book.getTitle()).author(book.getAuthor()).isbn(book.getIsbn()).build();
+		ResponseEntity<BookDTO> response = rest.postForEntity("/api/books", dto, BookDTO.class);
+		if (response.getStatusCode() != HttpStatus.CREATED)
+			return false;
+
+		availableBooks.add(Book.builder().id(response.getBody().getId()).isbn(book.getIsbn()).build());
+		return true;
+	}
+
+	private boolean search() {
+		String uri = ThreadLocalRandom.current().nextBoolean()
+			? "/api/books?title=Title " + ThreadLocalRandom.current().nextInt(10) + "&page=0&size=20"
+			: "/api/loans?customer=" + customer() + "&isbn=isbn-" + ThreadLocalRandom.current().nextLong(sequence.get() + 1)
+				+ "&page=0&size=20";
+		return rest.getForEntity(uri, String.class).getStatusCode() == HttpStatus.OK;
+	}
+
+	private boolean createLoan() {
+		Book book = availableBooks.poll();
+		if (book == null)
+			return createBook();
+
+		LoanDTO dto = LoanDTO.builder().isbn(book.getIsbn()).customer(customer()).email("customer@email.com").build();
+		ResponseEntity<Long> response = rest.postForEntity("/api/loans", dto, Long.class);
+		if (response.getStatusCode() != HttpStatus.CREATED) {
+			availableBooks.add(book);
+			return false;
+		}
+
+		activeLoans.add(Loan.builder().id(response.getBody()).book(book).build());
+		return true;
+	}
+
+	private boolean returnLoan() {
+		Loan loan = activeLoans.poll();
+		if (loan == null)
+			return search();
+
+		return returnLoan(loan);
+	}
+
+	private boolean lateLoan() {
+		Book book = availableBooks.poll();
+		if (book == null)
+			return search();
+
+		// a API sempre usa a data atual, entao o emprestimo atrasado e gravado direto no repositorio
+		Loan loan = loanRepository.save(Loan.builder().book(book)
+				.customer(customerService.resolve(customer(), "customer@email.com")).loanDate(LocalDate.now().minusDays(10)).build());
+
+		boolean success = rest.getForEntity("/api/books/" + book.getId() + "/loans?page=0&size=10", String.class)
+			.getStatusCode() == HttpStatus.OK;
+		success &= !loanService.getAllLateLoans().isEmpty();
+		return returnLoan(loan) && success;
+	}
+
+	private boolean returnLoan(Loan loan) {
+		HttpEntity<ReturnedLoadDTO> body = new HttpEntity<>(ReturnedLoadDTO.builder().returned(true).build());
+		ResponseEntity<Void> response = rest.exchange("/api/loans/" + loan.getId(), HttpMethod.PATCH, body, Void.class);
+		if (response.getStatusCode() != HttpStatus.OK) {
+			activeLoans.add(loan);
+			return false;
+		}
+
+		availableBooks.add(loan.getBook());
+		return true;
+	}
+
+	private Book newBook() {
+		long id = sequence.incrementAndGet();
+		return Book.builder().title("Title " + (id % 10) + " " + id).author("Author " + (id % 50)).isbn("isbn-" + id).build();
+	}
+
+	private String customer() {
+		return "customer-" + ThreadLocalRandom.current().nextInt(1000);
+	}
+
+}
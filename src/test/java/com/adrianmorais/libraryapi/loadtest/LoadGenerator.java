@@ -0,0 +1,78 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Gerador de carga em modelo aberto: dispara cenarios numa taxa fixa, independente do tempo
+ * de resposta, sorteando cada um de acordo com o peso configurado.
+ */
+public class LoadGenerator {
+
+	private final LoadTestSettings settings;
+	private final Predicate<Scenario> executor;
+	private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+	private final Scenario[] weighted;
+
+	public LoadGenerator(LoadTestSettings settings, Predicate<Scenario> executor) {
+		this.settings = settings;
+		this.executor = executor;
+
+		int total = settings.getMix().values().stream().mapToInt(Integer::intValue).sum();
+		this.weighted = new Scenario[total];
+		int i = 0;
+		for (Map.Entry<Scenario, Integer> entry : settings.getMix().entrySet()) {
+			stats.put(entry.getKey(), new ScenarioStats());
+			for (int w = 0; w < entry.getValue(); w++)
+				weighted[i++] = entry.getKey();
+		}
+	}
+
+	public Map<Scenario, ScenarioStats> getStats() {
+		return stats;
+	}
+
+	public void run(long seconds) throws InterruptedException {
+		ExecutorService workers = Executors.newFixedThreadPool(settings.getWorkers());
+		long interval = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+		long start = System.nanoTime();
+		long total = seconds * settings.getRate();
+
+		for (long i = 0; i < total; i++) {
+			long intended = start + i * interval;
+			long wait = intended - System.nanoTime();
+			if (wait > 0)
+				LockSupport.parkNanos(wait);
+
+			Scenario scenario = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+			workers.execute(() -> {
+				boolean success;
+				try {
+					success = executor.test(scenario);
+				} catch (RuntimeException e) {
+					success = false;
+				}
+				stats.get(scenario).record(System.nanoTime() - intended, success);
+			});
+		}
+
+		workers.shutdown();
+		// estatisticas de uma rodada incompleta subestimam a latencia: a rodada falha
+		if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+			int notStarted = workers.shutdownNow().size();
+			throw new IllegalStateException("Load run did not finish within 1 minute after the last request ("
+					+ notStarted + " scenarios never started)");
+		}
+	}
+
+	public void reset() {
+		stats.values().forEach(ScenarioStats::reset);
+	}
+
+}
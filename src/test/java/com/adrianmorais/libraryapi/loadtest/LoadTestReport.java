@@ -0,0 +1,77 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Gera report.json e report.html com o resultado do teste de carga.
+ */
+public class LoadTestReport {
+
+	private final Map<String, Object> summary = new LinkedHashMap<>();
+	private final ScenarioStats overall = new ScenarioStats();
+
+	public LoadTestReport(LoadTestSettings settings, Map<Scenario, ScenarioStats> stats, double elapsedSeconds) {
+		Map<String, Object> scenarios = new LinkedHashMap<>();
+		stats.forEach((scenario, scenarioStats) -> {
+			scenarios.put(scenario.name(), scenarioStats.toMap(elapsedSeconds));
+			overall.add(scenarioStats);
+		});
+
+		Map<String, Object> config = new LinkedHashMap<>();
+		config.put("targetRate", settings.getRate());
+		config.put("durationSeconds", settings.getDurationSeconds());
+		config.put("workers", settings.getWorkers());
+		config.put("mix", settings.getMix());
+
+		summary.put("timestamp", Instant.now().toString());
+		summary.put("config", config);
+		summary.put("overall", overall.toMap(elapsedSeconds));
+		summary.put("scenarios", scenarios);
+	}
+
+	public ScenarioStats getOverall() {
+		return overall;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Path write(String dir) throws IOException {
+		Path path = Paths.get(dir);
+		Files.createDirectories(path);
+
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+			.writeValue(path.resolve("report.json").toFile(), summary);
+
+		StringBuilder html = new StringBuilder();
+		html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Library API load test</title>")
+			.append("<style>body{font-family:sans-serif}table{border-collapse:collapse}")
+			.append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}</style></head><body>")
+			.append("<h1>Library API load test</h1><p>").append(summary.get("timestamp")).append("</p>")
+			.append("<p>").append(summary.get("config")).append("</p>")
+			.append("<table><tr><th>scenario</th><th>requests</th><th>errors</th><th>error rate</th>")
+			.append("<th>req/s</th><th>p50 ms</th><th>p95 ms</th><th>p99 ms</th><th>p99.9 ms</th><th>max ms</th></tr>");
+		row(html, "OVERALL", (Map<String, Object>) summary.get("overall"));
+		((Map<String, Map<String, Object>>) summary.get("scenarios")).forEach((name, values) -> row(html, name, values));
+		html.append("</table></body></html>");
+
+		Files.write(path.resolve("report.html"), html.toString().getBytes(StandardCharsets.UTF_8));
+		return path;
+	}
+
+	private void row(StringBuilder html, String name, Map<String, Object> values) {
+		html.append("<tr><th>").append(name).append("</th>");
+		values.values().forEach(value -> html.append("<td>")
+			.append(value instanceof Double ? String.format("%.3f", value) : value).append("</td>"));
+		html.append("</tr>");
+	}
+
+}
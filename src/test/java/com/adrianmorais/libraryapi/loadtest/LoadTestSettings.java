@@ -0,0 +1,37 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Configuracao do teste de carga, lida de system properties (-Dloadtest.rate=200 ...).
+ */
+@Getter
+public class LoadTestSettings {
+
+	static final String DEFAULT_MIX = "CREATE_BOOK=15,SEARCH=40,CREATE_LOAN=20,RETURN_LOAN=20,LATE_LOAN=5";
+
+	private final int rate = Integer.getInteger("loadtest.rate", 100);
+	private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+	private final int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+	private final int workers = Integer.getInteger("loadtest.workers", 32);
+	private final int seedBooks = Integer.getInteger("loadtest.seedBooks", 200);
+	private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+	private final double maxP99Millis = Double.parseDouble(System.getProperty("loadtest.maxP99Millis", "0"));
+	private final String reportDir = System.getProperty("loadtest.reportDir", "target/loadtest");
+	private final Map<Scenario, Integer> mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+
+	private static Map<Scenario, Integer> parseMix(String value) {
+		Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+		for (String entry : value.split(",")) {
+			String[] parts = entry.trim().split("=");
+			if (parts.length != 2)
+				throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+			mix.put(Scenario.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+		}
+		return mix;
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+public enum Scenario {
+
+	CREATE_BOOK,
+	SEARCH,
+	CREATE_LOAN,
+	RETURN_LOAN,
+	LATE_LOAN
+
+}
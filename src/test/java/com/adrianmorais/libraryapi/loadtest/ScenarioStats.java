@@ -0,0 +1,69 @@
+package com.adrianmorais.libraryapi.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencias e erros de um cenario. A latencia e medida a partir do instante em que a requisicao
+ * deveria ter sido disparada, para nao esconder filas (coordinated omission).
+ */
+public class ScenarioStats {
+
+	private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+	private final LongAdder errors = new LongAdder();
+
+	public void record(long latencyNanos, boolean success) {
+		histogram.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+		if (!success)
+			errors.increment();
+	}
+
+	public void reset() {
+		histogram.reset();
+		errors.reset();
+	}
+
+	public long count() {
+		return histogram.getTotalCount();
+	}
+
+	public long errors() {
+		return errors.sum();
+	}
+
+	public double errorRate() {
+		long count = count();
+		return count == 0 ? 0d : (double) errors() / count;
+	}
+
+	public double percentileMillis(double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1_000_000d;
+	}
+
+	public Map<String, Object> toMap(double elapsedSeconds) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("requests", count());
+		map.put("errors", errors());
+		map.put("errorRate", errorRate());
+		map.put("throughput", count() / elapsedSeconds);
+		map.put("p50", percentileMillis(50));
+		map.put("p95", percentileMillis(95));
+		map.put("p99", percentileMillis(99));
+		map.put("p999", percentileMillis(99.9));
+		map.put("max", histogram.getMaxValue() / 1_000_000d);
+		return map;
+	}
+
+	public void add(ScenarioStats other) {
+		histogram.add(other.histogram);
+		errors.add(other.errors());
+	}
+
+}
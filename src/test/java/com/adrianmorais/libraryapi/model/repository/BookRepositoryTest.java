@@ -2,6 +2,10 @@ package com.adrianmorais.libraryapi.model.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.DisplayName;
@@ -10,10 +14,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Loan;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -93,6 +100,47 @@ public class BookRepositoryTest {
 		assertThat(deletedBook).isNull();
 	}
 
+	@Test
+	@DisplayName("Deve buscar livros selecionando apenas as colunas pedidas.")
+	public void findProjectedTest() {
+		entityManager.persist(createNewBook("123"));
+		entityManager.persist(Book.builder().title("Outro livro").author("Ciclano").isbn("456").build());
+		
+		Book filter = Book.builder().title("aventuras").build();
+		Page<Book> result = repository.findProjected(filter, new HashSet<>(Arrays.asList("isbn", "title")),
+				PageRequest.of(0, 10));
+		
+		assertThat(result.getTotalElements()).isEqualTo(1);
+		assertThat(result.getContent()).hasSize(1);
+		Book book = result.getContent().get(0);
+		assertThat(book.getIsbn()).isEqualTo("123");
+		assertThat(book.getTitle()).isEqualTo("As aventuras");
+		assertThat(book.getAuthor()).isNull();
+		assertThat(book.getId()).isNull();
+	}
+
+	@Test
+	@DisplayName("Deve buscar varios livros por isbn com o emprestimo em aberto de cada um.")
+	public void findAvailabilityTest() {
+		Book available = createNewBook("123");
+		Book loaned = createNewBook("456");
+		entityManager.persist(available);
+		entityManager.persist(loaned);
+		entityManager.persist(Loan.builder().book(available).loanDate(LocalDate.now().minusDays(20)).returned(true).build());
+		Loan open = Loan.builder().book(loaned).loanDate(LocalDate.now()).build();
+		entityManager.persist(open);
+		
+		List<BookAvailability> result = repository.findAvailabilityByIsbnIn(Arrays.asList("123", "456", "789"));
+		
+		assertThat(result).hasSize(2);
+		assertThat(result).filteredOn(BookAvailability::isAvailable).extracting(BookAvailability::getIsbn).containsExactly("123");
+		BookAvailability onLoan = result.stream().filter(b -> !b.isAvailable()).findFirst().get();
+		assertThat(onLoan.getBookId()).isEqualTo(loaned.getId());
+		assertThat(onLoan.getLoanId()).isEqualTo(open.getId());
+		assertThat(onLoan.getLoanDate()).isEqualTo(LocalDate.now());
+		assertThat(repository.findAvailabilityByIdIn(Arrays.asList(loaned.getId()))).hasSize(1);
+	}
+
 	public static Book createNewBook(String isbn) {
 		return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
 	}
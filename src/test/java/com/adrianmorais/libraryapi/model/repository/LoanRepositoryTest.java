@@ -3,6 +3,8 @@ package com.adrianmorais.libraryapi.model.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.DisplayName;
@@ -17,6 +19,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 
 @ExtendWith(SpringExtension.class)
@@ -49,7 +52,7 @@ public class LoanRepositoryTest {
 	public void findByBookIsbnIrCustomerTest() throws Exception {
 		Loan loan = createAndPersistLoan(LocalDate.now());
 
-		Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+		Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "Fulano", false, PageRequest.of(0, 10));
 
 		assertThat(result.getContent()).hasSize(1);
 		assertThat(result.getContent()).contains(loan);
@@ -74,11 +77,80 @@ public class LoanRepositoryTest {
 		assertThat(result).isEmpty();
 	}
 	
+	@Test
+	@DisplayName("Deve buscar empréstimos selecionando apenas as colunas pedidas.")
+	public void findProjectedByBookIsbnOrCustomerTest() throws Exception {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+
+		Page<Loan> result = repository.findProjectedByBookIsbnOrCustomer(null, "Fulano", false,
+				new HashSet<>(Arrays.asList("id", "customer")), PageRequest.of(0, 10));
+
+		assertThat(result.getTotalElements()).isEqualTo(1);
+		Loan projected = result.getContent().get(0);
+		assertThat(projected.getId()).isEqualTo(loan.getId());
+		assertThat(projected.getCustomerName()).isEqualTo("Fulano");
+		assertThat(projected.getBook()).isNull();
+		assertThat(projected.getLoanDate()).isNull();
+	}
+	
+	@Test
+	@DisplayName("Deve buscar empréstimos pelo nome ou pela entidade do cliente.")
+	public void findByCustomerTest() throws Exception {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+
+		Page<Loan> byName = repository.findByCustomerName("Fulano", PageRequest.of(0, 10));
+		Page<Loan> byCustomer = repository.findByCustomer(loan.getCustomer(), PageRequest.of(0, 10));
+
+		assertThat(byName.getContent()).containsExactly(loan);
+		assertThat(byCustomer.getContent()).containsExactly(loan);
+		assertThat(repository.findByCustomerName("Ciclano", PageRequest.of(0, 10))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve listar só os empréstimos com o cliente ainda nas colunas antigas.")
+	public void findLegacyCustomerLoansTest() throws Exception {
+		createAndPersistLoan(LocalDate.now());
+		Book book = BookRepositoryTest.createNewBook("456");
+		entityManager.persist(book);
+		Loan legacy = Loan.builder().book(book).legacyCustomer("Fulano").legacyCustomerEmail("fulano@email.com")
+				.loanDate(LocalDate.now()).build();
+		entityManager.persist(legacy);
+
+		List<LegacyCustomerLoan> result = repository.findLegacyCustomerLoans(0l, PageRequest.of(0, 10));
+
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getId()).isEqualTo(legacy.getId());
+		assertThat(result.get(0).getLegacyCustomer()).isEqualTo("Fulano");
+		assertThat(result.get(0).getLegacyCustomerEmail()).isEqualTo("fulano@email.com");
+		assertThat(legacy.getCustomerName()).isEqualTo("Fulano");
+	}
+
+	@Test
+	@DisplayName("Deve buscar pelo cliente também os empréstimos ainda não migrados.")
+	public void findByLegacyCustomerTest() throws Exception {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+		Book book = BookRepositoryTest.createNewBook("456");
+		entityManager.persist(book);
+		Loan legacy = Loan.builder().book(book).legacyCustomer("Fulano").loanDate(LocalDate.now()).build();
+		entityManager.persist(legacy);
+
+		assertThat(repository.findByCustomerNameOrLegacyCustomer("Fulano", PageRequest.of(0, 10)).getContent())
+				.containsExactlyInAnyOrder(loan, legacy);
+		assertThat(repository.findByBookIsbnOrCustomer(null, "Fulano", true, PageRequest.of(0, 10)).getContent())
+				.containsExactlyInAnyOrder(loan, legacy);
+		assertThat(repository.findByBookIsbnOrCustomer(null, "Fulano", false, PageRequest.of(0, 10)).getContent())
+				.containsExactly(loan);
+		assertThat(repository.findProjectedByBookIsbnOrCustomer(null, "Fulano", true,
+				new HashSet<>(Arrays.asList("id", "customer")), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+	}
+	
 	private Loan createAndPersistLoan(LocalDate loanDate) {
 		Book book = BookRepositoryTest.createNewBook("123");
 		entityManager.persist(book);
+		Customer customer = Customer.builder().name("Fulano").email("").build();
+		entityManager.persist(customer);
 		
-		Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+		Loan loan = Loan.builder().book(book).customer(customer).loanDate(loanDate).build();
 		entityManager.persist(loan);
 		return loan;
 	}
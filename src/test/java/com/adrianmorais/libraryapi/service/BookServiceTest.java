@@ -18,6 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -36,7 +37,7 @@ public class BookServiceTest {
 	
 	@BeforeEach
 	public void setUp() {
-		this.service = new BookServiceImpl(repository);
+		this.service = new BookServiceImpl(repository, Mockito.mock(ApplicationEventPublisher.class));
 	}
 	
 	@Test
@@ -154,6 +155,24 @@ public class BookServiceTest {
 		assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
 	}
 	
+	@Test
+	@DisplayName("Deve atualizar os dados de um livro pelo id.")
+	public void updateBookByIdTest() {
+		Long id = 1l;
+		Book stored = Book.builder().id(id).title("Titulo antigo").author("Autor antigo").isbn("000").build();
+		Mockito.when(repository.findById(id)).thenReturn(Optional.of(stored));
+		
+		// execucao
+		Optional<Book> result = service.update(id, createValidBook());
+		
+		// verificacao: a entidade gerenciada e alterada e gravada no commit, sem save explicito
+		assertThat(result).containsSame(stored);
+		assertThat(stored.getTitle()).isEqualTo("As aventuras");
+		assertThat(stored.getAuthor()).isEqualTo("Fulano");
+		assertThat(stored.getIsbn()).isEqualTo("123");
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any(Book.class));
+	}
+	
 	@Test
 	@DisplayName("Deve ocorrer um erro ao tentar atualizar um livro inexistente.")
 	public void updateInvalidBookTest() {
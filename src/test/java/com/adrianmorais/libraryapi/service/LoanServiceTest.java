@@ -12,15 +12,19 @@ import java.util.Optional;
 import com.adrianmorais.libraryapi.api.dto.LoanFilterDTO;
 import com.adrianmorais.libraryapi.exception.BussinessException;
 import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
 import com.adrianmorais.libraryapi.model.entity.Loan;
 import com.adrianmorais.libraryapi.model.repository.LoanRepository;
 import com.adrianmorais.libraryapi.service.impl.LoanServiceImpl;
+import com.adrianmorais.libraryapi.service.migration.CustomerMigration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -35,17 +39,24 @@ public class LoanServiceTest {
 	
 	@MockBean
     LoanRepository repository;
+
+	CustomerMigration customerMigration;
 	
 	@BeforeEach
+	@SuppressWarnings("unchecked")
 	public void setUp() {
-		this.service = new LoanServiceImpl(repository);
+		customerMigration = Mockito.mock(CustomerMigration.class);
+		when(customerMigration.isComplete()).thenReturn(true);
+		ObjectProvider<CustomerMigration> provider = Mockito.mock(ObjectProvider.class);
+		when(provider.getIfAvailable()).thenReturn(customerMigration);
+		this.service = new LoanServiceImpl(repository, Mockito.mock(ApplicationEventPublisher.class), provider);
 	}
 	
 	@Test
 	@DisplayName("Deve salvar um empréstimo.")
 	public void saveLoanTest() {
 		Book book = Book.builder().id(1l).build();
-		String customer = "Fulano";
+		Customer customer = Customer.builder().id(1l).name("Fulano").email("").build();
 		
 		Loan savingLoan = Loan.builder()
 				.book(book)
@@ -75,7 +86,7 @@ public class LoanServiceTest {
 	@DisplayName("Deve lançar erro de negócio ao salvar empréstimo com livro já emprestado.")
 	public void updateInvalidBookTest() {
 		Book book = Book.builder().id(1l).build();
-		String customer = "Fulano";
+		Customer customer = Customer.builder().id(1l).name("Fulano").email("").build();
 		
 		Loan savingLoan = Loan.builder()
 				.book(book)
@@ -133,6 +144,23 @@ public class LoanServiceTest {
 		Mockito.verify(repository).save(loan);
 	}
 	
+	@Test
+	@DisplayName("Deve marcar um empréstimo como devolvido pelo id.")
+	public void returnBookTest() {
+		Long id = 1l;
+		Loan loan = createLoan();
+		loan.setId(id);
+		Mockito.when(repository.findById(id)).thenReturn(Optional.of(loan));
+		
+		// execucao
+		Optional<Loan> result = service.returnBook(id, true);
+		
+		// verificacao
+		assertThat(result).containsSame(loan);
+		assertThat(loan.getReturned()).isTrue();
+		Mockito.verify(repository, Mockito.never()).save(loan);
+	}
+	
 	@Test
 	@DisplayName("Deve filtrar empréstimos pelas propriedades.")
 	public void findLoanTest() {
@@ -148,7 +176,7 @@ public class LoanServiceTest {
 		Page<Loan> page = new PageImpl<Loan>(lista, pageRequest, lista.size());
 
 		when(repository.findByBookIsbnOrCustomer(
-				Mockito.anyString(), Mockito.anyString(), Mockito.any(PageRequest.class)))
+				Mockito.anyString(), Mockito.anyString(), Mockito.eq(false), Mockito.any(PageRequest.class)))
 			.thenReturn(page);
 		
 		// execucao
@@ -160,10 +188,43 @@ public class LoanServiceTest {
 		assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
 		assertThat(result.getPageable().getPageSize()).isEqualTo(10);
 	}
+
+	@Test
+	@DisplayName("Deve filtrar empréstimos só pelo cliente sem a consulta com o isbn.")
+	public void findLoanByCustomerTest() {
+		LoanFilterDTO loanFilter = LoanFilterDTO.builder().customer("Fulano").build();
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		Page<Loan> page = new PageImpl<Loan>(Arrays.asList(createLoan()), pageRequest, 1);
+
+		when(repository.findByCustomerName("Fulano", pageRequest)).thenReturn(page);
+
+		Page<Loan> result = service.find(loanFilter, pageRequest);
+
+		assertThat(result).isSameAs(page);
+		Mockito.verify(repository, Mockito.never()).findByBookIsbnOrCustomer(Mockito.any(), Mockito.any(),
+				Mockito.anyBoolean(), Mockito.any());
+	}
+
+	@Test
+	@DisplayName("Deve filtrar também pelas colunas antigas do cliente enquanto a migração não termina.")
+	public void findLoanByLegacyCustomerTest() {
+		LoanFilterDTO loanFilter = LoanFilterDTO.builder().customer("Fulano").build();
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		Page<Loan> page = new PageImpl<Loan>(Arrays.asList(createLoan()), pageRequest, 1);
+		when(customerMigration.isComplete()).thenReturn(false);
+		when(repository.findByCustomerNameOrLegacyCustomer("Fulano", pageRequest)).thenReturn(page);
+
+		assertThat(service.find(loanFilter, pageRequest)).isSameAs(page);
+
+		loanFilter.setIsbn("123");
+		service.find(loanFilter, pageRequest);
+		Mockito.verify(repository).findByBookIsbnOrCustomer("123", "Fulano", true, pageRequest);
+		Mockito.verify(repository, Mockito.never()).findByCustomerName(Mockito.any(), Mockito.any());
+	}
 	
 	public static Loan createLoan() {
 		Book book = Book.builder().id(1l).build();
-		String customer = "Fulano";
+		Customer customer = Customer.builder().id(1l).name("Fulano").email("").build();
 		
 		Loan savingLoan = Loan.builder()
 				.book(book)
@@ -0,0 +1,185 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.adrianmorais.libraryapi.service.CustomerService;
+import com.adrianmorais.libraryapi.service.LoanService;
+import com.adrianmorais.libraryapi.service.event.LoanChangedEvent;
+
+@SpringBootTest(properties = "application.analytics.rebuild.chunk-size=2")
+@AutoConfigureMockMvc
+public class LoanAnalyticsTest {
+
+	@Autowired
+	LoanAnalytics analytics;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	LoanService loanService;
+
+	@Autowired
+	CustomerService customerService;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	@DisplayName("Deve atualizar as estatisticas a cada emprestimo e devolucao.")
+	public void incrementalTest() throws Exception {
+		LoanStats before = analytics.stats();
+		assertThat(before.isLoaded()).isTrue();
+		long todayBefore = before.getLoansPerDay().getOrDefault(LocalDate.now(), 0l);
+
+		Book first = bookService.save(Book.builder().isbn("analytics-1").author("Fulano").title("Primeiro").build());
+		Book second = bookService.save(Book.builder().isbn("analytics-2").author("Fulano").title("Segundo").build());
+		Loan loan = loanService.save(loan(first, "cliente-analytics"));
+		loanService.returnBook(loan.getId(), true);
+		loanService.save(loan(first, "cliente-analytics"));
+		loanService.save(loan(second, "outro-cliente"));
+		// mesmo nome, emails diferentes: dois clientes
+		Customer mariaA = customerService.resolve("maria-analytics", "a@email.com");
+		Customer mariaB = customerService.resolve("maria-analytics", "b@email.com");
+		Book third = bookService.save(Book.builder().isbn("analytics-4").author("Fulano").title("Terceiro").build());
+		Book fourth = bookService.save(Book.builder().isbn("analytics-5").author("Fulano").title("Quarto").build());
+		loanService.save(Loan.builder().book(third).customer(mariaA).loanDate(LocalDate.now()).build());
+		loanService.save(Loan.builder().book(fourth).customer(mariaB).loanDate(LocalDate.now()).build());
+
+		LoanStats after = analytics.stats();
+		assertThat(after.getUtilization().getBooks()).isEqualTo(before.getUtilization().getBooks() + 4);
+		assertThat(after.getUtilization().getTotalLoans()).isEqualTo(before.getUtilization().getTotalLoans() + 5);
+		assertThat(after.getUtilization().getLoansOut()).isEqualTo(before.getUtilization().getLoansOut() + 4);
+		assertThat(after.getLoansPerDay().get(LocalDate.now())).isEqualTo(todayBefore + 5);
+		assertThat(after.getTopBooks()).contains(new RankedCount<>(first.getId(), 2));
+		assertThat(after.getTopCustomers()).contains(new RankedCount<>(customer("cliente-analytics"), 2),
+				new RankedCount<>(new CustomerKey(null, "maria-analytics", "a@email.com"), 1),
+				new RankedCount<>(new CustomerKey(null, "maria-analytics", "b@email.com"), 1));
+		assertThat(after.getTopCustomers()).filteredOn(entry -> entry.getKey().getName().equals("maria-analytics"))
+				.extracting(entry -> entry.getKey().getId())
+				.containsExactlyInAnyOrder(mariaA.getId(), mariaB.getId());
+
+		mvc.perform(get("/api/stats/customers/top").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].key.name", hasItem("cliente-analytics")))
+				.andExpect(jsonPath("$[*].key.id", hasItem(mariaA.getId().intValue())))
+				.andExpect(jsonPath("$[*].key.email", hasItem("b@email.com")));
+		mvc.perform(get("/api/stats/utilization").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("totalLoans").value(after.getUtilization().getTotalLoans()));
+	}
+
+	@Test
+	@DisplayName("Deve corrigir divergencias na reconciliacao com um rebuild em paralelo.")
+	public void reconcileTest() {
+		Book book = bookService.save(Book.builder().isbn("analytics-3").author("Fulano").title("Terceiro").build());
+		loanService.save(loan(book, "cliente-rebuild"));
+		// gravado direto no repositorio, sem evento: as estatisticas ficam defasadas
+		loanRepository.save(loan(book, "cliente-rebuild"));
+		loanRepository.save(loan(book, "cliente-rebuild"));
+
+		long drifts = analytics.status().getDrifts();
+		analytics.reconcile();
+
+		AnalyticsStatus status = analytics.status();
+		LoanStats stats = analytics.stats();
+		assertThat(status.getDrifts()).isEqualTo(drifts + 1);
+		assertThat(status.getLastRebuildChunks()).isGreaterThan(1);
+		assertThat(stats.getUtilization().getTotalLoans()).isEqualTo(loanRepository.countWithArchive());
+		assertThat(stats.getUtilization().getLoansOut()).isEqualTo(loanRepository.countNotReturned());
+		assertThat(stats.getTopCustomers()).contains(new RankedCount<>(customer("cliente-rebuild"), 3));
+
+		analytics.reconcile();
+		assertThat(analytics.status().getDrifts()).isEqualTo(drifts + 1);
+	}
+
+	@Test
+	@DisplayName("Nao deve refazer as estatisticas quando a divergencia some na segunda leitura.")
+	public void transientDriftTest() {
+		LoanRepository loans = mock(LoanRepository.class);
+		LoanAnalytics local = new LoanAnalytics(loans, mock(BookRepository.class), 10, 30, 2, 100);
+		local.rebuild();
+		// a primeira leitura ve um emprestimo cujo evento ainda nao chegou
+		when(loans.countForReconciliation()).thenReturn(Collections.singletonList(new Object[] { 1l, 1l, 0l }),
+				Collections.singletonList(new Object[] { 0l, 0l, 0l }));
+
+		local.reconcile();
+
+		AnalyticsStatus status = local.status();
+		assertThat(status.getReconciliations()).isEqualTo(1);
+		assertThat(status.getDrifts()).isZero();
+		assertThat(status.getRebuilds()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve reaplicar no rebuild so os eventos que a varredura ainda nao tinha lido.")
+	public void rebuildReplayTest() {
+		LoanRepository loans = mock(LoanRepository.class);
+		LoanAnalytics local = new LoanAnalytics(loans, mock(BookRepository.class), 10, 30, 2, 100);
+		LocalDate day = LocalDate.now();
+		when(loans.findMinIdWithArchive()).thenReturn(1l);
+		when(loans.findMaxIdWithArchive()).thenReturn(2l);
+		// os dois emprestimos mudam de cliente durante a varredura: o 1 antes da leitura, o 2 depois
+		when(loans.findFactRowsWithArchiveByIdBetween(1l, 2l)).thenAnswer(invocation -> {
+			local.onLoanChanged(changed(1l, "antes-1", "depois-1", day));
+			local.onLoanChanged(changed(2l, "antes-2", "depois-2", day));
+			return Arrays.asList(new Object[] { 1l, 10l, null, "depois-1", null, Date.valueOf(day), true },
+					new Object[] { 2l, 10l, null, "antes-2", null, Date.valueOf(day), true });
+		});
+
+		local.rebuild();
+
+		LoanStats stats = local.stats();
+		assertThat(stats.getUtilization().getTotalLoans()).isEqualTo(2);
+		assertThat(stats.getTopCustomers()).containsExactlyInAnyOrder(new RankedCount<>(customer("depois-1"), 1),
+				new RankedCount<>(customer("depois-2"), 1));
+		assertThat(stats.getLoansPerDay()).containsEntry(day, 2l);
+	}
+
+	private LoanChangedEvent changed(Long id, String before, String after, LocalDate day) {
+		Book book = Book.builder().id(10l).build();
+		Loan previous = Loan.builder().id(id).book(book).customer(Customer.builder().name(before).build())
+				.loanDate(day).returned(true).build();
+		Loan loan = Loan.builder().id(id).book(book).customer(Customer.builder().name(after).build())
+				.loanDate(day).returned(true).build();
+		return new LoanChangedEvent(LoanChangedEvent.Type.UPDATED, loan, previous);
+	}
+
+	// sem email, como em loan(book, customer)
+	private CustomerKey customer(String name) {
+		return new CustomerKey(null, name, "");
+	}
+
+	private Loan loan(Book book, String customer) {
+		return Loan.builder().book(book).customer(customerService.resolve(customer, null)).loanDate(LocalDate.now()).build();
+	}
+
+}
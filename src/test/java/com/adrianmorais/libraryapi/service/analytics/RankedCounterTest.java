@@ -0,0 +1,45 @@
+package com.adrianmorais.libraryapi.service.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RankedCounterTest {
+
+	@Test
+	@DisplayName("Deve manter o ranking ordenado por contagem e chave a cada incremento.")
+	public void rankingTest() {
+		RankedCounter<String> counter = new RankedCounter<>();
+		counter.add("b", 2);
+		counter.add("a", 2);
+		counter.add("c", 5);
+		counter.add("d", 1);
+		counter.add("c", -4);
+
+		assertThat(counter.top(3)).containsExactly(new RankedCount<>("a", 2), new RankedCount<>("b", 2),
+				new RankedCount<>("c", 1));
+
+		counter.add("d", -1);
+		counter.add(null, 1);
+		assertThat(counter.size()).isEqualTo(3);
+		assertThat(counter.get("d")).isZero();
+	}
+
+	@Test
+	@DisplayName("Deve somar contadores parciais de um rebuild em paralelo.")
+	public void mergeTest() {
+		RankedCounter<Long> first = new RankedCounter<>();
+		first.add(1l, 3);
+		first.add(2l, 1);
+		RankedCounter<Long> second = new RankedCounter<>();
+		second.add(2l, 4);
+		second.add(3l, 1);
+
+		first.addAll(second);
+
+		assertThat(first.top(10)).containsExactly(new RankedCount<>(2l, 5), new RankedCount<>(1l, 3),
+				new RankedCount<>(3l, 1));
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.adrianmorais.libraryapi.service.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.adrianmorais.libraryapi.model.entity.ArchivedLoan;
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.ArchivedLoanRepository;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.CustomerService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// intervalo longo: o teste dispara o arquivamento manualmente; sem a migracao a linha antiga continua em texto livre
+@SpringBootTest(properties = { "application.loans.archive.min-age-days=30", "application.loans.archive.batch-size=1",
+		"application.loans.archive.interval-ms=3600000", "application.customers.migration.enabled=false" })
+@AutoConfigureMockMvc
+public class LoanArchiverTest {
+
+	@Autowired
+	LoanArchiver archiver;
+
+	@Autowired
+	CustomerService customerService;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	ArchivedLoanRepository archiveRepository;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	@DisplayName("Deve mover para o arquivo apenas os emprestimos devolvidos antigos e junta-los no historico do livro.")
+	public void archiveTest() throws Exception {
+		Book book = bookRepository.save(Book.builder().isbn("archive-1").author("Fulano").title("Livro").build());
+		Customer customer = customerService.resolve("cliente-arquivo", "arquivo@email.com");
+		LocalDate old = LocalDate.now().minusDays(60);
+		Loan first = loanRepository.save(loan(book, customer, old, true));
+		Loan second = loanRepository.save(loan(book, customer, old.plusDays(1), true));
+		Loan recent = loanRepository.save(loan(book, customer, LocalDate.now().minusDays(1), true));
+		Loan notReturned = loanRepository.save(loan(book, customer, old, false));
+		Loan legacy = loanRepository.save(Loan.builder().book(book).legacyCustomer("cliente-antigo").loanDate(old)
+				.returned(true).build());
+		long totalBefore = loanRepository.countWithArchive();
+		double movedBefore = registry.get(LoanArchiver.MOVED_METRIC).counter().count();
+
+		assertThat(archiver.archive()).isGreaterThanOrEqualTo(2);
+
+		assertThat(loanRepository.findById(first.getId())).isEmpty();
+		assertThat(loanRepository.findById(second.getId())).isEmpty();
+		ArchivedLoan archived = archiveRepository.findById(first.getId()).get();
+		assertThat(archived.getCustomer().getId()).isEqualTo(customer.getId());
+		assertThat(archived.getBook().getId()).isEqualTo(book.getId());
+		assertThat(archived.getLoanDate()).isEqualTo(old);
+		assertThat(archived.getArchivedAt()).isNotNull();
+		assertThat(loanRepository.findById(recent.getId())).isPresent();
+		assertThat(loanRepository.findById(notReturned.getId())).isPresent();
+		assertThat(loanRepository.findById(legacy.getId())).isPresent();
+
+		assertThat(loanRepository.countWithArchive()).isEqualTo(totalBefore);
+		assertThat(registry.get(LoanArchiver.MOVED_METRIC).counter().count() - movedBefore).isGreaterThanOrEqualTo(2);
+		assertThat(registry.get(LoanArchiver.HOT_SIZE_METRIC).gauge().value()).isEqualTo(loanRepository.count());
+		assertThat(registry.get(LoanArchiver.ARCHIVE_SIZE_METRIC).gauge().value()).isEqualTo(archiveRepository.count());
+
+		String url = "/api/books/" + book.getId() + "/loans";
+		mvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("total").value(3));
+		// a ordenacao vale para a uniao: o mais recente (atual) seguido do segundo mais recente (arquivado)
+		mvc.perform(get(url + "?history=true&size=2&page=0&sort=loanDate,desc").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("total").value(5))
+				.andExpect(jsonPath("items[0].id").value(recent.getId()))
+				.andExpect(jsonPath("items[1].id").value(second.getId()))
+				.andExpect(jsonPath("items[1].customer").value("cliente-arquivo"))
+				.andExpect(jsonPath("items[1].book.isbn").value("archive-1"));
+		// mesma data: id desempata
+		mvc.perform(get(url + "?history=true&size=2&page=1&sort=loanDate,desc").accept(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("items[0].id").value(first.getId()))
+				.andExpect(jsonPath("items[1].id").value(notReturned.getId()));
+		mvc.perform(get(url + "?history=true&size=2&page=2&sort=id").accept(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("items.length()").value(1))
+				.andExpect(jsonPath("items[0].id").value(legacy.getId()))
+				.andExpect(jsonPath("items[0].customer").value("cliente-antigo"));
+	}
+
+	private Loan loan(Book book, Customer customer, LocalDate loanDate, boolean returned) {
+		return Loan.builder().book(book).customer(customer).loanDate(loanDate).returned(returned).build();
+	}
+
+}
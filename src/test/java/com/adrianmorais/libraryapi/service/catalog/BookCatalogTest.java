@@ -0,0 +1,104 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+
+public class BookCatalogTest {
+
+	@Test
+	@DisplayName("Deve encontrar livros por id e isbn apos a carga.")
+	public void loadAndLookupTest() {
+		BookCatalog catalog = new BookCatalog();
+		catalog.load(books(1000));
+
+		assertThat(catalog.isLoaded()).isTrue();
+		for (long id = 1; id <= 1000; id++) {
+			Book book = catalog.getById(id).get();
+			assertThat(book.getIsbn()).isEqualTo("isbn-" + id);
+			assertThat(catalog.getByIsbn("isbn-" + id)).hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(book.getId()));
+		}
+		assertThat(catalog.getById(1001)).isEmpty();
+		assertThat(catalog.getByIsbn("isbn-1001")).isEmpty();
+
+		CatalogStats stats = catalog.stats();
+		assertThat(stats.getBooks()).isEqualTo(1000);
+		assertThat(stats.getDistinctAuthors()).isEqualTo(10);
+		assertThat(stats.getBytesPerBook()).isLessThan(stats.getBoxedBytesPerBook());
+	}
+
+	@Test
+	@DisplayName("Deve refletir alteracao de isbn e remocao, reaproveitando a linha livre.")
+	public void updateAndRemoveTest() {
+		BookCatalog catalog = new BookCatalog();
+		catalog.load(books(500));
+
+		catalog.put(Book.builder().id(10l).title("Novo titulo").author("Outro autor").isbn("novo-isbn").build());
+		assertThat(catalog.getByIsbn("isbn-10")).isEmpty();
+		assertThat(catalog.getByIsbn("novo-isbn").get().getTitle()).isEqualTo("Novo titulo");
+		assertThat(catalog.getById(10).get().getAuthor()).isEqualTo("Outro autor");
+
+		for (long id = 1; id <= 500; id += 2)
+			catalog.remove(id);
+		catalog.put(Book.builder().id(501l).title("Reuso").author("Autor 1").isbn("isbn-501").build());
+
+		for (long id = 1; id <= 500; id++)
+			assertThat(catalog.getById(id).isPresent()).isEqualTo(id % 2 == 0);
+		assertThat(catalog.getByIsbn("isbn-3")).isEmpty();
+		assertThat(catalog.getById(501)).isPresent();
+		assertThat(catalog.stats().getBooks()).isEqualTo(251);
+		assertThat(catalog.stats().getCapacity()).isEqualTo(512);
+	}
+
+	@Test
+	@DisplayName("Deve filtrar, ordenar e paginar como a busca do repositorio.")
+	public void findTest() {
+		BookCatalog catalog = new BookCatalog();
+		catalog.load(books(100));
+
+		Page<Book> page = catalog.find(Book.builder().author("AUTOR 3").build(),
+				PageRequest.of(1, 4, Sort.by(Sort.Direction.DESC, "id")));
+
+		assertThat(page.getTotalElements()).isEqualTo(10);
+		assertThat(page.getContent()).extracting(Book::getId).containsExactly(53l, 43l, 33l, 23l);
+
+		Page<Book> byTitle = catalog.find(Book.builder().title("livro 10").build(), PageRequest.of(0, 10));
+		assertThat(byTitle.getContent()).extracting(Book::getId).containsExactly(10l, 100l);
+	}
+
+	@Test
+	@DisplayName("Deve reaplicar as alteracoes recebidas enquanto a carga lia o snapshot.")
+	public void changesDuringLoadTest() {
+		BookCatalog catalog = new BookCatalog();
+		catalog.loadFrom(() -> {
+			// confirmadas depois da consulta: o snapshot ainda traz o estado anterior
+			List<Book> snapshot = books(10);
+			catalog.put(Book.builder().id(11l).title("Novo").author("Autor 1").isbn("isbn-11").build());
+			catalog.put(Book.builder().id(5l).title("Alterado").author("Autor 5").isbn("isbn-5").build());
+			catalog.remove(7);
+			return snapshot;
+		});
+
+		assertThat(catalog.getById(11)).isPresent();
+		assertThat(catalog.getById(5).get().getTitle()).isEqualTo("Alterado");
+		assertThat(catalog.getById(7)).isEmpty();
+		assertThat(catalog.stats().getBooks()).isEqualTo(10);
+	}
+
+	private List<Book> books(int count) {
+		List<Book> books = new ArrayList<>();
+		for (long id = 1; id <= count; id++)
+			books.add(Book.builder().id(id).title("Livro " + id).author("Autor " + (id % 10)).isbn("isbn-" + id).build());
+		return books;
+	}
+
+}
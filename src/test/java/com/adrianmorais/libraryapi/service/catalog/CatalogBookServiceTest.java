@@ -0,0 +1,71 @@
+package com.adrianmorais.libraryapi.service.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+
+@SpringBootTest(properties = "application.catalog.snapshot.enabled=true")
+public class CatalogBookServiceTest {
+
+	@Autowired
+	BookService service;
+
+	@Autowired
+	BookCatalog catalog;
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	@DisplayName("Deve servir as leituras pelo catalogo e mante-lo atualizado pelas escritas.")
+	public void readsFromCatalogTest() {
+		assertThat(service).isInstanceOf(CatalogBookService.class);
+		assertThat(catalog.isLoaded()).isTrue();
+
+		Book book = service.save(Book.builder().isbn("catalog-123").author("Fulano").title("As aventuras").build());
+		CatalogStats before = catalog.stats();
+
+		assertThat(service.getById(book.getId())).hasValueSatisfying(found -> assertThat(found.getTitle()).isEqualTo("As aventuras"));
+		assertThat(service.getBookByIsbn("catalog-123")).isPresent();
+		assertThat(service.find(Book.builder().title("aventuras").build(), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+		CatalogStats after = catalog.stats();
+		assertThat(after.getIdLookups()).isEqualTo(before.getIdLookups() + 1);
+		assertThat(after.getIsbnLookups()).isEqualTo(before.getIsbnLookups() + 1);
+
+		service.update(book.getId(), Book.builder().isbn("catalog-456").author("Fulano").title("Outro titulo").build());
+		assertThat(service.getBookByIsbn("catalog-123")).isEmpty();
+		assertThat(service.getBookByIsbn("catalog-456").get().getTitle()).isEqualTo("Outro titulo");
+
+		service.delete(service.getById(book.getId()).get());
+		assertThat(service.getById(book.getId())).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve ler do banco dentro de uma transacao e ignorar escritas desfeitas.")
+	public void rolledBackWritesTest() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		transaction.execute(status -> {
+			status.setRollbackOnly();
+			Book book = service.save(Book.builder().isbn("catalog-789").author("Fulano").title("Rascunho").build());
+			assertThat(service.getById(book.getId())).isPresent();
+			return null;
+		});
+
+		assertThat(service.getBookByIsbn("catalog-789")).isEmpty();
+		assertThat(repository.findByIsbn("catalog-789")).isEmpty();
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.adrianmorais.libraryapi.service.changes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.ChangeLogHorizonRepository;
+import com.adrianmorais.libraryapi.model.repository.ChangeLogRepository;
+import com.adrianmorais.libraryapi.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// compactacao disparada manualmente, sem espera para entradas substituidas nem retencao de exclusoes
+@SpringBootTest(properties = { "application.changes.compaction-interval-ms=3600000",
+		"application.changes.compact-after-ms=0", "application.changes.tombstone-retention-days=0" })
+@AutoConfigureMockMvc
+public class ChangeFeedTest {
+
+	@Autowired
+	ChangeLog changeLog;
+
+	@Autowired
+	ChangeFeed changeFeed;
+
+	@Autowired
+	BookService bookService;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	ChangeLogRepository repository;
+
+	@Autowired
+	ChangeLogHorizonRepository horizons;
+
+	@Autowired
+	ModelMapper modelMapper;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Test
+	@DisplayName("Deve listar as alteracoes depois do cursor e entregar as novas por long-poll e SSE.")
+	public void changesTest() throws Exception {
+		long start = changeLog.visibleUpTo();
+		Book book = bookService.save(Book.builder().isbn("changes-1").author("Fulano").title("Livro").build());
+		book.setTitle("Livro revisado");
+		bookService.update(book);
+
+		mvc.perform(get("/api/changes?since=" + start).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items.length()").value(2))
+				.andExpect(jsonPath("items[0].entity").value("book"))
+				.andExpect(jsonPath("items[0].id").value(book.getId()))
+				.andExpect(jsonPath("items[0].type").value("CREATED"))
+				.andExpect(jsonPath("items[1].type").value("UPDATED"))
+				.andExpect(jsonPath("items[1].data.title").value("Livro revisado"))
+				.andExpect(jsonPath("cursor").value(start + 2))
+				.andExpect(jsonPath("more").value(false));
+
+		long cursor = changeLog.visibleUpTo();
+		MvcResult poll = mvc.perform(get("/api/changes?wait=true&since=" + cursor).accept(MediaType.APPLICATION_JSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult stream = mvc.perform(get("/api/changes/stream?since=" + cursor).accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		bookService.delete(book);
+
+		poll.getAsyncResult(5000);
+		mvc.perform(asyncDispatch(poll))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items.length()").value(1))
+				.andExpect(jsonPath("items[0].type").value("DELETED"))
+				.andExpect(jsonPath("items[0].data").isEmpty())
+				.andExpect(jsonPath("cursor").value(cursor + 1));
+
+		String events = "";
+		for (int i = 0; i < 50 && !events.contains("event:book"); i++) {
+			Thread.sleep(100);
+			events = stream.getResponse().getContentAsString();
+		}
+		assertThat(events).contains("id:" + (cursor + 1)).contains("event:book").contains("\"type\":\"DELETED\"");
+	}
+
+	@Test
+	@DisplayName("Deve compactar as alteracoes substituidas e expirar cursores anteriores a exclusoes removidas.")
+	public void compactTest() throws Exception {
+		long start = changeLog.visibleUpTo();
+		Book kept = bookService.save(Book.builder().isbn("changes-2").author("Fulano").title("Livro").build());
+		kept.setTitle("Livro revisado");
+		bookService.update(kept);
+		long beforeDelete = changeLog.visibleUpTo();
+		Book deleted = bookService.save(Book.builder().isbn("changes-3").author("Fulano").title("Livro").build());
+		bookService.delete(deleted);
+		long afterDelete = changeLog.visibleUpTo();
+
+		changeLog.compact();
+
+		mvc.perform(get("/api/changes?since=" + start).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isGone());
+		mvc.perform(get("/api/changes?since=" + afterDelete).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items.length()").value(0));
+		// since=0 continua sendo uma sincronizacao completa: o ultimo estado de cada livro
+		mvc.perform(get("/api/changes?since=0&limit=500").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items[?(@.entity == 'book' && @.id == " + kept.getId() + ")].type").value("UPDATED"))
+				.andExpect(jsonPath("items[?(@.entity == 'book' && @.id == " + deleted.getId() + ")]").isEmpty());
+		assertThat(changeLog.isExpired(beforeDelete)).isTrue();
+		mvc.perform(get("/api/changes?since=0&limit=0").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("Deve segurar o cursor num id tirado por outra instancia ate a entrada aparecer.")
+	public void otherInstanceGapTest() throws Exception {
+		changeLog.visibleUpTo();
+		// outra instancia tira o id da sequence e ainda nao confirmou
+		long other = jdbcTemplate.queryForObject("select nextval('change_log_seq')", Long.class);
+		Book book = bookService.save(Book.builder().isbn("changes-4").author("Fulano").title("Livro").build());
+
+		assertThat(changeLog.visibleUpTo()).isEqualTo(other - 1);
+
+		jdbcTemplate.update("insert into change_log_entry (id, entity, entity_id, type, created_at) "
+				+ "values (?, 'book', ?, 'UPDATED', current_timestamp)", other, book.getId());
+
+		assertThat(changeLog.visibleUpTo()).isEqualTo(other + 1);
+		mvc.perform(get("/api/changes?since=" + (other - 1)).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items.length()").value(2))
+				.andExpect(jsonPath("items[0].type").value("UPDATED"))
+				.andExpect(jsonPath("items[1].type").value("CREATED"));
+	}
+
+	@Test
+	@DisplayName("Deve entregar ao long-poll uma entrada confirmada por outra instancia.")
+	public void otherInstanceWakesLongPollTest() throws Exception {
+		Book book = bookService.save(Book.builder().isbn("changes-5").author("Fulano").title("Livro").build());
+		long cursor = changeLog.visibleUpTo();
+		MvcResult poll = mvc.perform(get("/api/changes?wait=true&since=" + cursor).accept(MediaType.APPLICATION_JSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		// commit de outra instancia: nenhuma transacao desta instancia termina
+		long other = jdbcTemplate.queryForObject("select nextval('change_log_seq')", Long.class);
+		jdbcTemplate.update("insert into change_log_entry (id, entity, entity_id, type, created_at) "
+				+ "values (?, 'book', ?, 'UPDATED', current_timestamp)", other, book.getId());
+		changeFeed.poll();
+
+		poll.getAsyncResult(5000);
+		mvc.perform(asyncDispatch(poll))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("items.length()").value(1))
+				.andExpect(jsonPath("items[0].type").value("UPDATED"))
+				.andExpect(jsonPath("cursor").value(other));
+	}
+
+	@Test
+	@DisplayName("Deve validar o cursor pelo banco: ids e compactacao de outra instancia.")
+	public void otherInstanceCursorTest() throws Exception {
+		ChangeLog other = new ChangeLog(repository, horizons, modelMapper, objectMapper, 0, 0, 10_000);
+		Book book = bookService.save(Book.builder().isbn("changes-6").author("Fulano").title("Livro").build());
+		long beforeDelete = changeLog.visibleUpTo();
+		assertThat(changeLog.isExpired(beforeDelete)).isFalse();
+
+		// cursor entregue pela outra instancia, maior que qualquer id que esta ja viu
+		long otherId = jdbcTemplate.queryForObject("select nextval('change_log_seq')", Long.class);
+		jdbcTemplate.update("insert into change_log_entry (id, entity, entity_id, type, created_at) "
+				+ "values (?, 'book', ?, 'UPDATED', current_timestamp)", otherId, book.getId());
+		assertThat(changeLog.isExpired(otherId)).isFalse();
+		assertThat(changeLog.isExpired(otherId + 1_000)).isTrue();
+
+		bookService.delete(book);
+		other.compact();
+
+		assertThat(changeLog.isExpired(beforeDelete)).isTrue();
+		mvc.perform(get("/api/changes?since=" + beforeDelete).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isGone());
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.adrianmorais.libraryapi.service.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SingleFlightTest {
+
+	static final int CALLERS = 8;
+
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("Deve executar uma unica consulta para chamadas concorrentes com a mesma chave.")
+	public void coalesceConcurrentCallsTest() throws Exception {
+		SingleFlight<Long, StringBuilder> flight = new SingleFlight<>("test", 5_000, StringBuilder::new, registry);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger queries = new AtomicInteger();
+
+		List<Future<StringBuilder>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> flight.execute(1L, () -> {
+				queries.incrementAndGet();
+				await(release);
+				return new StringBuilder("livro");
+			})));
+		}
+		waitUntil(() -> registry.counter(SingleFlight.CALLS_METRIC, "key", "test", "role", "follower").count() == CALLERS - 1);
+		release.countDown();
+
+		List<StringBuilder> values = new ArrayList<>();
+		for (Future<StringBuilder> result : results)
+			values.add(result.get(5, TimeUnit.SECONDS));
+
+		assertThat(queries.get()).isEqualTo(1);
+		assertThat(values).extracting(StringBuilder::toString).containsOnly("livro");
+		assertThat(values.stream().distinct().count()).isEqualTo(CALLERS);
+		assertThat(flight.inFlight()).isZero();
+		assertThat(registry.get(SingleFlight.RATIO_METRIC).gauge().value()).isEqualTo((CALLERS - 1) / (double) CALLERS);
+
+		flight.execute(1L, () -> new StringBuilder("de novo"));
+		assertThat(registry.counter(SingleFlight.CALLS_METRIC, "key", "test", "role", "leader").count()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve consultar por conta propria depois do timeout e repassar o erro do lider.")
+	public void timeoutAndFailureTest() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>("test", 50, s -> s, registry);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> flight.execute("123", () -> {
+			await(release);
+			throw new IllegalStateException("banco fora");
+		}));
+		waitUntil(() -> flight.inFlight() == 1);
+
+		assertThat(flight.execute("123", () -> "proprio")).isEqualTo("proprio");
+		assertThat(registry.counter(SingleFlight.CALLS_METRIC, "key", "test", "role", "timeout").count()).isEqualTo(1);
+
+		SingleFlight<String, String> patient = new SingleFlight<>("patient", 5_000, s -> s, registry);
+		CountDownLatch started = new CountDownLatch(1);
+		Future<String> failing = executor.submit(() -> patient.execute("123", () -> {
+			started.countDown();
+			await(release);
+			throw new IllegalStateException("banco fora");
+		}));
+		started.await(5, TimeUnit.SECONDS);
+		Future<String> follower = executor.submit(() -> patient.execute("123", () -> "nao deveria rodar"));
+		waitUntil(() -> registry.counter(SingleFlight.CALLS_METRIC, "key", "patient", "role", "follower").count() == 1);
+		release.countDown();
+
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("banco fora");
+		assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		assertThat(patient.inFlight()).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+}
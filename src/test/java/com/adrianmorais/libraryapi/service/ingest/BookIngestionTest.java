@@ -0,0 +1,179 @@
+package com.adrianmorais.libraryapi.service.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.IngestionProgressRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+public class BookIngestionTest {
+
+	@Autowired
+	BookRepository repository;
+
+	@Autowired
+	IngestionProgressRepository progressRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	@DisplayName("Deve carregar o CSV em blocos paralelos, deduplicando pelos isbns normalizados.")
+	public void ingestTest() throws Exception {
+		String existing = isbn("97812345", 0);
+		repository.save(Book.builder().isbn(existing.substring(0, 3) + "-" + existing.substring(3)).title("Ja cadastrado").build());
+
+		StringBuilder csv = new StringBuilder("﻿isbn,title,author\n");
+		for (int i = 0; i < 2000; i++)
+			csv.append(isbn("97812345", i)).append(",Livro ").append(i).append(",Autor ").append(i % 7)
+					.append(i % 3 == 0 ? "\r\n" : "\n");
+		csv.append(isbn10(isbn("97812345", 1))).append(",Mesmo livro em ISBN-10,Fulano\n");
+		csv.append(isbn("97812345", 2000)).append(",\"Livro, volume \"\"1\"\"\",Fulano\n");
+		String hyphenated = isbn("97812345", 2002).substring(0, 3) + "-" + isbn("97812345", 2002).substring(3);
+		csv.append(hyphenated).append(",Com hifen,Fulano\n");
+		csv.append("123,Isbn invalido,Fulano\n");
+		csv.append(isbn("97812345", 2001)).append(",,Sem titulo\n");
+		String valid = isbn("97812345", 3);
+		csv.append(valid, 0, 12).append((valid.charAt(12) - '0' + 1) % 10).append(",Digito errado,Fulano");
+		Path file = write("books.csv", csv);
+
+		IngestionReport report = ingestion(jdbcTemplate, 2).ingest(file);
+
+		assertThat(report.getChunks()).isGreaterThan(1);
+		assertThat(report.getRowsParsed()).isEqualTo(2003);
+		assertThat(report.getRowsRejected()).isEqualTo(3);
+		assertThat(report.getDuplicates()).isEqualTo(2);
+		assertThat(report.getRowsInserted()).isEqualTo(2001);
+		assertThat(report.getWriteRowsPerSecond()).isPositive();
+		assertThat(count("97812345%")).isEqualTo(2000);
+		assertThat(repository.findByIsbn(isbn("97812345", 2000)).get().getTitle()).isEqualTo("Livro, volume \"1\"");
+		// gravado como esta no arquivo, o mesmo valor que o cadastro e as buscas pela API usam
+		assertThat(repository.findByIsbn(hyphenated).get().getTitle()).isEqualTo("Com hifen");
+		assertThat(progress(file)).isZero();
+		// cada livro novo entra no change log, como um cadastro pela API
+		assertThat(jdbcTemplate.queryForObject("select count(*) from change_log_entry e join book b on b.id = e.entity_id "
+				+ "where e.entity = 'book' and e.type = 'CREATED' and b.isbn like '97812345%'", Integer.class)).isEqualTo(2000);
+		Book loaded = repository.findByIsbn(isbn("97812345", 2000)).get();
+		assertThat(jdbcTemplate.queryForObject("select data from change_log_entry where entity = 'book' and entity_id = ?",
+				String.class, loaded.getId())).contains("\"id\":" + loaded.getId()).contains("Livro, volume");
+	}
+
+	@Test
+	@DisplayName("Deve retomar uma carga interrompida sem gravar o mesmo livro duas vezes.")
+	public void resumeTest() throws Exception {
+		StringBuilder csv = new StringBuilder("isbn,title,author\n");
+		for (int i = 0; i < 1500; i++)
+			csv.append(isbn("97812346", i)).append(",Livro ").append(i).append(",Fulano\n");
+		Path file = write("resume.csv", csv);
+
+		JdbcTemplate failing = spy(jdbcTemplate);
+		AtomicInteger batches = new AtomicInteger();
+		doAnswer(invocation -> {
+			if (batches.incrementAndGet() == 6)
+				throw new DataAccessResourceFailureException("Disk full");
+			return invocation.callRealMethod();
+		}).when(failing).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+		assertThatThrownBy(() -> ingestion(failing, 1).ingest(file)).isInstanceOf(IllegalStateException.class)
+				.hasRootCauseInstanceOf(DataAccessResourceFailureException.class);
+		assertThat(count("97812346%")).isBetween(1, 1499);
+		int completed = progress(file);
+		assertThat(completed).isPositive();
+
+		IngestionReport report = ingestion(jdbcTemplate, 1).ingest(file);
+		assertThat(report.getChunksSkipped()).isEqualTo(completed);
+		assertThat(count("97812346%")).isEqualTo(1500);
+		assertThat(jdbcTemplate.queryForObject("select count(distinct isbn) from book where isbn like '97812346%'",
+				Integer.class)).isEqualTo(1500);
+		// o lote que falhou desfez livros e entradas do change log juntos
+		assertThat(jdbcTemplate.queryForObject("select count(*) from change_log_entry e join book b on b.id = e.entity_id "
+				+ "where e.entity = 'book' and b.isbn like '97812346%'", Integer.class)).isEqualTo(1500);
+		assertThat(progress(file)).isZero();
+	}
+
+	@Test
+	@DisplayName("Deve normalizar ISBN-10 e ISBN-13 com ou sem hifens para o mesmo ISBN-13.")
+	public void normalizeTest() {
+		assertThat(Isbn.normalize("0-306-40615-2")).isEqualTo("9780306406157");
+		assertThat(Isbn.normalize("978-0-306-40615-7")).isEqualTo("9780306406157");
+		assertThat(Isbn.normalize("0 8044 2957 x")).isEqualTo("9780804429573");
+		assertThat(Isbn.normalize("0-306-40615-3")).isNull();
+		assertThat(Isbn.normalize("1234567890123")).isNull();
+		assertThat(Isbn.normalize("123")).isNull();
+
+		IsbnSet set = new IsbnSet(2);
+		for (long i = 0; i < 1000; i++)
+			assertThat(set.add(9780000000000L + i)).isTrue();
+		assertThat(set.add(9780000000000L)).isFalse();
+		assertThat(set.size()).isEqualTo(1000);
+	}
+
+	private BookIngestion ingestion(JdbcTemplate jdbcTemplate, int writers) {
+		// blocos de 4 KB e lotes de 100: dezenas de blocos e lotes com poucos milhares de linhas
+		return new BookIngestion(repository, progressRepository, jdbcTemplate, transactionManager, objectMapper, true,
+				4096L, 100, 4, 4, writers, 1000);
+	}
+
+	private int progress(Path file) {
+		return progressRepository.findByFile(file.toAbsolutePath().normalize().toString()).size();
+	}
+
+	private Path write(String name, StringBuilder content) throws Exception {
+		return Files.write(dir.resolve(name), content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private int count(String isbnPattern) {
+		return jdbcTemplate.queryForObject("select count(*) from book where isbn like ?", Integer.class, isbnPattern);
+	}
+
+	// ISBN-13 valido: prefixo + sequencia ate 12 digitos + digito verificador
+	private static String isbn(String prefix, int sequence) {
+		String digits = prefix + String.format("%0" + (12 - prefix.length()) + "d", sequence);
+		int sum = 0;
+		for (int i = 0; i < 12; i++)
+			sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+		return digits + (10 - sum % 10) % 10;
+	}
+
+	private static String isbn10(String isbn13) {
+		String digits = isbn13.substring(3, 12);
+		int sum = 0;
+		for (int i = 0; i < 9; i++)
+			sum += (digits.charAt(i) - '0') * (10 - i);
+		int check = (11 - sum % 11) % 11;
+		return digits + (check == 10 ? "X" : String.valueOf(check));
+	}
+}
@@ -0,0 +1,155 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.adrianmorais.libraryapi.model.repository.InvalidationEntryRepository;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Varias instancias simuladas no mesmo processo: cada no tem seu InvalidationBus, seu transporte e um
+ * "cache" proprio, todos sobre o mesmo banco de teste.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class InvalidationBusTest {
+
+	static final int NODES = 3;
+	static final int MESSAGES = 200;
+	static final String ENTITY = "harness";
+
+	@Autowired
+	InvalidationEntryRepository repository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	List<Node> nodes = new ArrayList<>();
+	TransactionTemplate transaction;
+	long base = System.nanoTime();
+
+	@BeforeEach
+	public void setUp() {
+		transaction = new TransactionTemplate(transactionManager);
+		for (int i = 0; i < NODES; i++)
+			nodes.add(new Node(new DatabaseInvalidationTransport(repository, 10, 2_000, 600_000, 60_000)));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		nodes.forEach(node -> node.bus.stop());
+	}
+
+	@Test
+	@DisplayName("Deve entregar as invalidacoes de uma instancia a todas as outras.")
+	public void propagationTest() throws Exception {
+		Node origin = nodes.get(0);
+		for (int i = 0; i < MESSAGES; i++) {
+			long id = base + i;
+			transaction.execute(status -> {
+				origin.bus.publish(ENTITY, id);
+				return null;
+			});
+		}
+
+		for (Node node : nodes.subList(1, NODES))
+			waitUntil(() -> node.evicted.size() == MESSAGES);
+		Thread.sleep(50);
+		assertThat(origin.evicted).isEmpty();
+
+		System.out.printf("%n[invalidation] %d nodes, %d changes on one node%n", NODES, MESSAGES);
+		System.out.printf("[invalidation] published: %.0f messages%n", origin.registry.counter(InvalidationBus.PUBLISHED_METRIC).count());
+		for (int i = 1; i < NODES; i++) {
+			Node node = nodes.get(i);
+			Timer latency = node.registry.timer(InvalidationBus.LATENCY_METRIC);
+			assertThat(node.registry.counter(InvalidationBus.RECEIVED_METRIC).count()).isEqualTo(MESSAGES);
+			System.out.printf("[invalidation] node %d: received %.0f, latency mean %.1f ms, max %.1f ms%n", i,
+					node.registry.counter(InvalidationBus.RECEIVED_METRIC).count(), latency.mean(TimeUnit.MILLISECONDS),
+					latency.max(TimeUnit.MILLISECONDS));
+		}
+	}
+
+	@Test
+	@DisplayName("Deve entregar a invalidacao de uma transacao que confirmou depois de outra mais nova.")
+	public void lateCommitTest() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch published = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		try {
+			Future<?> slow = executor.submit(() -> transaction.execute(status -> {
+				nodes.get(0).bus.publish(ENTITY, base);
+				published.countDown();
+				await(commit);
+				return null;
+			}));
+			published.await(5, TimeUnit.SECONDS);
+			transaction.execute(status -> {
+				nodes.get(0).bus.publish(ENTITY, base + 1);
+				return null;
+			});
+
+			Node peer = nodes.get(1);
+			waitUntil(() -> peer.evicted.contains(base + 1));
+			assertThat(peer.evicted).doesNotContain(base);
+
+			commit.countDown();
+			slow.get(5, TimeUnit.SECONDS);
+			waitUntil(() -> peer.evicted.contains(base));
+		} finally {
+			commit.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+
+	class Node {
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final InvalidationBus bus;
+		final Set<Long> evicted = ConcurrentHashMap.newKeySet();
+
+		Node(InvalidationTransport transport) {
+			bus = new InvalidationBus(transport, registry);
+			bus.addListener(ENTITY, id -> {
+				if (id >= base)
+					evicted.add(id);
+			});
+			bus.start();
+		}
+	}
+}
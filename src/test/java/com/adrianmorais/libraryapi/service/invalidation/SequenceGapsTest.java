@@ -0,0 +1,40 @@
+package com.adrianmorais.libraryapi.service.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SequenceGapsTest {
+
+	@Test
+	@DisplayName("Deve segurar os ids pulados ate aparecerem ou assentarem.")
+	public void gapsTest() {
+		SequenceGaps gaps = new SequenceGaps(100);
+		gaps.record(10, 14, 1_000, id -> id == 12);
+
+		assertThat(gaps.missing()).containsExactly(11L, 13L);
+		assertThat(gaps.isOpen(10, 14, 1_050, id -> false)).isTrue();
+
+		assertThat(gaps.remove(11)).isTrue();
+		assertThat(gaps.remove(11)).isFalse();
+		assertThat(gaps.isOpen(10, 14, 1_100, id -> false)).isFalse();
+		assertThat(gaps.isOpen(10, 14, 1_100, id -> id == 13)).isTrue();
+
+		gaps.expire(1_100);
+		assertThat(gaps.isEmpty()).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve ignorar saltos maiores que MAX_GAPS, que sao a sequence pulando valores.")
+	public void largeJumpTest() {
+		SequenceGaps gaps = new SequenceGaps(100);
+		gaps.record(0, SequenceGaps.MAX_GAPS + 2, 1_000, id -> false);
+		assertThat(gaps.isEmpty()).isTrue();
+
+		gaps.record(0, 5, 1_000, id -> false);
+		gaps.forget(3);
+		assertThat(gaps.missing()).containsExactly(4L);
+	}
+
+}
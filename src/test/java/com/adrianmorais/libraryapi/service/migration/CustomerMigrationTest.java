@@ -0,0 +1,92 @@
+package com.adrianmorais.libraryapi.service.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.adrianmorais.libraryapi.model.entity.Book;
+import com.adrianmorais.libraryapi.model.entity.Customer;
+import com.adrianmorais.libraryapi.model.entity.Loan;
+import com.adrianmorais.libraryapi.model.repository.BookRepository;
+import com.adrianmorais.libraryapi.model.repository.LoanRepository;
+import com.adrianmorais.libraryapi.service.CustomerService;
+
+// intervalo longo: o teste dispara os lotes manualmente
+@SpringBootTest(properties = { "application.customers.migration.batch-size=2",
+		"application.customers.migration.interval-ms=3600000" })
+@AutoConfigureMockMvc
+public class CustomerMigrationTest {
+
+	@Autowired
+	CustomerMigration migration;
+
+	@Autowired
+	CustomerService customerService;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	LoanRepository loanRepository;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Test
+	@DisplayName("Deve migrar em lotes os clientes em texto livre para a tabela de clientes.")
+	public void migrateTest() throws Exception {
+		Loan[] loans = new Loan[3];
+		for (int i = 0; i < loans.length; i++) {
+			Book book = bookRepository.save(Book.builder().isbn("migration-" + i).author("Fulano").title("Livro").build());
+			loans[i] = loanRepository.save(Loan.builder().book(book).legacyCustomer("cliente-migracao")
+					.legacyCustomerEmail("migracao@email.com").loanDate(LocalDate.now()).build());
+		}
+
+		migration.migrateBatch();
+		assertThat(loanRepository.findLegacyCustomerLoans(0l, PageRequest.of(0, 10))).hasSize(1);
+		migration.migrateBatch();
+		assertThat(migration.isComplete()).isTrue();
+
+		Customer customer = customerService.resolve("cliente-migracao", "migracao@email.com");
+		for (Loan loan : loans) {
+			Loan migrated = loanRepository.findById(loan.getId()).get();
+			assertThat(migrated.getCustomer().getId()).isEqualTo(customer.getId());
+			assertThat(migrated.getLegacyCustomer()).isNull();
+			assertThat(migrated.getLegacyCustomerEmail()).isNull();
+		}
+
+		mvc.perform(get("/api/customers/" + customer.getId() + "/loans?page=0&size=10").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("total").value(3))
+				.andExpect(jsonPath("items[0].customer").value("cliente-migracao"))
+				.andExpect(jsonPath("items[0].email").value("migracao@email.com"));
+	}
+
+	@Test
+	@DisplayName("Deve reaproveitar o mesmo cliente para o mesmo nome e email.")
+	public void resolveTest() throws Exception {
+		Customer first = customerService.resolve("cliente-cache", null);
+		Customer second = customerService.resolve("cliente-cache", null);
+		Customer other = customerService.resolve("cliente-cache", "cache@email.com");
+
+		assertThat(second).isSameAs(first);
+		assertThat(other.getId()).isNotEqualTo(first.getId());
+		assertThat(first.getEmail()).isEmpty();
+
+		mvc.perform(get("/api/customers/999999/loans").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+}